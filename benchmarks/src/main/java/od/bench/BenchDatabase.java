@@ -0,0 +1,155 @@
+package od.bench;
+
+import od.dao.MenuItemDAO;
+import od.db.Database;
+import od.model.MenuItem;
+import od.model.Money;
+import od.model.Order;
+import od.model.OrderItem;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Creates (once per size) and opens a throwaway embedded Derby database
+ * filled with realistic order history, for the DAO benchmarks.
+ *
+ * Data is deterministic (fixed random seed), so every run measures
+ * against exactly the same rows.
+ */
+final class BenchDatabase {
+
+    // Average basket: 1-8 lines, so ~4.5 lines per order
+    static final int MAX_LINES_PER_ORDER = 8;
+
+    // Commit every this many orders while loading
+    private static final int LOAD_COMMIT_EVERY = 2_000;
+
+    private static boolean opened;
+
+    private BenchDatabase() {}
+
+    /**
+     * Points Database at a database holding (about) {@code lines} order lines,
+     * building it first if it does not exist yet. Must run before anything
+     * touches od.db.Database, since the URL is read once per JVM.
+     *
+     * @return number of orders in the database
+     */
+    static synchronized int open(int lines) throws SQLException, IOException {
+        Path dir = Paths.get(System.getProperty("od.bench.dir", "target/bench-db"))
+                .toAbsolutePath()
+                .resolve("lines-" + lines);
+        Path ready = dir.resolve("READY");
+
+        if (!opened) {
+            System.setProperty("od.db.url", "jdbc:derby:" + dir.resolve("db") + ";create=true");
+            opened = true;
+        }
+
+        if (!Files.exists(ready)) {
+            int orders = populate(lines);
+            Files.writeString(ready, Integer.toString(orders));
+        }
+        return Integer.parseInt(Files.readString(ready).trim());
+    }
+
+    /**
+     * Loads order history using plain batched JDBC (much faster than going
+     * through createNew one order at a time).
+     */
+    private static int populate(int lines) throws SQLException {
+        List<MenuItem> menu = new MenuItemDAO().findAll();
+        SplittableRandom rnd = new SplittableRandom(42);
+        LocalDateTime date = LocalDateTime.of(2024, 1, 1, 6, 0);
+
+        int orders = 0;
+        int written = 0;
+
+        try (Connection conn = Database.get()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement header = conn.prepareStatement(
+                         "INSERT INTO ORDERS (TXN_ID, ORDER_DATE) VALUES (?, ?)",
+                         Statement.RETURN_GENERATED_KEYS);
+                 PreparedStatement line = conn.prepareStatement(
+                         "INSERT INTO ORDER_ITEMS (ORDER_ID, MENU_ITEM_ID, QTY, UNIT_PRICE) VALUES (?,?,?,?)")) {
+
+                while (written < lines) {
+                    // A new order every ~40 seconds, like a busy shop
+                    date = date.plusSeconds(10 + rnd.nextInt(60));
+
+                    header.setString(1, txnId(orders));
+                    header.setTimestamp(2, Timestamp.valueOf(date));
+                    header.executeUpdate();
+
+                    int orderId;
+                    try (ResultSet keys = header.getGeneratedKeys()) {
+                        keys.next();
+                        orderId = keys.getInt(1);
+                    }
+
+                    int n = Math.min(1 + rnd.nextInt(MAX_LINES_PER_ORDER), lines - written);
+                    for (int i = 0; i < n; i++) {
+                        MenuItem m = menu.get(rnd.nextInt(menu.size()));
+                        line.setInt(1, orderId);
+                        line.setInt(2, m.getId());
+                        line.setInt(3, 1 + rnd.nextInt(3));
+                        line.setBigDecimal(4, m.getPrice().toBigDecimal());
+                        line.addBatch();
+                    }
+                    written += n;
+                    orders++;
+
+                    if (orders % LOAD_COMMIT_EVERY == 0) {
+                        line.executeBatch();
+                        conn.commit();
+                    }
+                }
+
+                line.executeBatch();
+                conn.commit();
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+        return orders;
+    }
+
+    /** TXN_ID of the n-th pre-loaded order (stable across runs). */
+    static String txnId(int n) {
+        return "BENCH-" + n;
+    }
+
+    /** A random menu item, for building new orders. */
+    static MenuItem anyMenuItem(List<MenuItem> menu, SplittableRandom rnd) {
+        return menu.get(rnd.nextInt(menu.size()));
+    }
+
+    /** Builds a new, unsaved order with {@code lines} random lines. */
+    static Order newOrder(String txnId, List<MenuItem> menu, int lines, SplittableRandom rnd) {
+        Order order = new Order(null, txnId, LocalDateTime.now());
+        for (int i = 0; i < lines; i++) {
+            MenuItem m = anyMenuItem(menu, rnd);
+            order.addItem(new OrderItem(null, null, m, 1 + rnd.nextInt(3), m.getPrice()));
+        }
+        return order;
+    }
+
+    /** Same as newOrder, for model-only benchmarks that never touch the database. */
+    static Order syntheticOrder(int lines) {
+        SplittableRandom rnd = new SplittableRandom(7);
+        Order order = new Order(1, "20250101-070000-0001", LocalDateTime.of(2025, 1, 1, 7, 0));
+        for (int i = 0; i < lines; i++) {
+            MenuItem m = new MenuItem(i, "Item " + i, i % 2 == 0 ? "Donut" : "Drink",
+                    Money.ofCents(100 + rnd.nextInt(400)), true);
+            order.addItem(new OrderItem(i, 1, m, 1 + rnd.nextInt(3), m.getPrice()));
+        }
+        return order;
+    }
+}
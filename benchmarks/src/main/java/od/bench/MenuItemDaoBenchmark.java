@@ -0,0 +1,47 @@
+package od.bench;
+
+import od.dao.MenuCatalog;
+import od.dao.MenuItemDAO;
+import od.model.MenuItem;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Menu reads: the normal (cached) findAll, and a forced reload from
+ * MENU_ITEMS to show what a cache miss costs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MenuItemDaoBenchmark {
+
+    private final MenuItemDAO menuDAO = new MenuItemDAO();
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        BenchDatabase.open(10_000);
+        menuDAO.findAll(); // warm the catalog
+    }
+
+    @Benchmark
+    public List<MenuItem> findAll() throws SQLException {
+        return menuDAO.findAll();
+    }
+
+    @Benchmark
+    public MenuItem findById() throws SQLException {
+        return menuDAO.findById(1);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public MenuCatalog.Snapshot reloadFromDatabase() throws SQLException {
+        return MenuCatalog.get().reload();
+    }
+}
@@ -0,0 +1,75 @@
+package od.bench;
+
+import od.dao.MenuItemDAO;
+import od.dao.OrderDAO;
+import od.model.MenuItem;
+import od.model.Order;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * OrderDAO hot paths against a pre-loaded Derby database.
+ *
+ *   createNew  — checkout: insert header + lines in one transaction
+ *   findByTxn  — receipt reprint / lookup of one random historical order
+ *   findAll    — full history load (scales with the number of orders)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderDaoBenchmark {
+
+    /** Total order lines pre-loaded into the database. */
+    @Param({"10000", "1000000", "10000000"})
+    public int lines;
+
+    /** Lines per order written by createNew. */
+    @Param({"4"})
+    public int linesPerOrder;
+
+    private final OrderDAO orderDAO = new OrderDAO();
+    private final AtomicLong nextTxn = new AtomicLong();
+    private List<MenuItem> menu;
+    private int orders;
+    private String runId;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        orders = BenchDatabase.open(lines);
+        menu = new MenuItemDAO().findAll();
+        runId = Long.toString(System.currentTimeMillis(), 36);
+    }
+
+    /** Per-thread random source, so threads do not contend on one generator. */
+    @State(Scope.Thread)
+    public static class Rnd {
+        final SplittableRandom rnd = new SplittableRandom(Thread.currentThread().getId());
+    }
+
+    @Benchmark
+    public Order createNew(Rnd r) throws SQLException {
+        String txn = "B" + runId + "-" + nextTxn.incrementAndGet();
+        return orderDAO.createNew(BenchDatabase.newOrder(txn, menu, linesPerOrder, r.rnd));
+    }
+
+    @Benchmark
+    public Order findByTxn(Rnd r) throws SQLException {
+        return orderDAO.findByTxn(BenchDatabase.txnId(r.rnd.nextInt(orders)));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Measurement(iterations = 5)
+    public List<Order> findAll() throws SQLException {
+        return orderDAO.findAll();
+    }
+}
@@ -0,0 +1,65 @@
+package od.bench;
+
+import od.model.Money;
+import od.model.Order;
+import od.model.OrderItem;
+import od.util.Receipt;
+import od.util.ReceiptFormat;
+import od.util.ReceiptRenderer;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CPU-only paths that run on every checkout and reprint: order totals
+ * and receipt text. Run with -prof gc to see allocation per call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PricingBenchmark {
+
+    /** Lines in the order: a normal basket up to a large catering order. */
+    @Param({"4", "40", "400"})
+    public int lines;
+
+    private Order order;
+
+    private final ByteBuffer printerBuffer = ByteBuffer.allocate(64 * 1024);
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        order = BenchDatabase.syntheticOrder(lines);
+    }
+
+    @Benchmark
+    public Money orderGetTotal() {
+        return order.getTotal();
+    }
+
+    /** Re-summing every line from raw cents, as a reporting loop would. */
+    @Benchmark
+    public long sumLineCents() {
+        long total = 0;
+        for (OrderItem item : order.getItems()) {
+            total += item.getLineTotalCents();
+        }
+        return total;
+    }
+
+    @Benchmark
+    public String receiptGenerate() {
+        return Receipt.generate(order);
+    }
+
+    /** Printer bytes into a reused buffer, as a bulk reprint would (should allocate ~0 B/op). */
+    @Benchmark
+    public int receiptRenderEscPos() {
+        printerBuffer.clear();
+        return ReceiptRenderer.standard().render(order, ReceiptFormat.ESC_POS, printerBuffer);
+    }
+}
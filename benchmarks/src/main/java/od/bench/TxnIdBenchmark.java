@@ -0,0 +1,49 @@
+package od.bench;
+
+import od.util.TxnIdGenerator;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Transaction ID generation throughput: the old String.format + random
+ * version against TxnIdGenerator, on one thread and with several
+ * registers' worth of threads sharing one generator.
+ * Run with -prof gc to compare allocation per ID.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TxnIdBenchmark {
+
+    private final TxnIdGenerator generator = new TxnIdGenerator(1);
+
+    /** The previous OrderDAO.generateTxnId(), kept here as the baseline. */
+    @Benchmark
+    public String legacyFormat() {
+        LocalDateTime now = LocalDateTime.now();
+        int rand = ThreadLocalRandom.current().nextInt(1000, 9999);
+
+        return String.format("%04d%02d%02d-%02d%02d%02d-%04d",
+                now.getYear(), now.getMonthValue(), now.getDayOfMonth(),
+                now.getHour(), now.getMinute(), now.getSecond(),
+                rand);
+    }
+
+    @Benchmark
+    public String generator() {
+        return generator.next();
+    }
+
+    /** Same generator under contention (compare-and-set retries). */
+    @Benchmark
+    @Threads(4)
+    public String generatorContended() {
+        return generator.next();
+    }
+}
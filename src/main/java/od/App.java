@@ -1,11 +1,16 @@
 package od;
 
+import od.metrics.Metrics;
 import od.ui.MainFrame;
 
 import javax.swing.*;
 
 public class App {
     public static void main(String[] args) {
+        // Timings are visible in JConsole / VisualVM, and logged once on exit
+        Metrics.registerMBean();
+        Runtime.getRuntime().addShutdownHook(new Thread(Metrics::logReport, "od-metrics-report"));
+
         SwingUtilities.invokeLater(() -> new MainFrame().setVisible(true));
     }
 }
@@ -0,0 +1,170 @@
+package od.analytics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Answers filter / group-by / top-N questions over OrderLineColumns with
+ * parallel fork-join scans.
+ *
+ * Example — top 10 items by revenue between 7 and 9 am last month:
+ * <pre>
+ * OrderLineColumns lines = OrderLineColumns.load(orderDAO, monthStart, monthEnd);
+ * AnalyticsEngine engine = new AnalyticsEngine(lines);
+ * List&lt;AnalyticsEngine.Ranked&gt; top = engine.topN(
+ *         LineFilter.all().timeOfDay(LocalTime.of(7, 0), LocalTime.of(9, 0)),
+ *         GroupBy.MENU_ITEM, Measure.REVENUE_CENTS, 10);
+ * </pre>
+ *
+ * Each group key is a small int (menu item ID, hour, weekday, size code),
+ * so a group-by is just an array of sums: every task fills its own array
+ * for its slice of rows and the arrays are added together on the way up.
+ */
+public final class AnalyticsEngine {
+
+    // Rows per leaf task (big enough that splitting costs are noise)
+    private static final int LEAF_ROWS = 1 << 16;
+
+    /** What to group lines by. */
+    public enum GroupBy {
+        MENU_ITEM,
+        HOUR_OF_DAY,   // 0–23
+        DAY_OF_WEEK,   // 0 = Monday … 6 = Sunday
+        SIZE;          // ItemOptions.Size code
+
+        int groups(OrderLineColumns c) {
+            return switch (this) {
+                case MENU_ITEM -> c.maxMenuItemId + 1;
+                case HOUR_OF_DAY -> 24;
+                case DAY_OF_WEEK -> 7;
+                case SIZE -> 256;
+            };
+        }
+
+        int key(OrderLineColumns c, int i) {
+            return switch (this) {
+                case MENU_ITEM -> c.menuItemId[i];
+                case HOUR_OF_DAY -> Math.floorMod(c.minute[i], 24 * 60) / 60;
+                // 1970-01-01 was a Thursday (3 days after Monday)
+                case DAY_OF_WEEK -> Math.floorMod(Math.floorDiv(c.minute[i], 24 * 60) + 3, 7);
+                case SIZE -> c.sizeCode[i] & 0xFF;
+            };
+        }
+    }
+
+    /** What to add up per group. */
+    public enum Measure {
+        REVENUE_CENTS,
+        QTY,
+        LINES;
+
+        long value(OrderLineColumns c, int i) {
+            return switch (this) {
+                case REVENUE_CENTS -> c.lineCents[i];
+                case QTY -> c.qty[i];
+                case LINES -> 1;
+            };
+        }
+    }
+
+    /** One group of a result: its key (e.g. menu item ID) and its total. */
+    public record Ranked(int key, long value) {}
+
+    private final OrderLineColumns lines;
+    private final ForkJoinPool pool;
+
+    public AnalyticsEngine(OrderLineColumns lines) {
+        this(lines, ForkJoinPool.commonPool());
+    }
+
+    public AnalyticsEngine(OrderLineColumns lines, ForkJoinPool pool) {
+        this.lines = lines;
+        this.pool = pool;
+    }
+
+    /** Total of a measure over the matching lines. */
+    public long total(LineFilter filter, Measure measure) {
+        // Every line falls in exactly one hour, so the 24 hourly sums add up to the total
+        long[] sums = groupBy(filter, GroupBy.HOUR_OF_DAY, measure);
+        long total = 0;
+        for (long v : sums) total += v;
+        return total;
+    }
+
+    /**
+     * Sums a measure per group over the matching lines.
+     *
+     * @return array indexed by group key (e.g. menu item ID); groups with no
+     *         lines are 0
+     */
+    public long[] groupBy(LineFilter filter, GroupBy groupBy, Measure measure) {
+        return pool.invoke(new GroupTask(lines, filter, groupBy, measure, 0, lines.size));
+    }
+
+    /**
+     * The {@code n} groups with the largest totals, largest first
+     * (groups with a total of 0 are left out).
+     */
+    public List<Ranked> topN(LineFilter filter, GroupBy groupBy, Measure measure, int n) {
+        long[] sums = groupBy(filter, groupBy, measure);
+
+        // Min-heap of the best n seen so far
+        PriorityQueue<Ranked> best = new PriorityQueue<>(
+                n + 1, (a, b) -> Long.compare(a.value(), b.value()));
+        for (int key = 0; key < sums.length; key++) {
+            if (sums[key] == 0) continue;
+            if (best.size() < n) {
+                best.add(new Ranked(key, sums[key]));
+            } else if (n > 0 && sums[key] > best.peek().value()) {
+                best.poll();
+                best.add(new Ranked(key, sums[key]));
+            }
+        }
+
+        List<Ranked> out = new ArrayList<>(best);
+        out.sort((a, b) -> Long.compare(b.value(), a.value()));
+        return out;
+    }
+
+    /** Scans rows [from, to): splits in half until small, then sums directly. */
+    private static final class GroupTask extends RecursiveTask<long[]> {
+        private final OrderLineColumns c;
+        private final LineFilter filter;
+        private final GroupBy groupBy;
+        private final Measure measure;
+        private final int from, to;
+
+        GroupTask(OrderLineColumns c, LineFilter filter, GroupBy groupBy, Measure measure, int from, int to) {
+            this.c = c;
+            this.filter = filter;
+            this.groupBy = groupBy;
+            this.measure = measure;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected long[] compute() {
+            if (to - from > LEAF_ROWS) {
+                int mid = (from + to) >>> 1;
+                GroupTask left = new GroupTask(c, filter, groupBy, measure, from, mid);
+                left.fork();
+                long[] right = new GroupTask(c, filter, groupBy, measure, mid, to).compute();
+                long[] sums = left.join();
+                for (int k = 0; k < sums.length; k++) sums[k] += right[k];
+                return sums;
+            }
+
+            long[] sums = new long[groupBy.groups(c)];
+            for (int i = from; i < to; i++) {
+                if (filter.test(c, i)) {
+                    sums[groupBy.key(c, i)] += measure.value(c, i);
+                }
+            }
+            return sums;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package od.analytics;
+
+import od.dao.OrderDAO;
+import od.model.ItemOptions;
+import od.model.MenuItem;
+
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.BitSet;
+import java.util.Collection;
+
+/**
+ * Which order lines a query looks at. Immutable: every with-method
+ * returns a new filter, so filters can be shared and reused.
+ *
+ * Example — lines between 7 and 9 am last month, donuts only:
+ * <pre>
+ * LineFilter.all()
+ *         .between(monthStart, monthEnd)
+ *         .timeOfDay(LocalTime.of(7, 0), LocalTime.of(9, 0))
+ *         .items(catalog.snapshot().byCategory("Donut"));
+ * </pre>
+ */
+public final class LineFilter {
+
+    private static final LineFilter ALL =
+            new LineFilter(Integer.MIN_VALUE, Integer.MAX_VALUE, 0, 24 * 60, null, -1);
+
+    // Epoch minutes, [fromMinute, toMinute)
+    private final int fromMinute, toMinute;
+
+    // Minute of the day, [fromOfDay, toOfDay)
+    private final int fromOfDay, toOfDay;
+
+    // Menu item IDs to keep (null = all items)
+    private final BitSet items;
+
+    // ItemOptions.Size code to keep (-1 = any size)
+    private final int sizeCode;
+
+    private LineFilter(int fromMinute, int toMinute, int fromOfDay, int toOfDay, BitSet items, int sizeCode) {
+        this.fromMinute = fromMinute;
+        this.toMinute = toMinute;
+        this.fromOfDay = fromOfDay;
+        this.toOfDay = toOfDay;
+        this.items = items;
+        this.sizeCode = sizeCode;
+    }
+
+    /** Every line. */
+    public static LineFilter all() { return ALL; }
+
+    /** Orders at or after {@code from} and before {@code to} (either may be null). */
+    public LineFilter between(LocalDateTime from, LocalDateTime to) {
+        return new LineFilter(
+                from == null ? Integer.MIN_VALUE : OrderDAO.epochMinute(from),
+                to == null ? Integer.MAX_VALUE : OrderDAO.epochMinute(to),
+                fromOfDay, toOfDay, items, sizeCode);
+    }
+
+    /** Orders placed between two times of day on any date, e.g. 07:00–09:00. */
+    public LineFilter timeOfDay(LocalTime from, LocalTime to) {
+        int f = from.getHour() * 60 + from.getMinute();
+        int t = to.getHour() * 60 + to.getMinute();
+        if (t <= f) throw new IllegalArgumentException("time-of-day range must not wrap midnight");
+        return new LineFilter(fromMinute, toMinute, f, t, items, sizeCode);
+    }
+
+    /** Only these menu items. */
+    public LineFilter items(Collection<MenuItem> menuItems) {
+        BitSet ids = new BitSet();
+        for (MenuItem m : menuItems) ids.set(m.getId());
+        return new LineFilter(fromMinute, toMinute, fromOfDay, toOfDay, ids, sizeCode);
+    }
+
+    /** Only lines of this size. */
+    public LineFilter size(ItemOptions.Size size) {
+        return new LineFilter(fromMinute, toMinute, fromOfDay, toOfDay, items, size.code());
+    }
+
+    /** Does line i of the columns pass? (Hot path: plain compares only.) */
+    boolean test(OrderLineColumns c, int i) {
+        int m = c.minute[i];
+        if (m < fromMinute || m >= toMinute) return false;
+
+        int ofDay = Math.floorMod(m, 24 * 60);
+        if (ofDay < fromOfDay || ofDay >= toOfDay) return false;
+
+        if (sizeCode >= 0 && c.sizeCode[i] != sizeCode) return false;
+        return items == null || items.get(c.menuItemId[i]);
+    }
+}
@@ -0,0 +1,225 @@
+package od.dao;
+
+import od.metrics.Metrics;
+import od.model.MenuItem;
+
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * In-memory, read-through cache of the whole menu.
+ *
+ * The menu is held as an immutable, versioned Snapshot. Readers just grab
+ * the current snapshot (no locks, no SQL). Whenever MenuItemDAO writes to
+ * MENU_ITEMS, a fresh snapshot is loaded and swapped in atomically, so
+ * readers never see a half-updated menu and never wait for the reload.
+ *
+ * Registers sharing a database (server / client mode) also reload when
+ * another register bumped the "menu.version" counter (see SharedVersion),
+ * checked at most every few seconds.
+ *
+ * MenuItem objects handed out by the cache are shared between callers —
+ * treat them as read-only and go through MenuItemDAO.update() to change one.
+ */
+public final class MenuCatalog {
+
+    // One catalog for the whole app (every MenuItemDAO shares it)
+    private static final MenuCatalog INSTANCE = new MenuCatalog();
+
+    private final AtomicReference<Snapshot> current = new AtomicReference<>();
+
+    // Serializes reloads so a burst of misses causes only one SQL load
+    private final Object reloadLock = new Object();
+
+    // Bumped by MenuItemDAO on every write, from any register
+    static final String VERSION_SETTING = "menu.version";
+    private final SharedVersion sharedVersion = new SharedVersion(VERSION_SETTING);
+
+    // --- Metrics ---
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong reloads = new AtomicLong();
+    private final AtomicLong lastReloadNanos = new AtomicLong();
+
+    private MenuCatalog() {
+        Metrics.gauge("cache.menu.hits", this::getHitCount);
+        Metrics.gauge("cache.menu.misses", this::getMissCount);
+        Metrics.gauge("cache.menu.reloads", this::getReloadCount);
+        Metrics.gauge("cache.menu.version", this::getVersion);
+    }
+
+    public static MenuCatalog get() { return INSTANCE; }
+
+    /**
+     * Returns the current menu snapshot, loading it on first use (and
+     * again after another register changed the menu).
+     */
+    public Snapshot snapshot() throws SQLException {
+        Snapshot s = current.get();
+        if (s != null && !sharedVersion.changed()) {
+            hits.incrementAndGet();
+            return s;
+        }
+        misses.incrementAndGet();
+        return reloadIfUnchanged(s);
+    }
+
+    /**
+     * Looks an item up by ID. If it is not in the snapshot (e.g. another
+     * register added it), the snapshot is reloaded once before giving up.
+     * The fresh snapshot remembers the ID as missing, so asking again
+     * costs no SQL until the menu changes.
+     */
+    MenuItem findById(int id) throws SQLException {
+        Snapshot s = snapshot();
+        MenuItem m = s.byId(id);
+        if (m != null || s.knownMissing(id)) return m;
+
+        misses.incrementAndGet();
+        Snapshot fresh = reloadIfUnchanged(s);
+        m = fresh.byId(id);
+        if (m == null) fresh.markMissing(id);
+        return m;
+    }
+
+    /**
+     * Drops the current snapshot and loads a fresh one from the database.
+     * Called after every write to MENU_ITEMS.
+     */
+    public Snapshot reload() throws SQLException {
+        synchronized (reloadLock) {
+            long start = System.nanoTime();
+            Snapshot old = current.get();
+            sharedVersion.sync(); // before loading, so a write during the load is caught next check
+            Snapshot fresh = new Snapshot(old == null ? 1 : old.version + 1, MenuItemDAO.loadAll());
+            current.set(fresh);
+            reloads.incrementAndGet();
+            lastReloadNanos.set(System.nanoTime() - start);
+            return fresh;
+        }
+    }
+
+    /**
+     * Reloads only if nobody else has replaced {@code seen} in the meantime,
+     * so concurrent misses collapse into a single load.
+     */
+    private Snapshot reloadIfUnchanged(Snapshot seen) throws SQLException {
+        synchronized (reloadLock) {
+            Snapshot s = current.get();
+            if (s != null && s != seen) return s;
+            return reload();
+        }
+    }
+
+    /**
+     * Forgets the cached menu; the next read loads it again.
+     * Use this when MENU_ITEMS was changed outside of MenuItemDAO.
+     */
+    public void invalidate() {
+        current.set(null);
+    }
+
+    // --- Metrics getters ---
+
+    public long getHitCount() { return hits.get(); }
+    public long getMissCount() { return misses.get(); }
+    public long getReloadCount() { return reloads.get(); }
+    public long getLastReloadNanos() { return lastReloadNanos.get(); }
+
+    /** Version of the snapshot currently cached (0 if nothing is loaded). */
+    public long getVersion() {
+        Snapshot s = current.get();
+        return s == null ? 0 : s.version;
+    }
+
+    @Override
+    public String toString() {
+        return "MenuCatalog[version=" + getVersion()
+                + ", hits=" + getHitCount()
+                + ", misses=" + getMissCount()
+                + ", reloads=" + getReloadCount() + "]";
+    }
+
+    /**
+     * An immutable view of the menu at one point in time.
+     */
+    public static final class Snapshot {
+        private final long version;
+        private final List<MenuItem> all;
+        private final Map<Integer, MenuItem> byId;
+        private final Map<String, List<MenuItem>> byCategory;
+        private final Map<String, MenuItem> byName;
+
+        // Built on first search (most snapshots are never searched)
+        private volatile MenuSearchIndex searchIndex;
+
+        // IDs already looked for (with a reload) and not found in this version;
+        // capped so a flood of bad IDs can't grow it without limit
+        private static final int MAX_MISSING = 1_000;
+        private final Set<Integer> missing = ConcurrentHashMap.newKeySet();
+
+        Snapshot(long version, List<MenuItem> items) {
+            this.version = version;
+            this.all = List.copyOf(items);
+
+            Map<Integer, MenuItem> ids = new HashMap<>();
+            Map<String, List<MenuItem>> cats = new LinkedHashMap<>();
+            Map<String, MenuItem> names = new HashMap<>();
+
+            for (MenuItem m : all) {
+                ids.put(m.getId(), m);
+                cats.computeIfAbsent(m.getCategory(), k -> new ArrayList<>()).add(m);
+                names.put(nameKey(m.getName()), m);
+            }
+            cats.replaceAll((k, v) -> List.copyOf(v));
+
+            this.byId = Map.copyOf(ids);
+            this.byCategory = Collections.unmodifiableMap(cats);
+            this.byName = Map.copyOf(names);
+        }
+
+        public long version() { return version; }
+
+        /** Every item (active or not), sorted by category then name. */
+        public List<MenuItem> all() { return all; }
+
+        public MenuItem byId(int id) { return byId.get(id); }
+
+        boolean knownMissing(int id) { return missing.contains(id); }
+
+        void markMissing(int id) {
+            if (missing.size() < MAX_MISSING) missing.add(id);
+        }
+
+        /** Items in one category (empty list if none), same sort order as all(). */
+        public List<MenuItem> byCategory(String category) {
+            return byCategory.getOrDefault(category, List.of());
+        }
+
+        /** Category names in display order. */
+        public Set<String> categories() { return byCategory.keySet(); }
+
+        /** Word-prefix / category search over this snapshot's items. */
+        public MenuSearchIndex searchIndex() {
+            MenuSearchIndex idx = searchIndex;
+            if (idx == null) {
+                // Two threads may both build it; the results are identical
+                idx = new MenuSearchIndex(all);
+                searchIndex = idx;
+            }
+            return idx;
+        }
+
+        /** Case-insensitive lookup by exact item name. */
+        public MenuItem byName(String name) {
+            return name == null ? null : byName.get(nameKey(name));
+        }
+
+        private static String nameKey(String name) {
+            return name.trim().toLowerCase(Locale.ROOT);
+        }
+    }
+}
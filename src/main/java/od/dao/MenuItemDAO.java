@@ -1,76 +1,176 @@
 package od.dao;
 
 import od.db.Database;
+import od.metrics.Metrics;
+import od.metrics.Timer;
 import od.model.MenuItem;
+import od.model.Money;
 
 import java.sql.*;
 import java.util.*;
-import java.math.BigDecimal;
 
+/**
+ * Reads go through the shared MenuCatalog (no SQL once the menu is loaded);
+ * writes go to MENU_ITEMS (bumping "menu.version" so other registers
+ * reload too) and then refresh the catalog.
+ */
 public class MenuItemDAO {
+    // --- Timers (see od.metrics); reads are served by the catalog and show up in its gauges ---
+    private static final Timer LOAD_ALL = Metrics.timer("dao.menu.loadAll");
+    private static final Timer INSERT = Metrics.timer("dao.menu.insert");
+    private static final Timer UPDATE = Metrics.timer("dao.menu.update");
+    private static final Timer DELETE = Metrics.timer("dao.menu.delete");
+
+    private final MenuCatalog catalog = MenuCatalog.get();
+
+    /** All menu items, sorted by category then name (served from the cache). */
     public List<MenuItem> findAll() throws SQLException {
-        List<MenuItem> out = new ArrayList<>();
-        try (PreparedStatement ps = Database.get().prepareStatement(
-                "SELECT ID, NAME, CATEGORY, PRICE, ACTIVE FROM MENU_ITEMS ORDER BY CATEGORY, NAME");
-             ResultSet rs = ps.executeQuery()) {
-            while (rs.next()) {
-                out.add(map(rs));
+        return catalog.snapshot().all();
+    }
+
+    /** Search index over the current menu (served from the cache). */
+    public MenuSearchIndex searchIndex() throws SQLException {
+        return catalog.snapshot().searchIndex();
+    }
+
+    /** Items in one category (served from the cache). */
+    public List<MenuItem> findByCategory(String category) throws SQLException {
+        return catalog.snapshot().byCategory(category);
+    }
+
+    /** Case-insensitive lookup by item name (served from the cache). */
+    public MenuItem findByName(String name) throws SQLException {
+        return catalog.snapshot().byName(name);
+    }
+
+    public MenuItem findById(int id) throws SQLException {
+        return catalog.findById(id);
+    }
+
+    /**
+     * Loads the full menu straight from the database.
+     * Only the catalog calls this, when it (re)builds its snapshot.
+     */
+    static List<MenuItem> loadAll() throws SQLException {
+        long t = LOAD_ALL.start();
+        try {
+            List<MenuItem> out = new ArrayList<>();
+            try (Connection conn = Database.get();
+                 PreparedStatement ps = conn.prepareStatement(
+                    "SELECT ID, NAME, CATEGORY, PRICE, ACTIVE FROM MENU_ITEMS ORDER BY CATEGORY, NAME");
+                 ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    out.add(map(rs));
+                }
             }
+            return out;
+        } catch (SQLException | RuntimeException e) {
+            LOAD_ALL.fail();
+            throw e;
+        } finally {
+            LOAD_ALL.stop(t);
         }
-        return out;
     }
 
     public MenuItem insert(MenuItem m) throws SQLException {
-        try (PreparedStatement ps = Database.get().prepareStatement(
-                "INSERT INTO MENU_ITEMS (NAME, CATEGORY, PRICE, ACTIVE) VALUES (?,?,?,?)",
-                Statement.RETURN_GENERATED_KEYS)) {
-            ps.setString(1, m.getName());
-            ps.setString(2, m.getCategory());
-            ps.setBigDecimal(3, m.getPrice());
-            ps.setBoolean(4, m.isActive());
-            ps.executeUpdate();
-            try (ResultSet keys = ps.getGeneratedKeys()) {
-                if (keys.next()) m.setId(keys.getInt(1));
-            }
+        long t = INSERT.start();
+        try {
+            inTransaction(conn -> {
+                try (PreparedStatement ps = conn.prepareStatement(
+                        "INSERT INTO MENU_ITEMS (NAME, CATEGORY, PRICE, ACTIVE) VALUES (?,?,?,?)",
+                        Statement.RETURN_GENERATED_KEYS)) {
+                    ps.setString(1, m.getName());
+                    ps.setString(2, m.getCategory());
+                    ps.setBigDecimal(3, m.getPrice().toBigDecimal());
+                    ps.setBoolean(4, m.isActive());
+                    ps.executeUpdate();
+                    try (ResultSet keys = ps.getGeneratedKeys()) {
+                        if (keys.next()) m.setId(keys.getInt(1));
+                    }
+                }
+            });
+            catalog.reload();
+            return m;
+        } catch (SQLException | RuntimeException e) {
+            INSERT.fail();
+            throw e;
+        } finally {
+            INSERT.stop(t);
         }
-        return m;
     }
 
     public void update(MenuItem m) throws SQLException {
-        if (m.getId() == null) throw new IllegalArgumentException("MenuItem id is null");
-        try (PreparedStatement ps = Database.get().prepareStatement(
-                "UPDATE MENU_ITEMS SET NAME=?, CATEGORY=?, PRICE=?, ACTIVE=? WHERE ID=?")) {
-            ps.setString(1, m.getName());
-            ps.setString(2, m.getCategory());
-            ps.setBigDecimal(3, m.getPrice());
-            ps.setBoolean(4, m.isActive());
-            ps.setInt(5, m.getId());
-            ps.executeUpdate();
+        long t = UPDATE.start();
+        try {
+            if (m.getId() == null) throw new IllegalArgumentException("MenuItem id is null");
+            inTransaction(conn -> {
+                try (PreparedStatement ps = conn.prepareStatement(
+                        "UPDATE MENU_ITEMS SET NAME=?, CATEGORY=?, PRICE=?, ACTIVE=? WHERE ID=?")) {
+                    ps.setString(1, m.getName());
+                    ps.setString(2, m.getCategory());
+                    ps.setBigDecimal(3, m.getPrice().toBigDecimal());
+                    ps.setBoolean(4, m.isActive());
+                    ps.setInt(5, m.getId());
+                    ps.executeUpdate();
+                }
+            });
+            catalog.reload();
+        } catch (SQLException | RuntimeException e) {
+            UPDATE.fail();
+            throw e;
+        } finally {
+            UPDATE.stop(t);
         }
     }
 
     public void delete(int id) throws SQLException {
-        try (PreparedStatement ps = Database.get().prepareStatement(
-                "DELETE FROM MENU_ITEMS WHERE ID=?")) {
-            ps.setInt(1, id);
-            ps.executeUpdate();
+        long t = DELETE.start();
+        try {
+            inTransaction(conn -> {
+                try (PreparedStatement ps = conn.prepareStatement("DELETE FROM MENU_ITEMS WHERE ID=?")) {
+                    ps.setInt(1, id);
+                    ps.executeUpdate();
+                }
+            });
+            catalog.reload();
+        } catch (SQLException | RuntimeException e) {
+            DELETE.fail();
+            throw e;
+        } finally {
+            DELETE.stop(t);
         }
     }
 
-    public MenuItem findById(int id) throws SQLException {
-        try (PreparedStatement ps = Database.get().prepareStatement(
-                "SELECT ID, NAME, CATEGORY, PRICE, ACTIVE FROM MENU_ITEMS WHERE ID=?")) {
-            ps.setInt(1, id);
-            try (ResultSet rs = ps.executeQuery()) { return rs.next() ? map(rs) : null; }
+    private interface Write {
+        void apply(Connection conn) throws SQLException;
+    }
+
+    /**
+     * Runs one menu change and bumps the shared "menu.version" counter in
+     * the same transaction, so other registers notice it (see MenuCatalog).
+     */
+    private static void inTransaction(Write write) throws SQLException {
+        try (Connection conn = Database.get()) {
+            try {
+                conn.setAutoCommit(false);
+                write.apply(conn);
+                SharedVersion.bump(conn, MenuCatalog.VERSION_SETTING);
+                conn.commit();
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
         }
     }
 
-    private MenuItem map(ResultSet rs) throws SQLException {
+    private static MenuItem map(ResultSet rs) throws SQLException {
         return new MenuItem(
             rs.getInt("ID"),
             rs.getString("NAME"),
             rs.getString("CATEGORY"),
-            rs.getBigDecimal("PRICE"),
+            Money.of(rs.getBigDecimal("PRICE")),
             rs.getBoolean("ACTIVE")
         );
     }
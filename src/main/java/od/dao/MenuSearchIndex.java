@@ -0,0 +1,133 @@
+package od.dao;
+
+import od.model.MenuItem;
+
+import java.util.*;
+
+/**
+ * In-memory search over one menu snapshot, for filtering the menu list
+ * on every keystroke without touching the database.
+ *
+ * Items are numbered by their position in the snapshot (category, then
+ * name), and every filter is a BitSet over those positions:
+ *  - one BitSet per category
+ *  - a prefix trie of the words in each item's name and category; every
+ *    trie node holds the BitSet of items having a word with that prefix
+ *  - a BitSet of active items
+ *
+ * A search is then a few BitSet ANDs: "cho do" in "Donut" = items with a
+ * word starting "cho" AND a word starting "do" AND in category Donut.
+ * Results come back in menu order. Built once per snapshot (see
+ * MenuCatalog.Snapshot.searchIndex()) and never changed, so it is safe to
+ * share between threads.
+ */
+public final class MenuSearchIndex {
+
+    private final MenuItem[] items;
+    private final BitSet active = new BitSet();
+    private final Map<String, BitSet> byCategory = new LinkedHashMap<>();
+    private final Map<String, BitSet> byCategoryKey = new HashMap<>();
+    private final Node root = new Node();
+
+    /** One trie node; {@code items} = every item with a word starting with the path to here. */
+    private static final class Node {
+        final Map<Character, Node> children = new HashMap<>(4);
+        final BitSet items = new BitSet();
+    }
+
+    /** @param menu items in display order (e.g. MenuCatalog.Snapshot.all()) */
+    public MenuSearchIndex(List<MenuItem> menu) {
+        this.items = menu.toArray(new MenuItem[0]);
+
+        for (int i = 0; i < items.length; i++) {
+            MenuItem m = items[i];
+            if (m.isActive()) active.set(i);
+
+            byCategory.computeIfAbsent(m.getCategory(), k -> new BitSet()).set(i);
+
+            for (String word : words(m.getName())) addWord(word, i);
+            for (String word : words(m.getCategory())) addWord(word, i);
+        }
+        byCategory.forEach((name, bits) -> byCategoryKey.put(key(name), bits));
+    }
+
+    private void addWord(String word, int item) {
+        Node n = root;
+        for (int i = 0; i < word.length(); i++) {
+            n = n.children.computeIfAbsent(word.charAt(i), c -> new Node());
+            n.items.set(item);
+        }
+    }
+
+    /** Category names in menu order. */
+    public Set<String> categories() {
+        return Collections.unmodifiableSet(byCategory.keySet());
+    }
+
+    /**
+     * Active items matching the category and every word of the query
+     * (as a prefix, ignoring case), in menu order.
+     *
+     * @param category exact category, or null / "All" for every category
+     * @param query    words typed by the user; blank matches everything
+     */
+    public List<MenuItem> search(String category, String query) {
+        BitSet hits = match(category, query);
+        List<MenuItem> out = new ArrayList<>(hits.cardinality());
+        for (int i = hits.nextSetBit(0); i >= 0; i = hits.nextSetBit(i + 1)) {
+            out.add(items[i]);
+        }
+        return out;
+    }
+
+    /** Same as search, as positions into the snapshot's item list. */
+    public BitSet match(String category, String query) {
+        BitSet hits = (BitSet) active.clone();
+
+        if (category != null && !category.equals("All")) {
+            BitSet cat = byCategoryKey.get(key(category));
+            if (cat == null) return new BitSet();
+            hits.and(cat);
+        }
+
+        for (String word : words(query)) {
+            Node n = find(word);
+            if (n == null) return new BitSet();
+            hits.and(n.items);
+            if (hits.isEmpty()) break;
+        }
+        return hits;
+    }
+
+    private Node find(String prefix) {
+        Node n = root;
+        for (int i = 0; i < prefix.length() && n != null; i++) {
+            n = n.children.get(prefix.charAt(i));
+        }
+        return n;
+    }
+
+    public int size() { return items.length; }
+
+    /** Lower-cased words: runs of letters / digits ("Iced Coffee (L)" → iced, coffee, l). */
+    private static List<String> words(String text) {
+        List<String> out = new ArrayList<>(4);
+        if (text == null) return out;
+
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                out.add(key(text.substring(start, i)));
+                start = -1;
+            }
+        }
+        return out;
+    }
+
+    private static String key(String s) {
+        return s.toLowerCase(Locale.ROOT);
+    }
+}
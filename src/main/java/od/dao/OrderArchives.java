@@ -0,0 +1,270 @@
+package od.dao;
+
+import od.db.Database;
+import od.io.OrderArchive;
+import od.metrics.Metrics;
+
+import java.io.IOException;
+import java.sql.*;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The list of archived months (the ORDER_ARCHIVES table) plus a small
+ * cache of opened archive files.
+ *
+ * Order history is partitioned by calendar month of ORDER_DATE. Recent
+ * months live in ORDERS / ORDER_ITEMS; OrderArchiver moves cold months
+ * into one compressed, read-only OrderArchive file each. OrderDAO asks
+ * this class which partitions a lookup touches, so a query for last week
+ * never opens an archive and a TXN_ID from 2023 goes straight to its file.
+ *
+ * Every archived TXN_ID is also listed in ARCHIVED_ORDERS with the month
+ * it was filed under. That catches IDs whose date prefix is a different
+ * month (imported IDs, checkouts just before midnight at month end) and
+ * lets OrderDAO.insertNew skip orders that were archived already.
+ *
+ * The month list is loaded once and cached; the archiver calls reload()
+ * after it changes. record() also bumps the shared "archive.version"
+ * counter, so other registers on the same database reload the list
+ * within a few seconds (see SharedVersion).
+ */
+public final class OrderArchives {
+
+    // One catalog for the whole app (every OrderDAO shares it)
+    private static final OrderArchives INSTANCE = new OrderArchives();
+
+    // TXN_IDs per ARCHIVED_ORDERS query / insert batch
+    private static final int CHUNK = 500;
+
+    /** One archived month. */
+    public record Partition(YearMonth month, String fileName, int orderCount, int lineCount,
+                            long fileBytes, LocalDateTime archivedAt) {
+
+        /** First instant of the month (inclusive). */
+        public LocalDateTime start() { return month.atDay(1).atStartOfDay(); }
+
+        /** First instant of the next month (exclusive). */
+        public LocalDateTime end() { return month.plusMonths(1).atDay(1).atStartOfDay(); }
+
+        /** True if [from, to) overlaps this month (null = unbounded). */
+        public boolean overlaps(LocalDateTime from, LocalDateTime to) {
+            return (from == null || from.isBefore(end())) && (to == null || to.isAfter(start()));
+        }
+    }
+
+    // Archived months by month; null until first use
+    private volatile NavigableMap<YearMonth, Partition> partitions;
+
+    // Bumped by record(), from any register
+    private static final String VERSION_SETTING = "archive.version";
+    private final SharedVersion sharedVersion = new SharedVersion(VERSION_SETTING);
+
+    // Decoded archive files by file name, least recently used first
+    private final int cacheSize = Integer.getInteger("od.archive.cacheMonths", 3);
+    private final LinkedHashMap<String, OrderArchive> opened = new LinkedHashMap<>(16, 0.75f, true);
+
+    // --- Metrics ---
+    private final AtomicLong opens = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+
+    private OrderArchives() {
+        Metrics.gauge("archive.months", () -> {
+            NavigableMap<YearMonth, Partition> p = partitions;
+            return p == null ? 0 : p.size();
+        });
+        Metrics.gauge("archive.opens", opens::get);
+        Metrics.gauge("archive.cacheHits", hits::get);
+    }
+
+    public static OrderArchives get() { return INSTANCE; }
+
+    // --- Routing ---
+
+    /** All archived months, oldest first. */
+    public NavigableMap<YearMonth, Partition> partitions() throws SQLException {
+        NavigableMap<YearMonth, Partition> p = partitions;
+        if (p == null || sharedVersion.changed()) {
+            synchronized (this) {
+                NavigableMap<YearMonth, Partition> now = partitions;
+                if (now == null || now == p) { // nobody reloaded while we waited
+                    sharedVersion.sync(); // before loading, so an archive run during the load is caught next check
+                    partitions = now = load();
+                }
+                p = now;
+            }
+        }
+        return p;
+    }
+
+    /** The archived month, or null if that month is (still) in ORDERS. */
+    public Partition forMonth(YearMonth month) throws SQLException {
+        return month == null ? null : partitions().get(month);
+    }
+
+    /** The archived month a transaction ID belongs to (from its yyyyMMdd prefix), or null. */
+    public Partition forTxn(String txnId) throws SQLException {
+        if (partitions().isEmpty()) return null; // the usual case: nothing archived yet
+        return forMonth(monthOfTxn(txnId));
+    }
+
+    /** Archived months overlapping [from, to), newest first. */
+    public List<Partition> overlapping(LocalDateTime from, LocalDateTime to) throws SQLException {
+        List<Partition> out = new ArrayList<>();
+        for (Partition p : partitions().descendingMap().values()) {
+            if (p.overlaps(from, to)) out.add(p);
+        }
+        return out;
+    }
+
+    /**
+     * The month of a transaction ID's "yyyyMMdd-..." prefix,
+     * or null if the ID doesn't start with a date.
+     */
+    static YearMonth monthOfTxn(String txnId) {
+        if (txnId == null || txnId.length() < 8) return null;
+        for (int i = 0; i < 8; i++) {
+            if (!Character.isDigit(txnId.charAt(i))) return null;
+        }
+        int year = Integer.parseInt(txnId, 0, 4, 10);
+        int month = Integer.parseInt(txnId, 4, 6, 10);
+        return month >= 1 && month <= 12 ? YearMonth.of(year, month) : null;
+    }
+
+    /**
+     * The archived month an order was filed under, looked up in
+     * ARCHIVED_ORDERS, or null if it was never archived.
+     */
+    public Partition forArchivedTxn(Connection conn, String txnId) throws SQLException {
+        return forArchivedTxns(conn, List.of(txnId)).get(txnId);
+    }
+
+    /**
+     * The archived months of many transaction IDs (one query per CHUNK IDs);
+     * IDs that were never archived are left out.
+     */
+    public Map<String, Partition> forArchivedTxns(Connection conn, Collection<String> txnIds) throws SQLException {
+        Map<String, Partition> out = new HashMap<>();
+        if (txnIds.isEmpty() || partitions().isEmpty()) return out;
+
+        List<String> ids = new ArrayList<>(txnIds);
+        for (int from = 0; from < ids.size(); from += CHUNK) {
+            List<String> chunk = ids.subList(from, Math.min(from + CHUNK, ids.size()));
+            String in = String.join(",", Collections.nCopies(chunk.size(), "?"));
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "SELECT TXN_ID, MONTH_START FROM ARCHIVED_ORDERS WHERE TXN_ID IN (" + in + ")")) {
+                for (int i = 0; i < chunk.size(); i++) ps.setString(i + 1, chunk.get(i));
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        Partition p = forMonth(YearMonth.from(rs.getDate(2).toLocalDate()));
+                        if (p != null) out.put(rs.getString(1), p);
+                    }
+                }
+            }
+        }
+        return out;
+    }
+
+    // --- Archive files ---
+
+    /**
+     * Opens (or returns the cached) archive file of a month.
+     *
+     * @throws SQLException if the file is missing or unreadable, so callers
+     *                      handle it like any other history lookup failure
+     */
+    public OrderArchive open(Partition p) throws SQLException {
+        synchronized (opened) {
+            OrderArchive a = opened.get(p.fileName());
+            if (a != null) {
+                hits.incrementAndGet();
+                return a;
+            }
+            try {
+                a = OrderArchive.open(Database.archiveDirectory().resolve(p.fileName()));
+            } catch (IOException e) {
+                throw new SQLException("Could not read archived orders for " + p.month() + ": " + e.getMessage(), e);
+            }
+            opens.incrementAndGet();
+            opened.put(p.fileName(), a);
+            if (opened.size() > cacheSize) {
+                Iterator<String> eldest = opened.keySet().iterator();
+                eldest.next();
+                eldest.remove();
+            }
+            return a;
+        }
+    }
+
+    // --- Changes (used by OrderArchiver) ---
+
+    /**
+     * Records (or replaces) a month's archive row and bumps the shared
+     * "archive.version" counter, on the caller's connection and without
+     * committing.
+     */
+    public void record(Connection conn, Partition p) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("DELETE FROM ORDER_ARCHIVES WHERE MONTH_START=?")) {
+            ps.setDate(1, Date.valueOf(p.month().atDay(1)));
+            ps.executeUpdate();
+        }
+        try (PreparedStatement ps = conn.prepareStatement("""
+                INSERT INTO ORDER_ARCHIVES (MONTH_START, FILE_NAME, ORDER_COUNT, LINE_COUNT, FILE_BYTES, ARCHIVED_AT)
+                VALUES (?, ?, ?, ?, ?, ?)
+                """)) {
+            ps.setDate(1, Date.valueOf(p.month().atDay(1)));
+            ps.setString(2, p.fileName());
+            ps.setInt(3, p.orderCount());
+            ps.setInt(4, p.lineCount());
+            ps.setLong(5, p.fileBytes());
+            ps.setTimestamp(6, Timestamp.valueOf(p.archivedAt()));
+            ps.executeUpdate();
+        }
+        SharedVersion.bump(conn, VERSION_SETTING);
+    }
+
+    /**
+     * Lists the transaction IDs of orders being moved into a month's
+     * archive, on the caller's connection and without committing.
+     */
+    public void recordTxns(Connection conn, YearMonth month, Collection<String> txnIds) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(
+                "INSERT INTO ARCHIVED_ORDERS (TXN_ID, MONTH_START) VALUES (?, ?)")) {
+            Date start = Date.valueOf(month.atDay(1));
+            int n = 0;
+            for (String id : txnIds) {
+                ps.setString(1, id);
+                ps.setDate(2, start);
+                ps.addBatch();
+                if (++n % CHUNK == 0) ps.executeBatch();
+            }
+            if (n % CHUNK != 0) ps.executeBatch();
+        }
+    }
+
+    /** Re-reads ORDER_ARCHIVES on next use (after the archiver committed). */
+    public void reload() {
+        partitions = null;
+    }
+
+    private static NavigableMap<YearMonth, Partition> load() throws SQLException {
+        NavigableMap<YearMonth, Partition> out = new TreeMap<>();
+        try (Connection conn = Database.get();
+             PreparedStatement ps = conn.prepareStatement(
+                     "SELECT MONTH_START, FILE_NAME, ORDER_COUNT, LINE_COUNT, FILE_BYTES, ARCHIVED_AT FROM ORDER_ARCHIVES");
+             ResultSet rs = ps.executeQuery()) {
+
+            while (rs.next()) {
+                LocalDate start = rs.getDate(1).toLocalDate();
+                YearMonth month = YearMonth.from(start);
+                out.put(month, new Partition(month, rs.getString(2), rs.getInt(3), rs.getInt(4),
+                        rs.getLong(5), rs.getTimestamp(6).toLocalDateTime()));
+            }
+        }
+        return Collections.unmodifiableNavigableMap(out);
+    }
+}
@@ -1,17 +1,71 @@
 package od.dao;
 
 import od.db.Database;
+import od.db.SalesRollup;
+import od.metrics.Metrics;
+import od.metrics.Timer;
 import od.model.*;
+import od.util.TxnIdGenerator;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.sql.*;
 import java.time.LocalDateTime;
 import java.util.*;
-import java.math.BigDecimal;
-import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class OrderDAO {
-    // DAO used to look up menu items by ID when rebuilding an order
-    private final MenuItemDAO menuItemDAO = new MenuItemDAO();
+    private static final Logger LOG = Logger.getLogger(OrderDAO.class.getName());
+
+    // --- Timers (see od.metrics) ---
+    private static final Timer CREATE_NEW = Metrics.timer("dao.order.createNew");
+    private static final Timer INSERT_ALL = Metrics.timer("dao.order.insertAll");
+    private static final Timer VERIFY = Metrics.timer("dao.order.verify");
+    private static final Timer FIND_BY_TXN = Metrics.timer("dao.order.findByTxn");
+    private static final Timer FIND_BY_TXNS = Metrics.timer("dao.order.findByTxns");
+    private static final Timer FIND_OPTION_MIX = Metrics.timer("dao.order.findOptionMix");
+    private static final Timer FIND_ALL = Metrics.timer("dao.order.findAll");
+    private static final Timer FIND_PAGE = Metrics.timer("dao.order.findPage");
+    private static final Timer SCAN_LINES = Metrics.timer("dao.order.scanLines");
+    private static final Timer FOR_EACH_WITH_LINES = Metrics.timer("dao.order.forEachWithLines");
+    private static final Timer DELETE_BY_TXN = Metrics.timer("dao.order.deleteByTxn");
+    private static final Timer DELETE_ARCHIVED = Metrics.timer("dao.order.deleteArchived");
+
+    // Max number of TXN_IDs bound into one IN (...) list by findByTxns
+    private static final int BULK_CHUNK = 500;
+
+    // Order header + line items + menu item, all in one round trip
+    private static final String ORDER_WITH_LINES_SQL = """
+        SELECT O.ID AS O_ID, O.TXN_ID, O.ORDER_DATE,
+               OI.ID AS OI_ID, OI.QTY, OI.UNIT_PRICE,
+               OI.SIZE_CODE, OI.ICING_CODE, OI.FILLING_CODE,
+               MI.ID AS MI_ID, MI.NAME AS MI_NAME, MI.CATEGORY AS MI_CATEGORY,
+               MI.PRICE AS MI_PRICE, MI.ACTIVE AS MI_ACTIVE
+        FROM ORDERS O
+        LEFT JOIN ORDER_ITEMS OI ON OI.ORDER_ID = O.ID
+        LEFT JOIN MENU_ITEMS MI ON MI.ID = OI.MENU_ITEM_ID
+        """;
+
+    private static final String ORDER_WITH_LINES_ORDER_BY = "ORDER BY O.ID, OI.ID";
+
+    // Order history paging order: newest first, ties by ID (same as IX_ORDERS_DATE_ID)
+    private static final Comparator<Order> RECENT_FIRST = Comparator
+            .comparing(Order::getOrderDate)
+            .thenComparing(Order::getId)
+            .reversed();
+
+    // Months moved out of ORDERS into archive files; consulted only when
+    // a lookup's TXN_ID or date range reaches an archived month
+    private final OrderArchives archives = OrderArchives.get();
+
+    // Re-read and compare every order after writing it (for tests)
+    private volatile boolean verifyWrites = Boolean.getBoolean("od.orders.verifyWrites");
 
     /**
      * Creates a brand-new order in the database.
@@ -19,208 +73,1101 @@ public class OrderDAO {
      * 1. Insert the order header (ORDERS table)
      * 2. Insert each line item (ORDER_ITEMS table)
      * 3. Wrap everything in a transaction (commit or rollback)
+     *
+     * The generated ORDER and ORDER_ITEM IDs are written back into the
+     * given objects, and that same Order is returned — nothing is re-read.
      */
     public Order createNew(Order order) throws SQLException {
+        long t = CREATE_NEW.start();
+        try {
+            // One pooled connection for the whole transaction
+            try (Connection conn = Database.get()) {
+                try {
+                    // Begin transaction
+                    conn.setAutoCommit(false);
+
+                    insertAll(conn, List.of(order));
+
+                    // Commit transaction
+                    conn.commit();
+
+                } catch (SQLException e) {
+                    // Something went wrong → undo everything
+                    conn.rollback();
+                    throw e;
+                } finally {
+                    conn.setAutoCommit(true);
+                }
+
+                if (verifyWrites) verify(conn, order);
+                return order;
+            }
+        } catch (SQLException | RuntimeException e) {
+            CREATE_NEW.fail();
+            throw e;
+        } finally {
+            CREATE_NEW.stop(t);
+        }
+    }
+
+    /**
+     * Turns on read-back verification (meant for tests): after each write,
+     * the order is re-read from the database and compared with what was
+     * written. Off by default; can also be enabled with -Dod.orders.verifyWrites=true.
+     */
+    public void setVerifyWrites(boolean verifyWrites) {
+        this.verifyWrites = verifyWrites;
+    }
+
+    public boolean isVerifyWrites() { return verifyWrites; }
+
+    /**
+     * Inserts the headers and line items of several orders on the caller's
+     * connection, without committing. All line items of all orders go out
+     * in a single JDBC batch.
+     * Used by createNew (one order) and OrderWritePipeline (a whole group).
+     *
+     * Generated IDs are copied into the Order / OrderItem objects, and the
+     * orders are added to the sales rollups in the same transaction.
+     */
+    void insertAll(Connection conn, List<Order> orders) throws SQLException {
+        long t = INSERT_ALL.start();
         try {
-            // Begin transaction
-            Database.get().setAutoCommit(false);
+            insertRows(conn, orders);
+            SalesRollup.add(conn, orders);
+        } catch (SQLException | RuntimeException e) {
+            INSERT_ALL.fail();
+            throw e;
+        } finally {
+            INSERT_ALL.stop(t);
+        }
+    }
 
-            // Insert into ORDERS table
-            try (PreparedStatement ps = Database.get().prepareStatement(
-                    "INSERT INTO ORDERS (TXN_ID, ORDER_DATE) VALUES (?, ?)",
-                    Statement.RETURN_GENERATED_KEYS)) {
+    private void insertRows(Connection conn, List<Order> orders) throws SQLException {
+        // Insert into ORDERS table
+        try (PreparedStatement ps = conn.prepareStatement(
+                "INSERT INTO ORDERS (TXN_ID, ORDER_DATE) VALUES (?, ?)",
+                Statement.RETURN_GENERATED_KEYS);
+             PreparedStatement line = conn.prepareStatement(
+                "INSERT INTO ORDER_ITEMS (ORDER_ID, MENU_ITEM_ID, QTY, UNIT_PRICE,"
+                        + " SIZE_CODE, ICING_CODE, FILLING_CODE) VALUES (?,?,?,?,?,?,?)",
+                Statement.RETURN_GENERATED_KEYS)) {
 
+            List<OrderItem> lines = new ArrayList<>();
+
+            for (Order order : orders) {
                 ps.setString(1, order.getTxnId());
                 ps.setTimestamp(2, Timestamp.valueOf(order.getOrderDate()));
                 ps.executeUpdate();
 
                 // Grab the auto-generated ORDER ID
+                int orderId;
                 try (ResultSet keys = ps.getGeneratedKeys()) {
-                    if (keys.next()) {
-                        int orderId = keys.getInt(1);
-
-                        // Insert every ORDER_ITEM row for this order
-                        try (PreparedStatement line = Database.get().prepareStatement(
-                                "INSERT INTO ORDER_ITEMS (ORDER_ID, MENU_ITEM_ID, QTY, UNIT_PRICE) VALUES (?,?,?,?)")) {
-
-                            for (OrderItem oi : order.getItems()) {
-                                line.setInt(1, orderId);
-                                line.setInt(2, oi.getMenuItem().getId());
-                                line.setInt(3, oi.getQty());
-                                line.setBigDecimal(4, oi.getUnitPrice());
-                                line.addBatch(); // Batch insert = faster
-                            }
+                    if (!keys.next()) throw new SQLException("No ORDER ID generated for " + order.getTxnId());
+                    orderId = keys.getInt(1);
+                }
+                order.setId(orderId);
 
-                            line.executeBatch();
-                        }
-                    }
+                // Queue every ORDER_ITEM row for this order
+                for (OrderItem oi : order.getItems()) {
+                    line.setInt(1, orderId);
+                    line.setInt(2, oi.getMenuItem().getId());
+                    line.setInt(3, oi.getQty());
+                    line.setBigDecimal(4, oi.getUnitPrice().toBigDecimal());
+                    ItemOptions opts = oi.getOptions();
+                    line.setShort(5, (short) opts.getSize().code());
+                    line.setShort(6, (short) opts.getIcing().code());
+                    line.setShort(7, (short) opts.getFilling().code());
+                    line.addBatch(); // Batch insert = faster
+                    oi.setOrderId(orderId);
+                    lines.add(oi);
+                }
+            }
+
+            if (lines.isEmpty()) return;
+            line.executeBatch();
+
+            // Grab the auto-generated ORDER_ITEM IDs
+            int n = 0;
+            try (ResultSet keys = line.getGeneratedKeys()) {
+                while (keys != null && keys.next() && n < lines.size()) {
+                    lines.get(n++).setId(keys.getInt(1));
                 }
+            } catch (SQLFeatureNotSupportedException noBatchKeys) {
+                n = 0;
             }
 
-            // Commit transaction
-            Database.get().commit();
+            // Some drivers (Derby included) only report the key of the last
+            // row of a batch. In that case look the IDs up in one query:
+            // within this transaction the new rows belong only to these
+            // orders, and identity values grow in insert order.
+            if (n != lines.size()) {
+                fillLineIds(conn, orders, lines);
+            }
+        }
+    }
 
-            // Reload the finished order from DB (now it has IDs)
-            return findByTxn(order.getTxnId());
+    private void fillLineIds(Connection conn, List<Order> orders, List<OrderItem> lines) throws SQLException {
+        String in = String.join(",", Collections.nCopies(orders.size(), "?"));
+        try (PreparedStatement ps = conn.prepareStatement(
+                "SELECT ID FROM ORDER_ITEMS WHERE ORDER_ID IN (" + in + ") ORDER BY ORDER_ID, ID")) {
 
-        } catch (SQLException e) {
-            // Something went wrong → undo everything
-            Database.get().rollback();
+            for (int i = 0; i < orders.size(); i++) {
+                ps.setInt(i + 1, orders.get(i).getId());
+            }
+
+            // Lines were queued in order-ID order, so they line up with the result
+            int n = 0;
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next() && n < lines.size()) {
+                    lines.get(n++).setId(rs.getInt(1));
+                }
+            }
+            if (n != lines.size()) {
+                throw new SQLException("Expected " + lines.size() + " ORDER_ITEM IDs, found " + n);
+            }
+        }
+    }
+
+    /**
+     * Verification mode: re-reads the order and checks it matches what was written.
+     */
+    void verify(Connection conn, Order written) throws SQLException {
+        long t = VERIFY.start();
+        try {
+            Order stored = findByTxn(conn, written.getTxnId());
+            if (stored == null) {
+                throw new IllegalStateException("Order " + written.getTxnId() + " was not found after insert");
+            }
+            boolean same = Objects.equals(stored.getId(), written.getId())
+                    && stored.getItems().size() == written.getItems().size();
+            for (int i = 0; same && i < stored.getItems().size(); i++) {
+                OrderItem a = stored.getItems().get(i);
+                OrderItem b = written.getItems().get(i);
+                same = Objects.equals(a.getId(), b.getId())
+                        && Objects.equals(a.getOrderId(), b.getOrderId())
+                        && a.getQty() == b.getQty()
+                        && Objects.equals(a.getMenuItem().getId(), b.getMenuItem().getId())
+                        && a.getUnitPriceCents() == b.getUnitPriceCents()
+                        && a.getOptions() == b.getOptions();
+            }
+            if (!same) {
+                throw new IllegalStateException("Order " + written.getTxnId() + " does not match what was written");
+            }
+        } catch (SQLException | RuntimeException e) {
+            VERIFY.fail();
             throw e;
         } finally {
-            Database.get().setAutoCommit(true);
+            VERIFY.stop(t);
         }
     }
 
     /**
      * Finds a single order using its transaction ID (TXN_ID).
-     * Steps:
-     * 1. Load the order header
-     * 2. Load all its items
-     * 3. For each item, fetch the MenuItem from MenuItemDAO
+     * The header, its line items and their menu items all come back
+     * from ONE joined query — no per-line lookups.
+     *
+     * If the ID's date prefix falls in an archived month, that month's
+     * archive file is searched first (see OrderArchives). An order found
+     * nowhere else is looked up in ARCHIVED_ORDERS, in case it was archived
+     * under another month than its ID's date.
      */
     public Order findByTxn(String txnId) throws SQLException {
-        Order order = null;
+        long t = FIND_BY_TXN.start();
+        try {
+            OrderArchives.Partition p = archives.forTxn(txnId);
+            if (p != null) {
+                Order archived = archives.open(p).find(txnId);
+                if (archived != null) return archived;
+            }
+            // Not archived, or saved after its month was archived
+            try (Connection conn = Database.get()) {
+                Order live = findByTxn(conn, txnId);
+                if (live != null) return live;
 
-        // Fetch order header
-        try (PreparedStatement ps = Database.get().prepareStatement(
-                "SELECT ID, TXN_ID, ORDER_DATE FROM ORDERS WHERE TXN_ID=?")) {
+                // Filed under another month (imported ID, or saved just before midnight at month end)
+                OrderArchives.Partition filed = archives.forArchivedTxn(conn, txnId);
+                return filed == null ? null : archives.open(filed).find(txnId);
+            }
+        } catch (SQLException | RuntimeException e) {
+            FIND_BY_TXN.fail();
+            throw e;
+        } finally {
+            FIND_BY_TXN.stop(t);
+        }
+    }
+
+    private Order findByTxn(Connection conn, String txnId) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(
+                ORDER_WITH_LINES_SQL + "WHERE O.TXN_ID=?\n" + ORDER_WITH_LINES_ORDER_BY)) {
 
             ps.setString(1, txnId);
 
             try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) {
-                    order = new Order(
-                            rs.getInt("ID"),
-                            rs.getString("TXN_ID"),
-                            rs.getTimestamp("ORDER_DATE").toLocalDateTime()
-                    );
-                } else {
-                    return null; // Order not found
+                Map<String, Order> found = hydrate(rs, new HashMap<>());
+                return found.get(txnId); // null if the order was not found
+            }
+        }
+    }
+
+    /**
+     * Loads many orders (with all their line items) at once.
+     * Runs one joined query per BULK_CHUNK transaction IDs, no matter
+     * how many lines the orders have.
+     *
+     * @return orders keyed by TXN_ID, in the same order as the input;
+     *         IDs that do not exist are simply left out
+     */
+    public Map<String, Order> findByTxns(Collection<String> txnIds) throws SQLException {
+        long t = FIND_BY_TXNS.start();
+        try {
+            Map<String, Order> out = new LinkedHashMap<>();
+            if (txnIds.isEmpty()) return out;
+
+            List<String> ids = new ArrayList<>(new LinkedHashSet<>(txnIds)); // drop duplicates
+            Map<String, Order> found = new HashMap<>();
+
+            // Archived months first; only the rest goes to the database
+            List<String> live = new ArrayList<>(ids.size());
+            for (String id : ids) {
+                OrderArchives.Partition p = archives.forTxn(id);
+                Order archived = p == null ? null : archives.open(p).find(id);
+                if (archived != null) found.put(id, archived);
+                else live.add(id);
+            }
+
+            // Shared across chunks so every order references the same MenuItem instances
+            Map<Integer, MenuItem> menuItems = new HashMap<>();
+
+            if (!live.isEmpty()) {
+                try (Connection conn = Database.get()) {
+                    for (int from = 0; from < live.size(); from += BULK_CHUNK) {
+                        List<String> chunk = live.subList(from, Math.min(from + BULK_CHUNK, live.size()));
+
+                        String in = String.join(",", Collections.nCopies(chunk.size(), "?"));
+                        try (PreparedStatement ps = conn.prepareStatement(
+                                ORDER_WITH_LINES_SQL + "WHERE O.TXN_ID IN (" + in + ")\n" + ORDER_WITH_LINES_ORDER_BY)) {
+
+                            for (int i = 0; i < chunk.size(); i++) {
+                                ps.setString(i + 1, chunk.get(i));
+                            }
+
+                            try (ResultSet rs = ps.executeQuery()) {
+                                found.putAll(hydrate(rs, menuItems));
+                            }
+                        }
+                    }
+
+                    // Archived under another month than the ID's date prefix
+                    List<String> missing = new ArrayList<>();
+                    for (String id : live) {
+                        if (!found.containsKey(id)) missing.add(id);
+                    }
+                    for (Map.Entry<String, OrderArchives.Partition> e : archives.forArchivedTxns(conn, missing).entrySet()) {
+                        Order archived = archives.open(e.getValue()).find(e.getKey());
+                        if (archived != null) found.put(e.getKey(), archived);
+                    }
                 }
             }
+
+            // Return in the caller's order
+            for (String id : ids) {
+                Order o = found.get(id);
+                if (o != null) out.put(id, o);
+            }
+            return out;
+        } catch (SQLException | RuntimeException e) {
+            FIND_BY_TXNS.fail();
+            throw e;
+        } finally {
+            FIND_BY_TXNS.stop(t);
         }
+    }
 
-        // Fetch order line items
-        try (PreparedStatement ps = Database.get().prepareStatement("""
-            SELECT OI.ID, OI.QTY, OI.UNIT_PRICE, MI.ID AS MI_ID
-            FROM ORDER_ITEMS OI
-            JOIN MENU_ITEMS MI ON MI.ID = OI.MENU_ITEM_ID
-            WHERE OI.ORDER_ID=?
-        """)) {
+    /**
+     * Builds Order objects from rows of ORDER_WITH_LINES_SQL.
+     * Rows must be sorted by order so each order's lines arrive together.
+     * MenuItems are built straight from the joined columns and shared
+     * through the given identity map (one instance per menu ID).
+     */
+    private Map<String, Order> hydrate(ResultSet rs, Map<Integer, MenuItem> menuItems) throws SQLException {
+        Map<String, Order> out = new HashMap<>();
+        Order current = null;
 
-            ps.setInt(1, order.getId());
+        while (rs.next()) {
+            int orderId = rs.getInt("O_ID");
 
-            try (ResultSet rs = ps.executeQuery()) {
-                while (rs.next()) {
-                    // Look up actual MenuItem object using its ID
-                    MenuItem mi = menuItemDAO.findById(rs.getInt("MI_ID"));
+            // First row of a new order → start its header
+            if (current == null || current.getId() != orderId) {
+                current = new Order(
+                        orderId,
+                        rs.getString("TXN_ID"),
+                        rs.getTimestamp("ORDER_DATE").toLocalDateTime()
+                );
+                out.put(current.getTxnId(), current);
+            }
+
+            addLine(rs, current, menuItems);
+        }
+
+        return out;
+    }
+
+    /**
+     * Adds the line item of one ORDER_WITH_LINES_SQL row to its order.
+     */
+    private static void addLine(ResultSet rs, Order order, Map<Integer, MenuItem> menuItems) throws SQLException {
+        // LEFT JOIN: an order with no lines comes back with a NULL line ID
+        int lineId = rs.getInt("OI_ID");
+        if (rs.wasNull()) return;
+
+        int menuId = rs.getInt("MI_ID");
+        MenuItem mi = menuItems.get(menuId);
+        if (mi == null) {
+            mi = new MenuItem(
+                    menuId,
+                    rs.getString("MI_NAME"),
+                    rs.getString("MI_CATEGORY"),
+                    Money.of(rs.getBigDecimal("MI_PRICE")),
+                    rs.getBoolean("MI_ACTIVE")
+            );
+            menuItems.put(menuId, mi);
+        }
+
+        order.addItem(new OrderItem(
+                lineId,
+                order.getId(),
+                mi,
+                rs.getInt("QTY"),
+                Money.of(rs.getBigDecimal("UNIT_PRICE")),
+                ItemOptions.fromCodes(rs.getInt("SIZE_CODE"), rs.getInt("ICING_CODE"), rs.getInt("FILLING_CODE"))
+        ));
+    }
+
+    /**
+     * Visits every order in a time range together with its line items:
+     * archived months in the range first (oldest first), then ORDERS,
+     * oldest ID first. Rows are fetched {@code fetchSize} at a time and
+     * only one order is held in memory at once, so this suits exports of
+     * any size.
+     *
+     * @param from only orders at or after this time (null = no lower bound)
+     * @param to   only orders before this time (null = no upper bound)
+     * @return number of orders visited
+     */
+    public long forEachWithLines(LocalDateTime from, LocalDateTime to, int fetchSize,
+                                 Consumer<Order> action) throws SQLException {
+        long t = FOR_EACH_WITH_LINES.start();
+        try {
+            List<Object> params = new ArrayList<>();
+            String sql = ORDER_WITH_LINES_SQL
+                    + historyWhere(from, to, null, params) + "\n" // ORDER_DATE only exists in ORDERS
+                    + ORDER_WITH_LINES_ORDER_BY;
+
+            // Menu items are few, so share one instance per ID across all orders
+            Map<Integer, MenuItem> menuItems = new HashMap<>();
+            long n = 0;
+
+            List<OrderArchives.Partition> months = archives.overlapping(from, to);
+            for (int i = months.size() - 1; i >= 0; i--) {
+                n += archives.open(months.get(i)).forEach(from, to, action);
+            }
+
+            try (Connection conn = Database.get();
+                 PreparedStatement ps = conn.prepareStatement(sql,
+                         ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+
+                ps.setFetchSize(fetchSize);
+                bind(ps, params);
+
+                try (ResultSet rs = ps.executeQuery()) {
+                    Order current = null;
+
+                    while (rs.next()) {
+                        int orderId = rs.getInt("O_ID");
+
+                        // First row of the next order → hand over the previous one
+                        if (current == null || current.getId() != orderId) {
+                            if (current != null) {
+                                action.accept(current);
+                                n++;
+                            }
+                            current = new Order(
+                                    orderId,
+                                    rs.getString("TXN_ID"),
+                                    rs.getTimestamp("ORDER_DATE").toLocalDateTime()
+                            );
+                        }
+
+                        addLine(rs, current, menuItems);
+                    }
 
-                    // Add to the order object
-                    order.addItem(new OrderItem(
-                            rs.getInt("ID"),
-                            order.getId(),
-                            mi,
-                            rs.getInt("QTY"),
-                            rs.getBigDecimal("UNIT_PRICE")
-                    ));
+                    if (current != null) {
+                        action.accept(current);
+                        n++;
+                    }
                 }
             }
+
+            return n;
+        } catch (SQLException | RuntimeException e) {
+            FOR_EACH_WITH_LINES.fail();
+            throw e;
+        } finally {
+            FOR_EACH_WITH_LINES.stop(t);
+        }
+    }
+
+    /**
+     * Inserts the orders whose TXN_ID is not in the database yet, on the
+     * caller's connection and without committing (for bulk imports).
+     * Orders that already exist — in ORDERS or in an archived month
+     * (ARCHIVED_ORDERS) — are skipped, so re-running an import is safe.
+     *
+     * @return the orders that were inserted
+     */
+    public List<Order> insertNew(Connection conn, List<Order> orders) throws SQLException {
+        if (orders.isEmpty()) return orders;
+
+        Set<String> existing = new HashSet<>();
+        for (int from = 0; from < orders.size(); from += BULK_CHUNK) {
+            List<Order> chunk = orders.subList(from, Math.min(from + BULK_CHUNK, orders.size()));
+
+            String in = String.join(",", Collections.nCopies(chunk.size(), "?"));
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "SELECT TXN_ID FROM ORDERS WHERE TXN_ID IN (" + in + ")\n"
+                    + "UNION ALL SELECT TXN_ID FROM ARCHIVED_ORDERS WHERE TXN_ID IN (" + in + ")")) {
+                for (int i = 0; i < chunk.size(); i++) {
+                    ps.setString(i + 1, chunk.get(i).getTxnId());
+                    ps.setString(chunk.size() + i + 1, chunk.get(i).getTxnId());
+                }
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) existing.add(rs.getString(1));
+                }
+            }
+        }
+
+        List<Order> fresh = new ArrayList<>(orders.size());
+        for (Order o : orders) {
+            // existing.add also drops a TXN_ID repeated within the batch
+            if (existing.add(o.getTxnId())) fresh.add(o);
         }
 
-        return order;
+        if (!fresh.isEmpty()) insertAll(conn, fresh);
+        return fresh;
+    }
+
+    /**
+     * Sales mix of one menu item by modifier: total quantity sold for each
+     * size / icing / filling combination, most popular first.
+     * Grouped on the option codes (covered by IX_ORDER_ITEMS_OPTIONS).
+     */
+    public Map<ItemOptions, Integer> findOptionMix(int menuItemId) throws SQLException {
+        long t = FIND_OPTION_MIX.start();
+        try {
+            Map<ItemOptions, Integer> out = new LinkedHashMap<>();
+
+            try (Connection conn = Database.get();
+                 PreparedStatement ps = conn.prepareStatement("""
+                    SELECT SIZE_CODE, ICING_CODE, FILLING_CODE, SUM(QTY) AS SOLD
+                    FROM ORDER_ITEMS
+                    WHERE MENU_ITEM_ID=?
+                    GROUP BY SIZE_CODE, ICING_CODE, FILLING_CODE
+                    ORDER BY SOLD DESC
+                    """)) {
+
+                ps.setInt(1, menuItemId);
+
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        // Unknown codes all fold into the same "none" value
+                        out.merge(ItemOptions.fromCodes(rs.getInt(1), rs.getInt(2), rs.getInt(3)),
+                                rs.getInt(4), Integer::sum);
+                    }
+                }
+            }
+
+            return out;
+        } catch (SQLException | RuntimeException e) {
+            FIND_OPTION_MIX.fail();
+            throw e;
+        } finally {
+            FIND_OPTION_MIX.stop(t);
+        }
     }
 
     /**
      * Returns a list of all orders in the system,
      * sorted with newest orders first.
+     *
+     * Loads every header into memory — for history screens prefer
+     * findPage (one page at a time) or stream (lazy).
+     * Only orders still in ORDERS; archived months are not included.
      */
     public List<Order> findAll() throws SQLException {
-        List<Order> out = new ArrayList<>();
+        long t = FIND_ALL.start();
+        try {
+            List<Order> out = new ArrayList<>();
 
-        try (PreparedStatement ps = Database.get().prepareStatement(
-                "SELECT ID, TXN_ID, ORDER_DATE FROM ORDERS ORDER BY ORDER_DATE DESC");
-             ResultSet rs = ps.executeQuery()) {
+            try (Connection conn = Database.get();
+                 PreparedStatement ps = conn.prepareStatement(
+                    "SELECT ID, TXN_ID, ORDER_DATE FROM ORDERS ORDER BY ORDER_DATE DESC, ID DESC")) {
 
-            while (rs.next()) {
-                out.add(new Order(
-                        rs.getInt("ID"),
-                        rs.getString("TXN_ID"),
-                        rs.getTimestamp("ORDER_DATE").toLocalDateTime()
-                ));
+                ps.setFetchSize(Database.fetchSize()); // fewer round trips in client mode
+
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        out.add(mapHeader(rs));
+                    }
+                }
             }
+
+            return out;
+        } catch (SQLException | RuntimeException e) {
+            FIND_ALL.fail();
+            throw e;
+        } finally {
+            FIND_ALL.stop(t);
         }
+    }
 
-        return out;
+    /**
+     * Returns one page of order headers, newest first (keyset pagination).
+     *
+     * Pass the last order of the previous page as {@code after} to get the
+     * next page, or null for the first page. Because the query seeks on
+     * (ORDER_DATE, ID) instead of using OFFSET, every page costs the same
+     * no matter how deep into history it is.
+     *
+     * Archived months are merged in only once the page reaches them, so
+     * browsing recent history never opens an archive file.
+     *
+     * @param from     only orders at or after this time (null = no lower bound)
+     * @param to       only orders before this time (null = no upper bound)
+     * @param after    last order of the previous page (null = first page)
+     * @param pageSize max number of orders to return
+     */
+    public List<Order> findPage(LocalDateTime from, LocalDateTime to, Order after, int pageSize) throws SQLException {
+        long t = FIND_PAGE.start();
+        try {
+            if (pageSize < 1) throw new IllegalArgumentException("pageSize must be >= 1");
+
+            List<Object> params = new ArrayList<>();
+            String sql = "SELECT ID, TXN_ID, ORDER_DATE FROM ORDERS"
+                    + historyWhere(from, to, after, params)
+                    + " ORDER BY ORDER_DATE DESC, ID DESC"
+                    + " FETCH FIRST " + pageSize + " ROWS ONLY";
+
+            List<Order> out = new ArrayList<>(pageSize);
+
+            try (Connection conn = Database.get();
+                 PreparedStatement ps = conn.prepareStatement(sql)) {
+
+                bind(ps, params);
+                ps.setMaxRows(pageSize);
+                ps.setFetchSize(pageSize); // the whole page in one round trip
+
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        out.add(mapHeader(rs));
+                    }
+                }
+            }
+
+            List<OrderArchives.Partition> months = archives.overlapping(from, to);
+            return months.isEmpty() ? out : mergeArchived(out, months, from, to, after, pageSize);
+        } catch (SQLException | RuntimeException e) {
+            FIND_PAGE.fail();
+            throw e;
+        } finally {
+            FIND_PAGE.stop(t);
+        }
+    }
+
+    /**
+     * Adds the archived orders that belong on this page to the rows from
+     * ORDERS. Months are visited newest first and the walk stops as soon
+     * as no older month can make it onto the page.
+     */
+    private List<Order> mergeArchived(List<Order> live, List<OrderArchives.Partition> months,
+                                      LocalDateTime from, LocalDateTime to, Order after, int pageSize)
+            throws SQLException {
+        List<Order> merged = new ArrayList<>(live);
+        int fromArchives = 0;
+
+        for (OrderArchives.Partition p : months) {
+            // Whole month is on earlier pages
+            if (after != null && p.start().isAfter(after.getOrderDate())) continue;
+
+            // The page is already full of orders newer than this month (and every older one)
+            if (live.size() == pageSize && !live.get(pageSize - 1).getOrderDate().isBefore(p.end())) break;
+            if (fromArchives >= pageSize) break;
+
+            List<Order> part = archives.open(p).page(from, to, after, pageSize);
+            merged.addAll(part);
+            fromArchives += part.size();
+        }
+
+        merged.sort(RECENT_FIRST);
+        return merged.size() > pageSize ? new ArrayList<>(merged.subList(0, pageSize)) : merged;
+    }
+
+    /**
+     * Streams order headers, newest first, fetching rows lazily from the
+     * database {@code fetchSize} at a time — memory use stays flat no
+     * matter how many orders match.
+     *
+     * The stream holds a pooled connection open until it is closed,
+     * so ALWAYS use it in a try-with-resources block:
+     * <pre>
+     * try (Stream&lt;Order&gt; orders = orderDAO.stream(from, to, 500)) { ... }
+     * </pre>
+     * SQL errors during iteration are thrown as UncheckedSQLException.
+     * Only orders still in ORDERS; archived months are not included.
+     *
+     * @param from      only orders at or after this time (null = no lower bound)
+     * @param to        only orders before this time (null = no upper bound)
+     * @param fetchSize rows fetched per round trip
+     */
+    public Stream<Order> stream(LocalDateTime from, LocalDateTime to, int fetchSize) throws SQLException {
+        List<Object> params = new ArrayList<>();
+        String sql = "SELECT ID, TXN_ID, ORDER_DATE FROM ORDERS"
+                + historyWhere(from, to, null, params)
+                + " ORDER BY ORDER_DATE DESC, ID DESC";
+
+        Connection conn = Database.get();
+        try {
+            PreparedStatement ps = conn.prepareStatement(sql,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(fetchSize);
+            bind(ps, params);
+            ResultSet rs = ps.executeQuery();
+
+            Spliterator<Order> rows = new Spliterators.AbstractSpliterator<>(
+                    Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+                @Override
+                public boolean tryAdvance(Consumer<? super Order> action) {
+                    try {
+                        if (!rs.next()) return false;
+                        action.accept(mapHeader(rs));
+                        return true;
+                    } catch (SQLException e) {
+                        throw new UncheckedSQLException(e);
+                    }
+                }
+            };
+
+            return StreamSupport.stream(rows, false).onClose(() -> {
+                try (conn; ps; rs) {
+                    // closing rs, ps and conn (returns it to the pool)
+                } catch (SQLException e) {
+                    throw new UncheckedSQLException(e);
+                }
+            });
+        } catch (SQLException | RuntimeException e) {
+            conn.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Receives one order line at a time from scanLines, as plain numbers
+     * (no Order / OrderItem / BigDecimal objects).
+     */
+    @FunctionalInterface
+    public interface LineVisitor {
+        /**
+         * @param epochMinute    order time as minutes since 1970-01-01 00:00 local time
+         * @param unitPriceCents unit price in cents
+         * @param sizeCode       ItemOptions.Size code
+         */
+        void line(int orderId, int epochMinute, int menuItemId, int qty, long unitPriceCents, int sizeCode);
+    }
+
+    /**
+     * Scans every order line in a time range, streaming rows from the
+     * database {@code fetchSize} at a time and handing them to the visitor
+     * as primitives. Meant for bulk analytics (see od.analytics), where
+     * building millions of model objects would dominate the cost.
+     * Only orders still in ORDERS; archived months are not included
+     * (their totals remain in the sales rollups).
+     *
+     * @param from only orders at or after this time (null = no lower bound)
+     * @param to   only orders before this time (null = no upper bound)
+     * @return number of lines visited
+     */
+    public long scanLines(LocalDateTime from, LocalDateTime to, int fetchSize, LineVisitor visitor) throws SQLException {
+        long t = SCAN_LINES.start();
+        try {
+            List<Object> params = new ArrayList<>();
+
+            // Price comes back as whole cents so no BigDecimal is created per row
+            String sql = """
+                    SELECT OI.ORDER_ID, O.ORDER_DATE, OI.MENU_ITEM_ID, OI.QTY,
+                           CAST(OI.UNIT_PRICE * 100 AS BIGINT), OI.SIZE_CODE
+                    FROM ORDER_ITEMS OI
+                    JOIN ORDERS O ON O.ID = OI.ORDER_ID
+                    """ + historyWhere(from, to, null, params); // ORDER_DATE only exists in ORDERS
+
+            long n = 0;
+
+            try (Connection conn = Database.get();
+                 PreparedStatement ps = conn.prepareStatement(sql,
+                         ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+
+                ps.setFetchSize(fetchSize);
+                bind(ps, params);
+
+                try (ResultSet rs = ps.executeQuery()) {
+                    // Lines of one order usually arrive together, so the
+                    // timestamp is only converted when the order changes
+                    int lastOrder = -1;
+                    int minute = 0;
+
+                    while (rs.next()) {
+                        int orderId = rs.getInt(1);
+                        if (orderId != lastOrder) {
+                            minute = epochMinute(rs.getTimestamp(2).toLocalDateTime());
+                            lastOrder = orderId;
+                        }
+                        visitor.line(orderId, minute, rs.getInt(3), rs.getInt(4), rs.getLong(5), rs.getInt(6));
+                        n++;
+                    }
+                }
+            }
+
+            return n;
+        } catch (SQLException | RuntimeException e) {
+            SCAN_LINES.fail();
+            throw e;
+        } finally {
+            SCAN_LINES.stop(t);
+        }
+    }
+
+    /** Minutes since 1970-01-01 00:00 on the local (wall) clock. */
+    public static int epochMinute(LocalDateTime t) {
+        return (int) Math.floorDiv(t.toEpochSecond(java.time.ZoneOffset.UTC), 60);
+    }
+
+    /**
+     * Builds the WHERE clause shared by findPage/stream and collects its parameters.
+     */
+    private static String historyWhere(LocalDateTime from, LocalDateTime to, Order after, List<Object> params) {
+        List<String> conditions = new ArrayList<>();
+
+        if (from != null) {
+            conditions.add("ORDER_DATE >= ?");
+            params.add(Timestamp.valueOf(from));
+        }
+        if (to != null) {
+            conditions.add("ORDER_DATE < ?");
+            params.add(Timestamp.valueOf(to));
+        }
+        if (after != null) {
+            // Seek past the previous page: (date, id) < (after.date, after.id)
+            Timestamp ts = Timestamp.valueOf(after.getOrderDate());
+            conditions.add("(ORDER_DATE < ? OR (ORDER_DATE = ? AND ID < ?))");
+            params.add(ts);
+            params.add(ts);
+            params.add(after.getId());
+        }
+
+        return conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions);
+    }
+
+    private static void bind(PreparedStatement ps, List<Object> params) throws SQLException {
+        for (int i = 0; i < params.size(); i++) {
+            ps.setObject(i + 1, params.get(i));
+        }
+    }
+
+    private static Order mapHeader(ResultSet rs) throws SQLException {
+        return new Order(
+                rs.getInt("ID"),
+                rs.getString("TXN_ID"),
+                rs.getTimestamp("ORDER_DATE").toLocalDateTime()
+        );
     }
 
     /**
      * Deletes an order by its transaction ID.
      * Steps:
-     * 1. Find its ORDER.ID
+     * 1. Load the order (with its lines)
      * 2. Delete its line items first (ORDER_ITEMS)
      * 3. Delete the order header (ORDERS)
-     * Uses a transaction so both deletes succeed or fail together.
+     * 4. Take it back out of the sales rollups
+     * Uses a transaction so everything succeeds or fails together.
      */
     public void deleteByTxn(String txnId) throws SQLException {
-        try {
-            Database.get().setAutoCommit(false);
+        long t = DELETE_BY_TXN.start();
+        try (Connection conn = Database.get()) {
+            try {
+                conn.setAutoCommit(false);
 
-            Integer orderId = null;
+                // Look up the order (the rollups need its lines)
+                Order order = findByTxn(conn, txnId);
 
-            // Look up order ID from the TXN_ID
-            try (PreparedStatement ps = Database.get().prepareStatement(
-                    "SELECT ID FROM ORDERS WHERE TXN_ID=?")) {
+                // No such order → exit early
+                if (order == null) {
+                    conn.rollback();
+                    OrderArchives.Partition p = archives.forArchivedTxn(conn, txnId);
+                    if (p != null) {
+                        throw new SQLException("Order " + txnId + " is archived (" + p.month() + ") and can't be deleted");
+                    }
+                    return;
+                }
+                delete(conn, order);
+                conn.commit();
 
-                ps.setString(1, txnId);
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException | RuntimeException e) {
+            DELETE_BY_TXN.fail();
+            throw e;
+        } finally {
+            DELETE_BY_TXN.stop(t);
+        }
+    }
 
-                try (ResultSet rs = ps.executeQuery()) {
-                    if (rs.next()) orderId = rs.getInt(1);
+    /** Steps 2–4 of deleteByTxn for an order loaded with its lines. */
+    private static void delete(Connection conn, Order order) throws SQLException {
+        int orderId = order.getId();
+
+        // Delete line items first (foreign key)
+        try (PreparedStatement ps = conn.prepareStatement(
+                "DELETE FROM ORDER_ITEMS WHERE ORDER_ID=?")) {
+            ps.setInt(1, orderId);
+            ps.executeUpdate();
+        }
+
+        // Delete the main order record
+        try (PreparedStatement ps = conn.prepareStatement(
+                "DELETE FROM ORDERS WHERE ID=?")) {
+            ps.setInt(1, orderId);
+            ps.executeUpdate();
+        }
+
+        SalesRollup.subtract(conn, order);
+    }
+
+    /**
+     * Deletes live copies of orders that are already archived (imported
+     * again before insertNew checked ARCHIVED_ORDERS), on the caller's
+     * connection and without committing. Unlike deleteArchived this also
+     * takes them back out of the sales rollups, which counted them twice.
+     * The orders must have their database IDs and lines.
+     */
+    public void deleteDuplicates(Connection conn, List<Order> orders) throws SQLException {
+        for (Order o : orders) delete(conn, o);
+    }
+
+    /**
+     * Date of the oldest order still in ORDERS (archived months not
+     * included), or null if there are none. Reads one index entry.
+     */
+    public LocalDateTime findOldestOrderDate() throws SQLException {
+        try (Connection conn = Database.get();
+             PreparedStatement ps = conn.prepareStatement("SELECT MIN(ORDER_DATE) FROM ORDERS");
+             ResultSet rs = ps.executeQuery()) {
+            Timestamp ts = rs.next() ? rs.getTimestamp(1) : null;
+            return ts == null ? null : ts.toLocalDateTime();
+        }
+    }
+
+    /**
+     * Removes orders that have just been written to an archive file:
+     * their line items and headers, by ID, on the caller's connection and
+     * without committing. The sales rollups are left alone — archived
+     * orders still count in reports.
+     *
+     * @return number of orders deleted
+     */
+    public int deleteArchived(Connection conn, List<Integer> orderIds) throws SQLException {
+        long t = DELETE_ARCHIVED.start();
+        try {
+            int deleted = 0;
+            for (int from = 0; from < orderIds.size(); from += BULK_CHUNK) {
+                List<Integer> chunk = orderIds.subList(from, Math.min(from + BULK_CHUNK, orderIds.size()));
+                String in = String.join(",", Collections.nCopies(chunk.size(), "?"));
+
+                // Line items first (foreign key)
+                try (PreparedStatement ps = conn.prepareStatement(
+                        "DELETE FROM ORDER_ITEMS WHERE ORDER_ID IN (" + in + ")")) {
+                    for (int i = 0; i < chunk.size(); i++) ps.setInt(i + 1, chunk.get(i));
+                    ps.executeUpdate();
+                }
+                try (PreparedStatement ps = conn.prepareStatement(
+                        "DELETE FROM ORDERS WHERE ID IN (" + in + ")")) {
+                    for (int i = 0; i < chunk.size(); i++) ps.setInt(i + 1, chunk.get(i));
+                    deleted += ps.executeUpdate();
                 }
             }
+            return deleted;
+        } catch (SQLException | RuntimeException e) {
+            DELETE_ARCHIVED.fail();
+            throw e;
+        } finally {
+            DELETE_ARCHIVED.stop(t);
+        }
+    }
+
+    // --- Transaction IDs ---
 
-            // No such order → exit early
-            if (orderId == null) {
-                Database.get().rollback();
-                return;
+    // DB_SETTINGS key holding the next register node number to hand out
+    private static final String NEXT_NODE_SETTING = "txn.node.next";
+
+    // Where this register keeps the node number it leased, so restarts reuse it
+    private static final Path NODE_FILE = Path.of(System.getProperty("od.register.nodeFile", "db/register-node"));
+
+    private static volatile TxnIdGenerator txnIds;
+
+    // IDs passed to reserveTxnIds() before the generator existed
+    private static final List<String> reservedTxnIds = new ArrayList<>();
+
+    /**
+     * Generates a unique transaction ID:
+     * Format: YYYYMMDD-HHMMSS-NNN-SSSS (time, register node, sequence)
+     * Example: 20251116-154220-007-0003
+     *
+     * See TxnIdGenerator for how uniqueness is guaranteed.
+     */
+    public static String generateTxnId() {
+        return txnIds().next();
+    }
+
+    /**
+     * The generator for this register, created on first use.
+     *
+     * The node number comes from -Dod.register.id when set. Otherwise it is
+     * read from -Dod.register.nodeFile (default db/register-node), and only
+     * the very first start leases a fresh one from the shared database and
+     * saves it there. The generator then starts after the newest ID this
+     * node already stored, so a quick restart can't hand out an ID again.
+     */
+    public static TxnIdGenerator txnIds() {
+        TxnIdGenerator g = txnIds;
+        if (g == null) {
+            synchronized (OrderDAO.class) {
+                g = txnIds;
+                if (g == null) {
+                    Integer configured = Integer.getInteger("od.register.id");
+                    try {
+                        g = new TxnIdGenerator(configured != null ? configured : localNode());
+                        g.advancePast(newestTxnId(g.getNode()));
+                    } catch (SQLException e) {
+                        throw new UncheckedSQLException(e);
+                    }
+                    for (String id : reservedTxnIds) g.advancePast(id);
+                    reservedTxnIds.clear();
+                    txnIds = g;
+                }
             }
+        }
+        return g;
+    }
 
-            // Delete line items first (foreign key)
-            try (PreparedStatement ps = Database.get().prepareStatement(
-                    "DELETE FROM ORDER_ITEMS WHERE ORDER_ID=?")) {
-                ps.setInt(1, orderId);
-                ps.executeUpdate();
+    /**
+     * Tells the generator about IDs this register issued that may not be in
+     * the database yet (e.g. orders still waiting in the journal), so new
+     * IDs sort after them.
+     */
+    public static void reserveTxnIds(Collection<String> issued) {
+        synchronized (OrderDAO.class) {
+            TxnIdGenerator g = txnIds;
+            if (g != null) {
+                for (String id : issued) g.advancePast(id);
+            } else {
+                reservedTxnIds.addAll(issued);
             }
+        }
+    }
 
-            // Delete the main order record
-            try (PreparedStatement ps = Database.get().prepareStatement(
-                    "DELETE FROM ORDERS WHERE ID=?")) {
-                ps.setInt(1, orderId);
-                ps.executeUpdate();
+    /** The node number saved in NODE_FILE, or a newly leased one (then saved there). */
+    private static int localNode() throws SQLException {
+        try {
+            if (Files.exists(NODE_FILE)) {
+                String saved = Files.readString(NODE_FILE).trim();
+                if (!saved.isEmpty()) return Integer.parseInt(saved);
             }
+        } catch (IOException | NumberFormatException e) {
+            LOG.log(Level.WARNING, "Could not read " + NODE_FILE + "; leasing a new register node", e);
+        }
 
-            Database.get().commit();
+        int node = leaseNode();
+        try {
+            Path dir = NODE_FILE.toAbsolutePath().getParent();
+            Files.createDirectories(dir);
+            Path tmp = Files.createTempFile(dir, "register-node", ".tmp");
+            Files.writeString(tmp, node + "\n");
+            Files.move(tmp, NODE_FILE, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // This run can still use the number; the next start leases another one
+            LOG.log(Level.WARNING, "Could not save register node " + node + " to " + NODE_FILE, e);
+        }
+        return node;
+    }
 
-        } catch (SQLException e) {
-            Database.get().rollback();
-            throw e;
-        } finally {
-            Database.get().setAutoCommit(true);
+    /** The greatest stored TXN_ID of this node (live or archived), or null. */
+    private static String newestTxnId(int node) throws SQLException {
+        // yyyyMMdd-HHmmss-NNN-SSSS: same width, so the greatest string is the newest ID
+        String pattern = String.format("________-______-%03d-____", node);
+        String newest = null;
+        try (Connection conn = Database.get()) {
+            for (String table : List.of("ORDERS", "ARCHIVED_ORDERS")) {
+                try (PreparedStatement ps = conn.prepareStatement(
+                        "SELECT MAX(TXN_ID) FROM " + table + " WHERE TXN_ID LIKE ?")) {
+                    ps.setString(1, pattern);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        String max = rs.next() ? rs.getString(1) : null;
+                        if (max != null && (newest == null || max.compareTo(newest) > 0)) newest = max;
+                    }
+                }
+            }
         }
+        return newest;
     }
 
     /**
-     * Generates a unique transaction ID:
-     * Format: YYYYMMDD-HHMMSS-rand4
-     * Example: 20251116-154220-4821
+     * Takes the next unused node number (0–999) from DB_SETTINGS.
+     *
+     * Numbers are never handed out twice: once all of them have been
+     * leased this fails, rather than wrapping around to a number a running
+     * register may still use. Give registers fixed numbers with
+     * -Dod.register.id, or reset the txn.node.next setting once no
+     * register is running.
      */
-    public static String generateTxnId() {
-        LocalDateTime now = LocalDateTime.now();
-        int rand = ThreadLocalRandom.current().nextInt(1000, 9999);
+    private static int leaseNode() throws SQLException {
+        try (Connection conn = Database.get()) {
+            try {
+                conn.setAutoCommit(false);
+
+                // Registers starting at the same moment must not get the same number
+                try (Statement st = conn.createStatement()) {
+                    st.execute("LOCK TABLE DB_SETTINGS IN EXCLUSIVE MODE");
+                }
 
-        return String.format("%04d%02d%02d-%02d%02d%02d-%04d",
-                now.getYear(), now.getMonthValue(), now.getDayOfMonth(),
-                now.getHour(), now.getMinute(), now.getSecond(),
-                rand);
+                String next = Database.getSetting(conn, NEXT_NODE_SETTING);
+                int node = next == null ? 0 : Integer.parseInt(next);
+                if (node > TxnIdGenerator.MAX_NODE) {
+                    throw new SQLException("All " + (TxnIdGenerator.MAX_NODE + 1) + " register node numbers"
+                            + " have been leased; set -Dod.register.id or reset " + NEXT_NODE_SETTING);
+                }
+                Database.putSetting(conn, NEXT_NODE_SETTING, Integer.toString(node + 1));
+
+                conn.commit();
+                return node;
+
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
     }
 }
@@ -0,0 +1,271 @@
+package od.dao;
+
+import od.db.Database;
+import od.metrics.Metrics;
+import od.model.Order;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Group-commit writer for new orders.
+ *
+ * Callers submit orders and get a future back. A single writer thread
+ * collects submitted orders into micro-batches and writes each batch in
+ * ONE transaction (one commit = one log sync), instead of one transaction
+ * per order.
+ *
+ * A batch is closed when either:
+ *  - it holds maxBatch orders, or
+ *  - maxDelayMillis have passed since its first order arrived
+ * so no caller ever waits more than maxDelayMillis plus one commit.
+ *
+ * If a batch fails (e.g. one duplicate TXN_ID), it is rolled back and its
+ * orders are retried one by one, so only the bad order fails.
+ */
+public class OrderWritePipeline implements AutoCloseable {
+
+    private final OrderDAO orderDAO;
+    private final int maxBatch;
+    private final long maxDelayNanos;
+
+    private final BlockingQueue<Pending> queue;
+    private final Thread writer;
+    private volatile boolean closed;
+
+    // Submitters hold the read lock while queueing, close() the write lock,
+    // so no order can be queued behind the POISON (its future would never complete)
+    private final ReadWriteLock closeLock = new ReentrantReadWriteLock();
+
+    // --- Stats ---
+    private final AtomicLong orders = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong fallbacks = new AtomicLong();
+    private final AtomicLong maxBatchSeen = new AtomicLong();
+
+    /** A submitted order waiting for its batch to commit. */
+    private record Pending(Order order, CompletableFuture<Order> result) {}
+
+    // Wakes the writer thread up when the pipeline is closed
+    private static final Pending POISON = new Pending(null, null);
+
+    // Pipelines created so far (numbers their gauges)
+    private static final AtomicInteger INSTANCES = new AtomicInteger();
+
+    /**
+     * Pipeline with the default window, configurable via
+     * -Dod.orders.maxBatch and -Dod.orders.maxDelayMs.
+     */
+    public OrderWritePipeline(OrderDAO orderDAO) {
+        this(orderDAO,
+                Integer.getInteger("od.orders.maxBatch", 64),
+                Long.getLong("od.orders.maxDelayMs", 5),
+                Integer.getInteger("od.orders.queueCapacity", 4096));
+    }
+
+    public OrderWritePipeline(OrderDAO orderDAO, int maxBatch, long maxDelayMillis, int queueCapacity) {
+        if (maxBatch < 1) throw new IllegalArgumentException("maxBatch must be >= 1");
+        this.orderDAO = orderDAO;
+        this.maxBatch = maxBatch;
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxDelayMillis);
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+
+        this.writer = new Thread(this::run, "od-order-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+
+        // Each pipeline gets its own gauges, so a second one doesn't replace the first's
+        int n = INSTANCES.incrementAndGet();
+        String prefix = n == 1 ? "pipeline." : "pipeline-" + n + ".";
+        Metrics.gauge(prefix + "orders", this::getOrderCount);
+        Metrics.gauge(prefix + "batches", this::getBatchCount);
+        Metrics.gauge(prefix + "fallbacks", this::getFallbackCount);
+        Metrics.gauge(prefix + "maxBatch", this::getMaxBatchSize);
+        Metrics.gauge(prefix + "queued", this::getQueuedCount);
+    }
+
+    /**
+     * Queues an order for the next batch. Blocks only if the queue is full.
+     *
+     * @return a future completed with the persisted order once its batch
+     *         has committed (or exceptionally if it could not be saved)
+     */
+    public CompletableFuture<Order> submit(Order order) {
+        CompletableFuture<Order> f = new CompletableFuture<>();
+        closeLock.readLock().lock();
+        try {
+            if (closed) {
+                f.completeExceptionally(new IllegalStateException("Order pipeline is closed"));
+                return f;
+            }
+            queue.put(new Pending(order, f));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            f.completeExceptionally(e);
+        } finally {
+            closeLock.readLock().unlock();
+        }
+        return f;
+    }
+
+    /**
+     * Stops accepting orders, writes everything already queued,
+     * then stops the writer thread. If the calling thread is interrupted
+     * while waiting, its interrupt flag is set again; the writer finishes
+     * the batch it is collecting and fails the orders still queued.
+     */
+    @Override
+    public void close() {
+        closeLock.writeLock().lock();
+        try {
+            if (closed) return;
+            closed = true;
+            queue.put(POISON);
+        } catch (InterruptedException e) {
+            writer.interrupt(); // couldn't queue the POISON: stop the writer directly
+            Thread.currentThread().interrupt();
+            return;
+        } finally {
+            closeLock.writeLock().unlock();
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // --- Writer thread ---
+
+    private void run() {
+        List<Pending> batch = new ArrayList<>(maxBatch);
+        boolean stop = false;
+
+        while (!stop) {
+            try {
+                // Wait for the first order of the next batch
+                Pending first = queue.take();
+                if (first == POISON) break;
+                batch.add(first);
+
+                // Keep collecting until the batch is full or its window ends
+                long deadline = System.nanoTime() + maxDelayNanos;
+                while (batch.size() < maxBatch) {
+                    long remaining = deadline - System.nanoTime();
+                    Pending next = remaining > 0
+                            ? queue.poll(remaining, TimeUnit.NANOSECONDS)
+                            : queue.poll();
+                    if (next == null) break;
+                    if (next == POISON) {
+                        stop = true;
+                        break;
+                    }
+                    batch.add(next);
+                }
+
+                write(batch);
+            } catch (InterruptedException e) {
+                // Orders already taken off the queue are written, not dropped:
+                // their callers (and the in-flight count) are waiting on them
+                stop = true;
+                if (!batch.isEmpty()) write(batch);
+            } finally {
+                batch.clear();
+            }
+        }
+
+        // Fail anything that was still queued when we were interrupted
+        Pending p;
+        while ((p = queue.poll()) != null) {
+            if (p != POISON) p.result.completeExceptionally(new IllegalStateException("Order pipeline stopped"));
+        }
+    }
+
+    /**
+     * Writes one batch in a single transaction, or falls back to
+     * one transaction per order if the batch as a whole fails.
+     */
+    private void write(List<Pending> batch) {
+        List<Order> toWrite = new ArrayList<>(batch.size());
+        for (Pending p : batch) toWrite.add(p.order);
+
+        try {
+            try (Connection conn = Database.get()) {
+                try {
+                    conn.setAutoCommit(false);
+                    orderDAO.insertAll(conn, toWrite);
+                    conn.commit(); // One log sync for the whole batch
+                } catch (SQLException e) {
+                    conn.rollback();
+                    throw e;
+                } finally {
+                    conn.setAutoCommit(true);
+                }
+            }
+        } catch (SQLException | RuntimeException batchFailure) {
+            if (batch.size() == 1) {
+                batch.get(0).result.completeExceptionally(batchFailure);
+                return;
+            }
+            // Isolate the bad order(s): retry each on its own
+            fallbacks.incrementAndGet();
+            for (Pending p : batch) {
+                try {
+                    p.result.complete(orderDAO.createNew(p.order));
+                    orders.incrementAndGet();
+                } catch (SQLException | RuntimeException e) {
+                    p.result.completeExceptionally(e);
+                }
+            }
+            return;
+        }
+
+        batches.incrementAndGet();
+        orders.addAndGet(batch.size());
+        maxBatchSeen.accumulateAndGet(batch.size(), Math::max);
+
+        // insertAll filled in the generated IDs: hand the same objects back
+        for (Pending p : batch) {
+            if (orderDAO.isVerifyWrites()) {
+                try (Connection conn = Database.get()) {
+                    orderDAO.verify(conn, p.order);
+                } catch (SQLException | RuntimeException e) {
+                    p.result.completeExceptionally(e);
+                    continue;
+                }
+            }
+            p.result.complete(p.order);
+        }
+    }
+
+    // --- Stats ---
+
+    /** Orders written so far. */
+    public long getOrderCount() { return orders.get(); }
+
+    /** Batches committed as a single transaction. */
+    public long getBatchCount() { return batches.get(); }
+
+    /** Batches that failed and were retried order by order. */
+    public long getFallbackCount() { return fallbacks.get(); }
+
+    public long getMaxBatchSize() { return maxBatchSeen.get(); }
+
+    public int getQueuedCount() { return queue.size(); }
+
+    @Override
+    public String toString() {
+        return "OrderWritePipeline[orders=" + getOrderCount()
+                + ", batches=" + getBatchCount()
+                + ", fallbacks=" + getFallbackCount()
+                + ", maxBatch=" + getMaxBatchSize()
+                + ", queued=" + getQueuedCount() + "]";
+    }
+}
@@ -0,0 +1,200 @@
+package od.dao;
+
+import od.db.Database;
+import od.metrics.Metrics;
+import od.metrics.Timer;
+
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Sales reports (end of day, hourly, per item, per category).
+ *
+ * Every query reads the rollup tables kept by od.db.SalesRollup, never
+ * ORDERS / ORDER_ITEMS, so the cost depends on how many hour buckets the
+ * range covers — not on how many orders were sold. Date ranges are
+ * inclusive on both ends (from = to gives a single day).
+ */
+public class SalesReportDAO {
+
+    // --- Timers (see od.metrics) ---
+    private static final Timer TOTALS = Metrics.timer("dao.sales.totals");
+    private static final Timer DAILY = Metrics.timer("dao.sales.daily");
+    private static final Timer HOURLY = Metrics.timer("dao.sales.hourly");
+    private static final Timer BY_ITEM = Metrics.timer("dao.sales.byItem");
+    private static final Timer BY_CATEGORY = Metrics.timer("dao.sales.byCategory");
+
+    /** Totals for a period. Gross is before tax; net = gross + tax. */
+    public record Totals(long orderCount, long qty, long grossCents, long taxCents) {
+        public static final Totals EMPTY = new Totals(0, 0, 0, 0);
+
+        public long totalCents() { return grossCents + taxCents; }
+    }
+
+    /** Quantity and gross for one menu item (or one category when menuItemId is null). */
+    public record ItemSales(Integer menuItemId, String category, long qty, long grossCents) {}
+
+    private static final String TOTALS_COLUMNS = """
+            SUM(CAST(ORDER_COUNT AS BIGINT)), SUM(CAST(QTY AS BIGINT)),
+            SUM(GROSS_CENTS), SUM(TAX_CENTS)
+            """;
+
+    /** Totals over a date range (e.g. end of day: from = to = today). */
+    public Totals totals(LocalDate from, LocalDate to) throws SQLException {
+        long t = TOTALS.start();
+        try (Connection conn = Database.get();
+             PreparedStatement ps = conn.prepareStatement(
+                "SELECT " + TOTALS_COLUMNS + " FROM SALES_HOURLY WHERE BUCKET_DATE BETWEEN ? AND ?")) {
+
+            bindRange(ps, from, to);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                // SUM over no rows is NULL → getLong gives 0
+                return rs.next() ? mapTotals(rs, 1) : Totals.EMPTY;
+            }
+        } catch (SQLException | RuntimeException e) {
+            TOTALS.fail();
+            throw e;
+        } finally {
+            TOTALS.stop(t);
+        }
+    }
+
+    /** One entry per day that had sales, oldest first. */
+    public Map<LocalDate, Totals> daily(LocalDate from, LocalDate to) throws SQLException {
+        long t = DAILY.start();
+        try {
+            Map<LocalDate, Totals> out = new LinkedHashMap<>();
+
+            try (Connection conn = Database.get();
+                 PreparedStatement ps = conn.prepareStatement(
+                    "SELECT BUCKET_DATE, " + TOTALS_COLUMNS + " FROM SALES_HOURLY"
+                    + " WHERE BUCKET_DATE BETWEEN ? AND ?"
+                    + " GROUP BY BUCKET_DATE ORDER BY BUCKET_DATE")) {
+
+                bindRange(ps, from, to);
+
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        out.put(rs.getDate(1).toLocalDate(), mapTotals(rs, 2));
+                    }
+                }
+            }
+
+            return out;
+        } catch (SQLException | RuntimeException e) {
+            DAILY.fail();
+            throw e;
+        } finally {
+            DAILY.stop(t);
+        }
+    }
+
+    /** Hour of day (0–23) → totals for one day; hours without sales are left out. */
+    public Map<Integer, Totals> hourly(LocalDate day) throws SQLException {
+        long t = HOURLY.start();
+        try {
+            Map<Integer, Totals> out = new LinkedHashMap<>();
+
+            try (Connection conn = Database.get();
+                 PreparedStatement ps = conn.prepareStatement("""
+                    SELECT BUCKET_HOUR, ORDER_COUNT, QTY, GROSS_CENTS, TAX_CENTS
+                    FROM SALES_HOURLY
+                    WHERE BUCKET_DATE = ?
+                    ORDER BY BUCKET_HOUR
+                    """)) {
+
+                ps.setDate(1, java.sql.Date.valueOf(day));
+
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        out.put((int) rs.getShort(1), mapTotals(rs, 2));
+                    }
+                }
+            }
+
+            return out;
+        } catch (SQLException | RuntimeException e) {
+            HOURLY.fail();
+            throw e;
+        } finally {
+            HOURLY.stop(t);
+        }
+    }
+
+    /** Sales per menu item over a date range, best sellers (by gross) first. */
+    public List<ItemSales> byItem(LocalDate from, LocalDate to) throws SQLException {
+        long t = BY_ITEM.start();
+        try {
+            List<ItemSales> out = new ArrayList<>();
+
+            try (Connection conn = Database.get();
+                 PreparedStatement ps = conn.prepareStatement("""
+                    SELECT MENU_ITEM_ID, MAX(CATEGORY), SUM(CAST(QTY AS BIGINT)), SUM(GROSS_CENTS) AS GROSS
+                    FROM SALES_HOURLY_ITEMS
+                    WHERE BUCKET_DATE BETWEEN ? AND ?
+                    GROUP BY MENU_ITEM_ID
+                    ORDER BY GROSS DESC
+                    """)) {
+
+                bindRange(ps, from, to);
+
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        out.add(new ItemSales(rs.getInt(1), rs.getString(2), rs.getLong(3), rs.getLong(4)));
+                    }
+                }
+            }
+
+            return out;
+        } catch (SQLException | RuntimeException e) {
+            BY_ITEM.fail();
+            throw e;
+        } finally {
+            BY_ITEM.stop(t);
+        }
+    }
+
+    /** Sales per category over a date range, largest gross first. */
+    public List<ItemSales> byCategory(LocalDate from, LocalDate to) throws SQLException {
+        long t = BY_CATEGORY.start();
+        try {
+            List<ItemSales> out = new ArrayList<>();
+
+            try (Connection conn = Database.get();
+                 PreparedStatement ps = conn.prepareStatement("""
+                    SELECT CATEGORY, SUM(CAST(QTY AS BIGINT)), SUM(GROSS_CENTS) AS GROSS
+                    FROM SALES_HOURLY_ITEMS
+                    WHERE BUCKET_DATE BETWEEN ? AND ?
+                    GROUP BY CATEGORY
+                    ORDER BY GROSS DESC
+                    """)) {
+
+                bindRange(ps, from, to);
+
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        out.add(new ItemSales(null, rs.getString(1), rs.getLong(2), rs.getLong(3)));
+                    }
+                }
+            }
+
+            return out;
+        } catch (SQLException | RuntimeException e) {
+            BY_CATEGORY.fail();
+            throw e;
+        } finally {
+            BY_CATEGORY.stop(t);
+        }
+    }
+
+    private static void bindRange(PreparedStatement ps, LocalDate from, LocalDate to) throws SQLException {
+        ps.setDate(1, java.sql.Date.valueOf(from));
+        ps.setDate(2, java.sql.Date.valueOf(to));
+    }
+
+    private static Totals mapTotals(ResultSet rs, int first) throws SQLException {
+        return new Totals(rs.getLong(first), rs.getLong(first + 1), rs.getLong(first + 2), rs.getLong(first + 3));
+    }
+}
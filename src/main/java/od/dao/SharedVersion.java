@@ -0,0 +1,98 @@
+package od.dao;
+
+import od.db.Database;
+import od.db.DatabaseConfig;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A change counter in DB_SETTINGS that tells registers sharing one
+ * database (server / client mode) when another register changed data
+ * they keep cached, e.g. the menu or the list of archived months.
+ *
+ * Writers call bump() on the same connection and transaction as their
+ * change. Readers call sync() right before loading their cache and
+ * changed() before using it; changed() reads the counter at most once per
+ * -Dod.cache.versionCheckMs (default 5000), so a change made on another
+ * till shows up within a few seconds.
+ * In embedded mode only this JVM can write, so the check is skipped.
+ */
+final class SharedVersion {
+
+    private static final Logger LOG = Logger.getLogger(SharedVersion.class.getName());
+
+    private static final long TTL_NANOS = TimeUnit.MILLISECONDS.toNanos(
+            Long.getLong("od.cache.versionCheckMs", 5_000));
+
+    private final String setting;
+    private final boolean shared = Database.config().getMode() != DatabaseConfig.Mode.EMBEDDED;
+
+    // When the counter was last read (System.nanoTime), and its value then
+    private final AtomicLong checkedAt = new AtomicLong(System.nanoTime() - TTL_NANOS);
+    private volatile String seen;
+
+    SharedVersion(String setting) {
+        this.setting = setting;
+    }
+
+    /**
+     * Reads the counter now. Call it just BEFORE (re)loading the cache, so
+     * a change committed during the load is still noticed next time.
+     */
+    void sync() throws SQLException {
+        if (!shared) return;
+        checkedAt.set(System.nanoTime());
+        seen = read();
+    }
+
+    /**
+     * True if the counter moved since the last sync() / check. Returns
+     * false without SQL until the TTL is up, and for every thread but one
+     * while a check is running. If the database can't be reached the
+     * cache is kept (and checked again after the next TTL).
+     */
+    boolean changed() {
+        if (!shared) return false;
+        long last = checkedAt.get();
+        long now = System.nanoTime();
+        if (now - last < TTL_NANOS || !checkedAt.compareAndSet(last, now)) return false;
+
+        String value;
+        try {
+            value = read();
+        } catch (SQLException e) {
+            LOG.log(Level.FINE, "Could not check " + setting + "; keeping the cached data", e);
+            return false;
+        }
+        String before = seen;
+        seen = value;
+        return !Objects.equals(before, value);
+    }
+
+    private String read() throws SQLException {
+        try (Connection conn = Database.get()) {
+            return Database.getSetting(conn, setting);
+        }
+    }
+
+    /**
+     * Adds one to the counter, on the caller's connection and transaction.
+     * The UPDATE row-locks the counter, so concurrent writers queue up.
+     */
+    static void bump(Connection conn, String setting) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("UPDATE DB_SETTINGS SET VAL=VAL WHERE NAME=?")) {
+            ps.setString(1, setting);
+            ps.executeUpdate();
+        }
+        String value = Database.getSetting(conn, setting);
+        long next = value == null ? 1 : Long.parseLong(value) + 1;
+        Database.putSetting(conn, setting, Long.toString(next));
+    }
+}
@@ -0,0 +1,19 @@
+package od.dao;
+
+import java.sql.SQLException;
+
+/**
+ * Wraps a SQLException where a checked exception cannot be thrown,
+ * e.g. while a caller is iterating a lazily-fetched Stream.
+ */
+public class UncheckedSQLException extends RuntimeException {
+
+    public UncheckedSQLException(SQLException cause) {
+        super(cause.getMessage(), cause);
+    }
+
+    @Override
+    public synchronized SQLException getCause() {
+        return (SQLException) super.getCause();
+    }
+}
@@ -0,0 +1,331 @@
+package od.db;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A small, bounded JDBC connection pool.
+ *
+ * Every caller borrows its own physical connection, so transactions
+ * (setAutoCommit / commit / rollback) never leak between threads.
+ * Calling close() on a borrowed connection hands it back to the pool
+ * instead of closing it.
+ *
+ * The pool:
+ *  - never opens more than maxSize connections
+ *  - validates idle connections before handing them out
+ *  - makes callers wait at most maxWaitMillis for a free connection
+ *  - keeps simple counters (active, idle, waits) for diagnostics
+ *  - optionally caches prepared statements per physical connection
+ *    (see StatementCache), so repeated SQL skips preparation
+ */
+public class ConnectionPool {
+
+    private final String url;
+    private final int maxSize;
+    private final long maxWaitMillis;
+    private final int validationTimeoutSeconds;
+    private final int statementCacheSize;
+
+    // One permit per connection that may be handed out
+    private final Semaphore permits;
+
+    // Physical connections that are open and not currently borrowed
+    private final ConcurrentLinkedDeque<Physical> idle = new ConcurrentLinkedDeque<>();
+
+    // --- Counters ---
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicInteger opened = new AtomicInteger();
+    private final AtomicLong borrowCount = new AtomicLong();
+    private final AtomicLong timeoutCount = new AtomicLong();
+    private final AtomicLong discardCount = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final StatementCache.Counters statementCounters = new StatementCache.Counters();
+
+    // Called once for every newly opened physical connection (may be null)
+    private final ConnectionInitializer initializer;
+
+    private volatile boolean closed;
+
+    /**
+     * Hook that runs against each freshly opened physical connection,
+     * before it is handed to a caller for the first time.
+     */
+    public interface ConnectionInitializer {
+        void init(Connection physical) throws SQLException;
+    }
+
+    /** A physical connection and its statement cache (null when caching is off). */
+    private record Physical(Connection conn, StatementCache statements) {}
+
+    /** Pool without a statement cache. */
+    public ConnectionPool(String url, int maxSize, long maxWaitMillis,
+                          int validationTimeoutSeconds, ConnectionInitializer initializer) {
+        this(url, maxSize, maxWaitMillis, validationTimeoutSeconds, 0, initializer);
+    }
+
+    /**
+     * @param statementCacheSize prepared statements kept open per connection (0 = no caching)
+     */
+    public ConnectionPool(String url, int maxSize, long maxWaitMillis, int validationTimeoutSeconds,
+                          int statementCacheSize, ConnectionInitializer initializer) {
+        if (maxSize < 1) throw new IllegalArgumentException("maxSize must be >= 1");
+        if (statementCacheSize < 0) throw new IllegalArgumentException("statementCacheSize must be >= 0");
+        this.statementCacheSize = statementCacheSize;
+        this.url = url;
+        this.maxSize = maxSize;
+        this.maxWaitMillis = maxWaitMillis;
+        this.validationTimeoutSeconds = validationTimeoutSeconds;
+        this.initializer = initializer;
+        this.permits = new Semaphore(maxSize, true);
+    }
+
+    /**
+     * Borrows a connection. The caller MUST close it (try-with-resources)
+     * to give it back to the pool.
+     *
+     * @throws SQLTransientConnectionException if no connection frees up within maxWaitMillis
+     */
+    public Connection borrow() throws SQLException {
+        if (closed) throw new SQLException("Connection pool is closed");
+
+        long start = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(maxWaitMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a connection", e);
+        }
+        long waited = System.nanoTime() - start;
+        totalWaitNanos.addAndGet(waited);
+        maxWaitNanos.accumulateAndGet(waited, Math::max);
+
+        if (!acquired) {
+            timeoutCount.incrementAndGet();
+            throw new SQLTransientConnectionException(
+                    "Timed out after " + maxWaitMillis + " ms waiting for a database connection ("
+                            + active.get() + "/" + maxSize + " in use)");
+        }
+
+        try {
+            Physical physical = takeValidConnection();
+            active.incrementAndGet();
+            borrowCount.incrementAndGet();
+            return wrap(physical);
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns an idle connection that passed validation,
+     * or opens a new one if none is available.
+     */
+    private Physical takeValidConnection() throws SQLException {
+        Physical p;
+        while ((p = idle.pollFirst()) != null) {
+            if (isUsable(p.conn())) return p;
+            discard(p); // e.g. the database was restarted: its statements go with it
+        }
+        return open();
+    }
+
+    private boolean isUsable(Connection c) {
+        try {
+            return !c.isClosed() && c.isValid(validationTimeoutSeconds);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private Physical open() throws SQLException {
+        Connection c = DriverManager.getConnection(url);
+        try {
+            if (initializer != null) initializer.init(c);
+        } catch (SQLException | RuntimeException e) {
+            closeQuietly(c);
+            throw e;
+        }
+        opened.incrementAndGet();
+        return new Physical(c, statementCacheSize == 0 ? null
+                : new StatementCache(c, statementCacheSize, statementCounters));
+    }
+
+    /**
+     * Called when a borrower closes its connection.
+     * Any unfinished transaction is rolled back and autocommit restored,
+     * so the next borrower always starts from a clean state.
+     * A connection that reported a connection error is never reused.
+     */
+    private void release(Physical physical, boolean broken) {
+        try {
+            Connection c = physical.conn();
+            boolean reusable = !closed && !broken && !c.isClosed();
+            if (reusable && physical.statements() != null) {
+                physical.statements().releaseAll();
+            }
+            if (reusable && !c.getAutoCommit()) {
+                c.rollback();
+                c.setAutoCommit(true);
+            }
+            if (reusable) {
+                idle.offerFirst(physical); // most recently used first = warmest caches
+            } else {
+                discard(physical);
+            }
+        } catch (SQLException e) {
+            discard(physical);
+        } finally {
+            active.decrementAndGet();
+            permits.release();
+        }
+    }
+
+    private void discard(Physical p) {
+        discardCount.incrementAndGet();
+        opened.decrementAndGet();
+        if (p.statements() != null) p.statements().closeAll();
+        closeQuietly(p.conn());
+    }
+
+    private static void closeQuietly(Connection c) {
+        try {
+            c.close();
+        } catch (SQLException ignore) {}
+    }
+
+    /**
+     * Closes every idle connection and refuses further borrows.
+     * Connections still borrowed are closed when they are returned.
+     */
+    public void close() {
+        closed = true;
+        Physical p;
+        while ((p = idle.pollFirst()) != null) discard(p);
+    }
+
+    // --- Statistics ---
+
+    public int getMaxSize() { return maxSize; }
+    public int getActiveCount() { return active.get(); }
+    public int getIdleCount() { return idle.size(); }
+    public int getOpenCount() { return opened.get(); }
+    public long getBorrowCount() { return borrowCount.get(); }
+    public long getTimeoutCount() { return timeoutCount.get(); }
+    public long getDiscardCount() { return discardCount.get(); }
+    public long getTotalWaitNanos() { return totalWaitNanos.get(); }
+    public long getMaxWaitNanos() { return maxWaitNanos.get(); }
+
+    /** Number of threads currently blocked waiting for a connection. */
+    public int getWaitingCount() { return permits.getQueueLength(); }
+
+    /** Prepared statements served from a connection's cache. */
+    public long getStatementHitCount() { return statementCounters.hits.get(); }
+
+    /** Prepared statements that had to be prepared by the driver. */
+    public long getStatementMissCount() { return statementCounters.misses.get(); }
+
+    /** Cached statements closed to make room for newer SQL. */
+    public long getStatementEvictionCount() { return statementCounters.evictions.get(); }
+
+    @Override
+    public String toString() {
+        return "ConnectionPool[active=" + getActiveCount()
+                + ", idle=" + getIdleCount()
+                + ", max=" + maxSize
+                + ", waiting=" + getWaitingCount()
+                + ", borrows=" + getBorrowCount()
+                + ", timeouts=" + getTimeoutCount()
+                + ", stmtHits=" + getStatementHitCount()
+                + ", stmtMisses=" + getStatementMissCount()
+                + ", maxWaitMs=" + TimeUnit.NANOSECONDS.toMillis(getMaxWaitNanos()) + "]";
+    }
+
+    /**
+     * Wraps a physical connection so that close() returns it to the pool.
+     * prepareStatement(sql) goes through the statement cache (if enabled);
+     * every other call is passed straight through.
+     */
+    private Connection wrap(Physical physical) {
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                new Borrowed(physical));
+    }
+
+    private final class Borrowed implements InvocationHandler {
+        private final Physical physical;
+        private boolean returned;
+
+        // Set when the driver reports a lost connection → discarded on close
+        private volatile boolean broken;
+
+        Borrowed(Physical physical) {
+            this.physical = physical;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!returned) {
+                        returned = true;
+                        release(physical, broken);
+                    }
+                    return null;
+                case "isClosed":
+                    return returned || physical.conn().isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Pooled[" + physical.conn() + "]";
+                case "prepareStatement":
+                    if (physical.statements() != null && isCacheable(method)) {
+                        if (returned) throw new SQLException("Connection has already been returned to the pool");
+                        int keys = args.length == 2 ? (Integer) args[1] : Statement.NO_GENERATED_KEYS;
+                        return physical.statements().prepare((Connection) proxy, (String) args[0], keys,
+                                () -> broken = true);
+                    }
+                    // other overloads (column lists, cursor types) are not cached
+                    return passThrough(method, args);
+                default:
+                    return passThrough(method, args);
+            }
+        }
+
+        /** Calls the method on the physical connection, noting a lost connection. */
+        private Object passThrough(Method method, Object[] args) throws Throwable {
+            if (returned) throw new SQLException("Connection has already been returned to the pool");
+            try {
+                return method.invoke(physical.conn(), args);
+            } catch (InvocationTargetException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof SQLException sql && StatementCache.isConnectionError(sql)) broken = true;
+                throw cause;
+            }
+        }
+
+        /** prepareStatement(String) or prepareStatement(String, int autoGeneratedKeys). */
+        private boolean isCacheable(Method m) {
+            Class<?>[] types = m.getParameterTypes();
+            return types.length == 1 || (types.length == 2 && types[1] == int.class);
+        }
+    }
+}
@@ -1,131 +1,195 @@
 package od.db;
 
+import od.metrics.Metrics;
+
+import java.awt.EventQueue;
+import java.nio.file.Path;
 import java.sql.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
 
 public class Database {
 
-    // Path to the Derby embedded database
-    // "create=true" means it will be created automatically if it doesn't exist
-    private static final String DB_PATH = "jdbc:derby:db/oakdonutsdb;create=true";
+    private static final Logger LOG = Logger.getLogger(Database.class.getName());
+
+    // Embedded, server or client mode, URL and fetch size (see DatabaseConfig)
+    // "create=true" in the URL means the database is created automatically if it doesn't exist
+    private static final DatabaseConfig CONFIG = DatabaseConfig.fromSystemProperties();
+
+    // Pool sizing — one connection per concurrent checkout/lookup is plenty for a register
+    private static final int POOL_SIZE = Integer.getInteger("od.db.poolSize", 8);
+    private static final long POOL_MAX_WAIT_MS = Long.getLong("od.db.poolMaxWaitMs", 5_000);
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+
+    // Prepared statements kept open per pooled connection (0 turns the cache off)
+    private static final int STATEMENT_CACHE_SIZE = Integer.getInteger("od.db.statementCacheSize", 64);
+
+    // Compressed files holding archived months of order history (see ORDER_ARCHIVES)
+    private static final Path ARCHIVE_DIR = Path.of(System.getProperty("od.archive.dir", "db/archive"));
 
-    // Single shared connection instance (simple singleton approach)
-    private static Connection conn;
+    // Shared connection pool (created on first use)
+    private static volatile ConnectionPool pool;
+
+    // Running only in server mode, so other registers can connect
+    private static DerbyNetworkServer server;
+
+    // Connections borrowed on the Swing event dispatch thread (should stay 0)
+    private static final AtomicLong edtBorrows = new AtomicLong();
 
     /**
-     * Returns a database connection.
-     * If none exists yet, or if the previous one was closed,
-     * it opens a new connection and ensures the schema/tables exist.
+     * Borrows a database connection from the pool.
+     * The first call creates the pool and ensures the schema/tables exist.
+     *
+     * Callers MUST close the returned connection (try-with-resources);
+     * closing it hands it back to the pool rather than closing it.
      */
     public static Connection get() throws SQLException {
-        if (conn == null || conn.isClosed()) {
-            conn = DriverManager.getConnection(DB_PATH);
-            ensureSchema(); // Create tables if this is the first run
+        if (EventQueue.isDispatchThread()) {
+            edtBorrows.incrementAndGet();
+        }
+        return pool().borrow();
+    }
+
+    /**
+     * How many times a connection was requested from the UI thread.
+     * Database work belongs on a background thread, so anything above 0
+     * means the UI froze while waiting for Derby.
+     */
+    public static long getEdtBorrowCount() {
+        return edtBorrows.get();
+    }
+
+    /** Publishes the pool statistics as metrics gauges ("db.pool.*"). */
+    private static void registerGauges(ConnectionPool p) {
+        Metrics.gauge("db.pool.active", p::getActiveCount);
+        Metrics.gauge("db.pool.idle", p::getIdleCount);
+        Metrics.gauge("db.pool.open", p::getOpenCount);
+        Metrics.gauge("db.pool.waiting", p::getWaitingCount);
+        Metrics.gauge("db.pool.borrows", p::getBorrowCount);
+        Metrics.gauge("db.pool.timeouts", p::getTimeoutCount);
+        Metrics.gauge("db.pool.maxWaitMicros", () -> p.getMaxWaitNanos() / 1_000);
+        Metrics.gauge("db.statements.hits", p::getStatementHitCount);
+        Metrics.gauge("db.statements.misses", p::getStatementMissCount);
+        Metrics.gauge("db.statements.evictions", p::getStatementEvictionCount);
+        Metrics.gauge("db.edtBorrows", Database::getEdtBorrowCount);
+    }
+
+    /**
+     * Returns the shared pool (for statistics), creating it if needed.
+     */
+    public static ConnectionPool pool() throws SQLException {
+        ConnectionPool p = pool;
+        if (p == null) {
+            synchronized (Database.class) {
+                p = pool;
+                if (p == null) {
+                    long start = System.nanoTime();
+                    LOG.info(() -> "Startup: " + CONFIG);
+                    p = new ConnectionPool(CONFIG.url(), POOL_SIZE, POOL_MAX_WAIT_MS,
+                            VALIDATION_TIMEOUT_SECONDS, STATEMENT_CACHE_SIZE, null);
+                    try (Connection conn = p.borrow()) {
+                        long opened = System.nanoTime();
+                        LOG.info(() -> "Startup: database opened in " + millis(start, opened) + " ms");
+                        ensureSchema(conn); // Create tables if this is the first run
+                    } catch (SQLException e) {
+                        p.close();
+                        throw e;
+                    }
+                    // Serve the database only once the schema is up to date
+                    if (CONFIG.startsServer()) {
+                        try {
+                            startServer();
+                        } catch (SQLException e) {
+                            p.close();
+                            throw e;
+                        }
+                    }
+                    pool = p;
+                    registerGauges(p);
+                }
+            }
         }
-        return conn;
+        return p;
+    }
+
+    private static void startServer() throws SQLException {
+        server = DerbyNetworkServer.start(CONFIG.getHost(), CONFIG.getPort());
+        Runtime.getRuntime().addShutdownHook(new Thread(server::stop, "od-derby-server-stop"));
+    }
+
+    /** The deployment settings this register started with. */
+    public static DatabaseConfig config() {
+        return CONFIG;
+    }
+
+    /**
+     * Where archived months of order history are kept (-Dod.archive.dir).
+     * ORDER_ARCHIVES lists the files; they must be readable by every
+     * register that browses old history (a shared folder in client mode).
+     */
+    public static Path archiveDirectory() {
+        return ARCHIVE_DIR;
+    }
+
+    /**
+     * Rows per round trip for large reads; pass to PreparedStatement.setFetchSize.
+     * 0 means "driver default" (fine for embedded, too small over the network).
+     */
+    public static int fetchSize() {
+        return CONFIG.getFetchSize();
     }
 
     /**
-     * Ensures all required tables exist.
+     * Brings the schema up to date (see Migrations), then seeds the menu.
+     * Logs how long each startup phase took.
      */
-    private static void ensureSchema() throws SQLException {
-
-        // MENU_ITEMS table — holds all products sold in the shop
-        try (Statement st = get().createStatement()) {
-            st.executeUpdate("""
-                CREATE TABLE MENU_ITEMS (
-                    ID INTEGER GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
-                    NAME VARCHAR(100) NOT NULL,
-                    CATEGORY VARCHAR(50) NOT NULL,
-                    PRICE DECIMAL(10,2) NOT NULL,
-                    ACTIVE BOOLEAN NOT NULL DEFAULT TRUE
-                )
-            """);
-        } catch (SQLException ignore) {}
-
-        // ORDERS table — header
-        try (Statement st = get().createStatement()) {
-            st.executeUpdate("""
-                CREATE TABLE ORDERS (
-                    ID INTEGER GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
-                    TXN_ID VARCHAR(40) NOT NULL UNIQUE,
-                    ORDER_DATE TIMESTAMP NOT NULL
-                )
-            """);
-        } catch (SQLException ignore) {}
-
-        // ORDER_ITEMS table — line items
-        try (Statement st = get().createStatement()) {
-            st.executeUpdate("""
-                CREATE TABLE ORDER_ITEMS (
-                    ID INTEGER GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
-                    ORDER_ID INTEGER NOT NULL,
-                    MENU_ITEM_ID INTEGER NOT NULL,
-                    QTY INTEGER NOT NULL,
-                    UNIT_PRICE DECIMAL(10,2) NOT NULL,
-                    FOREIGN KEY (ORDER_ID) REFERENCES ORDERS(ID),
-                    FOREIGN KEY (MENU_ITEM_ID) REFERENCES MENU_ITEMS(ID)
-                )
-            """);
-        } catch (SQLException ignore) {}
-
-        // Insert items if missing
-        seedMenuItems();
+    private static void ensureSchema(Connection conn) throws SQLException {
+
+        // Apply any migrations this database has not seen yet
+        long start = System.nanoTime();
+        int migrated = new SchemaMigrator(Migrations.ALL).migrate(conn);
+        long migratedAt = System.nanoTime();
+        LOG.info(() -> "Startup: schema check took " + millis(start, migratedAt) + " ms ("
+                + migrated + " migrations applied)");
+
+        // Insert the default menu (only when the seed file's version changes)
+        int seeded = MenuSeeder.seedIfNeeded(conn);
+        long seededAt = System.nanoTime();
+        LOG.info(() -> "Startup: menu seed took " + millis(migratedAt, seededAt) + " ms ("
+                + (seeded < 0 ? "already up to date" : seeded + " items inserted") + ")");
     }
 
+    // --- DB_SETTINGS (small key/value table for app metadata) ---
+
     /**
-     * Seeds menu items, but ONLY inserts items that do NOT already exist.
-     * This avoids duplicates and allows updating the seed list anytime.
+     * Reads one value from DB_SETTINGS, or null if it is not set.
      */
-    private static void seedMenuItems() throws SQLException {
-
-        Object[][] seed = {
-                // --- Classic Donuts ---
-                {"Glazed Donut", "Donut", 1.49},
-                {"Chocolate Frosted", "Donut", 1.79},
-                {"Boston Cream", "Donut", 2.29},
-                {"Strawberry Frosted", "Donut", 1.89},
-                {"Powdered Sugar Donut", "Donut", 1.59},
-                {"Old Fashioned Donut", "Donut", 1.69},
-                {"Blueberry Donut", "Donut", 1.99},
-
-                // --- Premium Donuts ---
-                {"Oreo Crumble Donut", "Donut", 2.79},
-                {"Red Velvet Donut", "Donut", 2.49},
-                {"Cinnamon Twist", "Donut", 2.19},
-
-                // --- Drinks (M removed) ---
-                {"Iced Coffee", "Drink", 2.49},
-                {"Hot Coffee", "Drink", 1.99},
-                {"Hot Chocolate", "Drink", 3.49},
-                {"Latte", "Drink", 3.99},
-                {"Cappuccino", "Drink", 3.69},
-                {"Caramel Iced Latte", "Drink", 4.29},
-                {"Chai Tea Latte", "Drink", 3.79},
-
-                // --- Cold Drinks ---
-                {"Bottled Water", "Drink", 1.25},
-                {"Orange Juice", "Drink", 2.29},
-                {"Milk", "Drink", 1.49}
-        };
-
-
-        for (Object[] row : seed) {
-            try (PreparedStatement ps = get().prepareStatement("""
-                INSERT INTO MENU_ITEMS (NAME, CATEGORY, PRICE, ACTIVE)
-                SELECT ?, ?, ?, TRUE
-                FROM SYSIBM.SYSDUMMY1
-                WHERE NOT EXISTS (
-                    SELECT 1 FROM MENU_ITEMS WHERE NAME = ?
-                )
-            """)) {
-
-                ps.setString(1, (String) row[0]); // NAME
-                ps.setString(2, (String) row[1]); // CATEGORY
-                ps.setBigDecimal(3, new java.math.BigDecimal(row[2].toString())); // PRICE
-                ps.setString(4, (String) row[0]); // NAME check
-
-                ps.executeUpdate();
+    public static String getSetting(Connection conn, String name) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("SELECT VAL FROM DB_SETTINGS WHERE NAME=?")) {
+            ps.setString(1, name);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getString(1) : null;
             }
         }
     }
+
+    /**
+     * Inserts or replaces one value in DB_SETTINGS (on the caller's transaction).
+     */
+    public static void putSetting(Connection conn, String name, String value) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("UPDATE DB_SETTINGS SET VAL=? WHERE NAME=?")) {
+            ps.setString(1, value);
+            ps.setString(2, name);
+            if (ps.executeUpdate() > 0) return;
+        }
+        try (PreparedStatement ps = conn.prepareStatement("INSERT INTO DB_SETTINGS (NAME, VAL) VALUES (?, ?)")) {
+            ps.setString(1, name);
+            ps.setString(2, value);
+            ps.executeUpdate();
+        }
+    }
+
+    private static long millis(long fromNanos, long toNanos) {
+        return (toNanos - fromNanos) / 1_000_000;
+    }
 }
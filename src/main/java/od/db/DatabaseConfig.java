@@ -0,0 +1,115 @@
+package od.db;
+
+import java.util.Locale;
+
+/**
+ * Where the database lives and how this register talks to it, read from
+ * system properties once at startup.
+ *
+ * Modes (-Dod.db.mode=...):
+ * <pre>
+ *   embedded  (default) this JVM opens db/oakdonutsdb directly; only one
+ *             register can use the database
+ *   server    this JVM opens the database embedded AND starts the Derby
+ *             Network Server, so other registers can connect to it
+ *   client    this register connects to a server register over the
+ *             network (needs derbyclient.jar, see lib/ or build with -Pnetwork)
+ * </pre>
+ * A typical store runs one "server" register (or a back-office PC) and
+ * every other till as "client" pointing at it:
+ * <pre>
+ *   java -Dod.db.mode=server -Dod.db.host=0.0.0.0 ...      (back office)
+ *   java -Dod.db.mode=client -Dod.db.host=backoffice ...   (each till)
+ * </pre>
+ *
+ * Other properties:
+ *  - od.db.name      database path (default db/oakdonutsdb; relative to the server's working directory)
+ *  - od.db.host      server address to bind (server) or connect to (client), default localhost
+ *  - od.db.port      network server port (default 1527)
+ *  - od.db.fetchSize rows per round trip for large reads (default 500 in client mode,
+ *                    the driver's own default otherwise)
+ *  - od.db.url       full JDBC URL; overrides everything above
+ *
+ * Registers sharing a server should each get a unique -Dod.register.id,
+ * or leave it unset to have one leased from the database on the first start
+ * and kept in -Dod.register.nodeFile (see OrderDAO.txnIds()).
+ *
+ * Registers cache the menu and the list of archived months. In server and
+ * client mode a change made on another register is picked up within
+ * -Dod.cache.versionCheckMs (default 5000) via a counter in DB_SETTINGS
+ * (see od.dao.SharedVersion); until then the old menu / months are shown.
+ */
+public final class DatabaseConfig {
+
+    public enum Mode { EMBEDDED, SERVER, CLIENT }
+
+    public static final int DEFAULT_PORT = 1527;
+
+    private final Mode mode;
+    private final String name;
+    private final String host;
+    private final int port;
+    private final int fetchSize;
+    private final String urlOverride;
+
+    public DatabaseConfig(Mode mode, String name, String host, int port, int fetchSize, String urlOverride) {
+        if (port < 1 || port > 65535) throw new IllegalArgumentException("Invalid port: " + port);
+        if (fetchSize < 0) throw new IllegalArgumentException("fetchSize must be >= 0");
+        this.mode = mode;
+        this.name = name;
+        this.host = host;
+        this.port = port;
+        this.fetchSize = fetchSize;
+        this.urlOverride = urlOverride;
+    }
+
+    /** Reads the od.db.* system properties. */
+    public static DatabaseConfig fromSystemProperties() {
+        Mode mode = Mode.valueOf(System.getProperty("od.db.mode", "embedded").trim().toUpperCase(Locale.ROOT));
+        return new DatabaseConfig(
+                mode,
+                System.getProperty("od.db.name", "db/oakdonutsdb"),
+                System.getProperty("od.db.host", "localhost"),
+                Integer.getInteger("od.db.port", DEFAULT_PORT),
+                Integer.getInteger("od.db.fetchSize", defaultFetchSize(mode)),
+                System.getProperty("od.db.url"));
+    }
+
+    /**
+     * Embedded reads are in-process, so the driver default is fine.
+     * Over the network each fetch is a round trip: ask for larger blocks.
+     */
+    private static int defaultFetchSize(Mode mode) {
+        return mode == Mode.CLIENT ? 500 : 0;
+    }
+
+    /** The JDBC URL the connection pool should open. */
+    public String url() {
+        if (urlOverride != null) return urlOverride;
+        if (mode == Mode.CLIENT) {
+            return "jdbc:derby://" + host + ":" + port + "/" + name + ";create=true";
+        }
+        return "jdbc:derby:" + name + ";create=true";
+    }
+
+    public Mode getMode() { return mode; }
+    public String getName() { return name; }
+    public String getHost() { return host; }
+    public int getPort() { return port; }
+
+    /**
+     * Rows per round trip for large result sets (order history, exports,
+     * analytics scans); 0 = driver default.
+     */
+    public int getFetchSize() { return fetchSize; }
+
+    /** True when this JVM must start the Network Server. */
+    public boolean startsServer() { return mode == Mode.SERVER; }
+
+    @Override
+    public String toString() {
+        return "DatabaseConfig[mode=" + mode + ", url=" + url()
+                + (mode == Mode.SERVER ? ", serving on " + host + ":" + port : "")
+                + ", fetchSize=" + fetchSize + "]";
+    }
+}
@@ -0,0 +1,116 @@
+package od.db;
+
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.sql.SQLException;
+import java.util.logging.Logger;
+
+/**
+ * Starts / stops the Derby Network Server inside this JVM (server mode).
+ *
+ * derbynet.jar is only needed on the server register, so the server class
+ * is loaded by name instead of being a compile-time dependency
+ * (build with -Pnetwork to get it on the classpath).
+ *
+ * Note: the server has no authentication unless derby.properties turns it
+ * on, so only bind to a store network you trust.
+ */
+final class DerbyNetworkServer {
+
+    private static final Logger LOG = Logger.getLogger(DerbyNetworkServer.class.getName());
+
+    private static final String SERVER_CLASS = "org.apache.derby.drda.NetworkServerControl";
+
+    // The server starts on a background thread; wait this long for it to answer
+    private static final int START_ATTEMPTS = 50;
+    private static final long START_POLL_MS = 100;
+
+    private final Object control;
+    private final Method shutdown;
+
+    private DerbyNetworkServer(Object control, Method shutdown) {
+        this.control = control;
+        this.shutdown = shutdown;
+    }
+
+    /**
+     * Starts the server on host:port and waits until it answers a ping.
+     *
+     * @throws SQLException if derbynet.jar is missing or the server does not come up
+     */
+    static DerbyNetworkServer start(String host, int port) throws SQLException {
+        try {
+            Class<?> type = Class.forName(SERVER_CLASS);
+            Object control = type.getConstructor(InetAddress.class, int.class)
+                    .newInstance(InetAddress.getByName(host), port);
+
+            // Server messages go to our log instead of the console
+            type.getMethod("start", PrintWriter.class).invoke(control, new PrintWriter(new LogWriter(), true));
+
+            Method ping = type.getMethod("ping");
+            for (int i = 0; ; i++) {
+                try {
+                    ping.invoke(control);
+                    break;
+                } catch (InvocationTargetException notYet) {
+                    if (i == START_ATTEMPTS) throw notYet;
+                    Thread.sleep(START_POLL_MS);
+                }
+            }
+
+            LOG.info(() -> "Derby Network Server listening on " + host + ":" + port);
+            return new DerbyNetworkServer(control, type.getMethod("shutdown"));
+        } catch (ClassNotFoundException e) {
+            throw new SQLException("Server mode needs derbynet.jar on the classpath (build with -Pnetwork)", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while starting the Derby Network Server", e);
+        } catch (InvocationTargetException e) {
+            throw new SQLException("Could not start the Derby Network Server on " + host + ":" + port, e.getCause());
+        } catch (ReflectiveOperationException | java.io.IOException e) {
+            throw new SQLException("Could not start the Derby Network Server on " + host + ":" + port, e);
+        }
+    }
+
+    /** Stops accepting clients (called on JVM shutdown). */
+    void stop() {
+        try {
+            shutdown.invoke(control);
+        } catch (ReflectiveOperationException e) {
+            LOG.warning("Could not stop the Derby Network Server: " + e);
+        }
+    }
+
+    /** Forwards the server's console output to java.util.logging, one line at a time. */
+    private static final class LogWriter extends java.io.Writer {
+        private final StringBuilder line = new StringBuilder();
+
+        @Override
+        public synchronized void write(char[] buf, int off, int len) {
+            for (int i = off; i < off + len; i++) {
+                char c = buf[i];
+                if (c == '\n') {
+                    flush();
+                } else if (c != '\r') {
+                    line.append(c);
+                }
+            }
+        }
+
+        @Override
+        public synchronized void flush() {
+            if (line.length() > 0) {
+                String msg = line.toString();
+                line.setLength(0);
+                LOG.info(msg);
+            }
+        }
+
+        @Override
+        public void close() {
+            flush();
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package od.db;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Inserts the default menu from menu-seed.csv.
+ *
+ * The file carries a "seed-version" number. The version last applied is
+ * stored in DB_SETTINGS, so on a normal startup seeding is a single lookup;
+ * the inserts only run when the file's version changes.
+ */
+final class MenuSeeder {
+
+    static final String RESOURCE = "/od/db/menu-seed.csv";
+    static final String VERSION_SETTING = "menu.seed.version";
+
+    private MenuSeeder() {}
+
+    /** One row of the seed file. */
+    record SeedItem(String name, String category, BigDecimal price) {}
+
+    /** Parsed seed file. */
+    record Seed(int version, List<SeedItem> items) {}
+
+    /**
+     * Seeds the menu if this database has not seen the current seed version.
+     *
+     * @return number of rows inserted, or -1 if seeding was skipped
+     */
+    static int seedIfNeeded(Connection conn) throws SQLException {
+        Seed seed = load();
+
+        String applied = Database.getSetting(conn, VERSION_SETTING);
+        if (applied != null && Integer.parseInt(applied) >= seed.version()) {
+            return -1; // Already seeded with this version
+        }
+
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        try {
+            int inserted = 0;
+
+            // Only inserts items that do NOT already exist (by NAME), so
+            // renamed or re-priced items in the shop are never overwritten
+            try (PreparedStatement ps = conn.prepareStatement("""
+                INSERT INTO MENU_ITEMS (NAME, CATEGORY, PRICE, ACTIVE)
+                SELECT ?, ?, ?, TRUE
+                FROM SYSIBM.SYSDUMMY1
+                WHERE NOT EXISTS (
+                    SELECT 1 FROM MENU_ITEMS WHERE NAME = ?
+                )
+            """)) {
+                for (SeedItem item : seed.items()) {
+                    ps.setString(1, item.name());      // NAME
+                    ps.setString(2, item.category());  // CATEGORY
+                    ps.setBigDecimal(3, item.price()); // PRICE
+                    ps.setString(4, item.name());      // NAME check
+                    ps.addBatch();
+                }
+                for (int n : ps.executeBatch()) {
+                    if (n > 0) inserted += n;
+                }
+            }
+
+            Database.putSetting(conn, VERSION_SETTING, Integer.toString(seed.version()));
+            conn.commit();
+            return inserted;
+
+        } catch (SQLException | RuntimeException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+    }
+
+    /**
+     * Reads and parses menu-seed.csv from the classpath.
+     * Format: one "name,category,price" per line; '#' starts a comment;
+     * a "# seed-version: N" comment sets the version.
+     */
+    static Seed load() throws SQLException {
+        try (InputStream in = MenuSeeder.class.getResourceAsStream(RESOURCE)) {
+            if (in == null) throw new SQLException("Missing seed resource " + RESOURCE);
+
+            BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+            List<SeedItem> items = new ArrayList<>();
+            int version = 0;
+            int lineNo = 0;
+            String line;
+
+            while ((line = reader.readLine()) != null) {
+                lineNo++;
+                line = line.strip();
+                if (line.isEmpty()) continue;
+
+                if (line.startsWith("#")) {
+                    String comment = line.substring(1).strip();
+                    if (comment.startsWith("seed-version:")) {
+                        version = Integer.parseInt(comment.substring("seed-version:".length()).strip());
+                    }
+                    continue;
+                }
+
+                String[] cols = line.split(",");
+                if (cols.length != 3) {
+                    throw new SQLException(RESOURCE + " line " + lineNo + ": expected name,category,price");
+                }
+                items.add(new SeedItem(cols[0].strip(), cols[1].strip(), new BigDecimal(cols[2].strip())));
+            }
+
+            if (version < 1) throw new SQLException(RESOURCE + " has no seed-version");
+            return new Seed(version, items);
+
+        } catch (IOException | NumberFormatException e) {
+            throw new SQLException("Could not read " + RESOURCE + ": " + e.getMessage(), e);
+        }
+    }
+}
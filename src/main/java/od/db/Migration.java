@@ -0,0 +1,55 @@
+package od.db;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * One versioned schema change.
+ *
+ * Migrations are applied in version order, each in its own transaction,
+ * and recorded in the SCHEMA_VERSION table so they only ever run once.
+ */
+public final class Migration {
+
+    /** The actual work of a migration, run inside its transaction. */
+    public interface Step {
+        void apply(Connection conn) throws SQLException;
+    }
+
+    private final int version;
+    private final String description;
+    private final Step step;
+
+    public Migration(int version, String description, Step step) {
+        if (version < 1) throw new IllegalArgumentException("version must be >= 1");
+        this.version = version;
+        this.description = description;
+        this.step = step;
+    }
+
+    /**
+     * A migration that just runs the given SQL statements in order.
+     */
+    public static Migration sql(int version, String description, String... statements) {
+        return new Migration(version, description, conn -> {
+            try (Statement st = conn.createStatement()) {
+                for (String sql : statements) {
+                    st.executeUpdate(sql);
+                }
+            }
+        });
+    }
+
+    public int getVersion() { return version; }
+    public String getDescription() { return description; }
+
+    void apply(Connection conn) throws SQLException {
+        step.apply(conn);
+    }
+
+    @Override
+    public String toString() {
+        return "V" + version + " " + description;
+    }
+}
@@ -0,0 +1,196 @@
+package od.db;
+
+import od.model.ItemOptions;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+/**
+ * Every schema change, in order. Append new migrations to the end of
+ * ALL with the next version number — never edit one that has shipped.
+ */
+final class Migrations {
+
+    private Migrations() {}
+
+    static final List<Migration> ALL = List.of(
+
+            // V1 — the original tables. Databases created before migrations
+            // existed already have them, so each is only created if missing.
+            new Migration(1, "Base tables", conn -> {
+
+                // MENU_ITEMS table — holds all products sold in the shop
+                createTableIfMissing(conn, "MENU_ITEMS", """
+                    CREATE TABLE MENU_ITEMS (
+                        ID INTEGER GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
+                        NAME VARCHAR(100) NOT NULL,
+                        CATEGORY VARCHAR(50) NOT NULL,
+                        PRICE DECIMAL(10,2) NOT NULL,
+                        ACTIVE BOOLEAN NOT NULL DEFAULT TRUE
+                    )
+                """);
+
+                // ORDERS table — header
+                createTableIfMissing(conn, "ORDERS", """
+                    CREATE TABLE ORDERS (
+                        ID INTEGER GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
+                        TXN_ID VARCHAR(40) NOT NULL UNIQUE,
+                        ORDER_DATE TIMESTAMP NOT NULL
+                    )
+                """);
+
+                // ORDER_ITEMS table — line items
+                // (Derby backs each FOREIGN KEY with an index, so lookups by
+                //  ORDER_ID and MENU_ITEM_ID are already index-backed)
+                createTableIfMissing(conn, "ORDER_ITEMS", """
+                    CREATE TABLE ORDER_ITEMS (
+                        ID INTEGER GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
+                        ORDER_ID INTEGER NOT NULL,
+                        MENU_ITEM_ID INTEGER NOT NULL,
+                        QTY INTEGER NOT NULL,
+                        UNIT_PRICE DECIMAL(10,2) NOT NULL,
+                        FOREIGN KEY (ORDER_ID) REFERENCES ORDERS(ID),
+                        FOREIGN KEY (MENU_ITEM_ID) REFERENCES MENU_ITEMS(ID)
+                    )
+                """);
+            }),
+
+            // V2 — secondary indexes for the hot queries
+            new Migration(2, "Indexes for menu name and order history", conn -> {
+
+                // Menu lookups by name (seeding, MenuCatalog.byName)
+                createIndexIfMissing(conn, "MENU_ITEMS", "IX_MENU_ITEMS_NAME",
+                        "CREATE INDEX IX_MENU_ITEMS_NAME ON MENU_ITEMS (NAME)");
+
+                // Order history, newest first (findAll / findPage / stream)
+                createIndexIfMissing(conn, "ORDERS", "IX_ORDERS_DATE_ID",
+                        "CREATE INDEX IX_ORDERS_DATE_ID ON ORDERS (ORDER_DATE DESC, ID DESC)");
+            }),
+
+            // V3 — small key/value table for app metadata (e.g. menu seed version)
+            Migration.sql(3, "DB_SETTINGS table", """
+                CREATE TABLE DB_SETTINGS (
+                    NAME VARCHAR(64) NOT NULL PRIMARY KEY,
+                    VAL VARCHAR(255) NOT NULL
+                )
+            """),
+
+            // V4 — size / icing / filling per line, stored as small integer
+            // codes (see od.model.ItemOptions) plus a lookup table of labels
+            new Migration(4, "Line item option codes", conn -> {
+                try (Statement st = conn.createStatement()) {
+                    // Lines saved before this get code 0 (no size / none)
+                    st.executeUpdate("ALTER TABLE ORDER_ITEMS ADD COLUMN SIZE_CODE SMALLINT NOT NULL DEFAULT 0");
+                    st.executeUpdate("ALTER TABLE ORDER_ITEMS ADD COLUMN ICING_CODE SMALLINT NOT NULL DEFAULT 0");
+                    st.executeUpdate("ALTER TABLE ORDER_ITEMS ADD COLUMN FILLING_CODE SMALLINT NOT NULL DEFAULT 0");
+
+                    // Sales mix per item and modifier (OrderDAO.findOptionMix)
+                    st.executeUpdate("CREATE INDEX IX_ORDER_ITEMS_OPTIONS ON ORDER_ITEMS "
+                            + "(MENU_ITEM_ID, SIZE_CODE, ICING_CODE, FILLING_CODE)");
+
+                    // Code → label, so reports can be read straight from SQL
+                    st.executeUpdate("""
+                        CREATE TABLE OPTION_CODES (
+                            KIND VARCHAR(16) NOT NULL,
+                            CODE SMALLINT NOT NULL,
+                            LABEL VARCHAR(32) NOT NULL,
+                            PRIMARY KEY (KIND, CODE)
+                        )
+                    """);
+                }
+
+                try (PreparedStatement ps = conn.prepareStatement(
+                        "INSERT INTO OPTION_CODES (KIND, CODE, LABEL) VALUES (?, ?, ?)")) {
+                    for (ItemOptions.Size s : ItemOptions.Size.values()) addCode(ps, "SIZE", s.code(), s.label());
+                    for (ItemOptions.Icing i : ItemOptions.Icing.values()) addCode(ps, "ICING", i.code(), i.label());
+                    for (ItemOptions.Filling f : ItemOptions.Filling.values()) addCode(ps, "FILLING", f.code(), f.label());
+                    ps.executeBatch();
+                }
+            }),
+
+            // V5 — pre-aggregated sales per hour (and per item) for reports,
+            // kept up to date by SalesRollup on every order insert / delete
+            new Migration(5, "Hourly sales rollup tables", conn -> {
+                try (Statement st = conn.createStatement()) {
+                    st.executeUpdate("""
+                        CREATE TABLE SALES_HOURLY (
+                            BUCKET_DATE DATE NOT NULL,
+                            BUCKET_HOUR SMALLINT NOT NULL,
+                            ORDER_COUNT INTEGER NOT NULL,
+                            QTY INTEGER NOT NULL,
+                            GROSS_CENTS BIGINT NOT NULL,
+                            TAX_CENTS BIGINT NOT NULL,
+                            PRIMARY KEY (BUCKET_DATE, BUCKET_HOUR)
+                        )
+                    """);
+
+                    st.executeUpdate("""
+                        CREATE TABLE SALES_HOURLY_ITEMS (
+                            BUCKET_DATE DATE NOT NULL,
+                            BUCKET_HOUR SMALLINT NOT NULL,
+                            MENU_ITEM_ID INTEGER NOT NULL,
+                            CATEGORY VARCHAR(50) NOT NULL,
+                            QTY INTEGER NOT NULL,
+                            GROSS_CENTS BIGINT NOT NULL,
+                            PRIMARY KEY (BUCKET_DATE, BUCKET_HOUR, MENU_ITEM_ID)
+                        )
+                    """);
+                }
+
+                // Orders saved before this version
+                SalesRollup.backfill(conn);
+            }),
+
+            // V6 — months of order history moved out of ORDERS / ORDER_ITEMS
+            // into compressed archive files (see od.io.OrderArchiver)
+            Migration.sql(6, "ORDER_ARCHIVES table", """
+                CREATE TABLE ORDER_ARCHIVES (
+                    MONTH_START DATE NOT NULL PRIMARY KEY,
+                    FILE_NAME VARCHAR(255) NOT NULL,
+                    ORDER_COUNT INTEGER NOT NULL,
+                    LINE_COUNT INTEGER NOT NULL,
+                    FILE_BYTES BIGINT NOT NULL,
+                    ARCHIVED_AT TIMESTAMP NOT NULL
+                )
+            """),
+
+            // V7 — change counters for data other registers cache
+            // (see od.dao.SharedVersion); created up front so bumping
+            // one never has to insert the row
+            Migration.sql(7, "Shared cache version counters",
+                    "INSERT INTO DB_SETTINGS (NAME, VAL) VALUES ('menu.version', '0'), ('archive.version', '0')"),
+
+            // V8 — every archived TXN_ID and the month it was filed under, so
+            // imports skip archived orders and lookups find them by ID
+            Migration.sql(8, "ARCHIVED_ORDERS table", """
+                CREATE TABLE ARCHIVED_ORDERS (
+                    TXN_ID VARCHAR(40) NOT NULL PRIMARY KEY,
+                    MONTH_START DATE NOT NULL
+                )
+            """)
+    );
+
+    private static void addCode(PreparedStatement ps, String kind, int code, String label) throws SQLException {
+        ps.setString(1, kind);
+        ps.setInt(2, code);
+        ps.setString(3, label.isEmpty() ? "(not recorded)" : label);
+        ps.addBatch();
+    }
+
+    private static void createTableIfMissing(Connection conn, String table, String ddl) throws SQLException {
+        if (SchemaMigrator.tableExists(conn, table)) return;
+        try (Statement st = conn.createStatement()) {
+            st.executeUpdate(ddl);
+        }
+    }
+
+    private static void createIndexIfMissing(Connection conn, String table, String index, String ddl) throws SQLException {
+        if (SchemaMigrator.indexExists(conn, table, index)) return;
+        try (Statement st = conn.createStatement()) {
+            st.executeUpdate(ddl);
+        }
+    }
+}
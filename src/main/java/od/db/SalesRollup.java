@@ -0,0 +1,253 @@
+package od.db;
+
+import od.model.Money;
+import od.model.Order;
+import od.model.OrderItem;
+import od.model.Pricing;
+
+import java.math.BigDecimal;
+import java.sql.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Keeps the pre-aggregated sales tables up to date.
+ *
+ *  - SALES_HOURLY       one row per (day, hour): orders, qty, gross, tax
+ *  - SALES_HOURLY_ITEMS one row per (day, hour, menu item): qty, gross,
+ *                       plus the item's category at the time of sale
+ *
+ * OrderDAO calls add() in the same transaction that inserts the orders
+ * and subtract() in the one that deletes an order, so the rollups always
+ * match ORDERS / ORDER_ITEMS. Reports (SalesReportDAO) then read a few
+ * bucket rows instead of scanning every line item.
+ *
+ * Tax is only kept per hour: it is rounded once per order on the order
+ * subtotal, so a per-item share would not add up to the real tax.
+ */
+public final class SalesRollup {
+
+    private record HourKey(LocalDate date, int hour) {}
+
+    private record ItemKey(LocalDate date, int hour, int menuItemId) {}
+
+    private static final class HourTotals {
+        long orders, qty, grossCents, taxCents;
+    }
+
+    private static final class ItemTotals {
+        String category;
+        long qty, grossCents;
+    }
+
+    // Buckets are written in key order, so concurrent writers always lock
+    // rows in the same order (no deadlocks between them)
+    private static final Comparator<HourKey> HOUR_ORDER =
+            Comparator.comparing(HourKey::date).thenComparingInt(HourKey::hour);
+    private static final Comparator<ItemKey> ITEM_ORDER =
+            Comparator.comparing(ItemKey::date).thenComparingInt(ItemKey::hour).thenComparingInt(ItemKey::menuItemId);
+
+    private final Map<HourKey, HourTotals> hours = new TreeMap<>(HOUR_ORDER);
+    private final Map<ItemKey, ItemTotals> items = new TreeMap<>(ITEM_ORDER);
+
+    private SalesRollup() {}
+
+    // --- Entry points ---
+
+    /**
+     * Adds newly inserted orders to the rollups (caller's transaction).
+     * The orders' items must carry their MenuItem (ID and category).
+     */
+    public static void add(Connection conn, Collection<Order> orders) throws SQLException {
+        SalesRollup r = new SalesRollup();
+        for (Order o : orders) r.addOrder(o, +1);
+        r.write(conn);
+    }
+
+    /** Takes a deleted order back out of the rollups (caller's transaction). */
+    public static void subtract(Connection conn, Order order) throws SQLException {
+        SalesRollup r = new SalesRollup();
+        r.addOrder(order, -1);
+        r.write(conn);
+    }
+
+    /**
+     * Rebuilds the rollups from every existing order (used by the migration
+     * that creates the tables). Rows are streamed in order-ID order, so
+     * memory grows with the number of buckets, not the number of orders.
+     */
+    static void backfill(Connection conn) throws SQLException {
+        SalesRollup r = new SalesRollup();
+
+        try (Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery("""
+                SELECT O.ID, O.ORDER_DATE, OI.MENU_ITEM_ID, OI.QTY, OI.UNIT_PRICE, MI.CATEGORY
+                FROM ORDERS O
+                LEFT JOIN ORDER_ITEMS OI ON OI.ORDER_ID = O.ID
+                LEFT JOIN MENU_ITEMS MI ON MI.ID = OI.MENU_ITEM_ID
+                ORDER BY O.ID
+             """)) {
+
+            int orderId = -1;
+            LocalDateTime at = null;
+            long qty = 0, subtotal = 0;
+
+            while (rs.next()) {
+                // First row of the next order → finish the previous one
+                if (rs.getInt(1) != orderId) {
+                    if (at != null) r.addOrderTotals(at, qty, subtotal, +1);
+                    orderId = rs.getInt(1);
+                    at = rs.getTimestamp(2).toLocalDateTime();
+                    qty = 0;
+                    subtotal = 0;
+                }
+
+                int menuItemId = rs.getInt(3);
+                if (rs.wasNull()) continue; // order without lines
+
+                int lineQty = rs.getInt(4);
+                BigDecimal unit = rs.getBigDecimal(5);
+                long lineCents = Math.multiplyExact(Money.toCents(unit), lineQty);
+
+                qty += lineQty;
+                subtotal += lineCents;
+                r.addLine(at, menuItemId, rs.getString(6), lineQty, lineCents, +1);
+            }
+            if (at != null) r.addOrderTotals(at, qty, subtotal, +1);
+        }
+
+        r.write(conn);
+    }
+
+    // --- Accumulating (in memory) ---
+
+    private void addOrder(Order o, int sign) {
+        LocalDateTime at = o.getOrderDate();
+        long qty = 0;
+
+        for (OrderItem oi : o.getItems()) {
+            qty += oi.getQty();
+            addLine(at, oi.getMenuItem().getId(), oi.getMenuItem().getCategory(),
+                    oi.getQty(), oi.getLineTotalCents(), sign);
+        }
+        addOrderTotals(at, qty, o.getTotalCents(), sign);
+    }
+
+    private void addOrderTotals(LocalDateTime at, long qty, long subtotalCents, int sign) {
+        HourTotals t = hours.computeIfAbsent(new HourKey(at.toLocalDate(), at.getHour()), k -> new HourTotals());
+        t.orders += sign;
+        t.qty += sign * qty;
+        t.grossCents += sign * subtotalCents;
+        t.taxCents += sign * Pricing.taxCents(subtotalCents);
+    }
+
+    private void addLine(LocalDateTime at, int menuItemId, String category, long qty, long grossCents, int sign) {
+        ItemTotals t = items.computeIfAbsent(
+                new ItemKey(at.toLocalDate(), at.getHour(), menuItemId), k -> new ItemTotals());
+        if (t.category == null) t.category = category;
+        t.qty += sign * qty;
+        t.grossCents += sign * grossCents;
+    }
+
+    // --- Writing (UPDATE existing buckets, INSERT missing ones) ---
+
+    private void write(Connection conn) throws SQLException {
+        if (!hours.isEmpty()) writeHours(conn);
+        if (!items.isEmpty()) writeItems(conn);
+    }
+
+    private void writeHours(Connection conn) throws SQLException {
+        List<HourKey> keys = new ArrayList<>(hours.keySet());
+
+        try (PreparedStatement up = conn.prepareStatement("""
+                UPDATE SALES_HOURLY
+                SET ORDER_COUNT = ORDER_COUNT + ?, QTY = QTY + ?,
+                    GROSS_CENTS = GROSS_CENTS + ?, TAX_CENTS = TAX_CENTS + ?
+                WHERE BUCKET_DATE = ? AND BUCKET_HOUR = ?
+                """);
+             PreparedStatement in = conn.prepareStatement("""
+                INSERT INTO SALES_HOURLY (ORDER_COUNT, QTY, GROSS_CENTS, TAX_CENTS, BUCKET_DATE, BUCKET_HOUR)
+                VALUES (?, ?, ?, ?, ?, ?)
+                """)) {
+
+            for (HourKey k : keys) {
+                bindHour(up, k, hours.get(k));
+                up.addBatch();
+            }
+            int[] counts = up.executeBatch();
+
+            for (int i = 0; i < keys.size(); i++) {
+                if (counts[i] != 0) continue; // bucket already existed
+                HourKey k = keys.get(i);
+                bindHour(in, k, hours.get(k));
+                insertOrUpdate(in, up, () -> bindHour(up, k, hours.get(k)));
+            }
+        }
+    }
+
+    private void writeItems(Connection conn) throws SQLException {
+        List<ItemKey> keys = new ArrayList<>(items.keySet());
+
+        try (PreparedStatement up = conn.prepareStatement("""
+                UPDATE SALES_HOURLY_ITEMS
+                SET QTY = QTY + ?, GROSS_CENTS = GROSS_CENTS + ?
+                WHERE BUCKET_DATE = ? AND BUCKET_HOUR = ? AND MENU_ITEM_ID = ?
+                """);
+             PreparedStatement in = conn.prepareStatement("""
+                INSERT INTO SALES_HOURLY_ITEMS (QTY, GROSS_CENTS, BUCKET_DATE, BUCKET_HOUR, MENU_ITEM_ID, CATEGORY)
+                VALUES (?, ?, ?, ?, ?, ?)
+                """)) {
+
+            for (ItemKey k : keys) {
+                bindItem(up, k, items.get(k));
+                up.addBatch();
+            }
+            int[] counts = up.executeBatch();
+
+            for (int i = 0; i < keys.size(); i++) {
+                if (counts[i] != 0) continue;
+                ItemKey k = keys.get(i);
+                ItemTotals t = items.get(k);
+                bindItem(in, k, t);
+                in.setString(6, t.category == null ? "" : t.category);
+                insertOrUpdate(in, up, () -> bindItem(up, k, t));
+            }
+        }
+    }
+
+    private interface Binder {
+        void bind() throws SQLException;
+    }
+
+    /**
+     * Inserts a new bucket row. If another transaction inserted the same
+     * bucket in the meantime, adds to that row instead.
+     * (A failed statement in Derby only undoes itself, not the transaction.)
+     */
+    private static void insertOrUpdate(PreparedStatement in, PreparedStatement up, Binder bindUpdate) throws SQLException {
+        try {
+            in.executeUpdate();
+        } catch (SQLIntegrityConstraintViolationException duplicate) {
+            bindUpdate.bind();
+            up.executeUpdate();
+        }
+    }
+
+    private static void bindHour(PreparedStatement ps, HourKey k, HourTotals t) throws SQLException {
+        ps.setLong(1, t.orders);
+        ps.setLong(2, t.qty);
+        ps.setLong(3, t.grossCents);
+        ps.setLong(4, t.taxCents);
+        ps.setDate(5, java.sql.Date.valueOf(k.date()));
+        ps.setShort(6, (short) k.hour());
+    }
+
+    private static void bindItem(PreparedStatement ps, ItemKey k, ItemTotals t) throws SQLException {
+        ps.setLong(1, t.qty);
+        ps.setLong(2, t.grossCents);
+        ps.setDate(3, java.sql.Date.valueOf(k.date()));
+        ps.setShort(4, (short) k.hour());
+        ps.setInt(5, k.menuItemId());
+    }
+}
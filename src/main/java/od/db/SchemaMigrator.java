@@ -0,0 +1,138 @@
+package od.db;
+
+import java.sql.*;
+import java.util.*;
+import java.util.logging.Logger;
+
+/**
+ * Applies pending Migrations and records them in SCHEMA_VERSION.
+ *
+ * On a database that is already up to date this costs one small query,
+ * so it is cheap enough to run on every startup.
+ */
+public class SchemaMigrator {
+
+    private static final Logger LOG = Logger.getLogger(SchemaMigrator.class.getName());
+
+    private final List<Migration> migrations;
+
+    public SchemaMigrator(List<Migration> migrations) {
+        List<Migration> sorted = new ArrayList<>(migrations);
+        sorted.sort(Comparator.comparingInt(Migration::getVersion));
+        for (int i = 1; i < sorted.size(); i++) {
+            if (sorted.get(i).getVersion() == sorted.get(i - 1).getVersion()) {
+                throw new IllegalArgumentException("Duplicate migration version " + sorted.get(i).getVersion());
+            }
+        }
+        this.migrations = List.copyOf(sorted);
+    }
+
+    /** Highest version this migrator knows about. */
+    public int getLatestVersion() {
+        return migrations.isEmpty() ? 0 : migrations.get(migrations.size() - 1).getVersion();
+    }
+
+    /**
+     * Brings the schema up to date.
+     *
+     * @return number of migrations applied (0 if already current)
+     */
+    public int migrate(Connection conn) throws SQLException {
+        ensureVersionTable(conn);
+
+        Set<Integer> applied = appliedVersions(conn);
+        int count = 0;
+
+        for (Migration m : migrations) {
+            if (applied.contains(m.getVersion())) continue;
+            if (apply(conn, m)) count++;
+        }
+
+        return count;
+    }
+
+    /**
+     * Runs one migration in its own transaction. The version table is locked
+     * first, so two registers starting at once cannot both apply it.
+     *
+     * @return false if another process applied it while we waited for the lock
+     */
+    private boolean apply(Connection conn, Migration m) throws SQLException {
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        try {
+            try (Statement st = conn.createStatement()) {
+                st.execute("LOCK TABLE SCHEMA_VERSION IN EXCLUSIVE MODE");
+            }
+
+            if (appliedVersions(conn).contains(m.getVersion())) {
+                conn.rollback();
+                return false;
+            }
+
+            long start = System.nanoTime();
+            m.apply(conn);
+
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "INSERT INTO SCHEMA_VERSION (VERSION, DESCRIPTION, APPLIED_AT) VALUES (?, ?, CURRENT_TIMESTAMP)")) {
+                ps.setInt(1, m.getVersion());
+                ps.setString(2, m.getDescription());
+                ps.executeUpdate();
+            }
+
+            conn.commit();
+            LOG.info(() -> "Applied migration " + m + " in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+            return true;
+
+        } catch (SQLException | RuntimeException e) {
+            conn.rollback();
+            throw new SQLException("Migration " + m + " failed: " + e.getMessage(), e);
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+    }
+
+    private static void ensureVersionTable(Connection conn) throws SQLException {
+        if (tableExists(conn, "SCHEMA_VERSION")) return;
+        try (Statement st = conn.createStatement()) {
+            st.executeUpdate("""
+                CREATE TABLE SCHEMA_VERSION (
+                    VERSION INTEGER NOT NULL PRIMARY KEY,
+                    DESCRIPTION VARCHAR(200) NOT NULL,
+                    APPLIED_AT TIMESTAMP NOT NULL
+                )
+            """);
+        } catch (SQLException e) {
+            // Another register may have created it at the same moment
+            if (!tableExists(conn, "SCHEMA_VERSION")) throw e;
+        }
+    }
+
+    private static Set<Integer> appliedVersions(Connection conn) throws SQLException {
+        Set<Integer> out = new HashSet<>();
+        try (Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery("SELECT VERSION FROM SCHEMA_VERSION")) {
+            while (rs.next()) out.add(rs.getInt(1));
+        }
+        return out;
+    }
+
+    // --- Helpers for migrations that must cope with pre-migration databases ---
+
+    /** True if a table with this (unquoted, upper-case) name exists in the current schema. */
+    public static boolean tableExists(Connection conn, String table) throws SQLException {
+        try (ResultSet rs = conn.getMetaData().getTables(null, conn.getSchema(), table, new String[]{"TABLE"})) {
+            return rs.next();
+        }
+    }
+
+    /** True if the table already has an index with this (upper-case) name. */
+    public static boolean indexExists(Connection conn, String table, String index) throws SQLException {
+        try (ResultSet rs = conn.getMetaData().getIndexInfo(null, conn.getSchema(), table, false, true)) {
+            while (rs.next()) {
+                if (index.equals(rs.getString("INDEX_NAME"))) return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,269 @@
+package od.db;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Prepared statements of ONE physical connection, kept open between
+ * borrows so the same SQL is only prepared (parsed + planned) once.
+ *
+ * The pool hands out a proxy for each cached statement; closing the proxy
+ * clears its parameters and puts the statement back instead of closing it.
+ * Statements are keyed by SQL text (+ the generated-keys flag) and the
+ * least recently used one is really closed once more than maxSize are kept.
+ *
+ * If the same SQL is prepared again while its cached statement is still
+ * open (e.g. two cursors over one query), the second one is a normal,
+ * uncached statement (closing it really closes it).
+ *
+ * Only used by the thread that has borrowed the connection, but methods
+ * are synchronized anyway so a stray close from another thread is safe.
+ */
+final class StatementCache {
+
+    /** Pool-wide counters, shared by the caches of all connections. */
+    static final class Counters {
+        final AtomicLong hits = new AtomicLong();
+        final AtomicLong misses = new AtomicLong();
+        final AtomicLong evictions = new AtomicLong();
+    }
+
+    private record Key(String sql, int autoGeneratedKeys) {}
+
+    /** One cached statement plus the settings to restore when it comes back. */
+    private static final class Entry {
+        final Key key;
+        final PreparedStatement ps;
+        final int fetchSize, maxRows, queryTimeout;
+        Handle user; // the proxy currently handed out, or null when free
+
+        Entry(Key key, PreparedStatement ps) throws SQLException {
+            this.key = key;
+            this.ps = ps;
+            this.fetchSize = ps.getFetchSize();
+            this.maxRows = ps.getMaxRows();
+            this.queryTimeout = ps.getQueryTimeout();
+        }
+    }
+
+    private final Connection physical;
+    private final int maxSize;
+    private final Counters counters;
+
+    // Access order: the first entry is the least recently used
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    StatementCache(Connection physical, int maxSize, Counters counters) {
+        this.physical = physical;
+        this.maxSize = maxSize;
+        this.counters = counters;
+    }
+
+    /**
+     * Returns a (proxied) prepared statement for this SQL.
+     *
+     * @param logical the pooled connection the caller sees (returned by getConnection())
+     * @param broken  called when the statement reports a lost connection
+     */
+    synchronized PreparedStatement prepare(Connection logical, String sql, int autoGeneratedKeys,
+                                           Runnable broken) throws SQLException {
+        Key key = new Key(sql, autoGeneratedKeys);
+        Entry e = entries.get(key);
+
+        if (e != null && e.user == null && !e.ps.isClosed()) {
+            counters.hits.incrementAndGet();
+        } else if (e != null && e.user != null) {
+            // Already open under this SQL: hand out a plain (uncached) statement,
+            // still wrapped so getConnection() doesn't leak the physical connection
+            counters.misses.incrementAndGet();
+            return (PreparedStatement) Proxy.newProxyInstance(
+                    PreparedStatement.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class},
+                    new Uncached(physical.prepareStatement(sql, autoGeneratedKeys), logical, broken));
+        } else {
+            counters.misses.incrementAndGet();
+            if (e != null) entries.remove(key); // closed underneath us
+            e = new Entry(key, physical.prepareStatement(sql, autoGeneratedKeys));
+            entries.put(key, e);
+        }
+
+        // Mark it in use BEFORE evicting, so the new statement is never the one closed
+        Handle h = new Handle(e, logical, broken);
+        e.user = h;
+        evictIfFull();
+        return (PreparedStatement) Proxy.newProxyInstance(
+                PreparedStatement.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class},
+                h);
+    }
+
+    /**
+     * Really closes least recently used statements that are not in use.
+     * If they are all in use the cache stays over maxSize until some come back.
+     */
+    private void evictIfFull() {
+        Iterator<Entry> it = entries.values().iterator();
+        while (entries.size() > maxSize && it.hasNext()) {
+            Entry e = it.next();
+            if (e.user != null) continue;
+            it.remove();
+            counters.evictions.incrementAndGet();
+            closeQuietly(e.ps);
+        }
+    }
+
+    /**
+     * Puts a statement back: clears parameters / batch, closes a forgotten
+     * result set and undoes fetch size / max rows / timeout changes, so
+     * the next user gets it exactly as if freshly prepared.
+     */
+    private synchronized void checkIn(Entry e) {
+        e.user = null;
+        try {
+            PreparedStatement ps = e.ps;
+            ResultSet rs = ps.getResultSet();
+            if (rs != null) rs.close();
+            ps.clearParameters();
+            ps.clearBatch();
+            ps.clearWarnings();
+            if (ps.getFetchSize() != e.fetchSize) ps.setFetchSize(e.fetchSize);
+            if (ps.getMaxRows() != e.maxRows) ps.setMaxRows(e.maxRows);
+            if (ps.getQueryTimeout() != e.queryTimeout) ps.setQueryTimeout(e.queryTimeout);
+        } catch (SQLException ex) {
+            // Could not be reset → don't keep it
+            if (entries.get(e.key) == e) entries.remove(e.key);
+            closeQuietly(e.ps);
+        }
+    }
+
+    /**
+     * Called when the connection goes back to the pool: statements the
+     * borrower forgot to close are put back (their proxies stop working).
+     */
+    synchronized void releaseAll() {
+        List<Entry> inUse = new ArrayList<>();
+        for (Entry e : entries.values()) {
+            if (e.user != null) inUse.add(e);
+        }
+        for (Entry e : inUse) {
+            e.user.closed = true;
+            checkIn(e);
+        }
+    }
+
+    /** Really closes every statement (the connection is being discarded). */
+    synchronized void closeAll() {
+        for (Entry e : entries.values()) {
+            if (e.user != null) e.user.closed = true;
+            closeQuietly(e.ps);
+        }
+        entries.clear();
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    private static void closeQuietly(Statement s) {
+        try {
+            s.close();
+        } catch (SQLException ignore) {}
+    }
+
+    /** True for SQLSTATE class 08 (connection exception), e.g. Derby was shut down. */
+    static boolean isConnectionError(SQLException e) {
+        String state = e.getSQLState();
+        return state != null && state.startsWith("08");
+    }
+
+    /** The proxy given to callers for one use of a cached statement. */
+    private final class Handle implements InvocationHandler {
+        private final Entry entry;
+        private final Connection logical;
+        private final Runnable broken;
+        volatile boolean closed;
+
+        Handle(Entry entry, Connection logical, Runnable broken) {
+            this.entry = entry;
+            this.logical = logical;
+            this.broken = broken;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        checkIn(entry);
+                    }
+                    return null;
+                case "isClosed":
+                    return closed || entry.ps.isClosed();
+                case "getConnection":
+                    return logical; // never leak the physical connection
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Cached[" + entry.key.sql() + "]";
+                default:
+                    if (closed) throw new SQLException("Statement is closed");
+                    try {
+                        return method.invoke(entry.ps, args);
+                    } catch (InvocationTargetException e) {
+                        Throwable cause = e.getCause();
+                        if (cause instanceof SQLException sql && isConnectionError(sql)) broken.run();
+                        throw cause;
+                    }
+            }
+        }
+    }
+
+    /**
+     * The proxy given to callers for an uncached duplicate: close() really
+     * closes it, but getConnection() still returns the pooled connection.
+     */
+    private static final class Uncached implements InvocationHandler {
+        private final PreparedStatement ps;
+        private final Connection logical;
+        private final Runnable broken;
+
+        Uncached(PreparedStatement ps, Connection logical, Runnable broken) {
+            this.ps = ps;
+            this.logical = logical;
+            this.broken = broken;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "getConnection":
+                    return logical; // never leak the physical connection
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Uncached[" + ps + "]";
+                default:
+                    try {
+                        return method.invoke(ps, args);
+                    } catch (InvocationTargetException e) {
+                        Throwable cause = e.getCause();
+                        if (cause instanceof SQLException sql && isConnectionError(sql)) broken.run();
+                        throw cause;
+                    }
+            }
+        }
+    }
+}
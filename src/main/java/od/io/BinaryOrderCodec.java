@@ -0,0 +1,185 @@
+package od.io;
+
+import od.model.*;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.function.IntFunction;
+
+/**
+ * The compact binary encoding of menu items and orders, shared by the
+ * export files (BinaryOrderWriter / BinaryOrderReader) and anything else
+ * that stores orders as bytes.
+ *
+ * Every record is framed as:
+ * <pre>
+ *   byte type | int length | payload (length bytes)
+ * </pre>
+ * so a reader can skip record types it does not know. Payloads
+ * (big-endian, strings as short length + UTF-8 bytes):
+ * <pre>
+ *   MENU_ITEM  int id | str name | str category | long priceCents | byte active
+ *   ORDER      str txnId | long orderDate (local epoch millis) | int lineCount
+ *              then per line: int menuItemId | int qty | long unitPriceCents
+ *                             | byte size | byte icing | byte filling
+ *   ORDER_ID   int id — database ID of the ORDER record that follows
+ *              (archive files only; export readers skip it)
+ *   END        (empty) — marks a complete file
+ * </pre>
+ * A typical 3-line order takes about 100 bytes.
+ */
+public final class BinaryOrderCodec {
+
+    /** "ODX1" — first 4 bytes of every binary file. */
+    public static final int MAGIC = 0x4F445831;
+
+    public static final byte END = 0;
+    public static final byte MENU_ITEM = 1;
+    public static final byte ORDER = 2;
+    public static final byte ORDER_ID = 3;
+
+    /** Bytes before each payload: type + length. */
+    public static final int FRAME_HEADER = 1 + 4;
+
+    private static final int LINE_BYTES = 4 + 4 + 8 + 1 + 1 + 1;
+
+    private BinaryOrderCodec() {}
+
+    // --- Sizes (upper bounds, for sizing buffers) ---
+
+    public static int maxSize(MenuItem m) {
+        return FRAME_HEADER + 4 + maxSize(m.getName()) + maxSize(m.getCategory()) + 8 + 1;
+    }
+
+    public static int maxSize(Order o) {
+        return FRAME_HEADER + maxSize(o.getTxnId()) + 8 + 4 + LINE_BYTES * o.getItems().size();
+    }
+
+    private static int maxSize(String s) {
+        return 2 + 3 * (s == null ? 0 : s.length()); // UTF-8: at most 3 bytes per char
+    }
+
+    // --- Encoding ---
+
+    /** Writes a framed MENU_ITEM record; the buffer needs maxSize(m) bytes free. */
+    public static void putMenuItem(ByteBuffer buf, MenuItem m) {
+        int start = beginFrame(buf, MENU_ITEM);
+        buf.putInt(m.getId());
+        putString(buf, m.getName());
+        putString(buf, m.getCategory());
+        buf.putLong(m.getPriceCents());
+        buf.put((byte) (m.isActive() ? 1 : 0));
+        endFrame(buf, start);
+    }
+
+    /** Writes a framed ORDER record with all its lines; the buffer needs maxSize(o) bytes free. */
+    public static void putOrder(ByteBuffer buf, Order o) {
+        int start = beginFrame(buf, ORDER);
+        putString(buf, o.getTxnId());
+        buf.putLong(o.getOrderDate().toInstant(ZoneOffset.UTC).toEpochMilli());
+        buf.putInt(o.getItems().size());
+
+        for (OrderItem oi : o.getItems()) {
+            ItemOptions opt = oi.getOptions();
+            buf.putInt(oi.getMenuItem().getId());
+            buf.putInt(oi.getQty());
+            buf.putLong(oi.getUnitPriceCents());
+            buf.put((byte) opt.getSize().code());
+            buf.put((byte) opt.getIcing().code());
+            buf.put((byte) opt.getFilling().code());
+        }
+        endFrame(buf, start);
+    }
+
+    /** Writes a framed ORDER_ID record (9 bytes). */
+    public static void putOrderId(ByteBuffer buf, int id) {
+        buf.put(ORDER_ID).putInt(4).putInt(id);
+    }
+
+    /** Writes the END marker. */
+    public static void putEnd(ByteBuffer buf) {
+        buf.put(END).putInt(0);
+    }
+
+    private static int beginFrame(ByteBuffer buf, byte type) {
+        buf.put(type);
+        int lengthAt = buf.position();
+        buf.putInt(0); // patched by endFrame
+        return lengthAt;
+    }
+
+    private static void endFrame(ByteBuffer buf, int lengthAt) {
+        buf.putInt(lengthAt, buf.position() - lengthAt - 4);
+    }
+
+    private static void putString(ByteBuffer buf, String s) {
+        byte[] b = (s == null ? "" : s).getBytes(StandardCharsets.UTF_8);
+        if (b.length > Short.MAX_VALUE) throw new IllegalArgumentException("string too long: " + b.length + " bytes");
+        buf.putShort((short) b.length).put(b);
+    }
+
+    // --- Decoding (payload only; the frame header has already been read) ---
+
+    public static MenuItem getMenuItem(ByteBuffer payload) {
+        int id = payload.getInt();
+        String name = getString(payload);
+        String category = getString(payload);
+        long priceCents = payload.getLong();
+        boolean active = payload.get() != 0;
+        return new MenuItem(id, name, category, Money.ofCents(priceCents), active);
+    }
+
+    /** Reads just the TXN_ID at the start of an ORDER payload (the rest is left unread). */
+    public static String getTxnId(ByteBuffer payload) {
+        return getString(payload);
+    }
+
+    /**
+     * Reads an ORDER payload.
+     *
+     * @param menuItems looks up the MenuItem for each line's menu item ID
+     *                  (may return null for unknown IDs → error)
+     */
+    public static Order getOrder(ByteBuffer payload, IntFunction<MenuItem> menuItems) {
+        String txnId = getString(payload);
+        long millis = payload.getLong();
+        LocalDateTime date = LocalDateTime.ofEpochSecond(
+                Math.floorDiv(millis, 1000L), (int) Math.floorMod(millis, 1000L) * 1_000_000, ZoneOffset.UTC);
+
+        int lines = payload.getInt();
+        if (lines < 0 || (long) lines * LINE_BYTES > payload.remaining()) {
+            throw new BufferUnderflowException();
+        }
+
+        Order order = new Order(null, txnId, date);
+        for (int i = 0; i < lines; i++) {
+            int menuItemId = payload.getInt();
+            int qty = payload.getInt();
+            long unitCents = payload.getLong();
+            ItemOptions opt = ItemOptions.fromCodes(payload.get(), payload.get(), payload.get());
+
+            MenuItem mi = menuItems.apply(menuItemId);
+            if (mi == null) {
+                throw new IllegalArgumentException("Order " + txnId + " refers to unknown menu item " + menuItemId);
+            }
+            order.addItem(new OrderItem(null, null, mi, qty, Money.ofCents(unitCents), opt));
+        }
+        return order;
+    }
+
+    private static String getString(ByteBuffer buf) {
+        int len = buf.getShort();
+        if (len < 0 || len > buf.remaining()) throw new BufferUnderflowException();
+        if (buf.hasArray()) {
+            String s = new String(buf.array(), buf.arrayOffset() + buf.position(), len, StandardCharsets.UTF_8);
+            buf.position(buf.position() + len);
+            return s;
+        }
+        byte[] b = new byte[len];
+        buf.get(b);
+        return new String(b, StandardCharsets.UTF_8);
+    }
+}
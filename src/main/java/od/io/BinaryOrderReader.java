@@ -0,0 +1,92 @@
+package od.io;
+
+import od.model.MenuItem;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Reads the binary export format (see BinaryOrderCodec) from a channel,
+ * one record at a time through a single reusable buffer.
+ */
+public class BinaryOrderReader implements OrderReader {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final ReadableByteChannel channel;
+    private ByteBuffer buf = ByteBuffer.allocate(BUFFER_SIZE);
+
+    // Menu items read so far, by their ID in the file
+    private final Map<Integer, MenuItem> menuItems = new HashMap<>();
+
+    public BinaryOrderReader(ReadableByteChannel channel) {
+        this.channel = channel;
+        buf.flip(); // start empty (nothing to read yet)
+    }
+
+    @Override
+    public void readAll(Handler handler) throws IOException {
+        require(4);
+        if (buf.getInt() != BinaryOrderCodec.MAGIC) {
+            throw new IOException("Not an order export file (bad magic number)");
+        }
+
+        while (true) {
+            require(BinaryOrderCodec.FRAME_HEADER);
+            byte type = buf.get();
+            int length = buf.getInt();
+            if (length < 0) throw new IOException("Corrupt record length " + length);
+
+            if (type == BinaryOrderCodec.END) return;
+
+            require(length);
+            ByteBuffer payload = buf.slice();
+            payload.limit(length);
+            buf.position(buf.position() + length);
+
+            try {
+                switch (type) {
+                    case BinaryOrderCodec.MENU_ITEM -> {
+                        MenuItem m = BinaryOrderCodec.getMenuItem(payload);
+                        menuItems.put(m.getId(), m);
+                        handler.menuItem(m);
+                    }
+                    case BinaryOrderCodec.ORDER -> handler.order(BinaryOrderCodec.getOrder(payload, menuItems::get));
+                    default -> { } // unknown record type from a newer version: skip it
+                }
+            } catch (BufferUnderflowException | IllegalArgumentException e) {
+                throw new IOException("Corrupt record of type " + type, e);
+            }
+        }
+    }
+
+    /** Makes sure at least {@code bytes} unread bytes are in the buffer. */
+    private void require(int bytes) throws IOException {
+        if (buf.remaining() >= bytes) return;
+
+        if (buf.capacity() < bytes) {
+            ByteBuffer bigger = ByteBuffer.allocate(bytes);
+            bigger.put(buf);
+            buf = bigger;
+        } else {
+            buf.compact();
+        }
+
+        while (buf.position() < bytes) {
+            if (channel.read(buf) < 0) {
+                throw new EOFException("Export file ends in the middle of a record (incomplete copy?)");
+            }
+        }
+        buf.flip();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,79 @@
+package od.io;
+
+import od.model.MenuItem;
+import od.model.Order;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Writes the binary export format (see BinaryOrderCodec) to a channel.
+ * Records are encoded into one reusable buffer that is written out
+ * whenever it fills up, so memory use does not grow with the file.
+ */
+public class BinaryOrderWriter implements OrderWriter {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final WritableByteChannel channel;
+    private ByteBuffer buf = ByteBuffer.allocate(BUFFER_SIZE);
+    private boolean headerWritten;
+    private boolean finished;
+
+    public BinaryOrderWriter(WritableByteChannel channel) {
+        this.channel = channel;
+    }
+
+    @Override
+    public void writeMenuItem(MenuItem item) throws IOException {
+        reserve(BinaryOrderCodec.maxSize(item));
+        BinaryOrderCodec.putMenuItem(buf, item);
+    }
+
+    @Override
+    public void writeOrder(Order order) throws IOException {
+        reserve(BinaryOrderCodec.maxSize(order));
+        BinaryOrderCodec.putOrder(buf, order);
+    }
+
+    /** Makes sure the buffer has room for {@code bytes} more bytes. */
+    private void reserve(int bytes) throws IOException {
+        if (!headerWritten) {
+            buf.putInt(BinaryOrderCodec.MAGIC);
+            headerWritten = true;
+        }
+        if (buf.remaining() >= bytes) return;
+
+        flush();
+        if (buf.capacity() < bytes) {
+            buf = ByteBuffer.allocate(bytes); // one huge order; rare
+        }
+    }
+
+    private void flush() throws IOException {
+        buf.flip();
+        while (buf.hasRemaining()) {
+            channel.write(buf);
+        }
+        buf.clear();
+    }
+
+    /** Writes the END marker. */
+    @Override
+    public void finish() throws IOException {
+        if (finished) return;
+        reserve(BinaryOrderCodec.FRAME_HEADER);
+        BinaryOrderCodec.putEnd(buf);
+        flush();
+        finished = true;
+    }
+
+    /** Flushes what is buffered; without finish() the file has no END marker. */
+    @Override
+    public void close() throws IOException {
+        try (channel) {
+            flush();
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package od.io;
+
+import od.model.*;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads the CSV export format written by CsvOrderWriter, one row at a time.
+ */
+public class CsvOrderReader implements OrderReader {
+
+    private final BufferedReader in;
+
+    // Menu items read so far, by their ID in the file
+    private final Map<Integer, MenuItem> menuItems = new HashMap<>();
+
+    public CsvOrderReader(ReadableByteChannel channel) {
+        this.in = new BufferedReader(Channels.newReader(channel, StandardCharsets.UTF_8.newDecoder(), -1), 64 * 1024);
+    }
+
+    @Override
+    public void readAll(Handler handler) throws IOException {
+        String first = in.readLine();
+        if (first == null || !first.startsWith(CsvOrderWriter.HEADER)) {
+            throw new IOException("Not an order CSV export (missing \"" + CsvOrderWriter.HEADER + "\" header)");
+        }
+
+        List<String> f = new ArrayList<>(8);
+        Order current = null;
+        int lineNo = 1;
+        long orders = 0;
+        boolean ended = false;
+
+        for (String line; (line = in.readLine()) != null; ) {
+            lineNo++;
+            if (line.isEmpty() || line.startsWith("#")) continue;
+
+            try {
+                if (ended) throw new IllegalArgumentException("row after the end row");
+                split(line, f);
+                switch (f.get(0)) {
+                    case "M" -> {
+                        MenuItem m = new MenuItem(Integer.parseInt(f.get(1)), f.get(2), f.get(3),
+                                Money.parse(f.get(4)), Boolean.parseBoolean(f.get(5)));
+                        menuItems.put(m.getId(), m);
+                        handler.menuItem(m);
+                    }
+                    case "O" -> {
+                        if (current != null) handler.order(current);
+                        current = new Order(null, f.get(1), LocalDateTime.parse(f.get(2)));
+                        orders++;
+                    }
+                    case "L" -> {
+                        if (current == null) throw new IllegalArgumentException("line item before any order");
+                        MenuItem mi = menuItems.get(Integer.parseInt(f.get(1)));
+                        if (mi == null) throw new IllegalArgumentException("unknown menu item " + f.get(1));
+                        current.addItem(new OrderItem(null, null, mi,
+                                Integer.parseInt(f.get(2)),
+                                Money.parse(f.get(3)),
+                                ItemOptions.fromCodes(Integer.parseInt(f.get(4)),
+                                        Integer.parseInt(f.get(5)), Integer.parseInt(f.get(6)))));
+                    }
+                    case "E" -> {
+                        long expected = Long.parseLong(f.get(1));
+                        if (expected != orders) {
+                            throw new IllegalArgumentException("end row says " + expected + " orders, file has " + orders);
+                        }
+                        ended = true;
+                    }
+                    default -> throw new IllegalArgumentException("unknown row type " + f.get(0));
+                }
+            } catch (RuntimeException e) {
+                throw new IOException("Bad CSV row at line " + lineNo + ": " + e.getMessage(), e);
+            }
+        }
+
+        if (!ended) {
+            throw new IOException("Order CSV export is incomplete (no end row after line " + lineNo + ")");
+        }
+        if (current != null) handler.order(current);
+    }
+
+    /** Splits one row into fields (handles "quoted, fields" with "" escapes). */
+    private static void split(String line, List<String> out) {
+        out.clear();
+        StringBuilder sb = new StringBuilder();
+        boolean quoted = false;
+
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"') {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        sb.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    sb.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                out.add(sb.toString());
+                sb.setLength(0);
+            } else {
+                sb.append(c);
+            }
+        }
+        out.add(sb.toString());
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
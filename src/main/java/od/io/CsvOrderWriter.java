@@ -0,0 +1,111 @@
+package od.io;
+
+import od.model.ItemOptions;
+import od.model.MenuItem;
+import od.model.Money;
+import od.model.Order;
+import od.model.OrderItem;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes the CSV export format: one row per record, the first column
+ * telling what the row is.
+ * <pre>
+ * # od-orders-csv v1
+ * M,id,name,category,price,active
+ * O,txnId,orderDate
+ * L,menuItemId,qty,unitPrice,sizeCode,icingCode,fillingCode
+ * E,orderCount
+ * </pre>
+ * L rows belong to the O row above them. The E row closes a complete
+ * export; a file without it (an export that failed, or a copy cut off
+ * at a row boundary) is rejected on import. Prices are dollars ("1.49"),
+ * dates are ISO-8601 local times, option codes are ItemOptions codes.
+ */
+public class CsvOrderWriter implements OrderWriter {
+
+    static final String HEADER = "# od-orders-csv v1";
+
+    private long orderCount;
+
+    private final Writer out;
+
+    // Reused for every row
+    private final StringBuilder row = new StringBuilder(128);
+
+    public CsvOrderWriter(WritableByteChannel channel) {
+        this.out = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8.newEncoder(), -1), 64 * 1024);
+        this.row.append(HEADER);
+    }
+
+    @Override
+    public void writeMenuItem(MenuItem m) throws IOException {
+        row.append("\nM,").append(m.getId()).append(',');
+        field(m.getName()).append(',');
+        field(m.getCategory()).append(',');
+        Money.appendTo(row, m.getPriceCents()).append(',').append(m.isActive());
+        flushRow();
+    }
+
+    @Override
+    public void writeOrder(Order o) throws IOException {
+        row.append("\nO,");
+        field(o.getTxnId()).append(',').append(o.getOrderDate());
+
+        for (OrderItem oi : o.getItems()) {
+            ItemOptions opt = oi.getOptions();
+            row.append("\nL,").append(oi.getMenuItem().getId())
+                    .append(',').append(oi.getQty()).append(',');
+            Money.appendTo(row, oi.getUnitPriceCents())
+                    .append(',').append(opt.getSize().code())
+                    .append(',').append(opt.getIcing().code())
+                    .append(',').append(opt.getFilling().code());
+        }
+        flushRow();
+        orderCount++;
+    }
+
+    /** Writes the E row. */
+    @Override
+    public void finish() throws IOException {
+        row.append("\nE,").append(orderCount);
+        flushRow();
+    }
+
+    /**
+     * Appends a text field, quoted only when it contains a comma or quote.
+     * Line breaks become spaces so every record stays on one line.
+     */
+    private StringBuilder field(String s) {
+        if (s == null) return row;
+        if (s.indexOf(',') < 0 && s.indexOf('"') < 0 && s.indexOf('\n') < 0 && s.indexOf('\r') < 0) {
+            return row.append(s);
+        }
+        row.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '"') row.append('"');
+            row.append(c == '\n' || c == '\r' ? ' ' : c);
+        }
+        return row.append('"');
+    }
+
+    private void flushRow() throws IOException {
+        out.append(row);
+        row.setLength(0);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try (out) {
+            row.append('\n');
+            flushRow();
+        }
+    }
+}
@@ -0,0 +1,248 @@
+package od.io;
+
+import od.model.MenuItem;
+import od.model.Order;
+import od.model.OrderItem;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * One month of archived order history: a gzip-compressed, read-only file
+ * in the binary export format (see BinaryOrderCodec), written by
+ * OrderArchiver.
+ *
+ * Each order is preceded by an ORDER_ID record, so archived orders keep
+ * their database IDs and page in the same (date, ID) order as live ones.
+ * Menu items are written the first time an order uses them, which keeps
+ * each file self-contained: receipts print the item names and prices as
+ * they were when the order was archived.
+ *
+ * Opening a file decodes it completely into memory (a month is a few MB);
+ * OrderArchives keeps the last few opened months cached.
+ */
+public final class OrderArchive {
+
+    // Newest first, ties by ID descending (same order as OrderDAO.findPage)
+    private static final Comparator<Order> RECENT_FIRST = Comparator
+            .comparing(Order::getOrderDate)
+            .thenComparing(Order::getId)
+            .reversed();
+
+    private final Path file;
+    private final Order[] orders;              // RECENT_FIRST
+    private final Map<String, Order> byTxn;
+
+    private OrderArchive(Path file, Order[] orders) {
+        this.file = file;
+        this.orders = orders;
+        this.byTxn = new HashMap<>(orders.length * 2);
+        for (Order o : orders) byTxn.put(o.getTxnId(), o);
+    }
+
+    // --- Reading ---
+
+    /** Reads and decodes a whole archive file. */
+    public static OrderArchive open(Path file) throws IOException {
+        byte[] bytes;
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(file), 64 * 1024)) {
+            bytes = in.readAllBytes();
+        }
+
+        ByteBuffer buf = ByteBuffer.wrap(bytes);
+        if (buf.remaining() < 4 || buf.getInt() != BinaryOrderCodec.MAGIC) {
+            throw new IOException("Not an order archive: " + file);
+        }
+
+        Map<Integer, MenuItem> menuItems = new HashMap<>();
+        List<Order> orders = new ArrayList<>();
+        Integer nextId = null;
+        try {
+            while (true) {
+                byte type = buf.get();
+                int length = buf.getInt();
+                if (length < 0 || length > buf.remaining()) throw new BufferUnderflowException();
+                if (type == BinaryOrderCodec.END) break;
+
+                ByteBuffer payload = buf.slice();
+                payload.limit(length);
+                buf.position(buf.position() + length);
+
+                switch (type) {
+                    case BinaryOrderCodec.MENU_ITEM -> {
+                        MenuItem m = BinaryOrderCodec.getMenuItem(payload);
+                        menuItems.put(m.getId(), m);
+                    }
+                    case BinaryOrderCodec.ORDER_ID -> nextId = payload.getInt();
+                    case BinaryOrderCodec.ORDER -> {
+                        Order o = BinaryOrderCodec.getOrder(payload, menuItems::get);
+                        if (nextId == null) throw new IOException("Order " + o.getTxnId() + " has no ID in " + file);
+                        o.setId(nextId);
+                        nextId = null;
+                        orders.add(o);
+                    }
+                    default -> { } // unknown record type from a newer version: skip it
+                }
+            }
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new IOException("Corrupt order archive " + file + " (incomplete copy?)", e);
+        }
+
+        Order[] sorted = orders.toArray(new Order[0]);
+        Arrays.sort(sorted, RECENT_FIRST);
+        return new OrderArchive(file, sorted);
+    }
+
+    /**
+     * The archived order with this transaction ID, or null.
+     * The Order is shared with the cache — treat it as read-only.
+     */
+    public Order find(String txnId) {
+        return byTxn.get(txnId);
+    }
+
+    /**
+     * Up to {@code limit} order headers, newest first, with the same
+     * arguments and ordering as OrderDAO.findPage.
+     */
+    public List<Order> page(LocalDateTime from, LocalDateTime to, Order after, int limit) {
+        // Binary search for the first order that comes after `after` / before `to`
+        int start = 0;
+        if (after != null) {
+            start = firstIndex(o -> RECENT_FIRST.compare(o, after) > 0);
+        }
+        if (to != null) {
+            start = Math.max(start, firstIndex(o -> o.getOrderDate().isBefore(to)));
+        }
+
+        List<Order> out = new ArrayList<>(Math.min(limit, orders.length - start));
+        for (int i = start; i < orders.length && out.size() < limit; i++) {
+            Order o = orders[i];
+            if (from != null && o.getOrderDate().isBefore(from)) break;
+            out.add(new Order(o.getId(), o.getTxnId(), o.getOrderDate())); // header only, like findPage
+        }
+        return out;
+    }
+
+    /**
+     * Visits every order in the range, oldest first.
+     * The Orders are shared with the cache — treat them as read-only.
+     */
+    public long forEach(LocalDateTime from, LocalDateTime to, Consumer<Order> action) {
+        long n = 0;
+        for (int i = orders.length - 1; i >= 0; i--) {
+            Order o = orders[i];
+            if (from != null && o.getOrderDate().isBefore(from)) continue;
+            if (to != null && !o.getOrderDate().isBefore(to)) break;
+            action.accept(o);
+            n++;
+        }
+        return n;
+    }
+
+    /** First index whose order matches; the predicate must be false…false, true…true along the array. */
+    private int firstIndex(Predicate<Order> test) {
+        int lo = 0, hi = orders.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (test.test(orders[mid])) hi = mid;
+            else lo = mid + 1;
+        }
+        return lo;
+    }
+
+    public int size() { return orders.length; }
+
+    public Path getFile() { return file; }
+
+    // --- Writing ---
+
+    /** Starts a new archive file (it must not exist yet); close() forces it to disk. */
+    public static Writer create(Path file) throws IOException {
+        return new Writer(file);
+    }
+
+    /** Streams orders into a new archive file. */
+    public static final class Writer implements AutoCloseable {
+
+        private static final int BUFFER_SIZE = 64 * 1024;
+
+        private final FileChannel channel;
+        private final GZIPOutputStream out;
+        private ByteBuffer buf = ByteBuffer.allocate(BUFFER_SIZE);
+
+        // Menu items already written to this file
+        private final Set<Integer> menuItemsWritten = new HashSet<>();
+
+        private int orderCount;
+        private int lineCount;
+
+        private Writer(Path file) throws IOException {
+            channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+            OutputStream raw = Channels.newOutputStream(channel);
+            out = new GZIPOutputStream(raw, BUFFER_SIZE);
+            buf.putInt(BinaryOrderCodec.MAGIC);
+        }
+
+        /** Adds one order (it must have its database ID). */
+        public void write(Order order) throws IOException {
+            if (order.getId() == null) throw new IllegalArgumentException("Order " + order.getTxnId() + " has no ID");
+
+            for (OrderItem oi : order.getItems()) {
+                MenuItem m = oi.getMenuItem();
+                if (menuItemsWritten.add(m.getId())) {
+                    reserve(BinaryOrderCodec.maxSize(m));
+                    BinaryOrderCodec.putMenuItem(buf, m);
+                }
+            }
+
+            reserve(BinaryOrderCodec.FRAME_HEADER + 4 + BinaryOrderCodec.maxSize(order));
+            BinaryOrderCodec.putOrderId(buf, order.getId());
+            BinaryOrderCodec.putOrder(buf, order);
+
+            orderCount++;
+            lineCount += order.getItems().size();
+        }
+
+        private void reserve(int bytes) throws IOException {
+            if (buf.remaining() >= bytes) return;
+            flush();
+            if (buf.capacity() < bytes) buf = ByteBuffer.allocate(bytes); // one huge order; rare
+        }
+
+        private void flush() throws IOException {
+            out.write(buf.array(), 0, buf.position());
+            buf.clear();
+        }
+
+        public int getOrderCount() { return orderCount; }
+        public int getLineCount() { return lineCount; }
+
+        /** Writes the END marker, finishes compression and forces the file to disk. */
+        @Override
+        public void close() throws IOException {
+            try (channel) {
+                reserve(BinaryOrderCodec.FRAME_HEADER);
+                BinaryOrderCodec.putEnd(buf);
+                flush();
+                out.finish();
+                out.flush();
+                channel.force(true);
+            }
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package od.io;
+
+import od.dao.OrderArchives;
+import od.dao.OrderDAO;
+import od.db.Database;
+import od.model.Order;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Moves cold months of order history out of ORDERS / ORDER_ITEMS into
+ * compressed, read-only archive files (one OrderArchive per month, in
+ * Database.archiveDirectory()). Archived orders can still be looked up,
+ * browsed and exported through OrderDAO; the sales rollups keep them, so
+ * reports don't change.
+ *
+ * Archiving a month:
+ *  1. write every order of the month to a new file (plus whatever an
+ *     earlier archive of that month held), force it to disk, read it back
+ *  2. in ONE transaction: delete exactly those orders from the live
+ *     tables, list their TXN_IDs in ARCHIVED_ORDERS and point
+ *     ORDER_ARCHIVES at the new file
+ *  3. after the commit, delete the month's previous file (if any)
+ * A crash before the commit leaves only a stray file; the live tables
+ * are untouched. Orders saved into an archived month later (e.g. an old
+ * import) stay in ORDERS until the month is archived again. A live order
+ * whose TXN_ID is already in the month's file (imported twice before
+ * imports checked ARCHIVED_ORDERS) is not written again; it is deleted
+ * and taken back out of the rollups.
+ *
+ * Command line:
+ * <pre>
+ * java od.io.OrderArchiver [monthsToKeep]   (default -Dod.archive.keepMonths, 12)
+ * java od.io.OrderArchiver 2024-03          (one month)
+ * </pre>
+ */
+public class OrderArchiver {
+
+    private static final Logger LOG = Logger.getLogger(OrderArchiver.class.getName());
+
+    /** Rows fetched per round trip while reading a month. */
+    private static final int FETCH_SIZE = 1_000;
+
+    /** What archiving one month did. */
+    public record Result(YearMonth month, int ordersMoved, int ordersInFile, long fileBytes) {}
+
+    private final OrderDAO orderDAO;
+    private final OrderArchives archives;
+
+    public OrderArchiver() {
+        this(new OrderDAO(), OrderArchives.get());
+    }
+
+    public OrderArchiver(OrderDAO orderDAO, OrderArchives archives) {
+        this.orderDAO = orderDAO;
+        this.archives = archives;
+    }
+
+    /**
+     * Archives every month older than the last {@code keepMonths}
+     * (counting the current month).
+     *
+     * @return one result per month that had orders to move
+     */
+    public List<Result> archiveOlderThan(int keepMonths) throws IOException, SQLException {
+        if (keepMonths < 1) throw new IllegalArgumentException("keepMonths must be >= 1");
+        YearMonth cutoff = YearMonth.now().minusMonths(keepMonths - 1L);
+
+        List<Result> out = new ArrayList<>();
+        LocalDateTime oldest = orderDAO.findOldestOrderDate();
+        if (oldest == null) return out;
+
+        for (YearMonth m = YearMonth.from(oldest); m.isBefore(cutoff); m = m.plusMonths(1)) {
+            Result r = archiveMonth(m);
+            if (r != null) out.add(r);
+        }
+        return out;
+    }
+
+    /**
+     * Archives one month.
+     *
+     * @return what was moved, or null if ORDERS had nothing for that month
+     */
+    public Result archiveMonth(YearMonth month) throws IOException, SQLException {
+        OrderArchives.Partition old = archives.forMonth(month);
+        LocalDateTime start = month.atDay(1).atStartOfDay();
+        LocalDateTime end = month.plusMonths(1).atDay(1).atStartOfDay();
+
+        // Orders already in the month's previous file (forEachWithLines visits them too)
+        Set<Integer> alreadyArchived = new HashSet<>();
+        Set<String> archivedTxns = new HashSet<>();
+        if (old != null) {
+            archives.open(old).forEach(null, null, o -> {
+                alreadyArchived.add(o.getId());
+                archivedTxns.add(o.getTxnId());
+            });
+        }
+
+        Path dir = Database.archiveDirectory();
+        Files.createDirectories(dir);
+        String fileName = "orders-" + month + "-" + System.currentTimeMillis() + ".odz";
+        Path file = dir.resolve(fileName);
+
+        List<Integer> moved = new ArrayList<>();
+        List<String> movedTxns = new ArrayList<>();
+        List<Order> duplicates = new ArrayList<>();
+        try {
+            OrderArchive.Writer writer = OrderArchive.create(file);
+            try (writer) {
+                orderDAO.forEachWithLines(start, end, FETCH_SIZE, order -> {
+                    if (!alreadyArchived.contains(order.getId())) {
+                        if (archivedTxns.contains(order.getTxnId())) {
+                            duplicates.add(order); // live copy of an archived order
+                            return;
+                        }
+                        moved.add(order.getId());
+                        movedTxns.add(order.getTxnId());
+                    }
+                    write(writer, order);
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+
+            if (moved.isEmpty() && duplicates.isEmpty()) {
+                Files.delete(file);
+                return null;
+            }
+
+            // Make sure the file reads back in full before anything is deleted
+            if (OrderArchive.open(file).size() != writer.getOrderCount()) {
+                throw new IOException("Archive " + file + " did not read back completely");
+            }
+
+            OrderArchives.Partition p = new OrderArchives.Partition(month, fileName,
+                    writer.getOrderCount(), writer.getLineCount(), Files.size(file), LocalDateTime.now());
+
+            try (Connection conn = Database.get()) {
+                try {
+                    conn.setAutoCommit(false);
+                    int deleted = orderDAO.deleteArchived(conn, moved);
+                    if (deleted != moved.size()) {
+                        throw new SQLException("Orders of " + month + " changed while archiving ("
+                                + deleted + " of " + moved.size() + " still there); try again");
+                    }
+                    orderDAO.deleteDuplicates(conn, duplicates);
+                    archives.recordTxns(conn, month, movedTxns);
+                    archives.record(conn, p);
+                    conn.commit();
+                } catch (SQLException | RuntimeException e) {
+                    conn.rollback();
+                    throw e;
+                } finally {
+                    conn.setAutoCommit(true);
+                }
+            }
+
+            archives.reload();
+            if (old != null) deleteQuietly(dir.resolve(old.fileName()));
+            if (!duplicates.isEmpty()) {
+                LOG.warning(() -> "Removed " + duplicates.size() + " live copies of already archived orders of "
+                        + month + " (first: " + duplicates.get(0).getTxnId() + ")");
+            }
+
+            Result r = new Result(month, moved.size(), writer.getOrderCount(), p.fileBytes());
+            LOG.info(() -> "Archived " + r.ordersMoved() + " orders of " + month + " to " + file
+                    + " (" + r.fileBytes() / 1024 + " KB)");
+            return r;
+
+        } catch (IOException | SQLException | RuntimeException e) {
+            deleteQuietly(file);
+            throw e;
+        }
+    }
+
+    private static void write(OrderArchive.Writer writer, Order order) {
+        try {
+            writer.write(order);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            LOG.log(Level.WARNING, "Could not delete " + file, e);
+        }
+    }
+
+    // --- Command line ---
+
+    public static void main(String[] args) throws Exception {
+        OrderArchiver archiver = new OrderArchiver();
+        long start = System.nanoTime();
+
+        if (args.length > 0 && args[0].contains("-")) {
+            Result r = archiver.archiveMonth(YearMonth.parse(args[0]));
+            System.out.println(r == null ? "Nothing to archive for " + args[0]
+                    : "Archived " + r.ordersMoved() + " orders of " + r.month() + " (" + r.fileBytes() / 1024 + " KB)");
+        } else {
+            int keep = args.length > 0 ? Integer.parseInt(args[0]) : Integer.getInteger("od.archive.keepMonths", 12);
+            List<Result> results = archiver.archiveOlderThan(keep);
+            long orders = results.stream().mapToLong(Result::ordersMoved).sum();
+            System.out.println("Archived " + orders + " orders from " + results.size() + " months"
+                    + " (keeping the last " + keep + " months live)");
+        }
+        System.out.println("Took " + (System.nanoTime() - start) / 1_000_000 + " ms");
+    }
+}
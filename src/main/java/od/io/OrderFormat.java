@@ -0,0 +1,46 @@
+package od.io;
+
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * Export file formats.
+ *
+ *  - BINARY  compact length-prefixed records (see BinaryOrderCodec); the default
+ *  - CSV     one row per menu item / order / line, readable in a spreadsheet
+ */
+public enum OrderFormat {
+    BINARY {
+        @Override
+        public OrderWriter newWriter(WritableByteChannel channel) {
+            return new BinaryOrderWriter(channel);
+        }
+
+        @Override
+        public OrderReader newReader(ReadableByteChannel channel) {
+            return new BinaryOrderReader(channel);
+        }
+    },
+    CSV {
+        @Override
+        public OrderWriter newWriter(WritableByteChannel channel) {
+            return new CsvOrderWriter(channel);
+        }
+
+        @Override
+        public OrderReader newReader(ReadableByteChannel channel) {
+            return new CsvOrderReader(channel);
+        }
+    };
+
+    public abstract OrderWriter newWriter(WritableByteChannel channel);
+
+    public abstract OrderReader newReader(ReadableByteChannel channel);
+
+    /** CSV for *.csv files, BINARY for everything else. */
+    public static OrderFormat forPath(Path file) {
+        return file.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".csv") ? CSV : BINARY;
+    }
+}
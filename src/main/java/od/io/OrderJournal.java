@@ -0,0 +1,517 @@
+package od.io;
+
+import od.model.Order;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only local journal of checked-out orders (a write-ahead log).
+ *
+ * Checkout appends the order here and is done as soon as the record is
+ * on disk — it never waits for Derby. A JournalDrainer copies the orders
+ * into the database in the background and moves the checkpoint forward.
+ * After a crash, everything past the checkpoint is simply replayed.
+ *
+ * Layout: a directory of memory-mapped, preallocated segment files
+ * (journal-000001.seg, ...). Each segment starts with a 16-byte header
+ * (magic, version, segment number), followed by records:
+ * <pre>
+ *   int length | int crc32c(payload) | payload (a BinaryOrderCodec ORDER record)
+ * </pre>
+ * A length of 0 marks the end of the written part (the file is zero-filled).
+ * New segments are written (header included) as a .tmp file and renamed
+ * into place, so a crash never leaves a segment without its header.
+ * A record with a bad CRC is a write torn by a crash: it and everything
+ * after it in that segment is ignored.
+ *
+ * Group commit: appends only copy bytes into the mapping; one flusher
+ * thread forces (fsyncs) the mapping and completes every append that
+ * happened before the force, so N concurrent checkouts cost one fsync.
+ */
+public final class OrderJournal implements AutoCloseable {
+
+    private static final Logger LOG = Logger.getLogger(OrderJournal.class.getName());
+
+    private static final int MAGIC = 0x4F444A31; // "ODJ1"
+    private static final int VERSION = 1;
+    static final int HEADER = 16;
+    private static final int RECORD_HEADER = 4 + 4;
+    // Zero int kept after the last record of a segment, so a scan knows where it ends
+    private static final int END_MARK = 4;
+
+    private static final String CHECKPOINT = "checkpoint";
+    private static final String REJECTED = "rejected.journal";
+
+    /** A place in the journal: segment number + byte offset. */
+    public record Position(long segment, int offset) implements Comparable<Position> {
+        @Override
+        public int compareTo(Position o) {
+            return segment != o.segment ? Long.compare(segment, o.segment) : Integer.compare(offset, o.offset);
+        }
+    }
+
+    /** Receives records from {@link #read}. */
+    public interface RecordHandler {
+        /**
+         * @param payload the record (valid only during the call)
+         * @param next    position just after this record (checkpoint here once it is stored)
+         */
+        void record(ByteBuffer payload, Position next) throws Exception;
+    }
+
+    private final Path dir;
+    private final int segmentBytes;
+
+    // --- Writer state (guarded by this) ---
+    private long segment;
+    private FileChannel channel;
+    private MappedByteBuffer mapped;
+    private int writePos;
+    private final ByteBuffer scratch;
+    private long appendSeq;
+    private final ArrayDeque<Waiter> waiters = new ArrayDeque<>();
+    private boolean closed;
+
+    // Written by the flusher; read by the drainer without locking
+    private volatile Position durable;
+    private volatile long syncCount;
+    private volatile long appendCount;
+
+    private final Thread flusher;
+
+    // Reader side: the drainer's last mapped segment
+    private long readSegment = -1;
+    private ByteBuffer readMap;
+
+    private volatile Position checkpoint;
+    private final long pendingAtOpen;
+
+    private record Waiter(long seq, CompletableFuture<Void> done) {}
+
+    private OrderJournal(Path dir, int segmentBytes) throws IOException {
+        this.dir = dir;
+        this.segmentBytes = segmentBytes;
+        // The largest record that fits in an empty segment with its end marker
+        this.scratch = ByteBuffer.allocate(segmentBytes - HEADER - RECORD_HEADER - END_MARK);
+
+        Files.createDirectories(dir);
+        checkpoint = readCheckpoint();
+
+        deleteStaleTemps();
+        List<Long> segments = listSegments();
+        if (!segments.isEmpty() && discardIfBlank(segments.get(segments.size() - 1))) {
+            segments = listSegments();
+        }
+        if (segments.isEmpty() || segments.get(segments.size() - 1) < checkpoint.segment()) {
+            segment = Math.max(checkpoint.segment(), 1);
+            mapSegment(segment, true);
+            writePos = HEADER;
+        } else {
+            segment = segments.get(segments.size() - 1);
+            mapSegment(segment, false);
+            writePos = recover(mapped);
+        }
+        durable = new Position(segment, writePos);
+        pendingAtOpen = countPending();
+
+        flusher = new Thread(this::flushLoop, "od-journal-sync");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    /**
+     * Opens (or creates) the journal in {@code dir}, recovering from a crash if needed.
+     *
+     * @param segmentBytes size of each segment file (an order must fit in one)
+     */
+    public static OrderJournal open(Path dir, int segmentBytes) throws IOException {
+        if (segmentBytes < 4096) throw new IllegalArgumentException("segmentBytes must be >= 4096");
+        return new OrderJournal(dir, segmentBytes);
+    }
+
+    // --- Appending ---
+
+    /**
+     * Appends an order. The future completes once the record has been
+     * forced to disk (or exceptionally if the journal could not write it).
+     */
+    public CompletableFuture<Void> append(Order order) {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        synchronized (this) {
+            if (closed) {
+                done.completeExceptionally(new IOException("Journal is closed"));
+                return done;
+            }
+            try {
+                scratch.clear();
+                BinaryOrderCodec.putOrder(scratch, order);
+            } catch (RuntimeException tooBig) {
+                done.completeExceptionally(new IOException("Order too large for a journal segment", tooBig));
+                return done;
+            }
+            scratch.flip();
+            int len = scratch.remaining();
+
+            try {
+                // Keep 4 zero bytes after the last record as the end marker
+                if (writePos + RECORD_HEADER + len + END_MARK > segmentBytes) roll();
+            } catch (IOException e) {
+                done.completeExceptionally(e);
+                return done;
+            }
+
+            CRC32C crc = new CRC32C();
+            crc.update(scratch.duplicate());
+
+            mapped.position(writePos + RECORD_HEADER);
+            mapped.put(scratch);
+            mapped.putInt(writePos + 4, (int) crc.getValue());
+            mapped.putInt(writePos, len); // length last: a half-written record still reads as "end"
+            writePos += RECORD_HEADER + len;
+
+            appendCount++;
+            waiters.add(new Waiter(++appendSeq, done));
+            notifyAll(); // wake the flusher
+        }
+        return done;
+    }
+
+    /** Seals the current segment (forced to disk) and starts the next one. */
+    private void roll() throws IOException {
+        mapped.force();
+        channel.close();
+        mapSegment(segment + 1, true);
+        segment++;
+        writePos = HEADER;
+    }
+
+    /** The flusher thread: one fsync for everything appended since the last one. */
+    private void flushLoop() {
+        while (true) {
+            long target;
+            Position reached;
+            MappedByteBuffer toForce;
+            synchronized (this) {
+                while (waiters.isEmpty() && !closed) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (waiters.isEmpty()) return; // closed and nothing left
+                target = appendSeq;
+                reached = new Position(segment, writePos);
+                toForce = mapped;
+            }
+
+            IOException error = null;
+            try {
+                toForce.force();
+            } catch (RuntimeException e) { // force() reports I/O errors unchecked
+                error = new IOException("Could not sync the order journal", e);
+            }
+
+            List<Waiter> done = new ArrayList<>();
+            synchronized (this) {
+                while (!waiters.isEmpty() && waiters.peekFirst().seq() <= target) done.add(waiters.pollFirst());
+                if (error == null) {
+                    durable = reached;
+                    syncCount++;
+                }
+            }
+            for (Waiter w : done) {
+                if (error == null) w.done().complete(null);
+                else w.done().completeExceptionally(error);
+            }
+            if (error != null) LOG.log(Level.SEVERE, "Order journal sync failed", error);
+        }
+    }
+
+    // --- Reading (one reader thread, the drainer) ---
+
+    /**
+     * Hands up to {@code max} durable records after {@code from} to the handler.
+     *
+     * @return number of records read (0 = caught up)
+     */
+    public int read(Position from, int max, RecordHandler handler) throws Exception {
+        Position end = durable;
+        Position p = from;
+        int n = 0;
+
+        while (n < max && p.compareTo(end) < 0) {
+            ByteBuffer buf = readView(p.segment(), end);
+            int len = p.offset() + RECORD_HEADER <= buf.limit() ? buf.getInt(p.offset()) : 0;
+
+            boolean valid = len > 0 && p.offset() + RECORD_HEADER + len <= buf.limit();
+            ByteBuffer payload = null;
+            if (valid) {
+                payload = buf.duplicate();
+                payload.limit(p.offset() + RECORD_HEADER + len).position(p.offset() + RECORD_HEADER);
+                CRC32C crc = new CRC32C();
+                crc.update(payload.duplicate());
+                valid = (int) crc.getValue() == buf.getInt(p.offset() + 4);
+            }
+
+            if (!valid) {
+                // End of a sealed segment (or its torn tail): go to the next one
+                if (p.segment() < end.segment()) {
+                    p = new Position(p.segment() + 1, HEADER);
+                    continue;
+                }
+                break;
+            }
+
+            Position next = new Position(p.segment(), p.offset() + RECORD_HEADER + len);
+            handler.record(payload.slice(), next);
+            p = next;
+            n++;
+        }
+        return n;
+    }
+
+    /** Read-only view of a segment, limited to what is durable. */
+    private ByteBuffer readView(long seg, Position end) throws IOException {
+        if (seg != readSegment) {
+            try (FileChannel ch = FileChannel.open(segmentPath(seg), StandardOpenOption.READ)) {
+                readMap = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            }
+            readSegment = seg;
+        }
+        ByteBuffer view = readMap.duplicate();
+        if (seg == end.segment()) view.limit(end.offset());
+        return view;
+    }
+
+    // --- Checkpoint ---
+
+    /** Everything before this position is safely in the database. */
+    public Position getCheckpoint() {
+        return checkpoint;
+    }
+
+    /**
+     * Records that everything before {@code p} is in the database, and
+     * deletes segments that are now fully drained.
+     */
+    public void checkpoint(Position p) throws IOException {
+        Path tmp = dir.resolve(CHECKPOINT + ".tmp");
+        Files.writeString(tmp, p.segment() + " " + p.offset() + "\n");
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+            ch.force(true);
+        }
+        try {
+            Files.move(tmp, dir.resolve(CHECKPOINT), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp, dir.resolve(CHECKPOINT), StandardCopyOption.REPLACE_EXISTING);
+        }
+        checkpoint = p;
+
+        for (long s : listSegments()) {
+            if (s >= p.segment()) break;
+            try {
+                Files.deleteIfExists(segmentPath(s));
+            } catch (IOException stillMapped) {
+                // e.g. Windows keeps mapped files locked; retried at the next checkpoint
+            }
+        }
+    }
+
+    /**
+     * Keeps a record the drainer could not store (e.g. it names a menu item
+     * that no longer exists) in rejected.journal, so the sale is not lost.
+     */
+    public synchronized void reject(ByteBuffer payload) throws IOException {
+        CRC32C crc = new CRC32C();
+        crc.update(payload.duplicate());
+
+        ByteBuffer rec = ByteBuffer.allocate(RECORD_HEADER + payload.remaining());
+        rec.putInt(payload.remaining()).putInt((int) crc.getValue()).put(payload.duplicate()).flip();
+
+        try (FileChannel ch = FileChannel.open(dir.resolve(REJECTED),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            while (rec.hasRemaining()) ch.write(rec);
+            ch.force(false);
+        }
+    }
+
+    // --- Stats ---
+
+    /** Records appended since the journal was opened. */
+    public long getAppendCount() { return appendCount; }
+
+    /** fsyncs done since the journal was opened (appends / syncs = group commit factor). */
+    public long getSyncCount() { return syncCount; }
+
+    /** Records found past the checkpoint when the journal was opened (left over from the last run). */
+    public long getPendingAtOpen() { return pendingAtOpen; }
+
+    public Path getDirectory() { return dir; }
+
+    /** Waits for outstanding syncs, then stops the flusher. */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (closed) return;
+            closed = true;
+            notifyAll();
+        }
+        try {
+            flusher.join(5_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            mapped.force();
+            channel.close();
+        }
+    }
+
+    // --- Files ---
+
+    private Path segmentPath(long seg) {
+        return dir.resolve(String.format("journal-%06d.seg", seg));
+    }
+
+    private List<Long> listSegments() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.map(f -> f.getFileName().toString())
+                    .filter(n -> n.startsWith("journal-") && n.endsWith(".seg"))
+                    .map(n -> Long.parseLong(n.substring(8, n.length() - 4)))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    /** Maps a segment read-write as the current segment, creating it if asked. */
+    private void mapSegment(long seg, boolean create) throws IOException {
+        Path file = segmentPath(seg);
+        if (create) createSegment(seg, file);
+
+        channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        if (mapped.getInt(0) != MAGIC || mapped.getLong(8) != seg) {
+            channel.close();
+            throw new IOException("Not an order journal segment: " + file);
+        }
+    }
+
+    /**
+     * Writes a new, preallocated segment with its header as a .tmp file,
+     * forces it, then renames it into place: the segment either exists
+     * with a valid header or not at all.
+     */
+    private void createSegment(long seg, Path file) throws IOException {
+        if (Files.exists(file)) throw new FileAlreadyExistsException(file.toString());
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer m = ch.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+            m.putInt(0, MAGIC).putInt(4, VERSION).putLong(8, seg);
+            m.force();
+        }
+        try {
+            Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp, file);
+        }
+    }
+
+    /** Deletes half-created segments (.seg.tmp) left by a crash. */
+    private void deleteStaleTemps() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path f : files.filter(f -> f.getFileName().toString().endsWith(".seg.tmp")).toList()) {
+                Files.delete(f);
+            }
+        }
+    }
+
+    /**
+     * A last segment whose header was never written (created by an older
+     * version that crashed before writing it) holds no records: deletes it
+     * so a fresh one is created. A bad header over real data is left for
+     * mapSegment to report.
+     *
+     * @return true if the segment was deleted
+     */
+    private boolean discardIfBlank(long seg) throws IOException {
+        Path file = segmentPath(seg);
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (ch.size() >= HEADER) {
+                ByteBuffer m = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+                if (m.getInt(0) == MAGIC) return false;
+                for (int i = 0; i < m.limit(); i++) {
+                    if (m.get(i) != 0) return false;
+                }
+            }
+        }
+        LOG.warning(() -> "Order journal: deleting empty segment without a header: " + file);
+        Files.delete(file);
+        return true;
+    }
+
+    /**
+     * Finds the end of the valid records in a segment and zeroes anything
+     * after it (a torn record), so new appends start from a clean tail.
+     */
+    private int recover(ByteBuffer seg) {
+        int pos = HEADER;
+        while (pos + RECORD_HEADER + 4 <= segmentBytes) {
+            int len = seg.getInt(pos);
+            if (len <= 0 || pos + RECORD_HEADER + len + 4 > segmentBytes) break;
+
+            ByteBuffer payload = seg.duplicate();
+            payload.limit(pos + RECORD_HEADER + len).position(pos + RECORD_HEADER);
+            CRC32C crc = new CRC32C();
+            crc.update(payload);
+            if ((int) crc.getValue() != seg.getInt(pos + 4)) break;
+
+            pos += RECORD_HEADER + len;
+        }
+
+        int end = pos;
+        boolean torn = false;
+        for (int i = end; i < segmentBytes; i++) {
+            if (seg.get(i) != 0) {
+                seg.put(i, (byte) 0);
+                torn = true;
+            }
+        }
+        if (torn) LOG.warning(() -> "Order journal: discarded a torn record at offset " + end);
+        return end;
+    }
+
+    private Position readCheckpoint() throws IOException {
+        Path file = dir.resolve(CHECKPOINT);
+        if (!Files.exists(file)) return new Position(1, HEADER);
+        String[] parts = Files.readString(file).trim().split(" ");
+        return new Position(Long.parseLong(parts[0]), Integer.parseInt(parts[1]));
+    }
+
+    private long countPending() throws IOException {
+        long n = 0;
+        Position[] at = {checkpoint};
+        try {
+            int read;
+            while ((read = read(at[0], 10_000, (payload, next) -> at[0] = next)) > 0) n += read;
+        } catch (IOException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException(e);
+        }
+        return n;
+    }
+}
@@ -0,0 +1,31 @@
+package od.io;
+
+import od.model.MenuItem;
+import od.model.Order;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Reads an export file back, handing each record to a Handler as soon as
+ * it is decoded — the file is never loaded as a whole.
+ *
+ * Orders come back with null IDs; their lines point to the MenuItems read
+ * earlier from the same file (with the IDs of the exporting database).
+ */
+public interface OrderReader extends Closeable {
+
+    /** Receives records in file order. */
+    interface Handler {
+        void menuItem(MenuItem item) throws IOException;
+
+        void order(Order order) throws IOException;
+    }
+
+    /**
+     * Reads every remaining record.
+     *
+     * @throws IOException if the file is damaged or ends early
+     */
+    void readAll(Handler handler) throws IOException;
+}
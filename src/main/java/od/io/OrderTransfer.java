@@ -0,0 +1,238 @@
+package od.io;
+
+import od.dao.MenuItemDAO;
+import od.dao.OrderDAO;
+import od.db.Database;
+import od.model.MenuItem;
+import od.model.Order;
+import od.model.OrderItem;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * Bulk export / import of the menu and order history, e.g. to move
+ * history between stores or into a warehouse.
+ *
+ * Both directions stream: export visits one order at a time and import
+ * holds at most one batch, so memory stays flat for files of any size.
+ *
+ * Command line:
+ * <pre>
+ * java od.io.OrderTransfer export orders.odx [from] [to]   (ISO times, e.g. 2025-01-01T00:00)
+ * java od.io.OrderTransfer import orders.odx
+ * </pre>
+ * Files ending in .csv use the CSV format, anything else the binary one.
+ */
+public class OrderTransfer {
+
+    private static final Logger LOG = Logger.getLogger(OrderTransfer.class.getName());
+
+    /** Rows fetched per round trip while exporting. */
+    private static final int EXPORT_FETCH_SIZE = 1_000;
+
+    /** What an import did. */
+    public record ImportResult(int menuItemsAdded, long ordersRead, long ordersInserted) {}
+
+    private final MenuItemDAO menuDAO;
+    private final OrderDAO orderDAO;
+
+    // Orders per JDBC batch, and orders per commit, during import
+    private int batchSize = Integer.getInteger("od.import.batchSize", 200);
+    private int commitEvery = Integer.getInteger("od.import.commitEvery", 5_000);
+
+    public OrderTransfer() {
+        this(new MenuItemDAO(), new OrderDAO());
+    }
+
+    public OrderTransfer(MenuItemDAO menuDAO, OrderDAO orderDAO) {
+        this.menuDAO = menuDAO;
+        this.orderDAO = orderDAO;
+    }
+
+    /**
+     * @param batchSize   orders inserted per JDBC batch
+     * @param commitEvery orders per transaction (rounded up to whole batches)
+     */
+    public OrderTransfer setImportBatching(int batchSize, int commitEvery) {
+        if (batchSize < 1 || commitEvery < 1) throw new IllegalArgumentException("sizes must be >= 1");
+        this.batchSize = batchSize;
+        this.commitEvery = commitEvery;
+        return this;
+    }
+
+    // --- Export ---
+
+    /**
+     * Writes the whole menu, then every order in the range (with lines).
+     *
+     * @param from only orders at or after this time (null = no lower bound)
+     * @param to   only orders before this time (null = no upper bound)
+     * @return number of orders written
+     */
+    public long export(Path file, OrderFormat format, LocalDateTime from, LocalDateTime to)
+            throws IOException, SQLException {
+        try (OrderWriter out = format.newWriter(FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE))) {
+
+            for (MenuItem m : menuDAO.findAll()) {
+                out.writeMenuItem(m);
+            }
+
+            long n;
+            try {
+                n = orderDAO.forEachWithLines(from, to, EXPORT_FETCH_SIZE, order -> {
+                    try {
+                        out.writeOrder(order);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+
+            // Only a complete export gets its trailer
+            out.finish();
+            return n;
+        }
+    }
+
+    // --- Import ---
+
+    /**
+     * Loads an export file into this database.
+     *
+     * Menu items are matched by name; missing ones are added. Orders whose
+     * TXN_ID already exists are skipped, so an interrupted import can simply
+     * be run again. Orders are inserted in JDBC batches and committed every
+     * {@code commitEvery} orders; if the import fails, only the current
+     * uncommitted part is rolled back.
+     */
+    public ImportResult importFile(Path file, OrderFormat format) throws IOException, SQLException {
+        Importer importer = new Importer();
+
+        try (OrderReader in = format.newReader(FileChannel.open(file, StandardOpenOption.READ));
+             Connection conn = Database.get()) {
+
+            importer.conn = conn;
+            conn.setAutoCommit(false);
+            try {
+                in.readAll(importer);
+                importer.flush(true);
+            } catch (IOException e) {
+                conn.rollback();
+                // SQL errors from inside the reader's callbacks travel as IOException causes
+                if (e.getCause() instanceof SQLException sql) throw sql;
+                throw e;
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+
+        return new ImportResult(importer.menuItemsAdded, importer.ordersRead, importer.ordersInserted);
+    }
+
+    /** Receives records from the reader and writes them in batches. */
+    private final class Importer implements OrderReader.Handler {
+        Connection conn;
+
+        // File menu item ID → menu item in this database
+        final Map<Integer, MenuItem> menu = new HashMap<>();
+
+        final List<Order> batch = new ArrayList<>(batchSize);
+        long sinceCommit;
+
+        int menuItemsAdded;
+        long ordersRead, ordersInserted;
+
+        @Override
+        public void menuItem(MenuItem item) throws IOException {
+            try {
+                MenuItem local = menuDAO.findByName(item.getName());
+                if (local == null) {
+                    local = menuDAO.insert(new MenuItem(item.getName(), item.getCategory(), item.getPrice(), item.isActive()));
+                    menuItemsAdded++;
+                }
+                menu.put(item.getId(), local);
+            } catch (SQLException e) {
+                throw new IOException(e);
+            }
+        }
+
+        @Override
+        public void order(Order order) throws IOException {
+            ordersRead++;
+
+            // Point each line at this database's menu item
+            Order copy = new Order(null, order.getTxnId(), order.getOrderDate());
+            for (OrderItem oi : order.getItems()) {
+                copy.addItem(new OrderItem(null, null, menu.get(oi.getMenuItem().getId()),
+                        oi.getQty(), oi.getUnitPrice(), oi.getOptions()));
+            }
+            batch.add(copy);
+
+            if (batch.size() >= batchSize) {
+                try {
+                    flush(false);
+                } catch (SQLException e) {
+                    throw new IOException(e);
+                }
+            }
+        }
+
+        void flush(boolean last) throws SQLException {
+            if (!batch.isEmpty()) {
+                ordersInserted += orderDAO.insertNew(conn, batch).size();
+                sinceCommit += batch.size();
+                batch.clear();
+            }
+            if (last || sinceCommit >= commitEvery) {
+                conn.commit();
+                sinceCommit = 0;
+                LOG.fine(() -> "Import: " + ordersRead + " orders read, " + ordersInserted + " inserted");
+            }
+        }
+    }
+
+    // --- Command line ---
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2 || !(args[0].equals("export") || args[0].equals("import"))) {
+            System.err.println("Usage: OrderTransfer export <file> [from] [to]");
+            System.err.println("       OrderTransfer import <file>");
+            System.exit(2);
+        }
+
+        Path file = Path.of(args[1]);
+        OrderFormat format = OrderFormat.forPath(file);
+        OrderTransfer transfer = new OrderTransfer();
+
+        long start = System.nanoTime();
+        if (args[0].equals("export")) {
+            LocalDateTime from = args.length > 2 ? LocalDateTime.parse(args[2]) : null;
+            LocalDateTime to = args.length > 3 ? LocalDateTime.parse(args[3]) : null;
+            long n = transfer.export(file, format, from, to);
+            System.out.println("Exported " + n + " orders to " + file);
+        } else {
+            ImportResult r = transfer.importFile(file, format);
+            System.out.println("Imported " + r.ordersInserted() + " of " + r.ordersRead() + " orders ("
+                    + r.menuItemsAdded() + " new menu items)");
+        }
+        System.out.println("Took " + (System.nanoTime() - start) / 1_000_000 + " ms");
+    }
+}
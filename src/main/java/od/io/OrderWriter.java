@@ -0,0 +1,27 @@
+package od.io;
+
+import od.model.MenuItem;
+import od.model.Order;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Writes menu items and orders to an export file, one record at a time.
+ * Menu items should come first, so that a reader can resolve the menu
+ * item IDs of the order lines that follow.
+ *
+ * finish() writes the trailer that marks the file as complete; call it
+ * once, after the last record. close() flushes and closes the channel but
+ * writes no trailer, so a file whose export failed half-way is rejected
+ * by the reader instead of importing as if it were complete.
+ */
+public interface OrderWriter extends Closeable {
+
+    void writeMenuItem(MenuItem item) throws IOException;
+
+    void writeOrder(Order order) throws IOException;
+
+    /** Marks the file as complete (no records may follow). */
+    void finish() throws IOException;
+}
@@ -0,0 +1,136 @@
+package od.metrics;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+import java.lang.management.ManagementFactory;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.LongSupplier;
+import java.util.logging.Logger;
+
+/**
+ * App-wide registry of timers and gauges.
+ *
+ *  - Timers (see {@link Timer}) measure how long operations take; each
+ *    keeps a latency histogram so p50 / p99 can be read at any time.
+ *  - Gauges are read-only numbers sampled when a report is taken
+ *    (pool size, cache hits, UI stalls...).
+ *
+ * Names are dotted, grouped by layer: "dao.order.createNew",
+ * "ui.checkout", "db.pool.active". Reports are available as text
+ * (report() / logReport()), through JMX ("od:type=Metrics") and in the
+ * Help → Diagnostics window.
+ */
+public final class Metrics {
+
+    private static final Logger LOG = Logger.getLogger(Metrics.class.getName());
+
+    private static final Map<String, Timer> TIMERS = new ConcurrentHashMap<>();
+    private static final Map<String, LongSupplier> GAUGES = new ConcurrentSkipListMap<>();
+
+    private Metrics() {}
+
+    /** Returns the timer with this name, creating it on first use. */
+    public static Timer timer(String name) {
+        return TIMERS.computeIfAbsent(name, Timer::new);
+    }
+
+    /**
+     * Registers (or replaces) a gauge. The supplier is called on report
+     * threads, so it must be thread-safe and cheap.
+     */
+    public static void gauge(String name, LongSupplier value) {
+        GAUGES.put(name, value);
+    }
+
+    /** Timers sorted by name. */
+    public static List<Timer> timers() {
+        List<Timer> out = new ArrayList<>(TIMERS.values());
+        out.sort(Comparator.comparing(Timer::getName));
+        return out;
+    }
+
+    /** Current gauge values, sorted by name. */
+    public static Map<String, Long> gauges() {
+        Map<String, Long> out = new LinkedHashMap<>();
+        GAUGES.forEach((name, g) -> {
+            try {
+                out.put(name, g.getAsLong());
+            } catch (RuntimeException e) {
+                out.put(name, -1L); // a broken gauge must not break the report
+            }
+        });
+        return out;
+    }
+
+    /** Clears every timer (gauges are live values and are not affected). */
+    public static void reset() {
+        TIMERS.values().forEach(Timer::reset);
+    }
+
+    /** Plain-text table of every timer (times in ms) and gauge. */
+    public static String report() {
+        StringBuilder sb = new StringBuilder(2048);
+        sb.append(String.format("%-34s %9s %9s %9s %9s %9s %6s%n",
+                "timer", "count", "mean", "p50", "p99", "max", "errors"));
+
+        for (Timer t : timers()) {
+            LatencyHistogram.Snapshot s = t.snapshot();
+            if (s.count() == 0 && t.getErrorCount() == 0) continue;
+            sb.append(String.format("%-34s %9d %9.2f %9.2f %9.2f %9.2f %6d%n",
+                    t.getName(), s.count(), millis(s.mean()), millis(s.percentile(0.50)),
+                    millis(s.percentile(0.99)), millis(s.max()), t.getErrorCount()));
+        }
+
+        sb.append('\n');
+        gauges().forEach((name, value) -> sb.append(String.format("%-34s %9d%n", name, value)));
+        return sb.toString();
+    }
+
+    /** Writes the report to the log (INFO). */
+    public static void logReport() {
+        LOG.info(() -> "Metrics:\n" + report());
+    }
+
+    public static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    /**
+     * Publishes the metrics over JMX as "od:type=Metrics".
+     * Safe to call more than once.
+     */
+    public static void registerMBean() {
+        try {
+            ManagementFactory.getPlatformMBeanServer()
+                    .registerMBean(new StandardMBean(new Jmx(), MetricsMBean.class), new ObjectName("od:type=Metrics"));
+        } catch (InstanceAlreadyExistsException alreadyRegistered) {
+            // fine
+        } catch (JMException | RuntimeException e) {
+            LOG.warning("Could not register metrics MBean: " + e);
+        }
+    }
+
+    /** What JMX sees (wrapped in a StandardMBean, so the class name does not matter). */
+    private static final class Jmx implements MetricsMBean {
+        @Override
+        public String getReport() { return report(); }
+
+        @Override
+        public String[] getTimerNames() {
+            return timers().stream().map(Timer::getName).toArray(String[]::new);
+        }
+
+        @Override
+        public double getP99Millis(String timer) {
+            Timer t = TIMERS.get(timer);
+            return t == null ? 0 : millis(t.snapshot().percentile(0.99));
+        }
+
+        @Override
+        public void reset() { Metrics.reset(); }
+    }
+}
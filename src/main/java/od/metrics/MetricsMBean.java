@@ -0,0 +1,20 @@
+package od.metrics;
+
+/**
+ * JMX view of {@link Metrics} (registered as "od:type=Metrics").
+ * Open it in JConsole / VisualVM under MBeans.
+ */
+public interface MetricsMBean {
+
+    /** The same text report as Metrics.report(). */
+    String getReport();
+
+    /** Timer names, sorted. */
+    String[] getTimerNames();
+
+    /** 99th percentile of a timer, in milliseconds. */
+    double getP99Millis(String timer);
+
+    /** Clears every timer. */
+    void reset();
+}
@@ -0,0 +1,63 @@
+package od.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Times one operation (a DAO method, checkout, receipt generation...).
+ *
+ * Keep the Timer in a static final field and wrap the operation:
+ * <pre>
+ * private static final Timer FIND = Metrics.timer("dao.order.findByTxn");
+ *
+ * long t = FIND.start();
+ * try {
+ *     ...
+ * } finally {
+ *     FIND.stop(t);
+ * }
+ * </pre>
+ * Call {@link #fail()} as well when the operation throws, to count errors.
+ */
+public final class Timer {
+
+    private final String name;
+    private final LatencyHistogram histogram = new LatencyHistogram();
+    private final LongAdder errors = new LongAdder();
+
+    Timer(String name) {
+        this.name = name;
+    }
+
+    public String getName() { return name; }
+
+    /** Start time to pass to stop(). */
+    public long start() {
+        return System.nanoTime();
+    }
+
+    /** Records the time since {@code startNanos}. */
+    public void stop(long startNanos) {
+        histogram.record(System.nanoTime() - startNanos);
+    }
+
+    /** Records an already measured duration. */
+    public void record(long nanos) {
+        histogram.record(nanos);
+    }
+
+    /** Counts one failed call. */
+    public void fail() {
+        errors.increment();
+    }
+
+    public long getErrorCount() { return errors.sum(); }
+
+    public LatencyHistogram.Snapshot snapshot() {
+        return histogram.snapshot();
+    }
+
+    void reset() {
+        histogram.reset();
+        errors.reset();
+    }
+}
@@ -0,0 +1,114 @@
+package od.model;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The order being rung up at the register, before checkout.
+ *
+ * Keeps a running subtotal that is adjusted on every add / remove /
+ * quantity change, so reading the subtotal, tax or total is O(1) no
+ * matter how many lines the cart has. The cart is the single source of
+ * truth for checkout (see toOrder).
+ */
+public class Cart {
+
+    /**
+     * One line in the cart: an item, its options, quantity and unit price.
+     */
+    public static final class Line {
+        private final MenuItem menuItem;
+        private final ItemOptions options;
+        private final long unitPriceCents;
+        private int qty;
+
+        Line(MenuItem menuItem, ItemOptions options, int qty, long unitPriceCents) {
+            this.menuItem = menuItem;
+            this.options = options;
+            this.qty = qty;
+            this.unitPriceCents = unitPriceCents;
+        }
+
+        public MenuItem getMenuItem() { return menuItem; }
+        public ItemOptions getOptions() { return options; }
+        public int getQty() { return qty; }
+        public long getUnitPriceCents() { return unitPriceCents; }
+        public long getLineTotalCents() { return Money.times(unitPriceCents, qty); }
+    }
+
+    private final List<Line> lines = new ArrayList<>();
+    private final List<Line> linesView = Collections.unmodifiableList(lines);
+
+    // Sum of all line totals, in cents
+    private long subtotalCents;
+
+    // --- Changes (each one O(1) on the totals) ---
+
+    /**
+     * Adds a line to the end of the cart.
+     *
+     * @return index of the new line
+     */
+    public int add(MenuItem item, ItemOptions options, int qty, long unitPriceCents) {
+        checkQty(qty);
+        Line line = new Line(item, options, qty, unitPriceCents);
+        lines.add(line);
+        subtotalCents = Math.addExact(subtotalCents, line.getLineTotalCents());
+        return lines.size() - 1;
+    }
+
+    /** Removes one line. */
+    public void remove(int index) {
+        Line line = lines.remove(index);
+        subtotalCents -= line.getLineTotalCents();
+    }
+
+    /** Changes the quantity of one line. */
+    public void setQty(int index, int qty) {
+        checkQty(qty);
+        Line line = lines.get(index);
+        subtotalCents -= line.getLineTotalCents();
+        line.qty = qty;
+        subtotalCents = Math.addExact(subtotalCents, line.getLineTotalCents());
+    }
+
+    public void clear() {
+        lines.clear();
+        subtotalCents = 0;
+    }
+
+    private static void checkQty(int qty) {
+        if (qty < 1) throw new IllegalArgumentException("qty must be >= 1");
+    }
+
+    // --- Reads ---
+
+    /** Read-only view of the lines, in the order they were added. */
+    public List<Line> getLines() { return linesView; }
+
+    public Line getLine(int index) { return lines.get(index); }
+
+    public int size() { return lines.size(); }
+
+    public boolean isEmpty() { return lines.isEmpty(); }
+
+    public long getSubtotalCents() { return subtotalCents; }
+
+    public long getTaxCents() { return Pricing.taxCents(subtotalCents); }
+
+    public long getTotalCents() { return subtotalCents + getTaxCents(); }
+
+    /**
+     * Builds the Order to save at checkout from the current lines.
+     */
+    public Order toOrder(String txnId, LocalDateTime orderDate) {
+        Order order = new Order(null, txnId, orderDate);
+        for (Line line : lines) {
+            order.addItem(new OrderItem(null, null, line.menuItem, line.qty,
+                    Money.ofCents(line.unitPriceCents), line.options));
+        }
+        return order;
+    }
+}
@@ -0,0 +1,173 @@
+package od.model;
+
+/**
+ * The modifiers chosen for one order line: size, icing and filling.
+ *
+ * Each modifier is an enum with a small, fixed integer code. The codes are
+ * what gets stored in ORDER_ITEMS (SIZE_CODE, ICING_CODE, FILLING_CODE) and
+ * in the OPTION_CODES lookup table, so sales-mix reports can group and
+ * filter with plain indexed SQL. Codes are permanent: never renumber one,
+ * only add new ones.
+ *
+ * There are only a few dozen combinations, so every ItemOptions is created
+ * once up front and shared — of() and fromCodes() never allocate.
+ */
+public final class ItemOptions {
+
+    /** Donut / drink size. Code 0 is for lines saved before sizes were recorded. */
+    public enum Size {
+        UNSPECIFIED(0, "", Pricing.MEDIUM_BASIS_POINTS),
+        SMALL(1, "Small", Pricing.SMALL_BASIS_POINTS),
+        MEDIUM(2, "Medium", Pricing.MEDIUM_BASIS_POINTS),
+        LARGE(3, "Large", Pricing.LARGE_BASIS_POINTS);
+
+        private final int code;
+        private final String label;
+        private final int basisPoints;
+
+        Size(int code, String label, int basisPoints) {
+            this.code = code;
+            this.label = label;
+            this.basisPoints = basisPoints;
+        }
+
+        public int code() { return code; }
+        public String label() { return label; }
+
+        /** Unit price for this size, rounded HALF_UP to the cent. */
+        public long priceCents(long baseCents) {
+            return Money.scale(baseCents, basisPoints);
+        }
+
+        public static Size fromCode(int code) {
+            return code >= 0 && code < SIZES.length ? SIZES[code] : UNSPECIFIED;
+        }
+
+        @Override
+        public String toString() { return label; }
+    }
+
+    public enum Icing {
+        NONE(0, "None"),
+        CHOCOLATE(1, "Chocolate"),
+        VANILLA(2, "Vanilla"),
+        STRAWBERRY(3, "Strawberry");
+
+        private final int code;
+        private final String label;
+
+        Icing(int code, String label) {
+            this.code = code;
+            this.label = label;
+        }
+
+        public int code() { return code; }
+        public String label() { return label; }
+
+        public static Icing fromCode(int code) {
+            return code >= 0 && code < ICINGS.length ? ICINGS[code] : NONE;
+        }
+
+        @Override
+        public String toString() { return label; }
+    }
+
+    public enum Filling {
+        NONE(0, "None"),
+        CUSTARD(1, "Custard"),
+        JELLY(2, "Jelly"),
+        CREAM(3, "Cream");
+
+        private final int code;
+        private final String label;
+
+        Filling(int code, String label) {
+            this.code = code;
+            this.label = label;
+        }
+
+        public int code() { return code; }
+        public String label() { return label; }
+
+        public static Filling fromCode(int code) {
+            return code >= 0 && code < FILLINGS.length ? FILLINGS[code] : NONE;
+        }
+
+        @Override
+        public String toString() { return label; }
+    }
+
+    // values() copies the array each call, so keep one copy of each
+    // (enum constants are declared in code order, so index == code)
+    private static final Size[] SIZES = Size.values();
+    private static final Icing[] ICINGS = Icing.values();
+    private static final Filling[] FILLINGS = Filling.values();
+
+    // Every combination, indexed by (size, icing, filling) codes
+    private static final ItemOptions[] ALL = new ItemOptions[SIZES.length * ICINGS.length * FILLINGS.length];
+
+    static {
+        for (Size s : SIZES)
+            for (Icing i : ICINGS)
+                for (Filling f : FILLINGS)
+                    ALL[index(s, i, f)] = new ItemOptions(s, i, f);
+    }
+
+    /** No modifiers recorded (e.g. lines saved before options existed). */
+    public static final ItemOptions NONE = of(Size.UNSPECIFIED, Icing.NONE, Filling.NONE);
+
+    private final Size size;
+    private final Icing icing;
+    private final Filling filling;
+
+    // Display text, built once ("Size: Large, Icing: Chocolate")
+    private final String text;
+
+    private ItemOptions(Size size, Icing icing, Filling filling) {
+        this.size = size;
+        this.icing = icing;
+        this.filling = filling;
+
+        StringBuilder sb = new StringBuilder(48);
+        if (size != Size.UNSPECIFIED) sb.append("Size: ").append(size.label);
+        if (icing != Icing.NONE) {
+            if (sb.length() > 0) sb.append(", ");
+            sb.append("Icing: ").append(icing.label);
+        }
+        if (filling != Filling.NONE) {
+            if (sb.length() > 0) sb.append(", ");
+            sb.append("Filling: ").append(filling.label);
+        }
+        this.text = sb.toString();
+    }
+
+    private static int index(Size s, Icing i, Filling f) {
+        return (s.ordinal() * ICINGS.length + i.ordinal()) * FILLINGS.length + f.ordinal();
+    }
+
+    // --- Factories (shared instances, no allocation) ---
+
+    public static ItemOptions of(Size size, Icing icing, Filling filling) {
+        return ALL[index(size, icing, filling)];
+    }
+
+    /** From the stored column codes; unknown codes fall back to the "none" value. */
+    public static ItemOptions fromCodes(int sizeCode, int icingCode, int fillingCode) {
+        return of(Size.fromCode(sizeCode), Icing.fromCode(icingCode), Filling.fromCode(fillingCode));
+    }
+
+    // --- Getters ---
+
+    public Size getSize() { return size; }
+    public Icing getIcing() { return icing; }
+    public Filling getFilling() { return filling; }
+
+    /** Unit price of an item with these options (only the size changes the price). */
+    public long priceCents(long baseCents) {
+        return size.priceCents(baseCents);
+    }
+
+    /** Display text, e.g. "Size: Large, Icing: Chocolate" (empty when nothing was chosen). */
+    @Override
+    public String toString() { return text; }
+}
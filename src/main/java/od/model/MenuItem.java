@@ -1,7 +1,5 @@
 package od.model;
 
-import java.math.BigDecimal;
-
 /**
  * Represents a single menu item in the donut shop.
  * Examples: "Glazed Donut", "Iced Coffee (M)", etc.
@@ -17,8 +15,8 @@ public class MenuItem {
     // Category (e.g., "Donut", "Drink")
     private String category;
 
-    // Price stored as BigDecimal for accuracy with money
-    private BigDecimal price;
+    // Price in whole cents (see Money for the rounding rules)
+    private long priceCents;
 
     // Whether the item is active/visible on the menu
     private boolean active;
@@ -26,18 +24,18 @@ public class MenuItem {
     /**
      * Full constructor (usually used when loading from the database).
      */
-    public MenuItem(Integer id, String name, String category, BigDecimal price, boolean active) {
+    public MenuItem(Integer id, String name, String category, Money price, boolean active) {
         this.id = id;
         this.name = name;
         this.category = category;
-        this.price = price;
+        this.priceCents = price.cents();
         this.active = active;
     }
 
     /**
      * Constructor used before inserting into the database (id = null).
      */
-    public MenuItem(String name, String category, BigDecimal price, boolean active) {
+    public MenuItem(String name, String category, Money price, boolean active) {
         this(null, name, category, price, active);
     }
 
@@ -48,12 +46,13 @@ public class MenuItem {
 
     public String getName() { return name; }
     public String getCategory() { return category; }
-    public BigDecimal getPrice() { return price; }
+    public Money getPrice() { return Money.ofCents(priceCents); }
+    public long getPriceCents() { return priceCents; }
     public boolean isActive() { return active; }
 
     public void setName(String name) { this.name = name; }
     public void setCategory(String category) { this.category = category; }
-    public void setPrice(BigDecimal price) { this.price = price; }
+    public void setPrice(Money price) { this.priceCents = price.cents(); }
     public void setActive(boolean active) { this.active = active; }
 
     /**
@@ -62,6 +61,6 @@ public class MenuItem {
      */
     @Override
     public String toString() {
-        return name + " ($" + price + ")";
+        return name + " ($" + Money.format(priceCents) + ")";
     }
 }
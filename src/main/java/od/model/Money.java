@@ -0,0 +1,130 @@
+package od.model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * An amount of money in US dollars, stored as a whole number of cents.
+ *
+ * Rounding rules (the same everywhere in the app):
+ *  - Every stored amount is a whole number of cents.
+ *  - Converting from BigDecimal rounds to the nearest cent, HALF_UP.
+ *  - Scaling by a rate (tax, size multiplier) rounds the result to the
+ *    nearest cent, HALF_UP (halves move away from zero).
+ *  - Adding and multiplying by a quantity are exact (overflow throws).
+ *
+ * Hot loops (totals, reports) can work on the raw long cents through the
+ * static helpers and never allocate; Money objects are for passing
+ * amounts around the model.
+ */
+public final class Money implements Comparable<Money> {
+
+    public static final Money ZERO = new Money(0);
+
+    private final long cents;
+
+    private Money(long cents) {
+        this.cents = cents;
+    }
+
+    // --- Factories ---
+
+    public static Money ofCents(long cents) {
+        return cents == 0 ? ZERO : new Money(cents);
+    }
+
+    /** Converts a decimal dollar amount (e.g. from the database), rounding HALF_UP to the cent. */
+    public static Money of(BigDecimal dollars) {
+        return ofCents(toCents(dollars));
+    }
+
+    /** Parses a dollar amount like "1.49" or "$1.49". */
+    public static Money parse(String text) {
+        String s = text.strip();
+        if (s.startsWith("$")) s = s.substring(1);
+        return of(new BigDecimal(s));
+    }
+
+    // --- Accessors / arithmetic ---
+
+    public long cents() { return cents; }
+
+    public Money plus(Money other) { return ofCents(Math.addExact(cents, other.cents)); }
+
+    public Money minus(Money other) { return ofCents(Math.subtractExact(cents, other.cents)); }
+
+    public Money times(int qty) { return ofCents(times(cents, qty)); }
+
+    /** Scales by basisPoints / 10,000 (e.g. 600 = 6%), rounded HALF_UP. */
+    public Money scale(int basisPoints) { return ofCents(scale(cents, basisPoints)); }
+
+    public boolean isZero() { return cents == 0; }
+
+    /** For JDBC DECIMAL(10,2) columns. */
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    // --- Allocation-free helpers on raw cents ---
+
+    public static long times(long cents, int qty) {
+        return Math.multiplyExact(cents, qty);
+    }
+
+    /**
+     * cents × basisPoints / 10,000, rounded HALF_UP to a whole cent.
+     * Example: scale(149, 9000) = 134 (1.49 × 90% = 1.341 → 1.34).
+     */
+    public static long scale(long cents, int basisPoints) {
+        long product = Math.multiplyExact(cents, basisPoints);
+        long half = product >= 0 ? 5_000 : -5_000;
+        return (product + half) / 10_000;
+    }
+
+    public static long toCents(BigDecimal dollars) {
+        return dollars.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    /**
+     * Appends cents as a plain dollar amount ("1234" → "12.34", "-5" → "-0.05")
+     * without creating any intermediate objects.
+     */
+    public static StringBuilder appendTo(StringBuilder sb, long cents) {
+        if (cents < 0) {
+            sb.append('-');
+            cents = -cents;
+        }
+        long c = cents % 100;
+        sb.append(cents / 100).append('.');
+        if (c < 10) sb.append('0');
+        return sb.append(c);
+    }
+
+    /** Dollar amount with two decimals, e.g. "12.34". */
+    public static String format(long cents) {
+        return appendTo(new StringBuilder(12), cents).toString();
+    }
+
+    // --- Object ---
+
+    @Override
+    public int compareTo(Money o) {
+        return Long.compare(cents, o.cents);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Money m && m.cents == cents;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(cents);
+    }
+
+    /** Same text as format(): "12.34" (no currency sign). */
+    @Override
+    public String toString() {
+        return format(cents);
+    }
+}
@@ -2,8 +2,8 @@ package od.model;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.math.BigDecimal;
 
 /**
  * Represents a full customer order (one transaction).
@@ -23,7 +23,13 @@ public class Order {
     private LocalDateTime orderDate;
 
     // All line items that belong to this order
-    private List<OrderItem> items = new ArrayList<>();
+    private final List<OrderItem> items = new ArrayList<>();
+
+    // Read-only view handed out by getItems() (so the running total can't go stale)
+    private final List<OrderItem> itemsView = Collections.unmodifiableList(items);
+
+    // Running total of all line items, in cents (kept up to date by addItem)
+    private long totalCents;
 
     /**
      * Full constructor — used when loading from the database.
@@ -40,26 +46,34 @@ public class Order {
     public String getTxnId() { return txnId; }
     public LocalDateTime getOrderDate() { return orderDate; }
 
+    /** Set by the DAO once the ORDERS row has been inserted. */
+    public void setId(Integer id) { this.id = id; }
+
     /**
-     * Returns the list of items for this order.
+     * Returns the list of items for this order (read-only; use addItem).
      * The DAO will populate this list after loading the order.
      */
-    public List<OrderItem> getItems() { return items; }
+    public List<OrderItem> getItems() { return itemsView; }
 
     /**
-     * Adds a single line item to the order.
+     * Adds a single line item to the order
+     * and adds its line total to the running total.
      */
     public void addItem(OrderItem item) {
         items.add(item);
+        totalCents = Math.addExact(totalCents, item.getLineTotalCents());
     }
 
     /**
-     * Computes the total cost of the order.
-     * Sums: (unit price * qty) for every line item.
+     * Total cost of the order: sum of (unit price * qty) for every line item.
+     * Kept as a running total, so this is O(1).
      */
-    public BigDecimal getTotal() {
-        return items.stream()
-                .map(OrderItem::getLineTotal)       // convert each item -> its total
-                .reduce(BigDecimal.ZERO, BigDecimal::add); // add all item totals together
+    public Money getTotal() {
+        return Money.ofCents(totalCents);
+    }
+
+    /** Same as getTotal(), as raw cents (no allocation). */
+    public long getTotalCents() {
+        return totalCents;
     }
 }
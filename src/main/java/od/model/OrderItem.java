@@ -1,7 +1,5 @@
 package od.model;
 
-import java.math.BigDecimal;
-
 /**
  * Represents a single line item inside an order.
  * Example: 2 × "Glazed Donut" @ $1.49 each
@@ -20,19 +18,30 @@ public class OrderItem {
     // Quantity ordered (e.g., 2 donuts)
     private int qty;
 
-    // The price per item at the time of purchase
+    // The price per item at the time of purchase, in cents
     // (stored separately in case menu prices change later)
-    private BigDecimal unitPrice;
+    private long unitPriceCents;
+
+    // Size / icing / filling chosen at the register (stored as codes)
+    private ItemOptions options;
+
+    /**
+     * Line with no recorded options.
+     */
+    public OrderItem(Integer id, Integer orderId, MenuItem menuItem, int qty, Money unitPrice) {
+        this(id, orderId, menuItem, qty, unitPrice, ItemOptions.NONE);
+    }
 
     /**
      * Full constructor used when loading from or inserting into the database.
      */
-    public OrderItem(Integer id, Integer orderId, MenuItem menuItem, int qty, BigDecimal unitPrice) {
+    public OrderItem(Integer id, Integer orderId, MenuItem menuItem, int qty, Money unitPrice, ItemOptions options) {
         this.id = id;
         this.orderId = orderId;
         this.menuItem = menuItem;
         this.qty = qty;
-        this.unitPrice = unitPrice;
+        this.unitPriceCents = unitPrice.cents();
+        this.options = options == null ? ItemOptions.NONE : options;
     }
 
     // --- Getters ---
@@ -41,13 +50,25 @@ public class OrderItem {
     public Integer getOrderId() { return orderId; }
     public MenuItem getMenuItem() { return menuItem; }
     public int getQty() { return qty; }
-    public BigDecimal getUnitPrice() { return unitPrice; }
+    public Money getUnitPrice() { return Money.ofCents(unitPriceCents); }
+    public long getUnitPriceCents() { return unitPriceCents; }
+    public ItemOptions getOptions() { return options; }
+
+    // --- Setters (filled in by the DAO after insert) ---
+
+    public void setId(Integer id) { this.id = id; }
+    public void setOrderId(Integer orderId) { this.orderId = orderId; }
 
     /**
      * Returns the total price for this line:
      *     unitPrice × qty
      */
-    public BigDecimal getLineTotal() {
-        return unitPrice.multiply(BigDecimal.valueOf(qty));
+    public Money getLineTotal() {
+        return Money.ofCents(getLineTotalCents());
+    }
+
+    /** Same as getLineTotal(), as raw cents (no allocation). */
+    public long getLineTotalCents() {
+        return Money.times(unitPriceCents, qty);
     }
 }
@@ -0,0 +1,29 @@
+package od.model;
+
+/**
+ * Shop-wide pricing rules: size multipliers and sales tax.
+ * All amounts are in cents and follow the rounding rules in Money.
+ */
+public final class Pricing {
+
+    // Tax rate (6%) in basis points
+    public static final int TAX_BASIS_POINTS = 600;
+
+    // Size multipliers in basis points (Small 90%, Medium 100%, Large 120%)
+    // — applied through ItemOptions.Size.priceCents
+    public static final int SMALL_BASIS_POINTS = 9_000;
+    public static final int MEDIUM_BASIS_POINTS = 10_000;
+    public static final int LARGE_BASIS_POINTS = 12_000;
+
+    private Pricing() {}
+
+    /** Sales tax on a subtotal, rounded HALF_UP to the cent. */
+    public static long taxCents(long subtotalCents) {
+        return Money.scale(subtotalCents, TAX_BASIS_POINTS);
+    }
+
+    /** Subtotal + tax. */
+    public static long totalWithTaxCents(long subtotalCents) {
+        return subtotalCents + taxCents(subtotalCents);
+    }
+}
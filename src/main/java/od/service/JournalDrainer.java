@@ -0,0 +1,269 @@
+package od.service;
+
+import od.dao.MenuItemDAO;
+import od.dao.OrderDAO;
+import od.dao.UncheckedSQLException;
+import od.db.Database;
+import od.io.BinaryOrderCodec;
+import od.io.OrderJournal;
+import od.metrics.Metrics;
+import od.model.MenuItem;
+import od.model.Order;
+
+import java.nio.ByteBuffer;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Copies orders from the OrderJournal into the database, in the background.
+ *
+ * One daemon thread reads batches of journal records after the checkpoint,
+ * inserts them in one transaction with OrderDAO.insertNew (which skips
+ * TXN_IDs already in the database, so replaying after a crash is safe),
+ * commits, and only then moves the checkpoint forward.
+ *
+ * If the database is unreachable, the drainer waits and retries with
+ * exponential backoff; checkouts keep going into the journal meanwhile.
+ * A record that can never be stored (e.g. its menu item was deleted) is
+ * moved to the journal's rejected file and logged, so it cannot block the
+ * orders behind it.
+ */
+public class JournalDrainer implements AutoCloseable {
+
+    private static final Logger LOG = Logger.getLogger(JournalDrainer.class.getName());
+
+    private static final long MIN_BACKOFF_MILLIS = 100;
+    private static final long MAX_BACKOFF_MILLIS = 5_000;
+
+    // Without a wake() the drainer still checks the journal this often
+    private static final long IDLE_MILLIS = 1_000;
+
+    private final OrderJournal journal;
+    private final OrderDAO orderDAO;
+    private final MenuItemDAO menuDAO;
+    private final int batchSize;
+
+    private final Thread thread;
+    private volatile boolean closed;
+    private boolean wakeUp; // guarded by this
+
+    // --- Stats ---
+    private final AtomicLong drained = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+
+    /** A journal record and the position just after it. */
+    private record Entry(ByteBuffer payload, OrderJournal.Position next) {}
+
+    public JournalDrainer(OrderJournal journal, OrderDAO orderDAO, MenuItemDAO menuDAO) {
+        this(journal, orderDAO, menuDAO, Integer.getInteger("od.journal.drainBatch", 100));
+    }
+
+    public JournalDrainer(OrderJournal journal, OrderDAO orderDAO, MenuItemDAO menuDAO, int batchSize) {
+        if (batchSize < 1) throw new IllegalArgumentException("batchSize must be >= 1");
+        this.journal = journal;
+        this.orderDAO = orderDAO;
+        this.menuDAO = menuDAO;
+        this.batchSize = batchSize;
+
+        this.thread = new Thread(this::run, "od-journal-drainer");
+        this.thread.setDaemon(true);
+        this.thread.start();
+
+        Metrics.gauge("journal.drained", this::getDrainedCount);
+        Metrics.gauge("journal.rejected", this::getRejectedCount);
+        Metrics.gauge("journal.retries", this::getRetryCount);
+    }
+
+    /** Tells the drainer new records are durable, so it doesn't wait for its next check. */
+    public synchronized void wake() {
+        wakeUp = true;
+        notifyAll();
+    }
+
+    /**
+     * Stops after the current batch; whatever is left stays in the journal for next time.
+     * If the caller is interrupted while waiting, it stops waiting and keeps its interrupt flag.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        wake();
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // --- Drainer thread ---
+
+    private void run() {
+        long backoff = MIN_BACKOFF_MILLIS;
+
+        while (!closed) {
+            try {
+                List<Entry> batch = readBatch();
+                if (batch.isEmpty()) {
+                    idle(IDLE_MILLIS);
+                    continue;
+                }
+                drain(batch);
+                journal.checkpoint(batch.get(batch.size() - 1).next());
+                backoff = MIN_BACKOFF_MILLIS;
+            } catch (InterruptedException e) {
+                return;
+            } catch (Exception e) {
+                // Database down, lock timeout, disk trouble: keep the records and try again later
+                retries.incrementAndGet();
+                LOG.log(backoff == MIN_BACKOFF_MILLIS ? Level.WARNING : Level.FINE,
+                        "Order journal: could not drain, retrying in " + backoff + " ms", e);
+                try {
+                    sleep(backoff);
+                } catch (InterruptedException stop) {
+                    return;
+                }
+                backoff = Math.min(backoff * 2, MAX_BACKOFF_MILLIS);
+            }
+        }
+    }
+
+    private List<Entry> readBatch() throws Exception {
+        List<Entry> batch = new ArrayList<>(batchSize);
+        journal.read(journal.getCheckpoint(), batchSize, (payload, next) -> {
+            // Copy: the journal's view is only valid during the call
+            ByteBuffer copy = ByteBuffer.allocate(payload.remaining()).put(payload).flip();
+            batch.add(new Entry(copy, next));
+        });
+        return batch;
+    }
+
+    /**
+     * Stores one batch in a single transaction. If that fails for a reason
+     * other than the database being unavailable, the orders are retried
+     * one by one and the bad ones are rejected.
+     */
+    private void drain(List<Entry> batch) throws Exception {
+        List<Order> orders = new ArrayList<>(batch.size());
+        List<Entry> decoded = new ArrayList<>(batch.size());
+        for (Entry e : batch) {
+            Order o = decode(e);
+            if (o != null) {
+                orders.add(o);
+                decoded.add(e);
+            }
+        }
+
+        try {
+            insert(orders);
+            drained.addAndGet(orders.size());
+            return;
+        } catch (SQLException | RuntimeException e) {
+            if (isRetryable(e)) throw e;
+        }
+
+        // Isolate the bad order(s)
+        for (int i = 0; i < orders.size(); i++) {
+            try {
+                insert(List.of(orders.get(i)));
+                drained.incrementAndGet();
+            } catch (SQLException | RuntimeException e) {
+                if (isRetryable(e)) throw e; // the database went away mid-way; the rest are retried
+                reject(decoded.get(i), e);
+            }
+        }
+    }
+
+    private void insert(List<Order> orders) throws SQLException {
+        if (orders.isEmpty()) return;
+        try (Connection conn = Database.get()) {
+            try {
+                conn.setAutoCommit(false);
+                orderDAO.insertNew(conn, orders);
+                conn.commit();
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
+    /** Turns a record back into an Order; rejects (and returns null for) records that can't be read. */
+    private Order decode(Entry e) throws Exception {
+        ByteBuffer in = e.payload().duplicate();
+        try {
+            if (in.get() != BinaryOrderCodec.ORDER) throw new IllegalArgumentException("not an ORDER record");
+            in.getInt(); // frame length; the journal record already has its own
+            return BinaryOrderCodec.getOrder(in, this::menuItem);
+        } catch (UncheckedSQLException sqlTrouble) {
+            throw sqlTrouble.getCause(); // menu lookup failed: retry later
+        } catch (RuntimeException bad) {
+            reject(e, bad);
+            return null;
+        }
+    }
+
+    private MenuItem menuItem(int id) {
+        try {
+            return menuDAO.findById(id);
+        } catch (SQLException e) {
+            throw new UncheckedSQLException(e);
+        }
+    }
+
+    private void reject(Entry e, Exception why) throws Exception {
+        journal.reject(e.payload().duplicate());
+        rejected.incrementAndGet();
+        LOG.log(Level.SEVERE, "Order journal: record moved to rejected.journal in "
+                + journal.getDirectory() + ": " + why.getMessage(), why);
+    }
+
+    /**
+     * True for errors that should go away on their own: connection lost,
+     * database not started, deadlock or lock timeout.
+     */
+    static boolean isRetryable(Exception e) {
+        Throwable t = e;
+        while (t != null) {
+            if (t instanceof SQLTransientException || t instanceof SQLRecoverableException) return true;
+            if (t instanceof SQLException sql && sql.getSQLState() != null
+                    && (sql.getSQLState().startsWith("08") || sql.getSQLState().startsWith("40")
+                        || sql.getSQLState().startsWith("XJ040"))) {
+                return true;
+            }
+            t = t.getCause();
+        }
+        return false;
+    }
+
+    private synchronized void idle(long millis) throws InterruptedException {
+        if (!wakeUp && !closed) wait(millis);
+        wakeUp = false;
+    }
+
+    private synchronized void sleep(long millis) throws InterruptedException {
+        long end = System.currentTimeMillis() + millis;
+        long left;
+        while (!closed && (left = end - System.currentTimeMillis()) > 0) wait(left);
+    }
+
+    // --- Stats ---
+
+    /** Orders copied into the database since startup. */
+    public long getDrainedCount() { return drained.get(); }
+
+    /** Records moved to rejected.journal since startup. */
+    public long getRejectedCount() { return rejected.get(); }
+
+    /** Failed drain attempts (the database was unavailable). */
+    public long getRetryCount() { return retries.get(); }
+}
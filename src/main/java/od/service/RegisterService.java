@@ -0,0 +1,330 @@
+package od.service;
+
+import od.dao.MenuItemDAO;
+import od.dao.MenuSearchIndex;
+import od.dao.OrderDAO;
+import od.dao.OrderWritePipeline;
+import od.io.BinaryOrderCodec;
+import od.io.OrderJournal;
+import od.model.Cart;
+import od.model.MenuItem;
+import od.metrics.Metrics;
+import od.metrics.Timer;
+import od.model.Order;
+import od.model.OrderItem;
+
+import javax.swing.*;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntConsumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Async layer between the Swing UI and the DAOs.
+ *
+ * Every database call runs on a dedicated background executor and comes
+ * back as a CompletableFuture, so the event dispatch thread (EDT) never
+ * waits on Derby. Use {@link #onEdt(CompletableFuture)} to continue on the
+ * EDT once the result is ready.
+ *
+ * The service also counts in-flight calls, so the UI can show a busy
+ * indicator while something is being loaded or saved.
+ */
+public class RegisterService {
+
+    private static final Logger LOG = Logger.getLogger(RegisterService.class.getName());
+
+    /** Runs tasks on the Swing event dispatch thread. */
+    public static final Executor EDT = SwingUtilities::invokeLater;
+
+    // From submit to commit, including the time spent waiting for a batch
+    private static final Timer SAVE_ORDER = Metrics.timer("service.saveOrder");
+
+    private final MenuItemDAO menuDAO;
+    private final OrderDAO orderDAO;
+    private final ExecutorService executor;
+
+    // New orders are group-committed instead of one transaction each
+    private final OrderWritePipeline orderWriter;
+
+    // Checkouts are written to the journal first and copied into Derby in
+    // the background. Opened on the executor (it may replay a large backlog);
+    // completes with null if the journal is disabled or could not be opened.
+    private record Journaling(OrderJournal journal, JournalDrainer drainer) {}
+    private final CompletableFuture<Journaling> journaling;
+
+    // --- In-flight tracking ---
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private volatile IntConsumer inFlightListener = n -> {};
+
+    public RegisterService() {
+        this(new MenuItemDAO(), new OrderDAO(), newDatabaseExecutor());
+    }
+
+    public RegisterService(MenuItemDAO menuDAO, OrderDAO orderDAO, ExecutorService executor) {
+        this.menuDAO = menuDAO;
+        this.orderDAO = orderDAO;
+        this.executor = executor;
+        this.orderWriter = new OrderWritePipeline(orderDAO);
+
+        // Open the journal and set up the transaction ID generator in the
+        // background: recovery scans the journal files and the generator may
+        // lease its node number from the database, neither of which the EDT must wait on
+        this.journaling = submit(this::openJournal);
+        submit(OrderDAO::txnIds);
+
+        Metrics.gauge("service.inFlight", this::getInFlightCount);
+        Metrics.gauge("service.failed", this::getFailedCount);
+    }
+
+    // --- Operations ---
+
+    /** Loads the full menu. */
+    public CompletableFuture<List<MenuItem>> loadMenu() {
+        return submit(menuDAO::findAll);
+    }
+
+    /** Loads the menu and its search index (for filtering as the user types). */
+    public CompletableFuture<MenuSearchIndex> loadMenuIndex() {
+        return submit(menuDAO::searchIndex);
+    }
+
+    /**
+     * Checks out a cart: gives its lines a new transaction ID and the
+     * current time, then saves the order (see saveOrder).
+     *
+     * The lines are copied on the calling thread; the ID is generated on
+     * the database executor, because the first ID of a run may have to
+     * lease this register's node number from the database. It waits for
+     * the journal to open, so IDs still waiting there are never reused.
+     *
+     * @return completes with the saved order (for the receipt)
+     */
+    public CompletableFuture<Order> checkout(Cart cart) {
+        Order lines = cart.toOrder(null, null);
+        return journaling.thenCompose(ready -> submit(() -> {
+            Order order = new Order(null, OrderDAO.generateTxnId(), LocalDateTime.now());
+            for (OrderItem oi : lines.getItems()) order.addItem(oi);
+            return order;
+        })).thenCompose(this::saveOrder);
+    }
+
+    /**
+     * Saves a new order.
+     *
+     * With the order journal on (the default), this completes as soon as
+     * the order is synced to the local journal — it does not wait for
+     * Derby, so checkout works even while the database is slow or down.
+     * The order then has no database ID yet; the JournalDrainer inserts it
+     * shortly after. If the journal can't be written, or is disabled, the
+     * order goes through the group-commit pipeline and the future completes
+     * with the persisted order once its batch has committed.
+     */
+    public CompletableFuture<Order> saveOrder(Order order) {
+        long t = SAVE_ORDER.start();
+        CompletableFuture<Order> saved = journaling.thenCompose(j -> j == null
+                ? writeToDatabase(order)
+                : j.journal().append(order)
+                        .thenApply(v -> {
+                            j.drainer().wake();
+                            return order;
+                        })
+                        .exceptionallyCompose(e -> {
+                            LOG.log(Level.WARNING, "Order journal append failed; saving " + order.getTxnId() + " directly", e);
+                            return writeToDatabase(order);
+                        }));
+        return track(saved)
+                .whenComplete((o, error) -> {
+                    SAVE_ORDER.stop(t);
+                    if (error != null) SAVE_ORDER.fail();
+                });
+    }
+
+    private CompletableFuture<Order> writeToDatabase(Order order) {
+        return submit(() -> orderWriter.submit(order)).thenCompose(f -> f);
+    }
+
+    /**
+     * One page of order history, newest first (see OrderDAO.findPage).
+     * Pass the last order of the previous page as {@code after}, or null.
+     */
+    public CompletableFuture<List<Order>> loadOrderPage(LocalDateTime from, LocalDateTime to, Order after, int pageSize) {
+        return submit(() -> orderDAO.findPage(from, to, after, pageSize));
+    }
+
+    /** Looks up an order (e.g. to reprint its receipt). */
+    public CompletableFuture<Order> findOrder(String txnId) {
+        return submit(() -> orderDAO.findByTxn(txnId));
+    }
+
+    /**
+     * Runs any blocking call on the database executor.
+     * Checked exceptions complete the future exceptionally.
+     */
+    public <T> CompletableFuture<T> submit(Callable<T> call) {
+        CompletableFuture<T> f = new CompletableFuture<>();
+        changeInFlight(+1);
+        try {
+            executor.execute(() -> {
+                try {
+                    f.complete(call.call());
+                    completed.incrementAndGet();
+                } catch (Throwable t) {
+                    f.completeExceptionally(t);
+                    failed.incrementAndGet();
+                } finally {
+                    changeInFlight(-1);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            changeInFlight(-1);
+            f.completeExceptionally(e);
+        }
+        return f;
+    }
+
+    /**
+     * Counts an already-running future as in flight until it completes.
+     */
+    private <T> CompletableFuture<T> track(CompletableFuture<T> f) {
+        changeInFlight(+1);
+        return f.whenComplete((r, e) -> {
+            if (e == null) completed.incrementAndGet();
+            else failed.incrementAndGet();
+            changeInFlight(-1);
+        });
+    }
+
+    /**
+     * Returns a future that completes on the EDT with the same result,
+     * so callbacks chained on it may touch Swing components directly.
+     */
+    public static <T> CompletableFuture<T> onEdt(CompletableFuture<T> f) {
+        return f.whenCompleteAsync((r, e) -> {}, EDT);
+    }
+
+    /**
+     * Registers a callback that receives the number of in-flight calls
+     * (on the EDT) every time it changes.
+     */
+    public void setInFlightListener(IntConsumer listener) {
+        this.inFlightListener = listener == null ? n -> {} : listener;
+    }
+
+    private void changeInFlight(int delta) {
+        int n = inFlight.addAndGet(delta);
+        IntConsumer l = inFlightListener;
+        SwingUtilities.invokeLater(() -> l.accept(n));
+    }
+
+    // --- Stats ---
+
+    public int getInFlightCount() { return inFlight.get(); }
+    public long getCompletedCount() { return completed.get(); }
+    public long getFailedCount() { return failed.get(); }
+
+    public OrderWritePipeline getOrderWriter() { return orderWriter; }
+
+    /**
+     * The local order journal, or null if checkouts go straight to the
+     * database (or it is still being opened).
+     */
+    public OrderJournal getJournal() {
+        Journaling j = journaling.getNow(null);
+        return j == null ? null : j.journal();
+    }
+
+    /** Stops accepting work; calls and orders already queued still finish. */
+    public void shutdown() {
+        executor.shutdown();
+        orderWriter.close();
+        // Closes the journal now, or as soon as it is open if that is still running
+        journaling.thenAccept(this::closeJournal);
+    }
+
+    private void closeJournal(Journaling j) {
+        if (j == null) return;
+        j.drainer().close();
+        try {
+            j.journal().close();
+        } catch (IOException e) {
+            LOG.log(Level.WARNING, "Could not close the order journal", e);
+        }
+    }
+
+    /**
+     * Opens the order journal unless -Dod.journal.enabled=false.
+     * Directory: -Dod.journal.dir (default db/journal);
+     * segment size: -Dod.journal.segmentBytes (default 8 MB).
+     */
+    private Journaling openJournal() {
+        if (!Boolean.parseBoolean(System.getProperty("od.journal.enabled", "true"))) return null;
+        try {
+            OrderJournal j = OrderJournal.open(
+                    Path.of(System.getProperty("od.journal.dir", "db/journal")),
+                    Integer.getInteger("od.journal.segmentBytes", 8 * 1024 * 1024));
+            if (j.getPendingAtOpen() > 0) {
+                LOG.info(() -> "Order journal: " + j.getPendingAtOpen() + " orders from the last run still to be saved");
+                reservePendingTxnIds(j);
+            }
+            Metrics.gauge("journal.appends", j::getAppendCount);
+            Metrics.gauge("journal.syncs", j::getSyncCount);
+            return new Journaling(j, new JournalDrainer(j, orderDAO, menuDAO));
+        } catch (IOException | RuntimeException e) {
+            LOG.log(Level.WARNING, "Order journal unavailable; checkouts will wait for the database", e);
+            return null;
+        }
+    }
+
+    /**
+     * Orders from the last run still in the journal are not in the database
+     * yet, where the TXN_ID generator looks for the IDs it already used.
+     */
+    private static void reservePendingTxnIds(OrderJournal j) {
+        List<String> pending = new ArrayList<>();
+        OrderJournal.Position[] at = {j.getCheckpoint()};
+        try {
+            while (j.read(at[0], 1_000, (payload, next) -> {
+                if (payload.get() == BinaryOrderCodec.ORDER) {
+                    payload.getInt(); // frame length
+                    pending.add(BinaryOrderCodec.getTxnId(payload));
+                }
+                at[0] = next;
+            }) > 0) {
+                // keep reading
+            }
+        } catch (Exception e) {
+            LOG.log(Level.WARNING, "Could not read the TXN_IDs waiting in the order journal", e);
+        }
+        OrderDAO.reserveTxnIds(pending);
+    }
+
+    /**
+     * Creates the executor used for database work: a virtual thread per
+     * task when the JVM supports it (Java 21+), otherwise a small pool of
+     * daemon platform threads sized to the connection pool.
+     */
+    static ExecutorService newDatabaseExecutor() {
+        try {
+            return (ExecutorService) Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor")
+                    .invoke(null);
+        } catch (ReflectiveOperationException notAvailable) {
+            AtomicInteger n = new AtomicInteger();
+            return Executors.newFixedThreadPool(Integer.getInteger("od.db.poolSize", 8), r -> {
+                Thread t = new Thread(r, "od-db-" + n.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+}
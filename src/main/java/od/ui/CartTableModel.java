@@ -0,0 +1,90 @@
+package od.ui;
+
+import od.model.Cart;
+import od.model.ItemOptions;
+import od.model.MenuItem;
+import od.model.Money;
+
+import javax.swing.table.AbstractTableModel;
+
+/**
+ * Table model that shows a Cart directly (no copied rows).
+ *
+ * All changes go through this model so the cart's running totals and the
+ * table stay in sync, and each change fires one precise row event instead
+ * of a full table refresh. The Qty column is editable.
+ */
+public class CartTableModel extends AbstractTableModel {
+
+    static final int COL_ITEM = 0, COL_OPTIONS = 1, COL_QTY = 2, COL_PRICE = 3, COL_TOTAL = 4;
+
+    private static final String[] COLUMNS = {"Item", "Options", "Qty", "Price", "Total"};
+
+    private final Cart cart;
+
+    public CartTableModel(Cart cart) {
+        this.cart = cart;
+    }
+
+    public Cart getCart() { return cart; }
+
+    // --- Changes ---
+
+    public void add(MenuItem item, ItemOptions options, int qty, long unitPriceCents) {
+        int row = cart.add(item, options, qty, unitPriceCents);
+        fireTableRowsInserted(row, row);
+    }
+
+    public void remove(int row) {
+        cart.remove(row);
+        fireTableRowsDeleted(row, row);
+    }
+
+    public void clear() {
+        if (cart.isEmpty()) return;
+        int last = cart.size() - 1;
+        cart.clear();
+        fireTableRowsDeleted(0, last);
+    }
+
+    // --- TableModel ---
+
+    @Override
+    public int getRowCount() { return cart.size(); }
+
+    @Override
+    public int getColumnCount() { return COLUMNS.length; }
+
+    @Override
+    public String getColumnName(int column) { return COLUMNS[column]; }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        return column == COL_QTY ? Integer.class : Object.class;
+    }
+
+    @Override
+    public boolean isCellEditable(int row, int column) {
+        return column == COL_QTY;
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        Cart.Line line = cart.getLine(row);
+        return switch (column) {
+            case COL_ITEM -> line.getMenuItem().getName();
+            case COL_OPTIONS -> line.getOptions().toString();
+            case COL_QTY -> line.getQty();
+            case COL_PRICE -> Money.format(line.getUnitPriceCents());
+            case COL_TOTAL -> Money.format(line.getLineTotalCents());
+            default -> null;
+        };
+    }
+
+    @Override
+    public void setValueAt(Object value, int row, int column) {
+        if (column != COL_QTY || !(value instanceof Integer qty) || qty < 1) return;
+        cart.setQty(row, qty);
+        fireTableRowsUpdated(row, row);
+    }
+}
@@ -0,0 +1,130 @@
+package od.ui;
+
+import od.metrics.LatencyHistogram;
+import od.metrics.Metrics;
+
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Help → Diagnostics: live timings (count, p50, p99, max) of every timed
+ * operation, plus the gauges (pool, caches, order pipeline, UI stalls).
+ * Refreshes once a second while open.
+ */
+public class DiagnosticsDialog extends JDialog {
+
+    private static final int REFRESH_MS = 1000;
+
+    private final TimerTableModel timerModel = new TimerTableModel();
+    private final GaugeTableModel gaugeModel = new GaugeTableModel();
+    private final Timer refreshTimer = new Timer(REFRESH_MS, e -> refresh());
+
+    public DiagnosticsDialog(Frame owner) {
+        super(owner, "Diagnostics", false);
+        setDefaultCloseOperation(DISPOSE_ON_CLOSE);
+        setLayout(new BorderLayout(5, 5));
+
+        JTable timers = new JTable(timerModel);
+        timers.setAutoCreateRowSorter(true);
+        timers.getColumnModel().getColumn(0).setPreferredWidth(220);
+
+        JTable gauges = new JTable(gaugeModel);
+        gauges.setAutoCreateRowSorter(true);
+
+        JSplitPane split = new JSplitPane(JSplitPane.VERTICAL_SPLIT,
+                new JScrollPane(timers), new JScrollPane(gauges));
+        split.setResizeWeight(0.65);
+        add(split, BorderLayout.CENTER);
+
+        // --- Buttons ---
+        JButton reset = new JButton("Reset timers");
+        reset.addActionListener(e -> {
+            Metrics.reset();
+            refresh();
+        });
+        JButton close = new JButton("Close");
+        close.addActionListener(e -> dispose());
+
+        JPanel buttons = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        buttons.add(reset);
+        buttons.add(close);
+        add(buttons, BorderLayout.SOUTH);
+
+        refresh();
+        refreshTimer.start();
+
+        setSize(720, 520);
+        setLocationRelativeTo(owner);
+    }
+
+    @Override
+    public void dispose() {
+        refreshTimer.stop();
+        super.dispose();
+    }
+
+    /** Takes a fresh snapshot of every timer and gauge. */
+    private void refresh() {
+        List<Object[]> rows = new ArrayList<>();
+        for (od.metrics.Timer t : Metrics.timers()) {
+            LatencyHistogram.Snapshot s = t.snapshot();
+            rows.add(new Object[] {
+                    t.getName(), s.count(),
+                    Metrics.millis(s.percentile(0.50)),
+                    Metrics.millis(s.percentile(0.99)),
+                    Metrics.millis(s.max()),
+                    t.getErrorCount()
+            });
+        }
+        timerModel.setRows(rows);
+        gaugeModel.setValues(Metrics.gauges());
+    }
+
+    /** One row per timer. */
+    private static final class TimerTableModel extends AbstractTableModel {
+        private static final String[] COLUMNS = {"Operation", "Count", "p50 ms", "p99 ms", "Max ms", "Errors"};
+        private static final Class<?>[] TYPES = {String.class, Long.class, Double.class, Double.class, Double.class, Long.class};
+
+        private List<Object[]> rows = List.of();
+
+        void setRows(List<Object[]> rows) {
+            this.rows = rows;
+            fireTableDataChanged();
+        }
+
+        @Override public int getRowCount() { return rows.size(); }
+        @Override public int getColumnCount() { return COLUMNS.length; }
+        @Override public String getColumnName(int c) { return COLUMNS[c]; }
+        @Override public Class<?> getColumnClass(int c) { return TYPES[c]; }
+
+        @Override
+        public Object getValueAt(int row, int col) {
+            return rows.get(row)[col];
+        }
+    }
+
+    /** One row per gauge (name → current value). */
+    private static final class GaugeTableModel extends AbstractTableModel {
+        private List<Map.Entry<String, Long>> values = List.of();
+
+        void setValues(Map<String, Long> gauges) {
+            this.values = new ArrayList<>(gauges.entrySet());
+            fireTableDataChanged();
+        }
+
+        @Override public int getRowCount() { return values.size(); }
+        @Override public int getColumnCount() { return 2; }
+        @Override public String getColumnName(int c) { return c == 0 ? "Gauge" : "Value"; }
+        @Override public Class<?> getColumnClass(int c) { return c == 0 ? String.class : Long.class; }
+
+        @Override
+        public Object getValueAt(int row, int col) {
+            Map.Entry<String, Long> e = values.get(row);
+            return col == 0 ? e.getKey() : e.getValue();
+        }
+    }
+}
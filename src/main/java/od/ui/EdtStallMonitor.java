@@ -0,0 +1,80 @@
+package od.ui;
+
+import od.metrics.Metrics;
+import od.metrics.Timer;
+
+import javax.swing.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures how long the Swing event dispatch thread (EDT) is blocked.
+ *
+ * A background thread posts a tiny probe onto the EDT every PROBE_MS.
+ * The probe records how late it ran; if the EDT is busy (e.g. waiting on
+ * the database), the probe runs late and the delay shows up as a stall.
+ */
+public class EdtStallMonitor {
+
+    private static final long PROBE_MS = 50;
+
+    // Delays above this count as a visible UI stall
+    private static final long STALL_THRESHOLD_MS = 100;
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "od-edt-monitor");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // Every probe delay, so the diagnostics show the EDT's p99 and not just its max
+    private final Timer delays = Metrics.timer("ui.edt.delay");
+
+    private final AtomicLong probes = new AtomicLong();
+    private final AtomicLong stalls = new AtomicLong();
+    private final AtomicLong maxDelayNanos = new AtomicLong();
+    private final AtomicLong totalStallNanos = new AtomicLong();
+
+    // Only one probe in flight at a time, so a long stall is counted once
+    private volatile boolean probePending;
+
+    public void start() {
+        Metrics.gauge("ui.edt.stalls", this::getStallCount);
+        Metrics.gauge("ui.edt.totalStallMillis", this::getTotalStallMillis);
+        scheduler.scheduleAtFixedRate(this::postProbe, PROBE_MS, PROBE_MS, TimeUnit.MILLISECONDS);
+    }
+
+    public void stop() {
+        scheduler.shutdownNow();
+    }
+
+    private void postProbe() {
+        if (probePending) return;
+        probePending = true;
+        long posted = System.nanoTime();
+        SwingUtilities.invokeLater(() -> {
+            long delay = System.nanoTime() - posted;
+            probePending = false;
+            probes.incrementAndGet();
+            delays.record(delay);
+            maxDelayNanos.accumulateAndGet(delay, Math::max);
+            if (delay >= TimeUnit.MILLISECONDS.toNanos(STALL_THRESHOLD_MS)) {
+                stalls.incrementAndGet();
+                totalStallNanos.addAndGet(delay);
+            }
+        });
+    }
+
+    // --- Stats ---
+
+    public long getProbeCount() { return probes.get(); }
+
+    /** Number of times the EDT was blocked for STALL_THRESHOLD_MS or longer. */
+    public long getStallCount() { return stalls.get(); }
+
+    public long getMaxDelayMillis() { return TimeUnit.NANOSECONDS.toMillis(maxDelayNanos.get()); }
+
+    public long getTotalStallMillis() { return TimeUnit.NANOSECONDS.toMillis(totalStallNanos.get()); }
+}
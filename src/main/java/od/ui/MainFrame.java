@@ -1,19 +1,19 @@
 package od.ui;
 
-import od.dao.MenuItemDAO;
-import od.dao.OrderDAO;
+import od.dao.MenuSearchIndex;
+import od.db.Database;
+import od.metrics.Metrics;
 import od.model.*;
 import od.model.MenuItem;
+import od.service.RegisterService;
 import od.util.Receipt;
 
 import javax.swing.*;
 import javax.swing.border.TitledBorder;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
-import java.math.BigDecimal;
-import java.sql.SQLException;
-import java.time.LocalDateTime;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * Main application window for Oak Donuts ordering system.
@@ -26,31 +26,44 @@ import java.util.List;
  */
 public class MainFrame extends JFrame {
 
-    // --- DAOs for DB operations ---
-    private final MenuItemDAO menuDAO = new MenuItemDAO();
-    private final OrderDAO orderDAO = new OrderDAO();
+    // --- Async service for DB operations (keeps Derby off the EDT) ---
+    private final RegisterService service = new RegisterService();
+
+    // Watches for UI freezes (see status bar)
+    private final EdtStallMonitor stallMonitor = new EdtStallMonitor();
+
+    // Click on Checkout → receipt on screen (javax.swing.Timer is imported, hence the full name)
+    private static final od.metrics.Timer CHECKOUT = Metrics.timer("ui.checkout");
 
     // --- UI components for filters and options ---
     private JComboBox<String> categoryFilter;
     private JTextField searchField;
-    private JComboBox<String> sizeBox;
-    private JComboBox<String> icingBox;
-    private JComboBox<String> fillingBox;
+    private JComboBox<ItemOptions.Size> sizeBox;
+    private JComboBox<ItemOptions.Icing> icingBox;
+    private JComboBox<ItemOptions.Filling> fillingBox;
     private JSpinner qtySpinner;
     private JLabel unitLabel;
     private JList<MenuItem> menuList;
-    private DefaultListModel<MenuItem> menuListModel;
+    private MenuListModel menuListModel;
+
+    // Menu search (category + words typed), filtered in memory
+    private MenuSearchIndex menuIndex;
+    private static final int SEARCH_DEBOUNCE_MS = 120;
+    private final Timer searchDebounce = new Timer(SEARCH_DEBOUNCE_MS, e -> applyMenuFilter());
 
     // --- Right-panel order table ---
     private JTable orderTable;
-    private DefaultTableModel orderModel;
+    private CartTableModel orderModel;
     private JLabel subtotalLabel, taxLabel, totalLabel;
+    private JButton addButton, removeButton, clearButton, checkoutButton;
 
-    // Tax rate constant (6%)
-    private static final BigDecimal TAX_RATE = new BigDecimal("0.06");
-    private static final BigDecimal SMALL_MULT = new BigDecimal("0.90");
-    private static final BigDecimal MEDIUM_MULT = new BigDecimal("1.00");
-    private static final BigDecimal LARGE_MULT = new BigDecimal("1.20");
+    // The order being rung up (running subtotal / tax / total)
+    private final Cart cart = new Cart();
+
+    // --- Status bar ---
+    private JLabel statusLabel;
+    private JProgressBar busyBar;
+    private JLabel stallLabel;
 
 
     /**
@@ -67,6 +80,12 @@ public class MainFrame extends JFrame {
         add(createLeftPanel(), BorderLayout.WEST);
         add(createCenterPanel(), BorderLayout.CENTER);
         add(createRightPanel(), BorderLayout.EAST);
+        add(createStatusBar(), BorderLayout.SOUTH);
+
+        // Show a busy indicator whenever the service is talking to the DB
+        service.setInFlightListener(this::updateBusy);
+        stallMonitor.start();
+        new Timer(1000, e -> updateStallLabel()).start();
 
         // Load menu items from DB
         refreshMenuList();
@@ -76,9 +95,19 @@ public class MainFrame extends JFrame {
     /** Top application menu bar (File, Category, Help). */
     private JMenuBar createMenuBar() {
         JMenuBar menuBar = new JMenuBar();
-        menuBar.add(new JMenu("File"));
+
+        JMenu file = new JMenu("File");
+        JMenuItem history = new JMenuItem("Order History…");
+        history.addActionListener(e -> new OrderHistoryDialog(this, service).setVisible(true));
+        file.add(history);
+        menuBar.add(file);
         menuBar.add(new JMenu("Category"));
-        menuBar.add(new JMenu("Help"));
+
+        JMenu help = new JMenu("Help");
+        JMenuItem diagnostics = new JMenuItem("Diagnostics…");
+        diagnostics.addActionListener(e -> new DiagnosticsDialog(this).setVisible(true));
+        help.add(diagnostics);
+        menuBar.add(help);
         return menuBar;
     }
 
@@ -100,15 +129,25 @@ public class MainFrame extends JFrame {
                 BorderFactory.createEtchedBorder(), "Filters", TitledBorder.LEFT, TitledBorder.TOP));
 
         filters.add(new JLabel("Category:"));
-        categoryFilter = new JComboBox<>(new String[]{"All", "Donut", "Drink"});
+        categoryFilter = new JComboBox<>(new String[]{"All"}); // real categories come with the menu
+        categoryFilter.addActionListener(e -> applyMenuFilter());
         filters.add(categoryFilter);
 
         filters.add(new JLabel("Search:"));
         searchField = new JTextField();
         filters.add(searchField);
 
+        // Filter once the user pauses typing, not on every single key
+        searchDebounce.setRepeats(false);
+        searchField.getDocument().addDocumentListener(new javax.swing.event.DocumentListener() {
+            @Override public void insertUpdate(javax.swing.event.DocumentEvent e) { searchDebounce.restart(); }
+            @Override public void removeUpdate(javax.swing.event.DocumentEvent e) { searchDebounce.restart(); }
+            @Override public void changedUpdate(javax.swing.event.DocumentEvent e) { searchDebounce.restart(); }
+        });
+
         filters.add(new JLabel("Size:"));
-        sizeBox = new JComboBox<>(new String[]{"Small", "Medium", "Large"});
+        sizeBox = new JComboBox<>(new ItemOptions.Size[]{
+                ItemOptions.Size.SMALL, ItemOptions.Size.MEDIUM, ItemOptions.Size.LARGE});
         filters.add(sizeBox);
 
         // Update unit price when size changes
@@ -123,11 +162,11 @@ public class MainFrame extends JFrame {
                 BorderFactory.createEtchedBorder(), "Item Options", TitledBorder.LEFT, TitledBorder.TOP));
 
         options.add(new JLabel("Icing:"));
-        icingBox = new JComboBox<>(new String[]{"None", "Chocolate", "Vanilla", "Strawberry"});
+        icingBox = new JComboBox<>(ItemOptions.Icing.values());
         options.add(icingBox);
 
         options.add(new JLabel("Filling:"));
-        fillingBox = new JComboBox<>(new String[]{"None", "Custard", "Jelly", "Cream"});
+        fillingBox = new JComboBox<>(ItemOptions.Filling.values());
         options.add(fillingBox);
 
         left.add(options);
@@ -142,7 +181,7 @@ public class MainFrame extends JFrame {
         unitLabel = new JLabel("Unit: $0.00");
         qtyPanel.add(unitLabel);
 
-        JButton addButton = new JButton("Add to Order");
+        addButton = new JButton("Add to Order");
         addButton.addActionListener(e -> addToOrder());
         qtyPanel.add(addButton);
 
@@ -156,7 +195,7 @@ public class MainFrame extends JFrame {
         JPanel center = new JPanel(new BorderLayout(5, 5));
         center.setBorder(BorderFactory.createTitledBorder("Menu"));
 
-        menuListModel = new DefaultListModel<>();
+        menuListModel = new MenuListModel();
         menuList = new JList<>(menuListModel);
         menuList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
 
@@ -172,8 +211,12 @@ public class MainFrame extends JFrame {
         JPanel right = new JPanel(new BorderLayout(10, 10));
         right.setBorder(BorderFactory.createTitledBorder("Order"));
 
-        orderModel = new DefaultTableModel(new Object[]{"Item", "Options", "Qty", "Price", "Total"}, 0);
+        orderModel = new CartTableModel(cart);
         orderTable = new JTable(orderModel);
+        orderTable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+
+        // Any cart change (add, remove, qty edit) only refreshes the totals labels
+        orderModel.addTableModelListener(e -> updateTotals());
         right.add(new JScrollPane(orderTable), BorderLayout.CENTER);
 
         JPanel bottom = new JPanel(new BorderLayout());
@@ -195,12 +238,16 @@ public class MainFrame extends JFrame {
         bottom.add(totalsPanel, BorderLayout.CENTER);
 
         JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
-        JButton clearButton = new JButton("Clear");
+        removeButton = new JButton("Remove");
+        removeButton.addActionListener(e -> removeSelectedLine());
+
+        clearButton = new JButton("Clear");
         clearButton.addActionListener(e -> clearOrder());
 
-        JButton checkoutButton = new JButton("Checkout");
+        checkoutButton = new JButton("Checkout");
         checkoutButton.addActionListener(e -> checkout());
 
+        buttonPanel.add(removeButton);
         buttonPanel.add(clearButton);
         buttonPanel.add(checkoutButton);
 
@@ -210,18 +257,66 @@ public class MainFrame extends JFrame {
         return right;
     }
 
-    /** Loads menu items from DB into list. */
+    /** Bottom status bar: busy indicator and UI stall metric. */
+    private JPanel createStatusBar() {
+        JPanel status = new JPanel(new BorderLayout(10, 0));
+        status.setBorder(BorderFactory.createEmptyBorder(2, 10, 4, 10));
+
+        statusLabel = new JLabel("Ready");
+        status.add(statusLabel, BorderLayout.WEST);
+
+        busyBar = new JProgressBar();
+        busyBar.setIndeterminate(true);
+        busyBar.setVisible(false);
+        status.add(busyBar, BorderLayout.CENTER);
+
+        stallLabel = new JLabel();
+        status.add(stallLabel, BorderLayout.EAST);
+
+        return status;
+    }
+
+    /** Loads the menu and its search index (in the background), then shows it. */
     private void refreshMenuList() {
-        try {
-            menuListModel.clear();
-            List<MenuItem> items = menuDAO.findAll();
-            for (MenuItem m : items) {
-                if (m.isActive()) {
-                    menuListModel.addElement(m);
-                }
-            }
-        } catch (SQLException e) {
-            showError(e);
+        RegisterService.onEdt(service.loadMenuIndex())
+                .thenAccept(index -> {
+                    menuIndex = index;
+                    updateCategoryFilter(index);
+                    applyMenuFilter();
+                })
+                .exceptionally(this::showAsyncError);
+    }
+
+    /** Fills the category box from the menu, keeping the current choice if it still exists. */
+    private void updateCategoryFilter(MenuSearchIndex index) {
+        Object selected = categoryFilter.getSelectedItem();
+
+        DefaultComboBoxModel<String> model = new DefaultComboBoxModel<>();
+        model.addElement("All");
+        index.categories().forEach(model::addElement);
+        categoryFilter.setModel(model);
+
+        if (selected != null && model.getIndexOf(selected) >= 0) categoryFilter.setSelectedItem(selected);
+    }
+
+    /**
+     * Shows the active items matching the category box and search text.
+     * Searching is in memory (no SQL), and the list only repaints the
+     * rows that changed; the selected item stays selected if still shown.
+     */
+    private void applyMenuFilter() {
+        searchDebounce.stop();
+        if (menuIndex == null) return; // menu not loaded yet
+
+        MenuItem selected = menuList.getSelectedValue();
+        menuListModel.setItems(menuIndex.search((String) categoryFilter.getSelectedItem(), searchField.getText()));
+
+        int row = selected == null ? -1 : menuListModel.indexOfId(selected.getId());
+        if (row >= 0) {
+            menuList.setSelectedIndex(row);
+            menuList.ensureIndexIsVisible(row);
+        } else {
+            menuList.clearSelection();
         }
     }
 
@@ -229,19 +324,17 @@ public class MainFrame extends JFrame {
     private void updateUnitLabel() {
         MenuItem selected = menuList.getSelectedValue();
         if (selected != null) {
-            BigDecimal price = applySizePrice(selected.getPrice());
-            unitLabel.setText("Unit: $" + price);
+            long price = selectedOptions().priceCents(selected.getPriceCents());
+            unitLabel.setText("Unit: $" + Money.format(price));
         }
     }
 
-    /** Returns item price adjusted for selected size. */
-    private BigDecimal applySizePrice(BigDecimal basePrice) {
-        String size = (String) sizeBox.getSelectedItem();
-        return switch (size) {
-            case "Small" -> basePrice.multiply(SMALL_MULT);
-            case "Large" -> basePrice.multiply(LARGE_MULT);
-            default -> basePrice.multiply(MEDIUM_MULT);
-        };
+    /** Size / icing / filling currently picked in the option boxes. */
+    private ItemOptions selectedOptions() {
+        return ItemOptions.of(
+                (ItemOptions.Size) sizeBox.getSelectedItem(),
+                (ItemOptions.Icing) icingBox.getSelectedItem(),
+                (ItemOptions.Filling) fillingBox.getSelectedItem());
     }
 
     /** Adds selected menu item to the order table. */
@@ -253,90 +346,108 @@ public class MainFrame extends JFrame {
         }
 
         int qty = (int) qtySpinner.getValue();
-        String icing = (String) icingBox.getSelectedItem();
-        String filling = (String) fillingBox.getSelectedItem();
-        String size = (String) sizeBox.getSelectedItem();
-
-        // Correctly formatted options text
-        String options = "Size: " + size;
-        if (!"None".equals(icing)) options += ", Icing: " + icing;
-        if (!"None".equals(filling)) options += ", Filling: " + filling;
+        ItemOptions options = selectedOptions();
 
-        BigDecimal price = applySizePrice(selected.getPrice());
-        BigDecimal total = price.multiply(BigDecimal.valueOf(qty));
+        orderModel.add(selected, options, qty, options.priceCents(selected.getPriceCents()));
+    }
 
-        orderModel.addRow(new Object[]{selected, options, qty, price, total});
-        updateTotals();
+    /** Removes the selected line from the order. */
+    private void removeSelectedLine() {
+        int row = orderTable.getSelectedRow();
+        if (row < 0) return;
+        if (orderTable.isEditing()) orderTable.getCellEditor().cancelCellEditing();
+        orderModel.remove(orderTable.convertRowIndexToModel(row));
     }
 
-    /** Recalculates subtotal, tax, total. */
+    /** Shows the cart's running subtotal, tax, total (no re-summing). */
     private void updateTotals() {
-        BigDecimal subtotal = BigDecimal.ZERO;
-
-        for (int i = 0; i < orderModel.getRowCount(); i++) {
-            subtotal = subtotal.add((BigDecimal) orderModel.getValueAt(i, 4));
-        }
-
-        BigDecimal tax = subtotal.multiply(TAX_RATE);
-        BigDecimal total = subtotal.add(tax);
-
-        subtotalLabel.setText(String.format("$%.2f", subtotal));
-        taxLabel.setText(String.format("$%.2f", tax));
-        totalLabel.setText(String.format("$%.2f", total));
+        subtotalLabel.setText("$" + Money.format(cart.getSubtotalCents()));
+        taxLabel.setText("$" + Money.format(cart.getTaxCents()));
+        totalLabel.setText("$" + Money.format(cart.getTotalCents()));
     }
 
     /** Clears the order table. */
     private void clearOrder() {
-        orderModel.setRowCount(0);
-        updateTotals();
+        orderModel.clear();
     }
 
-    /** Checkout routine: builds order, saves to DB, shows receipt. */
+    /** Checkout routine: saves the cart as an order, shows the receipt. */
     private void checkout() {
-        if (orderModel.getRowCount() == 0) {
+        if (cart.isEmpty()) {
             JOptionPane.showMessageDialog(this, "Your order is empty.");
             return;
         }
+        if (orderTable.isEditing()) orderTable.getCellEditor().stopCellEditing();
+        long t = CHECKOUT.start();
+
+        // The cart is the single source for what gets saved; the service
+        // gives it a transaction ID off the EDT (the first one may need the database)
+        CompletableFuture<Order> saved = service.checkout(cart);
+
+        // Lock the cart while the order is being saved
+        setCartEnabled(false);
+
+        // Save + build the receipt in the background, then show it on the EDT
+        RegisterService.onEdt(saved.thenApply(Receipt::generate))
+                .thenAccept(receiptText -> {
+                    setCartEnabled(true);
+                    clearOrder();
+                    CHECKOUT.stop(t); // measured before the (modal) receipt dialog waits for the user
+                    showReceipt(receiptText);
+                })
+                .exceptionally(e -> {
+                    CHECKOUT.stop(t);
+                    CHECKOUT.fail();
+                    setCartEnabled(true);
+                    return showAsyncError(e);
+                });
+    }
 
-        BigDecimal subtotal = new BigDecimal(subtotalLabel.getText().replace("$", ""));
-        BigDecimal tax      = new BigDecimal(taxLabel.getText().replace("$", ""));
-        BigDecimal total    = new BigDecimal(totalLabel.getText().replace("$", ""));
-
-        try {
-            String txn = OrderDAO.generateTxnId();
-            Order order = new Order(null, txn, LocalDateTime.now());
-
-            for (int i = 0; i < orderModel.getRowCount(); i++) {
-                MenuItem m = (MenuItem) orderModel.getValueAt(i, 0);
-                int qty = (int) orderModel.getValueAt(i, 2);
-                BigDecimal price = (BigDecimal) orderModel.getValueAt(i, 3);
-
-                order.addItem(new OrderItem(null, null, m, qty, price));
-            }
-
-            orderDAO.createNew(order);
-
-            String receiptText = Receipt.generate(order);
-
-            JTextArea area = new JTextArea(receiptText);
-            area.setEditable(false);
-            area.setFont(new Font("Monospaced", Font.PLAIN, 14));
+    /** Shows the receipt text in a dialog. */
+    private void showReceipt(String receiptText) {
+        JTextArea area = new JTextArea(receiptText);
+        area.setEditable(false);
+        area.setFont(new Font("Monospaced", Font.PLAIN, 14));
+
+        JScrollPane scrollPane = new JScrollPane(area);
+        scrollPane.setPreferredSize(new Dimension(420, 500));
+
+        JOptionPane.showMessageDialog(
+                this,
+                scrollPane,
+                "Receipt",
+                JOptionPane.INFORMATION_MESSAGE
+        );
+    }
 
-            JScrollPane scrollPane = new JScrollPane(area);
-            scrollPane.setPreferredSize(new Dimension(420, 500));
+    /** Enables/disables the buttons that change the current order. */
+    private void setCartEnabled(boolean enabled) {
+        addButton.setEnabled(enabled);
+        removeButton.setEnabled(enabled);
+        clearButton.setEnabled(enabled);
+        orderTable.setEnabled(enabled);
+        checkoutButton.setEnabled(enabled);
+    }
 
-            JOptionPane.showMessageDialog(
-                    this,
-                    scrollPane,
-                    "Receipt",
-                    JOptionPane.INFORMATION_MESSAGE
-            );
+    /** Shows/hides the busy indicator (called on the EDT). */
+    private void updateBusy(int inFlight) {
+        busyBar.setVisible(inFlight > 0);
+        statusLabel.setText(inFlight > 0 ? "Working… (" + inFlight + ")" : "Ready");
+    }
 
-            clearOrder();
+    /** Refreshes the UI stall metric in the status bar. */
+    private void updateStallLabel() {
+        stallLabel.setText(String.format("UI stalls: %d (max %d ms) | DB calls on UI thread: %d",
+                stallMonitor.getStallCount(),
+                stallMonitor.getMaxDelayMillis(),
+                Database.getEdtBorrowCount()));
+    }
 
-        } catch (Exception e) {
-            showError(e);
-        }
+    /** Error handler for async calls; unwraps the real cause. */
+    private <T> T showAsyncError(Throwable t) {
+        Throwable cause = (t instanceof CompletionException && t.getCause() != null) ? t.getCause() : t;
+        showError(cause instanceof Exception ex ? ex : new RuntimeException(cause));
+        return null;
     }
 
     /** Displays an error message dialog. */
@@ -0,0 +1,64 @@
+package od.ui;
+
+import od.model.MenuItem;
+
+import javax.swing.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * List model for the menu that is updated by diff, not clear-and-re-add.
+ *
+ * setItems() keeps the rows both lists start and end with, and replaces
+ * only the part in between with at most one change, one remove and one
+ * add event — so the JList repaints (and re-measures) only the rows that
+ * really changed while the user types in the search box.
+ */
+public class MenuListModel extends AbstractListModel<MenuItem> {
+
+    private List<MenuItem> items = new ArrayList<>();
+
+    @Override
+    public int getSize() { return items.size(); }
+
+    @Override
+    public MenuItem getElementAt(int index) { return items.get(index); }
+
+    /** Replaces the contents with {@code next}, firing only the differing range. */
+    public void setItems(List<MenuItem> next) {
+        List<MenuItem> old = items;
+        items = new ArrayList<>(next);
+
+        // Rows that are the same at the start...
+        int oldSize = old.size(), newSize = items.size();
+        int prefix = 0;
+        while (prefix < oldSize && prefix < newSize && old.get(prefix) == items.get(prefix)) prefix++;
+
+        // ...and at the end (never overlapping the prefix)
+        int suffix = 0;
+        while (suffix < oldSize - prefix && suffix < newSize - prefix
+                && old.get(oldSize - 1 - suffix) == items.get(newSize - 1 - suffix)) suffix++;
+
+        int oldMid = oldSize - prefix - suffix;
+        int newMid = newSize - prefix - suffix;
+        int changed = Math.min(oldMid, newMid);
+
+        if (changed > 0) {
+            fireContentsChanged(this, prefix, prefix + changed - 1);
+        }
+        if (oldMid > newMid) {
+            fireIntervalRemoved(this, prefix + changed, prefix + oldMid - 1);
+        } else if (newMid > oldMid) {
+            fireIntervalAdded(this, prefix + changed, prefix + newMid - 1);
+        }
+    }
+
+    /** Row of the item with this ID, or -1. */
+    public int indexOfId(Integer id) {
+        if (id == null) return -1;
+        for (int i = 0; i < items.size(); i++) {
+            if (id.equals(items.get(i).getId())) return i;
+        }
+        return -1;
+    }
+}
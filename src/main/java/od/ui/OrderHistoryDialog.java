@@ -0,0 +1,182 @@
+package od.ui;
+
+import od.model.Order;
+import od.service.RegisterService;
+import od.util.Receipt;
+import od.util.ReceiptFormat;
+import od.util.ReceiptPrinter;
+import od.util.ReceiptRenderer;
+
+import javax.swing.*;
+import java.awt.*;
+import java.io.File;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletionException;
+
+/**
+ * File → Order History: browse every order, newest first, and view the
+ * receipt of the selected one. The receipt can be reprinted on the
+ * receipt printer (ESC/POS) or saved as HTML (e.g. to e-mail it).
+ *
+ * The table is virtual (OrderHistoryTableModel): it opens at once and
+ * loads pages of headers only as the user scrolls; an order's lines are
+ * loaded when it is selected.
+ */
+public class OrderHistoryDialog extends JDialog {
+
+    /** Date filters offered at the top (days back from today; 0 = all time). */
+    private static final String[] RANGES = {"Today", "Last 7 days", "Last 30 days", "All time"};
+    private static final int[] RANGE_DAYS = {1, 7, 30, 0};
+
+    private final RegisterService service;
+    private final OrderHistoryTableModel model = new OrderHistoryTableModel();
+
+    private final JTable table = new JTable(model);
+    private final JTextArea receiptArea = new JTextArea();
+    private final JLabel countLabel = new JLabel(" ");
+    private final JButton printButton = new JButton("Print Receipt");
+    private final JButton saveButton = new JButton("Save as HTML...");
+
+    // Ignores receipts that arrive after the selection has moved on
+    private String shownTxn;
+
+    // The order whose receipt is shown (null while loading / nothing selected)
+    private Order shownOrder;
+
+    public OrderHistoryDialog(Frame owner, RegisterService service) {
+        super(owner, "Order History", false);
+        this.service = service;
+        setDefaultCloseOperation(DISPOSE_ON_CLOSE);
+        setLayout(new BorderLayout(5, 5));
+
+        // --- Filter ---
+        JComboBox<String> range = new JComboBox<>(RANGES);
+        range.setSelectedIndex(RANGES.length - 1);
+        range.addActionListener(e -> showRange(RANGE_DAYS[range.getSelectedIndex()]));
+
+        JPanel top = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        top.add(new JLabel("Show:"));
+        top.add(range);
+        top.add(countLabel);
+        add(top, BorderLayout.NORTH);
+
+        // --- Table + receipt ---
+        table.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        table.getSelectionModel().addListSelectionListener(e -> {
+            if (!e.getValueIsAdjusting()) showSelectedReceipt();
+        });
+
+        receiptArea.setEditable(false);
+        receiptArea.setFont(new Font("Monospaced", Font.PLAIN, 13));
+
+        JSplitPane split = new JSplitPane(JSplitPane.HORIZONTAL_SPLIT,
+                new JScrollPane(table), new JScrollPane(receiptArea));
+        split.setResizeWeight(0.45);
+        add(split, BorderLayout.CENTER);
+
+        // --- Reprint ---
+        printButton.addActionListener(e -> printReceipt());
+        saveButton.addActionListener(e -> saveReceipt());
+        JPanel bottom = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        bottom.add(printButton);
+        bottom.add(saveButton);
+        add(bottom, BorderLayout.SOUTH);
+        showOrder(null);
+
+        model.setErrorHandler(this::showError);
+        model.addTableModelListener(e -> updateCount());
+
+        showRange(0);
+
+        setSize(900, 560);
+        setLocationRelativeTo(owner);
+    }
+
+    /** Restarts the table for orders from the last {@code days} days (0 = all). */
+    private void showRange(int days) {
+        LocalDateTime from = days == 0 ? null : LocalDate.now().minusDays(days - 1L).atStartOfDay();
+        showOrder(null);
+        shownTxn = null;
+        model.reset((after, pageSize) -> service.loadOrderPage(from, null, after, pageSize));
+    }
+
+    private void updateCount() {
+        countLabel.setText(model.getLoadedCount() + (model.isComplete() ? " orders" : "+ orders"));
+    }
+
+    /** Loads the selected order's lines in the background and shows its receipt. */
+    private void showSelectedReceipt() {
+        int row = table.getSelectedRow();
+        Order header = row < 0 ? null : model.getOrderAt(table.convertRowIndexToModel(row));
+        showOrder(null);
+        if (header == null) {
+            shownTxn = null;
+            return;
+        }
+
+        String txn = header.getTxnId();
+        shownTxn = txn;
+        RegisterService.onEdt(service.findOrder(txn))
+                .thenAccept(order -> {
+                    if (!txn.equals(shownTxn)) return;
+                    showOrder(order);
+                    if (order == null) receiptArea.setText("Order " + txn + " no longer exists.");
+                })
+                .exceptionally(e -> {
+                    showError(e);
+                    return null;
+                });
+    }
+
+    private void showOrder(Order order) {
+        shownOrder = order;
+        receiptArea.setText(order == null ? "" : Receipt.generate(order));
+        receiptArea.setCaretPosition(0);
+        printButton.setEnabled(order != null);
+        saveButton.setEnabled(order != null);
+    }
+
+    /** Sends the shown receipt to the receipt printer (in the background: the spooler may block). */
+    private void printReceipt() {
+        Order order = shownOrder;
+        if (order == null) return;
+        RegisterService.onEdt(service.submit(() -> {
+                    ReceiptPrinter.print(order);
+                    return null;
+                }))
+                .exceptionally(e -> {
+                    showError(e);
+                    return null;
+                });
+    }
+
+    /** Writes the shown receipt to an HTML file the user picks. */
+    private void saveReceipt() {
+        Order order = shownOrder;
+        if (order == null) return;
+        JFileChooser chooser = new JFileChooser();
+        chooser.setSelectedFile(new File(order.getTxnId() + ".html"));
+        if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) return;
+
+        Path file = chooser.getSelectedFile().toPath();
+        RegisterService.onEdt(service.submit(() -> {
+                    try (OutputStream out = Files.newOutputStream(file)) {
+                        ReceiptRenderer.standard().render(order, ReceiptFormat.HTML, out);
+                    }
+                    return null;
+                }))
+                .exceptionally(e -> {
+                    showError(e);
+                    return null;
+                });
+    }
+
+    private void showError(Throwable t) {
+        Throwable cause = (t instanceof CompletionException && t.getCause() != null) ? t.getCause() : t;
+        JOptionPane.showMessageDialog(this, cause.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+    }
+}
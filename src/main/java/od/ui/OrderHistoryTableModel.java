@@ -0,0 +1,143 @@
+package od.ui;
+
+import od.model.Order;
+import od.service.RegisterService;
+
+import javax.swing.table.AbstractTableModel;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Virtual table model over the order history, newest first.
+ *
+ * Nothing is loaded up front: JTable only asks for the rows it paints, and
+ * when those get within PREFETCH_ROWS of the end of what is loaded, the
+ * next page is fetched in the background (keyset pages, see
+ * OrderDAO.findPage). While more rows may exist, one extra "Loading…" row
+ * sits at the bottom so the scrollbar keeps growing as the user scrolls.
+ *
+ * Each page arrives as ONE update + ONE insert event, however many rows
+ * it holds. Only order headers are kept (no line items).
+ */
+public class OrderHistoryTableModel extends AbstractTableModel {
+
+    private static final Logger LOG = Logger.getLogger(OrderHistoryTableModel.class.getName());
+
+    /** Fetches the page after {@code after} (null = first page); may complete on any thread. */
+    public interface PageLoader {
+        CompletableFuture<List<Order>> load(Order after, int pageSize);
+    }
+
+    public static final int PAGE_SIZE = 200;
+
+    // Start fetching the next page this many rows before the end
+    private static final int PREFETCH_ROWS = 50;
+
+    private static final String[] COLUMNS = {"Transaction", "Date"};
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final List<Order> rows = new ArrayList<>();
+    private PageLoader loader;
+    private boolean more;
+    private boolean loading;
+
+    // Bumped on every reset, so pages for an old filter are ignored
+    private int generation;
+
+    // Until the dialog sets its own handler, failed pages are just logged
+    private Consumer<Throwable> errorHandler =
+            e -> LOG.log(Level.WARNING, "Could not load a page of order history", e);
+
+    // --- Loading ---
+
+    /** Drops everything loaded and starts over with a new loader (e.g. a new date filter). */
+    public void reset(PageLoader loader) {
+        this.loader = loader;
+        generation++;
+        rows.clear();
+        more = true;
+        loading = false;
+        fireTableDataChanged();
+        requestPage();
+    }
+
+    public void setErrorHandler(Consumer<Throwable> errorHandler) {
+        this.errorHandler = errorHandler;
+    }
+
+    /** Asks for the next page unless one is on its way (EDT only). */
+    private void requestPage() {
+        if (loading || !more || loader == null) return;
+        loading = true;
+
+        int gen = generation;
+        Order after = rows.isEmpty() ? null : rows.get(rows.size() - 1);
+
+        RegisterService.onEdt(loader.load(after, PAGE_SIZE)).whenComplete((page, error) -> {
+            if (gen != generation) return; // filter changed meanwhile
+            loading = false;
+            if (error != null) {
+                more = false;
+                fireTableRowsDeleted(rows.size(), rows.size()); // the "Loading…" row
+                errorHandler.accept(error);
+            } else {
+                append(page);
+            }
+        });
+    }
+
+    /** Adds a page, turning the "Loading…" row into data with one update + one insert/delete event. */
+    private void append(List<Order> page) {
+        int oldCount = getRowCount();
+        int first = rows.size();
+
+        rows.addAll(page);
+        more = page.size() == PAGE_SIZE;
+
+        int newCount = getRowCount();
+        int common = Math.min(oldCount, newCount);
+        if (common > first) fireTableRowsUpdated(first, common - 1);
+        if (newCount > oldCount) fireTableRowsInserted(oldCount, newCount - 1);
+        else if (newCount < oldCount) fireTableRowsDeleted(newCount, oldCount - 1);
+    }
+
+    // --- TableModel ---
+
+    @Override
+    public int getRowCount() {
+        return rows.size() + (more ? 1 : 0);
+    }
+
+    @Override
+    public int getColumnCount() { return COLUMNS.length; }
+
+    @Override
+    public String getColumnName(int col) { return COLUMNS[col]; }
+
+    @Override
+    public Object getValueAt(int row, int col) {
+        // The table is painting near the end: fetch ahead
+        if (row >= rows.size() - PREFETCH_ROWS) requestPage();
+
+        if (row >= rows.size()) return col == 0 ? "Loading…" : "";
+
+        Order o = rows.get(row);
+        return col == 0 ? o.getTxnId() : DATE_FORMAT.format(o.getOrderDate());
+    }
+
+    /** The order header in this row, or null for the "Loading…" row. */
+    public Order getOrderAt(int row) {
+        return row >= 0 && row < rows.size() ? rows.get(row) : null;
+    }
+
+    /** Orders loaded so far. */
+    public int getLoadedCount() { return rows.size(); }
+
+    /** True once the last page has been loaded. */
+    public boolean isComplete() { return !more; }
+}
@@ -0,0 +1,93 @@
+package od.util;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Output formats for ReceiptRenderer.
+ *
+ * Each format knows the bytes for the few layout marks a template can
+ * use (start / end of receipt, bold on / off, paper cut) and how to
+ * encode text:
+ *  - TEXT     plain UTF-8, marks ignored (the dialog / log text)
+ *  - ESC_POS  bytes for a thermal receipt printer: ESC @ reset,
+ *             ESC E bold, feed + GS V partial cut; non-ASCII → '?'
+ *  - HTML     a UTF-8 &lt;pre&gt; block (e-mail receipts), text escaped
+ */
+public enum ReceiptFormat {
+
+    TEXT(1, "", "", "", "", ""),
+
+    ESC_POS(1,
+            "\u001B@",                       // ESC @: reset the printer
+            "",
+            "\u001BE\u0001",                 // ESC E 1: bold on
+            "\u001BE\u0000",                 // ESC E 0: bold off
+            "\u001Bd\u0004\u001DV\u0001"),   // feed 4 lines, GS V 1: partial cut
+
+    HTML(6, "<pre class=\"receipt\">", "</pre>\n", "<b>", "</b>", "");
+
+    // Worst case bytes written for one char of text (UTF-8 BMP = 3, "&quot;" = 6)
+    private final int maxBytesPerChar;
+
+    final byte[] begin, end, boldOn, boldOff, cut;
+
+    ReceiptFormat(int maxBytesPerChar, String begin, String end, String boldOn, String boldOff, String cut) {
+        this.maxBytesPerChar = Math.max(3, maxBytesPerChar);
+        this.begin = ascii(begin);
+        this.end = ascii(end);
+        this.boldOn = ascii(boldOn);
+        this.boldOff = ascii(boldOff);
+        this.cut = ascii(cut);
+    }
+
+    private static byte[] ascii(String s) {
+        return s.getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    /** Upper bound of the bytes encode() writes for {@code chars} chars. */
+    int maxBytes(int chars) {
+        return chars * maxBytesPerChar;
+    }
+
+    /**
+     * Encodes text into {@code dst} at {@code pos}; returns the new position.
+     * The caller makes sure maxBytes(s.length()) bytes are free.
+     */
+    int encode(CharSequence s, byte[] dst, int pos) {
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+
+            if (c < 0x80) {
+                if (this == HTML && (c == '&' || c == '<' || c == '>' || c == '"')) {
+                    pos = putAscii(dst, pos, c == '&' ? "&amp;" : c == '<' ? "&lt;" : c == '>' ? "&gt;" : "&quot;");
+                } else {
+                    dst[pos++] = (byte) c;
+                }
+            } else if (this == ESC_POS) {
+                dst[pos++] = '?'; // printer code pages vary; stay safe
+                if (Character.isHighSurrogate(c) && i + 1 < s.length() && Character.isLowSurrogate(s.charAt(i + 1))) i++;
+            } else if (c < 0x800) {
+                dst[pos++] = (byte) (0xC0 | (c >> 6));
+                dst[pos++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < s.length() && Character.isLowSurrogate(s.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, s.charAt(++i));
+                dst[pos++] = (byte) (0xF0 | (cp >> 18));
+                dst[pos++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                dst[pos++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                dst[pos++] = (byte) (0x80 | (cp & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                dst[pos++] = '?'; // broken surrogate pair
+            } else {
+                dst[pos++] = (byte) (0xE0 | (c >> 12));
+                dst[pos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                dst[pos++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        return pos;
+    }
+
+    private static int putAscii(byte[] dst, int pos, String s) {
+        for (int i = 0; i < s.length(); i++) dst[pos++] = (byte) s.charAt(i);
+        return pos;
+    }
+}
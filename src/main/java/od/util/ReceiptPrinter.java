@@ -0,0 +1,50 @@
+package od.util;
+
+import od.model.Order;
+
+import javax.print.DocFlavor;
+import javax.print.DocPrintJob;
+import javax.print.PrintException;
+import javax.print.PrintService;
+import javax.print.PrintServiceLookup;
+import javax.print.SimpleDoc;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+/**
+ * Sends receipts to a thermal receipt printer as raw ESC/POS bytes.
+ *
+ * The printer is the print service named by -Dod.receipt.printer, or the
+ * system's default printer when that is not set. Printing may block on
+ * the spooler, so call it off the EDT.
+ */
+public final class ReceiptPrinter {
+
+    private ReceiptPrinter() {}
+
+    /** Prints the receipt of one order (e.g. a reprint from the order history). */
+    public static void print(Order order) throws PrintException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(1024);
+        try {
+            ReceiptRenderer.standard().render(order, ReceiptFormat.ESC_POS, bytes);
+        } catch (IOException cannotHappen) {
+            throw new PrintException(cannotHappen);
+        }
+
+        DocPrintJob job = printer().createPrintJob();
+        job.print(new SimpleDoc(bytes.toByteArray(), DocFlavor.BYTE_ARRAY.AUTOSENSE, null), null);
+    }
+
+    private static PrintService printer() throws PrintException {
+        String name = System.getProperty("od.receipt.printer");
+        if (name == null) {
+            PrintService p = PrintServiceLookup.lookupDefaultPrintService();
+            if (p == null) throw new PrintException("No default printer; set -Dod.receipt.printer");
+            return p;
+        }
+        for (PrintService p : PrintServiceLookup.lookupPrintServices(DocFlavor.BYTE_ARRAY.AUTOSENSE, null)) {
+            if (p.getName().equalsIgnoreCase(name)) return p;
+        }
+        throw new PrintException("Receipt printer not found: " + name);
+    }
+}
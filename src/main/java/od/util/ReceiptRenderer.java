@@ -0,0 +1,288 @@
+package od.util;
+
+import od.model.Order;
+import od.model.OrderItem;
+import od.model.Pricing;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Renders orders through a compiled ReceiptTemplate as plain text,
+ * ESC/POS printer bytes or HTML.
+ *
+ * Rendering writes straight into a per-thread byte buffer that is reused
+ * from call to call (numbers and dates are written digit by digit, no
+ * Strings or formatters), then copies the bytes to the OutputStream /
+ * ByteBuffer once. Printing a day's receipts in a loop therefore
+ * allocates next to nothing per order.
+ *
+ * A renderer is immutable and can be shared by any number of threads.
+ */
+public final class ReceiptRenderer {
+
+    private static final ReceiptRenderer STANDARD = new ReceiptRenderer(new ReceiptTemplate(ReceiptTemplate.STANDARD));
+
+    // renderAll() hands the buffer to the stream once it holds this much
+    private static final int FLUSH_BYTES = 32 * 1024;
+
+    // A buffer that grew past this (one huge order) is not kept for the next call
+    private static final int MAX_KEPT_BYTES = 256 * 1024;
+
+    private static final ThreadLocal<Buf> BUFFERS = ThreadLocal.withInitial(Buf::new);
+
+    // "6%" — from Pricing, so the receipt can't disagree with the tax charged
+    private static final String TAX_RATE =
+            BigDecimal.valueOf(Pricing.TAX_BASIS_POINTS, 2).stripTrailingZeros().toPlainString() + "%";
+
+    // values() copies the array on every call
+    private static final ReceiptTemplate.Field[] FIELDS = ReceiptTemplate.Field.values();
+
+    private final ReceiptTemplate template;
+
+    public ReceiptRenderer(ReceiptTemplate template) {
+        this.template = template;
+    }
+
+    /** Renderer for ReceiptTemplate.STANDARD. */
+    public static ReceiptRenderer standard() {
+        return STANDARD;
+    }
+
+    // --- Output ---
+
+    /** Writes one receipt to {@code out}; returns the number of bytes written. */
+    public int render(Order order, ReceiptFormat format, OutputStream out) throws IOException {
+        Buf b = BUFFERS.get();
+        b.len = 0;
+        try {
+            render(order, format, b);
+            out.write(b.bytes, 0, b.len);
+            return b.len;
+        } finally {
+            b.trim();
+        }
+    }
+
+    /**
+     * Puts one receipt into {@code dst}; returns the number of bytes.
+     *
+     * @throws java.nio.BufferOverflowException if it does not fit (dst is left unchanged)
+     */
+    public int render(Order order, ReceiptFormat format, ByteBuffer dst) {
+        Buf b = BUFFERS.get();
+        b.len = 0;
+        try {
+            render(order, format, b);
+            dst.put(b.bytes, 0, b.len);
+            return b.len;
+        } finally {
+            b.trim();
+        }
+    }
+
+    /** The receipt as text (e.g. for the receipt dialog). */
+    public String renderText(Order order) {
+        Buf b = BUFFERS.get();
+        b.len = 0;
+        try {
+            render(order, ReceiptFormat.TEXT, b);
+            return new String(b.bytes, 0, b.len, StandardCharsets.UTF_8);
+        } finally {
+            b.trim();
+        }
+    }
+
+    /**
+     * Writes many receipts back to back (reprints, end-of-day batches),
+     * in chunks of about FLUSH_BYTES.
+     *
+     * @return total bytes written
+     */
+    public long renderAll(Iterable<Order> orders, ReceiptFormat format, OutputStream out) throws IOException {
+        Buf b = BUFFERS.get();
+        b.len = 0;
+        long total = 0;
+        try {
+            for (Order order : orders) {
+                render(order, format, b);
+                if (b.len >= FLUSH_BYTES) {
+                    out.write(b.bytes, 0, b.len);
+                    total += b.len;
+                    b.len = 0;
+                }
+            }
+            out.write(b.bytes, 0, b.len);
+            return total + b.len;
+        } finally {
+            b.trim();
+        }
+    }
+
+    // --- Interpreter ---
+
+    /** Appends one receipt to the buffer. */
+    private void render(Order order, ReceiptFormat f, Buf b) {
+        ReceiptTemplate t = template;
+        List<OrderItem> items = order.getItems();
+
+        // Tax is rounded to the cent first, so the lines always add up
+        long subtotal = order.getTotalCents();
+        long tax = Pricing.taxCents(subtotal);
+
+        b.put(f.begin);
+
+        int line = -1;
+        for (int pc = 0; pc < t.op.length; pc++) {
+            switch (t.op[pc]) {
+                case ReceiptTemplate.LITERAL -> b.put(t.literal(f, t.arg[pc]));
+                case ReceiptTemplate.FIELD -> field(FIELDS[t.arg[pc]],
+                        order, line < 0 ? null : items.get(line), subtotal, tax, f, b);
+                case ReceiptTemplate.LOOP -> {
+                    if (items.isEmpty()) pc = t.jump[pc]; // skip the section
+                    else line = 0;
+                }
+                case ReceiptTemplate.IF -> {
+                    if (isEmpty(FIELDS[t.arg[pc]], line < 0 ? null : items.get(line))) {
+                        pc = t.jump[pc];
+                    }
+                }
+                case ReceiptTemplate.END -> {
+                    int start = t.jump[pc];
+                    if (t.op[start] == ReceiptTemplate.LOOP) {
+                        if (++line < items.size()) pc = start; // next line item
+                        else line = -1;
+                    }
+                }
+                case ReceiptTemplate.BOLD_ON -> b.put(f.boldOn);
+                case ReceiptTemplate.BOLD_OFF -> b.put(f.boldOff);
+                case ReceiptTemplate.CUT -> b.put(f.cut);
+                default -> throw new IllegalStateException("bad op " + t.op[pc]);
+            }
+        }
+
+        b.put(f.end);
+    }
+
+    private static void field(ReceiptTemplate.Field field, Order order, OrderItem item,
+                              long subtotal, long tax, ReceiptFormat f, Buf b) {
+        switch (field) {
+            case TXN -> b.text(order.getTxnId(), f);
+            case DATE -> b.date(order.getOrderDate());
+            case SUBTOTAL -> b.cents(subtotal);
+            case TAX_RATE -> b.text(TAX_RATE, f);
+            case TAX -> b.cents(tax);
+            case TOTAL -> b.cents(subtotal + tax);
+            case ITEM -> b.text(item.getMenuItem().getName(), f);
+            case QTY -> b.number(item.getQty());
+            case UNIT -> b.cents(item.getUnitPriceCents());
+            case LINE_TOTAL -> b.cents(item.getLineTotalCents());
+            case OPTIONS -> b.text(item.getOptions().toString(), f);
+        }
+    }
+
+    /** For {?field}: empty text, zero amount, or no options chosen. */
+    private static boolean isEmpty(ReceiptTemplate.Field field, OrderItem item) {
+        return switch (field) {
+            case OPTIONS -> item.getOptions().toString().isEmpty();
+            case QTY -> item.getQty() == 0;
+            case ITEM -> item.getMenuItem().getName() == null || item.getMenuItem().getName().isEmpty();
+            default -> false; // order-level values are always printed
+        };
+    }
+
+    /** Growable byte buffer, one per thread, reused between receipts. */
+    private static final class Buf {
+        byte[] bytes = new byte[4096];
+        int len;
+
+        void ensure(int extra) {
+            if (len + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, len + extra));
+            }
+        }
+
+        void put(byte[] b) {
+            ensure(b.length);
+            System.arraycopy(b, 0, bytes, len, b.length);
+            len += b.length;
+        }
+
+        void text(String s, ReceiptFormat f) {
+            if (s == null) return;
+            ensure(f.maxBytes(s.length()));
+            len = f.encode(s, bytes, len);
+        }
+
+        /** Digits of a non-negative or negative long. */
+        void number(long v) {
+            ensure(20);
+            if (v < 0) {
+                bytes[len++] = '-';
+                if (v == Long.MIN_VALUE) { // cannot be negated
+                    text("9223372036854775808", ReceiptFormat.TEXT);
+                    return;
+                }
+                v = -v;
+            }
+            int start = len;
+            do {
+                bytes[len++] = (byte) ('0' + v % 10);
+                v /= 10;
+            } while (v != 0);
+            // digits came out backwards
+            for (int i = start, j = len - 1; i < j; i++, j--) {
+                byte tmp = bytes[i];
+                bytes[i] = bytes[j];
+                bytes[j] = tmp;
+            }
+        }
+
+        /** Dollars and cents, same as Money.appendTo ("-1.05"). */
+        void cents(long cents) {
+            if (cents < 0) {
+                ensure(1);
+                bytes[len++] = '-';
+                cents = -cents;
+            }
+            number(cents / 100);
+            ensure(3);
+            long c = cents % 100;
+            bytes[len++] = '.';
+            bytes[len++] = (byte) ('0' + c / 10);
+            bytes[len++] = (byte) ('0' + c % 10);
+        }
+
+        /** yyyy-MM-dd HH:mm */
+        void date(LocalDateTime d) {
+            ensure(16);
+            two(d.getYear() / 100);
+            two(d.getYear() % 100);
+            bytes[len++] = '-';
+            two(d.getMonthValue());
+            bytes[len++] = '-';
+            two(d.getDayOfMonth());
+            bytes[len++] = ' ';
+            two(d.getHour());
+            bytes[len++] = ':';
+            two(d.getMinute());
+        }
+
+        private void two(int v) {
+            bytes[len++] = (byte) ('0' + v / 10);
+            bytes[len++] = (byte) ('0' + v % 10);
+        }
+
+        /** Lets a buffer that grew very large be garbage collected. */
+        void trim() {
+            len = 0;
+            if (bytes.length > MAX_KEPT_BYTES) bytes = new byte[4096];
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package od.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * A receipt layout, compiled once into a flat list of instructions.
+ *
+ * Template syntax — everything outside {...} is printed as is:
+ * <pre>
+ *   {txn} {date} {subtotal} {taxRate} {tax} {total}     order fields
+ *   {#lines} ... {/lines}                                repeat per line item, with
+ *   {item} {qty} {unit} {lineTotal} {options}            the current line's fields
+ *   {?field} ... {/field}                                only if the field is not empty / 0
+ *   {b} ... {/b}                                         bold
+ *   {cut}                                                cut the paper (printers only)
+ * </pre>
+ * Money fields print as dollars with two decimals (no "$"; put it in the
+ * template). Literal text is encoded for every ReceiptFormat at compile
+ * time, so rendering only copies bytes.
+ */
+public final class ReceiptTemplate {
+
+    /** The receipt shown at checkout; TEXT output matches the original Receipt.generate layout. */
+    public static final String STANDARD =
+            "{b}=========== OAK DONUTS RECEIPT ==========={/b}\n"
+            + "Transaction ID: {txn}\n"
+            + "Date: {date}\n"
+            + "\n"
+            + "Items:\n"
+            + "{#lines} - {item} x {qty} @ ${unit} = ${lineTotal}\n"
+            + "{?options}     {options}\n{/options}"
+            + "{/lines}"
+            + "\n"
+            + "Subtotal: ${subtotal}\n"
+            + "Tax ({taxRate}): ${tax}\n"
+            + "{b}TOTAL: ${total}{/b}\n"
+            + "==========================================\n"
+            + "{cut}";
+
+    /** Values a template can print. Line fields are only valid inside {#lines}. */
+    enum Field {
+        TXN("txn", false), DATE("date", false), SUBTOTAL("subtotal", false),
+        TAX_RATE("taxRate", false), TAX("tax", false), TOTAL("total", false),
+        ITEM("item", true), QTY("qty", true), UNIT("unit", true),
+        LINE_TOTAL("lineTotal", true), OPTIONS("options", true);
+
+        final String tag;
+        final boolean perLine;
+
+        Field(String tag, boolean perLine) {
+            this.tag = tag;
+            this.perLine = perLine;
+        }
+
+        static Field byTag(String tag) {
+            for (Field f : values()) {
+                if (f.tag.equals(tag)) return f;
+            }
+            return null;
+        }
+    }
+
+    // --- Instructions ---
+    static final int LITERAL = 0;   // arg = literal index
+    static final int FIELD = 1;     // arg = Field ordinal
+    static final int LOOP = 2;      // jump = matching END
+    static final int IF = 3;        // arg = Field ordinal, jump = matching END
+    static final int END = 4;       // jump = matching LOOP / IF
+    static final int BOLD_ON = 5;
+    static final int BOLD_OFF = 6;
+    static final int CUT = 7;
+
+    final int[] op;
+    final int[] arg;
+    final int[] jump;
+
+    // literals[format.ordinal()][i] = literal i encoded for that format
+    private final byte[][][] literals;
+
+    private final String source;
+
+    /**
+     * Compiles a template.
+     *
+     * @throws IllegalArgumentException on an unknown tag or unbalanced sections
+     */
+    public ReceiptTemplate(String source) {
+        this.source = source;
+
+        List<int[]> code = new ArrayList<>();      // {op, arg, jump}
+        List<String> text = new ArrayList<>();
+        Deque<Integer> open = new ArrayDeque<>();  // indexes of open LOOP / IF
+        boolean inLoop = false, bold = false;
+
+        int pos = 0;
+        while (pos < source.length()) {
+            int brace = source.indexOf('{', pos);
+            int literalEnd = brace < 0 ? source.length() : brace;
+            if (literalEnd > pos) {
+                code.add(new int[]{LITERAL, text.size(), 0});
+                text.add(source.substring(pos, literalEnd));
+            }
+            if (brace < 0) break;
+
+            int close = source.indexOf('}', brace);
+            if (close < 0) throw error("unclosed '{'", brace);
+            String tag = source.substring(brace + 1, close);
+            pos = close + 1;
+
+            if (tag.equals("b") || tag.equals("/b")) {
+                boolean on = tag.equals("b");
+                if (on == bold) throw error(on ? "nested {b}" : "{/b} without {b}", brace);
+                bold = on;
+                code.add(new int[]{on ? BOLD_ON : BOLD_OFF, 0, 0});
+            } else if (tag.equals("cut")) {
+                code.add(new int[]{CUT, 0, 0});
+            } else if (tag.equals("#lines")) {
+                if (inLoop) throw error("nested {#lines}", brace);
+                inLoop = true;
+                open.push(code.size());
+                code.add(new int[]{LOOP, 0, 0});
+            } else if (tag.startsWith("?")) {
+                Field f = field(tag.substring(1), inLoop, brace);
+                open.push(code.size());
+                code.add(new int[]{IF, f.ordinal(), 0});
+            } else if (tag.startsWith("/")) {
+                if (open.isEmpty()) throw error("{" + tag + "} without an opening tag", brace);
+                int start = open.pop();
+                int[] opener = code.get(start);
+                String expected = opener[0] == LOOP ? "lines" : Field.values()[opener[1]].tag;
+                if (!tag.substring(1).equals(expected)) throw error("expected {/" + expected + "}", brace);
+                if (opener[0] == LOOP) inLoop = false;
+                opener[2] = code.size();
+                code.add(new int[]{END, 0, start});
+            } else {
+                code.add(new int[]{FIELD, field(tag, inLoop, brace).ordinal(), 0});
+            }
+        }
+        if (!open.isEmpty()) throw error("section not closed", source.length());
+        if (bold) throw error("{b} not closed", source.length());
+
+        int n = code.size();
+        op = new int[n];
+        arg = new int[n];
+        jump = new int[n];
+        for (int i = 0; i < n; i++) {
+            op[i] = code.get(i)[0];
+            arg[i] = code.get(i)[1];
+            jump[i] = code.get(i)[2];
+        }
+
+        // Encode every literal once per format
+        ReceiptFormat[] formats = ReceiptFormat.values();
+        literals = new byte[formats.length][][];
+        for (ReceiptFormat f : formats) {
+            byte[][] encoded = new byte[text.size()][];
+            for (int i = 0; i < text.size(); i++) {
+                String s = text.get(i);
+                byte[] buf = new byte[f.maxBytes(s.length())];
+                int len = f.encode(s, buf, 0);
+                encoded[i] = Arrays.copyOf(buf, len);
+            }
+            literals[f.ordinal()] = encoded;
+        }
+    }
+
+    private Field field(String tag, boolean inLoop, int at) {
+        Field f = Field.byTag(tag);
+        if (f == null) throw error("unknown field {" + tag + "}", at);
+        if (f.perLine && !inLoop) throw error("{" + tag + "} is only allowed inside {#lines}", at);
+        return f;
+    }
+
+    private IllegalArgumentException error(String message, int at) {
+        return new IllegalArgumentException("Receipt template: " + message + " at position " + at);
+    }
+
+    byte[] literal(ReceiptFormat format, int index) {
+        return literals[format.ordinal()][index];
+    }
+
+    public String getSource() { return source; }
+}
@@ -0,0 +1,184 @@
+package od.util;
+
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generates unique, sortable transaction IDs.
+ *
+ * Format: yyyyMMdd-HHmmss-NNN-SSSS  (local time, register node, sequence)
+ * Example: 20251116-154220-007-0003
+ *
+ * The date/time prefix is the same as the older yyyyMMdd-HHmmss-rand4
+ * IDs, so IDs still sort (and can be routed) by time. Uniqueness comes
+ * from the other two parts instead of a random number:
+ *  - NNN  the register's node number (0–999), unique per register that
+ *         shares the database
+ *  - SSSS a sequence within the second (0–9999)
+ *
+ * Thread-safe and lock-free: the last (second, sequence) pair is kept in
+ * one AtomicLong and advanced with compare-and-set. If more than 10,000
+ * IDs are needed in one second, or the clock steps backwards, the
+ * generator keeps counting on from the last second it used — IDs never
+ * repeat and never go backwards within a register.
+ *
+ * A new generator knows nothing about IDs issued before it was created;
+ * call advancePast() with the newest ID this node has already used (e.g.
+ * from the database) so a restart within the same second can't reuse it.
+ */
+public final class TxnIdGenerator {
+
+    public static final int MAX_NODE = 999;
+
+    private static final int SEQ_PER_SECOND = 10_000;
+    private static final int LENGTH = 24;
+
+    private final int node;
+    private final ZoneRules zoneRules;
+
+    // (local epoch second × SEQ_PER_SECOND) + sequence of the last ID handed out
+    private final AtomicLong last = new AtomicLong(Long.MIN_VALUE);
+
+    // UTC offset, cached until the next daylight-saving change
+    private volatile OffsetWindow offset = new OffsetWindow(Long.MIN_VALUE, Long.MIN_VALUE, 0);
+
+    private record OffsetWindow(long fromMillis, long untilMillis, int offsetSeconds) {}
+
+    public TxnIdGenerator(int node) {
+        this(node, ZoneId.systemDefault());
+    }
+
+    public TxnIdGenerator(int node, ZoneId zone) {
+        if (node < 0 || node > MAX_NODE) {
+            throw new IllegalArgumentException("node must be 0-" + MAX_NODE + ": " + node);
+        }
+        this.node = node;
+        this.zoneRules = zone.getRules();
+    }
+
+    public int getNode() { return node; }
+
+    /**
+     * Makes every later ID sort after {@code txnId}, an ID this node
+     * issued earlier (e.g. before a restart). IDs of other nodes, or in
+     * another format, are ignored.
+     */
+    public void advancePast(String txnId) {
+        long id = parse(txnId);
+        if (id != Long.MIN_VALUE) last.accumulateAndGet(id, Math::max);
+    }
+
+    /** (local second × SEQ_PER_SECOND) + sequence of one of this node's IDs, or Long.MIN_VALUE. */
+    private long parse(String txnId) {
+        if (txnId == null || txnId.length() != LENGTH) return Long.MIN_VALUE;
+        for (int i = 0; i < LENGTH; i++) {
+            char c = txnId.charAt(i);
+            boolean dash = i == 8 || i == 15 || i == 19;
+            if (dash ? c != '-' : c < '0' || c > '9') return Long.MIN_VALUE;
+        }
+        try {
+            if (Integer.parseInt(txnId, 16, 19, 10) != node) return Long.MIN_VALUE;
+            LocalDateTime at = LocalDateTime.of(
+                    Integer.parseInt(txnId, 0, 4, 10), Integer.parseInt(txnId, 4, 6, 10),
+                    Integer.parseInt(txnId, 6, 8, 10), Integer.parseInt(txnId, 9, 11, 10),
+                    Integer.parseInt(txnId, 11, 13, 10), Integer.parseInt(txnId, 13, 15, 10));
+            int seq = Integer.parseInt(txnId, 20, 24, 10);
+            // Local time written as if it were UTC = the "local second" next() counts in
+            return at.toEpochSecond(ZoneOffset.UTC) * SEQ_PER_SECOND + seq;
+        } catch (NumberFormatException | DateTimeException notOurs) {
+            return Long.MIN_VALUE;
+        }
+    }
+
+    /** Next ID for the current time. */
+    public String next() {
+        return next(System.currentTimeMillis());
+    }
+
+    /** Next ID for the given wall-clock time (milliseconds since the epoch). */
+    String next(long nowMillis) {
+        long second = Math.floorDiv(nowMillis, 1000) + offsetSeconds(nowMillis);
+
+        long prev, id;
+        do {
+            prev = last.get();
+            long prevSecond = Math.floorDiv(prev, SEQ_PER_SECOND);
+
+            if (second > prevSecond) {
+                id = second * SEQ_PER_SECOND;          // new second, sequence 0
+            } else {
+                id = prev + 1;                         // same (or earlier) second: count on,
+            }                                          // rolling into the next second if full
+        } while (!last.compareAndSet(prev, id));
+
+        return encode(Math.floorDiv(id, SEQ_PER_SECOND), Math.floorMod(id, SEQ_PER_SECOND));
+    }
+
+    private int offsetSeconds(long nowMillis) {
+        OffsetWindow w = offset;
+        if (nowMillis < w.fromMillis() || nowMillis >= w.untilMillis()) {
+            w = lookUpOffset(nowMillis);
+            offset = w;
+        }
+        return w.offsetSeconds();
+    }
+
+    private OffsetWindow lookUpOffset(long nowMillis) {
+        Instant now = Instant.ofEpochMilli(nowMillis);
+        ZoneOffsetTransition prev = zoneRules.previousTransition(now);
+        ZoneOffsetTransition next = zoneRules.nextTransition(now);
+        return new OffsetWindow(
+                prev == null ? Long.MIN_VALUE : prev.toEpochSecond() * 1000,
+                next == null ? Long.MAX_VALUE : next.toEpochSecond() * 1000,
+                zoneRules.getOffset(now).getTotalSeconds());
+    }
+
+    /**
+     * Writes the ID straight into a char array (no String.format, no
+     * LocalDateTime): the date is computed from the day number with the
+     * standard days → civil calendar conversion.
+     */
+    private String encode(long localSecond, int seq) {
+        long day = Math.floorDiv(localSecond, 86_400);
+        int secOfDay = Math.floorMod(localSecond, 86_400);
+
+        // Days since 1970-01-01 → year / month / day (proleptic Gregorian)
+        long z = day + 719_468;
+        long era = Math.floorDiv(z, 146_097);
+        int doe = (int) (z - era * 146_097);
+        int yoe = (doe - doe / 1_460 + doe / 36_524 - doe / 146_096) / 365;
+        int doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+        int mp = (5 * doy + 2) / 153;
+        int d = doy - (153 * mp + 2) / 5 + 1;
+        int m = mp < 10 ? mp + 3 : mp - 9;
+        int y = (int) (yoe + era * 400) + (m <= 2 ? 1 : 0);
+
+        char[] c = new char[LENGTH];
+        digits(c, 0, y, 4);
+        digits(c, 4, m, 2);
+        digits(c, 6, d, 2);
+        c[8] = '-';
+        digits(c, 9, secOfDay / 3600, 2);
+        digits(c, 11, secOfDay / 60 % 60, 2);
+        digits(c, 13, secOfDay % 60, 2);
+        c[15] = '-';
+        digits(c, 16, node, 3);
+        c[19] = '-';
+        digits(c, 20, seq, 4);
+        return new String(c);
+    }
+
+    /** Writes value as exactly {@code width} zero-padded digits. */
+    private static void digits(char[] c, int at, int value, int width) {
+        for (int i = at + width - 1; i >= at; i--) {
+            c[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package od.dao;
+
+import od.db.Database;
+import od.db.TestDatabase;
+import od.model.MenuItem;
+import od.model.Money;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MenuCatalogTest {
+
+    private static MenuCatalog catalog;
+    private static MenuItemDAO menuDAO;
+
+    @BeforeAll
+    static void setUp() throws Exception {
+        TestDatabase.use();
+        catalog = MenuCatalog.get();
+        menuDAO = new MenuItemDAO();
+        catalog.snapshot();
+    }
+
+    @Test
+    void unknownIdReloadsOnceUntilTheMenuChanges() throws Exception {
+        long reloads = catalog.getReloadCount();
+
+        assertNull(catalog.findById(-42));
+        assertEquals(reloads + 1, catalog.getReloadCount());
+        assertNull(catalog.findById(-42));
+        assertNull(catalog.findById(-42));
+        assertEquals(reloads + 1, catalog.getReloadCount());
+
+        // A write loads a new snapshot, which has to look again
+        menuDAO.insert(new MenuItem("Test Bear Claw", "Pastries", Money.ofCents(299), true));
+        assertEquals(reloads + 2, catalog.getReloadCount());
+        assertNull(catalog.findById(-42));
+        assertEquals(reloads + 3, catalog.getReloadCount());
+    }
+
+    @Test
+    void itemAddedBehindTheCacheIsFoundByReloading() throws Exception {
+        catalog.snapshot();
+        int id;
+        try (Connection conn = Database.get();
+             PreparedStatement ps = conn.prepareStatement(
+                     "INSERT INTO MENU_ITEMS (NAME, CATEGORY, PRICE, ACTIVE) VALUES ('Test Fritter', 'Donuts', 2.10, TRUE)",
+                     Statement.RETURN_GENERATED_KEYS)) {
+            ps.executeUpdate();
+            try (ResultSet keys = ps.getGeneratedKeys()) {
+                assertTrue(keys.next());
+                id = keys.getInt(1);
+            }
+        }
+
+        MenuItem found = catalog.findById(id);
+        assertNotNull(found);
+        assertEquals("Test Fritter", found.getName());
+        assertEquals(Money.ofCents(210), found.getPrice());
+    }
+}
@@ -0,0 +1,61 @@
+package od.dao;
+
+import od.model.MenuItem;
+import od.model.Money;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MenuSearchIndexTest {
+
+    // In display order: category, then name
+    private static final List<MenuItem> MENU = List.of(
+            item(1, "Boston Cream", "Donuts", true),
+            item(2, "Chocolate Glazed", "Donuts", true),
+            item(3, "Glazed", "Donuts", true),
+            item(4, "Old Fashioned Chocolate", "Donuts", false),
+            item(5, "Hot Chocolate", "Drinks", true),
+            item(6, "Iced Coffee (L)", "Drinks", true));
+
+    private static final MenuSearchIndex INDEX = new MenuSearchIndex(MENU);
+
+    private static MenuItem item(int id, String name, String category, boolean active) {
+        return new MenuItem(id, name, category, Money.ofCents(100 + id), active);
+    }
+
+    private static List<Integer> ids(String category, String query) {
+        return INDEX.search(category, query).stream().map(MenuItem::getId).toList();
+    }
+
+    @Test
+    void blankQueryListsActiveItemsInMenuOrder() {
+        assertEquals(List.of(1, 2, 3, 5, 6), ids(null, ""));
+        assertEquals(List.of(1, 2, 3, 5, 6), ids("All", "   "));
+        assertEquals(List.of("Donuts", "Drinks"), List.copyOf(INDEX.categories()));
+    }
+
+    @Test
+    void everyWordMustMatchTheStartOfSomeWord() {
+        assertEquals(List.of(2, 5), ids(null, "choc"));
+        assertEquals(List.of(2), ids(null, "CHO gla"));
+        assertEquals(List.of(2, 3), ids(null, "glazed"));
+        assertEquals(List.of(), ids(null, "lazed"));      // not a word prefix
+        assertEquals(List.of(6), ids(null, "l"));         // "(L)" counts as a word
+        assertEquals(List.of(5, 6), ids(null, "drink"));  // category words match too
+    }
+
+    @Test
+    void categoryNarrowsTheResultAndIgnoresCase() {
+        assertEquals(List.of(2), ids("Donuts", "choc"));
+        assertEquals(List.of(5), ids("drinks", "choc"));
+        assertEquals(List.of(), ids("Bagels", ""));
+    }
+
+    @Test
+    void inactiveItemsNeverMatch() {
+        assertFalse(ids(null, "old").contains(4));
+        assertEquals(6, INDEX.size());
+    }
+}
@@ -0,0 +1,136 @@
+package od.dao;
+
+import od.db.Database;
+import od.db.TestDatabase;
+import od.model.ItemOptions;
+import od.model.MenuItem;
+import od.model.Money;
+import od.model.Order;
+import od.model.OrderItem;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderDAOTest {
+
+    private static OrderDAO orderDAO;
+    private static MenuItem glazed;
+
+    @BeforeAll
+    static void setUp() throws Exception {
+        TestDatabase.use();
+        orderDAO = new OrderDAO();
+        glazed = new MenuItemDAO().insert(new MenuItem("Test Glazed", "Donuts", Money.ofCents(199), true));
+    }
+
+    static Order order(String txnId, LocalDateTime at, MenuItem item, int qty) {
+        Order o = new Order(null, txnId, at);
+        o.addItem(new OrderItem(null, null, item, qty, item.getPrice(), ItemOptions.NONE));
+        return o;
+    }
+
+    @Test
+    void createNewFillsInGeneratedIds() throws Exception {
+        Order o = order("DAO-CREATE-1", LocalDateTime.of(2002, 1, 5, 9, 30), glazed, 3);
+
+        Order saved = orderDAO.createNew(o);
+
+        assertSame(o, saved);
+        assertNotNull(saved.getId());
+        OrderItem line = saved.getItems().get(0);
+        assertNotNull(line.getId());
+        assertEquals(saved.getId(), line.getOrderId());
+
+        Order stored = orderDAO.findByTxn("DAO-CREATE-1");
+        assertEquals(saved.getId(), stored.getId());
+        assertEquals(line.getId(), stored.getItems().get(0).getId());
+        assertEquals(3, stored.getItems().get(0).getQty());
+    }
+
+    @Test
+    void createNewWithVerifyWrites() throws Exception {
+        OrderDAO verifying = new OrderDAO();
+        verifying.setVerifyWrites(true);
+
+        Order saved = verifying.createNew(order("DAO-VERIFY-1", LocalDateTime.of(2002, 1, 6, 10, 0), glazed, 1));
+
+        assertNotNull(saved.getId());
+    }
+
+    @Test
+    void insertNewSkipsOrdersAlreadyStored() throws Exception {
+        LocalDateTime at = LocalDateTime.of(2002, 2, 10, 12, 0);
+        List<Order> batch = List.of(
+                order("DAO-IMPORT-1", at, glazed, 1),
+                order("DAO-IMPORT-2", at.plusMinutes(1), glazed, 2));
+
+        List<Order> first;
+        try (Connection conn = Database.get()) {
+            first = orderDAO.insertNew(conn, batch);
+        }
+        assertEquals(2, first.size());
+
+        // The same orders again (fresh objects, as an import would read them)
+        List<Order> again = List.of(
+                order("DAO-IMPORT-1", at, glazed, 1),
+                order("DAO-IMPORT-2", at.plusMinutes(1), glazed, 2),
+                order("DAO-IMPORT-3", at.plusMinutes(2), glazed, 1),
+                order("DAO-IMPORT-3", at.plusMinutes(2), glazed, 1)); // repeated within the batch
+        List<Order> second;
+        try (Connection conn = Database.get()) {
+            second = orderDAO.insertNew(conn, again);
+        }
+        assertEquals(List.of("DAO-IMPORT-3"), second.stream().map(Order::getTxnId).toList());
+
+        List<Order> month = orderDAO.findPage(at.withDayOfMonth(1), at.withDayOfMonth(1).plusMonths(1), null, 100);
+        assertEquals(3, month.size());
+    }
+
+    @Test
+    void findPageWalksHistoryNewestFirstWithoutGapsOrRepeats() throws Exception {
+        LocalDateTime start = LocalDateTime.of(2002, 3, 1, 8, 0);
+        LocalDateTime end = start.plusMonths(1);
+        // Two orders share a timestamp, so the ID tie-break matters
+        for (int i = 0; i < 7; i++) {
+            LocalDateTime at = start.plusHours(i == 4 ? 3 : i);
+            orderDAO.createNew(order("DAO-PAGE-" + i, at, glazed, 1));
+        }
+
+        List<Order> all = new ArrayList<>();
+        Order after = null;
+        while (true) {
+            List<Order> page = orderDAO.findPage(start, end, after, 3);
+            all.addAll(page);
+            if (page.size() < 3) break;
+            after = page.get(page.size() - 1);
+        }
+
+        assertEquals(7, all.size());
+        Set<String> seen = new HashSet<>();
+        for (int i = 0; i < all.size(); i++) {
+            assertTrue(seen.add(all.get(i).getTxnId()), "repeated " + all.get(i).getTxnId());
+            if (i > 0) {
+                Order newer = all.get(i - 1), older = all.get(i);
+                assertFalse(older.getOrderDate().isAfter(newer.getOrderDate()));
+                if (older.getOrderDate().equals(newer.getOrderDate())) assertTrue(older.getId() < newer.getId());
+            }
+        }
+    }
+
+    @Test
+    void leasedRegisterNodeIsSavedForTheNextStart() throws Exception {
+        int node = OrderDAO.txnIds().getNode();
+
+        assertEquals(Integer.toString(node), Files.readString(TestDatabase.use().resolve("register-node")).trim());
+        assertEquals(String.format("%03d", node), OrderDAO.generateTxnId().substring(16, 19));
+    }
+}
@@ -0,0 +1,73 @@
+package od.dao;
+
+import od.db.TestDatabase;
+import od.metrics.Metrics;
+import od.model.MenuItem;
+import od.model.Money;
+import od.model.Order;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderWritePipelineTest {
+
+    private static OrderDAO orderDAO;
+    private static MenuItem cruller;
+
+    @BeforeAll
+    static void setUp() throws Exception {
+        TestDatabase.use();
+        orderDAO = new OrderDAO();
+        cruller = new MenuItemDAO().insert(new MenuItem("Test Cruller", "Donuts", Money.ofCents(249), true));
+    }
+
+    @Test
+    void ordersInOneWindowAreCommittedTogether() throws Exception {
+        List<CompletableFuture<Order>> saved = new ArrayList<>();
+        try (OrderWritePipeline pipeline = new OrderWritePipeline(orderDAO, 10, 200, 100)) {
+            for (int i = 0; i < 5; i++) {
+                saved.add(pipeline.submit(OrderDAOTest.order("PIPE-BATCH-" + i,
+                        LocalDateTime.of(2001, 11, 3, 9, i), cruller, 1)));
+            }
+            for (CompletableFuture<Order> f : saved) assertNotNull(f.get(10, TimeUnit.SECONDS).getId());
+            assertEquals(5, pipeline.getOrderCount());
+            assertTrue(pipeline.getBatchCount() < 5);
+        }
+    }
+
+    @Test
+    void closeWhileInterruptedStillCompletesTheBatchBeingCollected() throws Exception {
+        List<CompletableFuture<Order>> saved = new ArrayList<>();
+        // A long window, so the writer is still collecting when close() interrupts it
+        OrderWritePipeline pipeline = new OrderWritePipeline(orderDAO, 100, 60_000, 100);
+        for (int i = 0; i < 3; i++) {
+            saved.add(pipeline.submit(OrderDAOTest.order("PIPE-INTERRUPT-" + i,
+                    LocalDateTime.of(2001, 11, 4, 9, i), cruller, 1)));
+        }
+        while (pipeline.getQueuedCount() > 0) Thread.sleep(5); // all taken into the batch
+
+        Thread.currentThread().interrupt();
+        pipeline.close();
+        assertTrue(Thread.interrupted());
+
+        for (CompletableFuture<Order> f : saved) assertNotNull(f.get(10, TimeUnit.SECONDS).getId());
+        assertNotNull(orderDAO.findByTxn("PIPE-INTERRUPT-2"));
+    }
+
+    @Test
+    void everyPipelineKeepsItsOwnGauges() {
+        long before = Metrics.gauges().keySet().stream().filter(n -> n.endsWith(".fallbacks")).count();
+        try (OrderWritePipeline a = new OrderWritePipeline(orderDAO, 10, 5, 10);
+             OrderWritePipeline b = new OrderWritePipeline(orderDAO, 10, 5, 10)) {
+            long after = Metrics.gauges().keySet().stream().filter(n -> n.endsWith(".fallbacks")).count();
+            assertEquals(before + 2, after);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package od.db;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConnectionPoolTest {
+
+    private ConnectionPool pool;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        String url = "jdbc:derby:" + TestDatabase.use().resolve("pool") + ";create=true";
+        pool = new ConnectionPool(url, 2, 200, 2, null);
+        try (Connection c = pool.borrow(); Statement st = c.createStatement()) {
+            try {
+                st.executeUpdate("CREATE TABLE POOL_TEST (N INT)");
+            } catch (SQLException exists) {
+                st.executeUpdate("DELETE FROM POOL_TEST");
+            }
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.close();
+    }
+
+    @Test
+    void returnedConnectionIsReused() throws Exception {
+        try (Connection c = pool.borrow()) {
+            assertEquals(1, pool.getActiveCount());
+        }
+        try (Connection c = pool.borrow()) {
+            assertTrue(c.isValid(1));
+        }
+        assertEquals(1, pool.getOpenCount());
+        assertEquals(0, pool.getActiveCount());
+        assertEquals(1, pool.getIdleCount());
+    }
+
+    @Test
+    void borrowTimesOutWhenEveryConnectionIsInUse() throws Exception {
+        try (Connection a = pool.borrow(); Connection b = pool.borrow()) {
+            assertThrows(SQLTransientConnectionException.class, pool::borrow);
+        }
+        assertEquals(1, pool.getTimeoutCount());
+        // Both came back, so borrowing works again
+        try (Connection c = pool.borrow()) {
+            assertFalse(c.isClosed());
+        }
+    }
+
+    @Test
+    void unfinishedTransactionIsRolledBackWhenTheConnectionComesBack() throws Exception {
+        try (Connection c = pool.borrow(); Statement st = c.createStatement()) {
+            c.setAutoCommit(false);
+            st.executeUpdate("INSERT INTO POOL_TEST VALUES (1)");
+            // no commit
+        }
+        try (Connection c = pool.borrow(); Statement st = c.createStatement();
+             ResultSet rs = st.executeQuery("SELECT COUNT(*) FROM POOL_TEST")) {
+            assertTrue(c.getAutoCommit());
+            assertTrue(rs.next());
+            assertEquals(0, rs.getInt(1));
+        }
+    }
+
+    @Test
+    void closingTwiceGivesTheConnectionBackOnce() throws Exception {
+        Connection c = pool.borrow();
+        c.close();
+        c.close();
+        assertTrue(c.isClosed());
+        assertEquals(0, pool.getActiveCount());
+        try (Connection a = pool.borrow(); Connection b = pool.borrow()) {
+            assertEquals(2, pool.getActiveCount());
+        }
+    }
+
+    @Test
+    void closedPoolRefusesToLend() {
+        pool.close();
+        assertThrows(SQLException.class, pool::borrow);
+    }
+}
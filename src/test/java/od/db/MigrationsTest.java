@@ -0,0 +1,123 @@
+package od.db;
+
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MigrationsTest {
+
+    /** A database of its own, so the migrations start from nothing. */
+    private static Connection open(String name) throws SQLException {
+        return DriverManager.getConnection("jdbc:derby:" + TestDatabase.use().resolve(name) + ";create=true");
+    }
+
+    /** The three tables (and some data) as created before schema versioning existed. */
+    private static void createBaseline(Connection conn) throws SQLException {
+        try (Statement st = conn.createStatement()) {
+            st.executeUpdate("""
+                CREATE TABLE MENU_ITEMS (
+                    ID INTEGER GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
+                    NAME VARCHAR(100) NOT NULL,
+                    CATEGORY VARCHAR(50) NOT NULL,
+                    PRICE DECIMAL(10,2) NOT NULL,
+                    ACTIVE BOOLEAN NOT NULL DEFAULT TRUE
+                )
+            """);
+            st.executeUpdate("""
+                CREATE TABLE ORDERS (
+                    ID INTEGER GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
+                    TXN_ID VARCHAR(40) NOT NULL UNIQUE,
+                    ORDER_DATE TIMESTAMP NOT NULL
+                )
+            """);
+            st.executeUpdate("""
+                CREATE TABLE ORDER_ITEMS (
+                    ID INTEGER GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
+                    ORDER_ID INTEGER NOT NULL,
+                    MENU_ITEM_ID INTEGER NOT NULL,
+                    QTY INTEGER NOT NULL,
+                    UNIT_PRICE DECIMAL(10,2) NOT NULL,
+                    FOREIGN KEY (ORDER_ID) REFERENCES ORDERS(ID),
+                    FOREIGN KEY (MENU_ITEM_ID) REFERENCES MENU_ITEMS(ID)
+                )
+            """);
+
+            st.executeUpdate("INSERT INTO MENU_ITEMS (NAME, CATEGORY, PRICE) VALUES ('Glazed', 'Donuts', 1.49)");
+            st.executeUpdate("INSERT INTO MENU_ITEMS (NAME, CATEGORY, PRICE) VALUES ('Coffee', 'Drinks', 1.99)");
+            st.executeUpdate("INSERT INTO ORDERS (TXN_ID, ORDER_DATE) VALUES ('20240102-081500-4821', '2024-01-02 08:15:00')");
+            st.executeUpdate("INSERT INTO ORDERS (TXN_ID, ORDER_DATE) VALUES ('20240102-084000-1377', '2024-01-02 08:40:00')");
+            st.executeUpdate("INSERT INTO ORDER_ITEMS (ORDER_ID, MENU_ITEM_ID, QTY, UNIT_PRICE) VALUES (1, 1, 3, 1.49)");
+            st.executeUpdate("INSERT INTO ORDER_ITEMS (ORDER_ID, MENU_ITEM_ID, QTY, UNIT_PRICE) VALUES (1, 2, 1, 1.99)");
+            st.executeUpdate("INSERT INTO ORDER_ITEMS (ORDER_ID, MENU_ITEM_ID, QTY, UNIT_PRICE) VALUES (2, 2, 2, 1.99)");
+        }
+    }
+
+    private static List<String> rows(Connection conn, String sql) throws SQLException {
+        List<String> out = new ArrayList<>();
+        try (Statement st = conn.createStatement(); ResultSet rs = st.executeQuery(sql)) {
+            int columns = rs.getMetaData().getColumnCount();
+            while (rs.next()) {
+                StringBuilder row = new StringBuilder();
+                for (int c = 1; c <= columns; c++) row.append(c > 1 ? " " : "").append(rs.getString(c));
+                out.add(row.toString());
+            }
+        }
+        return out;
+    }
+
+    @Test
+    void baselineDatabaseIsUpgradedWithItsDataKept() throws Exception {
+        try (Connection conn = open("migrate-baseline")) {
+            createBaseline(conn);
+            SchemaMigrator migrator = new SchemaMigrator(Migrations.ALL);
+
+            assertEquals(Migrations.ALL.size(), migrator.migrate(conn));
+
+            assertEquals(List.of("1", "2", "3", "4", "5", "6", "7", "8"),
+                    rows(conn, "SELECT VERSION FROM SCHEMA_VERSION ORDER BY VERSION"));
+            assertEquals(List.of("1 1 3 1.49 0 0 0", "1 2 1 1.99 0 0 0", "2 2 2 1.99 0 0 0"), rows(conn,
+                    "SELECT ORDER_ID, MENU_ITEM_ID, QTY, UNIT_PRICE, SIZE_CODE, ICING_CODE, FILLING_CODE"
+                            + " FROM ORDER_ITEMS ORDER BY ID"));
+
+            // V2 indexes, V5 rollups backfilled from the existing orders (4.47 + 1.99, 3.98)
+            assertTrue(SchemaMigrator.indexExists(conn, "ORDERS", "IX_ORDERS_DATE_ID"));
+            assertTrue(SchemaMigrator.indexExists(conn, "MENU_ITEMS", "IX_MENU_ITEMS_NAME"));
+            assertEquals(List.of("2024-01-02 8 2 6 1044 63"), rows(conn,
+                    "SELECT BUCKET_DATE, BUCKET_HOUR, ORDER_COUNT, QTY, GROSS_CENTS, TAX_CENTS FROM SALES_HOURLY"));
+            assertEquals(List.of("1 Donuts 3 447", "2 Drinks 3 597"), rows(conn,
+                    "SELECT MENU_ITEM_ID, CATEGORY, QTY, GROSS_CENTS FROM SALES_HOURLY_ITEMS ORDER BY MENU_ITEM_ID"));
+
+            // V6–V8
+            assertEquals(List.of("archive.version 0", "menu.version 0"), rows(conn,
+                    "SELECT NAME, VAL FROM DB_SETTINGS WHERE NAME LIKE '%.version' ORDER BY NAME"));
+            assertTrue(SchemaMigrator.tableExists(conn, "ORDER_ARCHIVES"));
+            assertTrue(SchemaMigrator.tableExists(conn, "ARCHIVED_ORDERS"));
+
+            // Up to date: nothing more to do
+            assertEquals(0, migrator.migrate(conn));
+        }
+    }
+
+    @Test
+    void emptyDatabaseGetsTheWholeSchema() throws Exception {
+        try (Connection conn = open("migrate-empty")) {
+            SchemaMigrator migrator = new SchemaMigrator(Migrations.ALL);
+
+            assertEquals(Migrations.ALL.size(), migrator.migrate(conn));
+            assertEquals(8, migrator.getLatestVersion());
+            for (String table : List.of("MENU_ITEMS", "ORDERS", "ORDER_ITEMS", "DB_SETTINGS",
+                    "SALES_HOURLY", "SALES_HOURLY_ITEMS", "ORDER_ARCHIVES", "ARCHIVED_ORDERS")) {
+                assertTrue(SchemaMigrator.tableExists(conn, table), table);
+            }
+            assertEquals(List.of(), rows(conn, "SELECT * FROM SALES_HOURLY"));
+        }
+    }
+}
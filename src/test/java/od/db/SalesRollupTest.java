@@ -0,0 +1,132 @@
+package od.db;
+
+import od.dao.MenuItemDAO;
+import od.dao.OrderDAO;
+import od.dao.SalesReportDAO;
+import od.dao.SalesReportDAO.ItemSales;
+import od.dao.SalesReportDAO.Totals;
+import od.model.ItemOptions;
+import od.model.MenuItem;
+import od.model.Money;
+import od.model.Order;
+import od.model.OrderItem;
+import od.model.Pricing;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SalesRollupTest {
+
+    private static final LocalDate DAY = LocalDate.of(2001, 12, 5);
+
+    private static OrderDAO orderDAO;
+    private static SalesReportDAO reports;
+    private static MenuItem sprinkle, latte;
+
+    @BeforeAll
+    static void setUp() throws Exception {
+        TestDatabase.use();
+        orderDAO = new OrderDAO();
+        reports = new SalesReportDAO();
+        MenuItemDAO menu = new MenuItemDAO();
+        sprinkle = menu.insert(new MenuItem("Test Sprinkle", "Rollup Donuts", Money.ofCents(189), true));
+        latte = menu.insert(new MenuItem("Test Latte", "Rollup Drinks", Money.ofCents(325), true));
+
+        orderDAO.createNew(order("ROLLUP-1", DAY.atTime(9, 5), 2, 1));
+        orderDAO.createNew(order("ROLLUP-2", DAY.atTime(9, 40), 1, 0));
+        orderDAO.createNew(order("ROLLUP-3", DAY.atTime(14, 15), 0, 2));
+    }
+
+    private static Order order(String txn, LocalDateTime at, int sprinkles, int lattes) {
+        Order o = new Order(null, txn, at);
+        if (sprinkles > 0) o.addItem(new OrderItem(null, null, sprinkle, sprinkles, sprinkle.getPrice(), ItemOptions.NONE));
+        if (lattes > 0) o.addItem(new OrderItem(null, null, latte, lattes, latte.getPrice(), ItemOptions.NONE));
+        return o;
+    }
+
+    @Test
+    void reportsMatchTheOrdersAndFollowDeletes() throws Exception {
+        // 2 × 1.89 + 3.25 = 7.03, 1.89, 2 × 3.25 = 6.50
+        long tax = Pricing.taxCents(703) + Pricing.taxCents(189) + Pricing.taxCents(650);
+        assertEquals(new Totals(3, 6, 1542, tax), reports.totals(DAY, DAY));
+
+        Map<Integer, Totals> hours = reports.hourly(DAY);
+        assertEquals(List.of(9, 14), new ArrayList<>(hours.keySet()));
+        assertEquals(2, hours.get(9).orderCount());
+        assertEquals(650, hours.get(14).grossCents());
+
+        long sprinkleQty = reports.byItem(DAY, DAY).stream()
+                .filter(s -> sprinkle.getId().equals(s.menuItemId()))
+                .mapToLong(ItemSales::qty).sum();
+        assertEquals(3, sprinkleQty);
+
+        orderDAO.deleteByTxn("ROLLUP-2");
+        assertEquals(new Totals(2, 5, 1353, Pricing.taxCents(703) + Pricing.taxCents(650)), reports.totals(DAY, DAY));
+        assertEquals(1, reports.hourly(DAY).get(9).orderCount());
+
+        orderDAO.createNew(order("ROLLUP-2", DAY.atTime(9, 40), 1, 0));
+        assertEquals(new Totals(3, 6, 1542, tax), reports.totals(DAY, DAY));
+    }
+
+    @Test
+    void backfillRebuildsTheSameBucketsAsIncrementalUpdates() throws Exception {
+        try (Connection conn = Database.get()) {
+            conn.setAutoCommit(false);
+            try {
+                List<String> incremental = buckets(conn);
+                assertFalse(incremental.isEmpty());
+
+                try (Statement st = conn.createStatement()) {
+                    st.executeUpdate("DELETE FROM SALES_HOURLY");
+                    st.executeUpdate("DELETE FROM SALES_HOURLY_ITEMS");
+                }
+                SalesRollup.backfill(conn);
+
+                assertEquals(incremental, buckets(conn));
+            } finally {
+                conn.rollback(); // other test classes' rollups (e.g. archived months) stay as they were
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
+    /** Every rollup row for DAY, as text, in key order. */
+    private static List<String> buckets(Connection conn) throws Exception {
+        List<String> rows = new ArrayList<>();
+        try (PreparedStatement ps = conn.prepareStatement(
+                "SELECT BUCKET_HOUR, ORDER_COUNT, QTY, GROSS_CENTS, TAX_CENTS FROM SALES_HOURLY"
+                        + " WHERE BUCKET_DATE = ? ORDER BY BUCKET_HOUR")) {
+            ps.setDate(1, Date.valueOf(DAY));
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    rows.add("hour " + rs.getInt(1) + ": " + rs.getInt(2) + " " + rs.getInt(3)
+                            + " " + rs.getLong(4) + " " + rs.getLong(5));
+                }
+            }
+        }
+        try (PreparedStatement ps = conn.prepareStatement(
+                "SELECT BUCKET_HOUR, MENU_ITEM_ID, CATEGORY, QTY, GROSS_CENTS FROM SALES_HOURLY_ITEMS"
+                        + " WHERE BUCKET_DATE = ? ORDER BY BUCKET_HOUR, MENU_ITEM_ID")) {
+            ps.setDate(1, Date.valueOf(DAY));
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    rows.add("item " + rs.getInt(1) + "/" + rs.getInt(2) + ": " + rs.getString(3)
+                            + " " + rs.getInt(4) + " " + rs.getLong(5));
+                }
+            }
+        }
+        return rows;
+    }
+}
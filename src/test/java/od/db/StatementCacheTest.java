@@ -0,0 +1,117 @@
+package od.db;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StatementCacheTest {
+
+    private static final int CACHE_SIZE = 2;
+
+    private ConnectionPool pool;
+
+    @BeforeEach
+    void setUp() {
+        String url = "jdbc:derby:" + TestDatabase.use().resolve("statement-cache") + ";create=true";
+        pool = new ConnectionPool(url, 1, 1_000, 2, CACHE_SIZE, null);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.close();
+    }
+
+    private static int value(PreparedStatement ps) throws SQLException {
+        try (ResultSet rs = ps.executeQuery()) {
+            assertTrue(rs.next());
+            return rs.getInt(1);
+        }
+    }
+
+    @Test
+    void preparingMoreThanMaxSizeWhileAllAreOpenKeepsEveryStatementUsable() throws Exception {
+        try (Connection c = pool.borrow()) {
+            PreparedStatement[] open = new PreparedStatement[CACHE_SIZE + 1];
+            for (int i = 0; i < open.length; i++) open[i] = c.prepareStatement("VALUES " + i);
+
+            // The last one is new and must not have been evicted by its own prepare
+            for (int i = 0; i < open.length; i++) assertEquals(i, value(open[i]));
+            assertEquals(0, pool.getStatementEvictionCount());
+
+            for (PreparedStatement ps : open) ps.close();
+            // Once they are back the next miss trims the cache to size again
+            try (PreparedStatement ps = c.prepareStatement("VALUES 99")) {
+                assertEquals(99, value(ps));
+            }
+            assertEquals(2, pool.getStatementEvictionCount());
+        }
+    }
+
+    @Test
+    void sameSqlIsPreparedOnce() throws Exception {
+        try (Connection c = pool.borrow()) {
+            for (int i = 0; i < 3; i++) {
+                try (PreparedStatement ps = c.prepareStatement("VALUES CAST(? AS INT)")) {
+                    ps.setInt(1, i);
+                    assertEquals(i, value(ps));
+                }
+            }
+        }
+        assertEquals(1, pool.getStatementMissCount());
+        assertEquals(2, pool.getStatementHitCount());
+    }
+
+    @Test
+    void returnedStatementComesBackWithItsSettingsReset() throws Exception {
+        try (Connection c = pool.borrow()) {
+            try (PreparedStatement ps = c.prepareStatement("VALUES 1")) {
+                ps.setMaxRows(5);
+                ps.setQueryTimeout(30);
+            }
+            try (PreparedStatement ps = c.prepareStatement("VALUES 1")) {
+                assertEquals(0, ps.getMaxRows());
+                assertEquals(0, ps.getQueryTimeout());
+            }
+        }
+    }
+
+    @Test
+    void duplicateOfAnOpenStatementIsUncachedButStillReportsThePooledConnection() throws Exception {
+        try (Connection c = pool.borrow()) {
+            try (PreparedStatement first = c.prepareStatement("VALUES 1");
+                 PreparedStatement second = c.prepareStatement("VALUES 1")) {
+                assertSame(c, first.getConnection());
+                assertSame(c, second.getConnection());
+                assertEquals(1, value(first));
+                assertEquals(1, value(second));
+            }
+            // The cached one is still there afterwards
+            try (PreparedStatement again = c.prepareStatement("VALUES 1")) {
+                assertEquals(1, value(again));
+            }
+        }
+        assertEquals(1, pool.getStatementHitCount());
+    }
+
+    @Test
+    void statementLeftOpenIsTakenBackWithTheConnection() throws Exception {
+        PreparedStatement forgotten;
+        try (Connection c = pool.borrow()) {
+            forgotten = c.prepareStatement("VALUES 1");
+        }
+        assertTrue(forgotten.isClosed());
+        assertThrows(SQLException.class, forgotten::executeQuery);
+
+        try (Connection c = pool.borrow(); PreparedStatement ps = c.prepareStatement("VALUES 1")) {
+            assertEquals(1, value(ps));
+        }
+        assertEquals(1, pool.getStatementHitCount());
+    }
+}
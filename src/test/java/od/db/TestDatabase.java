@@ -0,0 +1,42 @@
+package od.db;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Points the app at a fresh embedded Derby database in a temp directory
+ * (and keeps its other local files, like the register node, there too).
+ *
+ * Database reads its settings from system properties once, when the class
+ * is first loaded, so every test that touches the database calls use()
+ * from a @BeforeAll before doing anything else. All test classes of a run
+ * share the one database; tests keep apart by using their own TXN_IDs and
+ * their own months.
+ */
+public final class TestDatabase {
+
+    private static Path dir;
+
+    private TestDatabase() {}
+
+    /** Sets the od.* / derby.* properties (first call only) and returns the temp directory. */
+    public static synchronized Path use() {
+        if (dir == null) {
+            try {
+                dir = Files.createTempDirectory("od-test-");
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            System.setProperty("od.db.mode", "embedded");
+            System.setProperty("od.db.name", dir.resolve("db").toString());
+            System.setProperty("od.archive.dir", dir.resolve("archive").toString());
+            System.setProperty("od.journal.enabled", "false");
+            System.setProperty("od.register.nodeFile", dir.resolve("register-node").toString());
+            // Keep derby.log out of the working directory
+            System.setProperty("derby.stream.error.file", dir.resolve("derby.log").toString());
+        }
+        return dir;
+    }
+}
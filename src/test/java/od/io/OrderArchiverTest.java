@@ -0,0 +1,155 @@
+package od.io;
+
+import od.dao.MenuItemDAO;
+import od.dao.OrderArchives;
+import od.dao.OrderDAO;
+import od.dao.SalesReportDAO;
+import od.db.TestDatabase;
+import od.model.ItemOptions;
+import od.model.MenuItem;
+import od.model.Money;
+import od.model.Order;
+import od.model.OrderItem;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderArchiverTest {
+
+    private static OrderDAO orderDAO;
+    private static OrderArchiver archiver;
+    private static MenuItem cruller;
+
+    @TempDir
+    Path dir;
+
+    @BeforeAll
+    static void setUp() throws Exception {
+        TestDatabase.use();
+        orderDAO = new OrderDAO();
+        archiver = new OrderArchiver(orderDAO, OrderArchives.get());
+        cruller = new MenuItemDAO().insert(new MenuItem("Test Cruller", "Donuts", Money.ofCents(249), true));
+    }
+
+    private static Order order(String txnId, LocalDateTime at, int qty) {
+        Order o = new Order(null, txnId, at);
+        o.addItem(new OrderItem(null, null, cruller, qty, cruller.getPrice(), ItemOptions.NONE));
+        return o;
+    }
+
+    @Test
+    void archivedOrdersAreFoundAndPagedTogetherWithLiveOnes() throws Exception {
+        YearMonth june = YearMonth.of(2001, 6);
+        LocalDateTime start = june.atDay(1).atStartOfDay();
+        for (int i = 0; i < 5; i++) {
+            orderDAO.createNew(order("ARC-" + i, start.plusDays(i + 1).plusHours(9), i + 1));
+        }
+        // ID dated 31 May, saved just after midnight: filed under June
+        orderDAO.createNew(order("20010531-235959-001-0001", start.plusSeconds(1), 1));
+        orderDAO.createNew(order("ARC-JULY", start.plusMonths(1).plusDays(2), 1));
+
+        OrderArchiver.Result r = archiver.archiveMonth(june);
+        assertEquals(6, r.ordersMoved());
+
+        // Saved into June after it was archived: stays live
+        orderDAO.createNew(order("ARC-LATE", start.plusDays(20), 1));
+
+        Order archived = orderDAO.findByTxn("ARC-2");
+        assertNotNull(archived);
+        assertEquals(3, archived.getItems().get(0).getQty());
+        assertNotNull(orderDAO.findByTxn("20010531-235959-001-0001"));
+        assertNotNull(orderDAO.findByTxn("ARC-LATE"));
+        assertNull(orderDAO.findByTxn("ARC-NOPE"));
+
+        Map<String, Order> many = orderDAO.findByTxns(List.of("ARC-0", "20010531-235959-001-0001", "ARC-LATE", "ARC-JULY"));
+        assertEquals(4, many.size());
+
+        assertThrows(SQLException.class, () -> orderDAO.deleteByTxn("ARC-1"));
+
+        // Page through June and July in small pages: 5 + 1 archived, 1 late, 1 July
+        List<String> txns = new ArrayList<>();
+        List<Order> all = new ArrayList<>();
+        Order after = null;
+        while (true) {
+            List<Order> page = orderDAO.findPage(start, start.plusMonths(2), after, 3);
+            all.addAll(page);
+            page.forEach(o -> txns.add(o.getTxnId()));
+            if (page.size() < 3) break;
+            after = page.get(page.size() - 1);
+        }
+        assertEquals(List.of("ARC-JULY", "ARC-LATE", "ARC-4", "ARC-3", "ARC-2", "ARC-1", "ARC-0",
+                "20010531-235959-001-0001"), txns);
+        for (int i = 1; i < all.size(); i++) {
+            assertFalse(all.get(i).getOrderDate().isAfter(all.get(i - 1).getOrderDate()));
+        }
+    }
+
+    /** TXN_IDs of every order in the month, via findPage (live + archived). */
+    private static List<String> txnsOf(YearMonth month) throws SQLException {
+        List<String> out = new ArrayList<>();
+        for (Order o : orderDAO.findPage(month.atDay(1).atStartOfDay(), month.plusMonths(1).atDay(1).atStartOfDay(), null, 1000)) {
+            out.add(o.getTxnId());
+        }
+        return out;
+    }
+
+    @Test
+    void reimportingAnArchivedMonthAddsNothing() throws Exception {
+        YearMonth sept = YearMonth.of(2001, 9);
+        LocalDateTime start = sept.atDay(1).atStartOfDay();
+        for (int i = 0; i < 4; i++) {
+            orderDAO.createNew(order("REIMPORT-" + i, start.plusDays(i).plusHours(10), i + 1));
+        }
+        Path export = dir.resolve("sept.odx");
+        OrderTransfer transfer = new OrderTransfer(new MenuItemDAO(), orderDAO);
+        assertEquals(4, transfer.export(export, OrderFormat.BINARY, start, start.plusMonths(1)));
+
+        SalesReportDAO reports = new SalesReportDAO();
+        SalesReportDAO.Totals before = reports.totals(sept.atDay(1), sept.atEndOfMonth());
+        assertEquals(4, before.orderCount());
+
+        assertEquals(4, archiver.archiveMonth(sept).ordersMoved());
+
+        OrderTransfer.ImportResult r = transfer.importFile(export, OrderFormat.BINARY);
+        assertEquals(4, r.ordersRead());
+        assertEquals(0, r.ordersInserted());
+
+        assertEquals(before, reports.totals(sept.atDay(1), sept.atEndOfMonth()));
+        List<String> txns = txnsOf(sept);
+        assertEquals(4, txns.size());
+        assertEquals(4, new HashSet<>(txns).size());
+    }
+
+    @Test
+    void rearchivingRemovesLiveCopiesOfArchivedOrders() throws Exception {
+        YearMonth oct = YearMonth.of(2001, 10);
+        LocalDateTime start = oct.atDay(1).atStartOfDay();
+        for (int i = 0; i < 3; i++) {
+            orderDAO.createNew(order("DUP-" + i, start.plusDays(i).plusHours(8), 2));
+        }
+        SalesReportDAO reports = new SalesReportDAO();
+        SalesReportDAO.Totals before = reports.totals(oct.atDay(1), oct.atEndOfMonth());
+        archiver.archiveMonth(oct);
+
+        // A copy saved again after archiving (as imports did before they checked ARCHIVED_ORDERS)
+        orderDAO.createNew(order("DUP-1", start.plusDays(1).plusHours(8), 2));
+        assertEquals(4, txnsOf(oct).size());
+
+        archiver.archiveMonth(oct);
+
+        assertEquals(List.of("DUP-2", "DUP-1", "DUP-0"), txnsOf(oct));
+        assertEquals(before, reports.totals(oct.atDay(1), oct.atEndOfMonth()));
+        assertEquals(2, orderDAO.findByTxn("DUP-1").getItems().get(0).getQty());
+    }
+}
@@ -0,0 +1,118 @@
+package od.io;
+
+import od.model.ItemOptions;
+import od.model.MenuItem;
+import od.model.Money;
+import od.model.Order;
+import od.model.OrderItem;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Writes each export format and reads it back (no database needed). */
+class OrderFormatTest {
+
+    @TempDir
+    Path dir;
+
+    private final MenuItem glazed = new MenuItem(7, "Glazed, \"big\"", "Donuts", Money.ofCents(199), true);
+    private final MenuItem latte = new MenuItem(12, "Latte", "Drinks", Money.ofCents(425), false);
+
+    private List<Order> sampleOrders() {
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Order o = new Order(null, "FMT-" + i, LocalDateTime.of(2024, 2, 29, 23, 59, 58, 123_000_000).plusSeconds(i));
+            o.addItem(new OrderItem(null, null, glazed, i + 1, Money.ofCents(199),
+                    ItemOptions.of(ItemOptions.Size.LARGE, ItemOptions.Icing.CHOCOLATE, ItemOptions.Filling.NONE)));
+            o.addItem(new OrderItem(null, null, latte, 1, Money.ofCents(400), ItemOptions.NONE));
+            orders.add(o);
+        }
+        return orders;
+    }
+
+    private Path write(OrderFormat format, List<Order> orders, boolean finish) throws IOException {
+        Path file = dir.resolve("export-" + format + "-" + finish);
+        try (OrderWriter w = format.newWriter(FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE))) {
+            w.writeMenuItem(glazed);
+            w.writeMenuItem(latte);
+            for (Order o : orders) w.writeOrder(o);
+            if (finish) w.finish();
+        }
+        return file;
+    }
+
+    private static void read(OrderFormat format, Path file, List<MenuItem> items, List<Order> orders) throws IOException {
+        try (OrderReader r = format.newReader(FileChannel.open(file))) {
+            r.readAll(new OrderReader.Handler() {
+                @Override
+                public void menuItem(MenuItem item) { items.add(item); }
+
+                @Override
+                public void order(Order order) { orders.add(order); }
+            });
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(OrderFormat.class)
+    void roundTrip(OrderFormat format) throws IOException {
+        List<Order> written = sampleOrders();
+        Path file = write(format, written, true);
+
+        List<MenuItem> items = new ArrayList<>();
+        List<Order> orders = new ArrayList<>();
+        read(format, file, items, orders);
+
+        assertEquals(2, items.size());
+        assertEquals(glazed.getName(), items.get(0).getName());
+        assertEquals(glazed.getPriceCents(), items.get(0).getPriceCents());
+        assertFalse(items.get(1).isActive());
+
+        assertEquals(written.size(), orders.size());
+        for (int i = 0; i < written.size(); i++) {
+            Order a = written.get(i), b = orders.get(i);
+            assertEquals(a.getTxnId(), b.getTxnId());
+            assertEquals(a.getOrderDate(), b.getOrderDate());
+            assertEquals(a.getItems().size(), b.getItems().size());
+            for (int j = 0; j < a.getItems().size(); j++) {
+                OrderItem x = a.getItems().get(j), y = b.getItems().get(j);
+                assertEquals(x.getMenuItem().getId(), y.getMenuItem().getId());
+                assertEquals(x.getQty(), y.getQty());
+                assertEquals(x.getUnitPriceCents(), y.getUnitPriceCents());
+                assertEquals(x.getOptions().getSize(), y.getOptions().getSize());
+                assertEquals(x.getOptions().getIcing(), y.getOptions().getIcing());
+                assertEquals(x.getOptions().getFilling(), y.getOptions().getFilling());
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(OrderFormat.class)
+    void unfinishedExportIsRejected(OrderFormat format) throws IOException {
+        Path file = write(format, sampleOrders(), false);
+
+        assertThrows(IOException.class, () -> read(format, file, new ArrayList<>(), new ArrayList<>()));
+    }
+
+    @ParameterizedTest
+    @EnumSource(OrderFormat.class)
+    void truncatedExportIsRejected(OrderFormat format) throws IOException {
+        Path file = write(format, sampleOrders(), true);
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length / 2));
+
+        assertThrows(IOException.class, () -> read(format, file, new ArrayList<>(), new ArrayList<>()));
+    }
+}
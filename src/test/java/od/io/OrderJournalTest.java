@@ -0,0 +1,165 @@
+package od.io;
+
+import od.model.ItemOptions;
+import od.model.MenuItem;
+import od.model.Money;
+import od.model.Order;
+import od.model.OrderItem;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderJournalTest {
+
+    private static final int SEGMENT_BYTES = 4096;
+
+    @TempDir
+    Path dir;
+
+    private final MenuItem glazed = new MenuItem(7, "Glazed", "Donuts", Money.ofCents(199), true);
+
+    private Order order(String txnId) {
+        Order o = new Order(null, txnId, LocalDateTime.of(2025, 1, 1, 10, 0));
+        o.addItem(new OrderItem(null, null, glazed, 2, Money.ofCents(199), ItemOptions.NONE));
+        return o;
+    }
+
+    private void append(int from, int to) throws Exception {
+        try (OrderJournal j = OrderJournal.open(dir, SEGMENT_BYTES)) {
+            for (int i = from; i < to; i++) j.append(order("J-" + i)).join();
+        }
+    }
+
+    /** Every durable record after the checkpoint: TXN_ID and the position it starts at. */
+    private record Entry(String txnId, OrderJournal.Position start, OrderJournal.Position next) {}
+
+    private static List<Entry> readAll(OrderJournal j) throws Exception {
+        List<Entry> out = new ArrayList<>();
+        OrderJournal.Position[] at = {j.getCheckpoint()};
+        while (j.read(at[0], 100, (payload, next) -> {
+            payload.get();    // record type
+            payload.getInt(); // frame length
+            Order o = BinaryOrderCodec.getOrder(payload, id -> new MenuItem(id, "x", "x", Money.ofCents(1), true));
+            out.add(new Entry(o.getTxnId(), at[0], next));
+            at[0] = next;
+        }) > 0) {
+            // keep reading
+        }
+        return out;
+    }
+
+    private Path segment(long n) {
+        return dir.resolve(String.format("journal-%06d.seg", n));
+    }
+
+    @Test
+    void recordsSurviveReopenAcrossSegments() throws Exception {
+        append(0, 150); // more than one 4 KB segment
+
+        try (OrderJournal j = OrderJournal.open(dir, SEGMENT_BYTES)) {
+            assertEquals(150, j.getPendingAtOpen());
+            List<Entry> all = readAll(j);
+            assertEquals(150, all.size());
+            assertEquals("J-0", all.get(0).txnId());
+            assertEquals("J-149", all.get(149).txnId());
+            assertTrue(all.get(149).start().segment() > 1);
+        }
+    }
+
+    @Test
+    void tornLastRecordIsDroppedOnRecovery() throws Exception {
+        append(0, 10);
+
+        Entry last;
+        try (OrderJournal j = OrderJournal.open(dir, SEGMENT_BYTES)) {
+            List<Entry> all = readAll(j);
+            last = all.get(all.size() - 1);
+        }
+        // Damage the payload of the last record, as a write cut off by a crash would
+        try (FileChannel ch = FileChannel.open(segment(last.start().segment()), StandardOpenOption.WRITE)) {
+            ch.write(ByteBuffer.wrap(new byte[]{(byte) 0xFF, (byte) 0xFF}), last.start().offset() + 12);
+        }
+
+        try (OrderJournal j = OrderJournal.open(dir, SEGMENT_BYTES)) {
+            assertEquals(9, j.getPendingAtOpen());
+            // New appends go where the torn record was
+            j.append(order("J-after")).join();
+            List<Entry> all = readAll(j);
+            assertEquals(10, all.size());
+            assertEquals("J-8", all.get(8).txnId());
+            assertEquals("J-after", all.get(9).txnId());
+            assertEquals(last.start(), all.get(9).start());
+        }
+    }
+
+    @Test
+    void blankLastSegmentAndLeftoverTempFileAreIgnored() throws Exception {
+        append(0, 5);
+        // Left by a crash while creating segment 2 (older versions wrote the header in place)
+        try (FileChannel ch = FileChannel.open(segment(2), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            ch.write(ByteBuffer.allocate(SEGMENT_BYTES));
+        }
+        Files.write(dir.resolve("journal-000003.seg.tmp"), new byte[100]);
+
+        try (OrderJournal j = OrderJournal.open(dir, SEGMENT_BYTES)) {
+            assertEquals(5, j.getPendingAtOpen());
+            // Enough to roll into a new segment 2
+            for (int i = 5; i < 100; i++) j.append(order("J-" + i)).join();
+            assertEquals(100, readAll(j).size());
+        }
+        assertFalse(Files.exists(dir.resolve("journal-000003.seg.tmp")));
+        try (OrderJournal j = OrderJournal.open(dir, SEGMENT_BYTES)) {
+            assertEquals(100, j.getPendingAtOpen());
+        }
+    }
+
+    @Test
+    void checkpointSkipsDrainedRecordsAndDeletesOldSegments() throws Exception {
+        append(0, 150);
+
+        try (OrderJournal j = OrderJournal.open(dir, SEGMENT_BYTES)) {
+            List<Entry> all = readAll(j);
+            j.checkpoint(all.get(99).next());
+            assertFalse(Files.exists(segment(1)));
+        }
+        try (OrderJournal j = OrderJournal.open(dir, SEGMENT_BYTES)) {
+            assertEquals(50, j.getPendingAtOpen());
+            assertEquals("J-100", readAll(j).get(0).txnId());
+        }
+    }
+
+    @Test
+    void orderWithNoRoomForTheEndMarkerIsRejected() throws Exception {
+        // Pad the TXN_ID until the record fills an empty segment but for 2 bytes:
+        // too big, because the segment also needs its 4-byte end marker
+        int target = SEGMENT_BYTES - OrderJournal.HEADER - 8 - 2;
+        ByteBuffer buf = ByteBuffer.allocate(2 * SEGMENT_BYTES);
+        BinaryOrderCodec.putOrder(buf, order("J-big"));
+        Order big = order("J-big" + "x".repeat(target - buf.position()));
+        buf.clear();
+        BinaryOrderCodec.putOrder(buf, big);
+        assertEquals(target, buf.position());
+
+        try (OrderJournal j = OrderJournal.open(dir, SEGMENT_BYTES)) {
+            j.append(order("J-0")).join();
+            CompletionException e = assertThrows(CompletionException.class, () -> j.append(big).join());
+            assertInstanceOf(IOException.class, e.getCause());
+            j.append(order("J-1")).join();
+        }
+        try (OrderJournal j = OrderJournal.open(dir, SEGMENT_BYTES)) {
+            assertEquals(List.of("J-0", "J-1"), readAll(j).stream().map(Entry::txnId).toList());
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package od.model;
+
+import od.model.ItemOptions.Filling;
+import od.model.ItemOptions.Icing;
+import od.model.ItemOptions.Size;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CartTest {
+
+    private static final MenuItem GLAZED = new MenuItem(1, "Glazed", "Donuts", Money.ofCents(199), true);
+    private static final MenuItem COFFEE = new MenuItem(2, "Coffee", "Drinks", Money.ofCents(175), true);
+
+    @Test
+    void totalsFollowEveryChange() {
+        Cart cart = new Cart();
+        cart.add(GLAZED, ItemOptions.NONE, 2, 199);                                            // 3.98
+        int coffee = cart.add(COFFEE, ItemOptions.of(Size.LARGE, Icing.NONE, Filling.NONE), 1, 210); // 2.10
+        assertEquals(608, cart.getSubtotalCents());
+        assertEquals(36, cart.getTaxCents());   // 36.48
+        assertEquals(644, cart.getTotalCents());
+
+        cart.setQty(coffee, 3);
+        assertEquals(1028, cart.getSubtotalCents());
+        assertEquals(62, cart.getTaxCents());   // 61.68
+
+        cart.remove(0);
+        assertEquals(630, cart.getSubtotalCents());
+        assertEquals(1, cart.size());
+
+        cart.clear();
+        assertTrue(cart.isEmpty());
+        assertEquals(0, cart.getTotalCents());
+    }
+
+    @Test
+    void runningSubtotalMatchesARecount() {
+        Cart cart = new Cart();
+        Random random = new Random(7);
+        for (int step = 0; step < 1_000; step++) {
+            int op = cart.isEmpty() ? 0 : random.nextInt(3);
+            if (op == 0) {
+                cart.add(GLAZED, ItemOptions.NONE, 1 + random.nextInt(12), 50 + random.nextInt(500));
+            } else if (op == 1) {
+                cart.setQty(random.nextInt(cart.size()), 1 + random.nextInt(12));
+            } else {
+                cart.remove(random.nextInt(cart.size()));
+            }
+
+            long recount = 0;
+            for (Cart.Line line : cart.getLines()) recount += line.getLineTotalCents();
+            assertEquals(recount, cart.getSubtotalCents());
+        }
+    }
+
+    @Test
+    void quantityBelowOneIsRejectedAndLeavesTotalsAlone() {
+        Cart cart = new Cart();
+        cart.add(GLAZED, ItemOptions.NONE, 2, 199);
+
+        assertThrows(IllegalArgumentException.class, () -> cart.add(COFFEE, ItemOptions.NONE, 0, 175));
+        assertThrows(IllegalArgumentException.class, () -> cart.setQty(0, 0));
+        assertEquals(398, cart.getSubtotalCents());
+        assertEquals(2, cart.getLine(0).getQty());
+    }
+
+    @Test
+    void orderFromTheCartHasTheSameTotal() {
+        Cart cart = new Cart();
+        cart.add(GLAZED, ItemOptions.of(Size.SMALL, Icing.CHOCOLATE, Filling.NONE), 3, 179);
+        cart.add(COFFEE, ItemOptions.NONE, 1, 175);
+
+        Order order = cart.toOrder("CART-1", LocalDateTime.of(2025, 1, 1, 9, 0));
+
+        assertEquals(2, order.getItems().size());
+        assertEquals(cart.getSubtotalCents(), order.getTotalCents());
+        assertEquals(Icing.CHOCOLATE, order.getItems().get(0).getOptions().getIcing());
+    }
+}
@@ -0,0 +1,54 @@
+package od.model;
+
+import od.model.ItemOptions.Size;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoneyTest {
+
+    @Test
+    void decimalsAreRoundedHalfUpToTheCent() {
+        assertEquals(150, Money.of(new BigDecimal("1.495")).cents());
+        assertEquals(149, Money.of(new BigDecimal("1.494")).cents());
+        assertEquals(-150, Money.of(new BigDecimal("-1.495")).cents());
+        assertEquals(199, Money.parse("$1.99").cents());
+        assertEquals(new BigDecimal("1.99"), Money.ofCents(199).toBigDecimal());
+    }
+
+    @Test
+    void scaleRoundsHalfUpAwayFromZero() {
+        assertEquals(134, Money.scale(149, 9_000));  // 1.341
+        assertEquals(11, Money.scale(175, 600));     // 10.5
+        assertEquals(10, Money.scale(174, 600));     // 10.44
+        assertEquals(-11, Money.scale(-175, 600));
+        assertEquals(Money.ofCents(179), Money.ofCents(149).scale(12_000)); // 1.788
+    }
+
+    @Test
+    void formatsAsPlainDollars() {
+        assertEquals("12.34", Money.format(1234));
+        assertEquals("0.05", Money.format(5));
+        assertEquals("-0.05", Money.format(-5));
+        assertEquals("3.00", Money.ofCents(300).toString());
+    }
+
+    @Test
+    void arithmeticOverflowFailsInsteadOfWrapping() {
+        Money max = Money.ofCents(Long.MAX_VALUE);
+        assertThrows(ArithmeticException.class, () -> max.plus(Money.ofCents(1)));
+        assertThrows(ArithmeticException.class, () -> max.times(2));
+    }
+
+    @Test
+    void taxAndSizePricesFollowPricing() {
+        assertEquals(42, Pricing.taxCents(697));
+        assertEquals(739, Pricing.totalWithTaxCents(697));
+        assertEquals(179, Size.SMALL.priceCents(199));  // 1.791
+        assertEquals(199, Size.MEDIUM.priceCents(199));
+        assertEquals(239, Size.LARGE.priceCents(199));  // 2.388
+        assertEquals(199, Size.UNSPECIFIED.priceCents(199));
+    }
+}
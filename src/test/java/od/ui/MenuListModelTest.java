@@ -0,0 +1,114 @@
+package od.ui;
+
+import od.model.MenuItem;
+import od.model.Money;
+import org.junit.jupiter.api.Test;
+
+import javax.swing.event.ListDataEvent;
+import javax.swing.event.ListDataListener;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MenuListModelTest {
+
+    private static final List<MenuItem> MENU = new ArrayList<>();
+    static {
+        for (int i = 0; i < 12; i++) MENU.add(new MenuItem(i, "Item " + i, "Donuts", Money.ofCents(100), true));
+    }
+
+    /** Applies each event to a copy of what the JList showed, like a JList would. */
+    private static final class Mirror implements ListDataListener {
+        final List<MenuItem> shown = new ArrayList<>();
+        final MenuListModel model;
+        int events;
+
+        Mirror(MenuListModel model) {
+            this.model = model;
+            model.addListDataListener(this);
+        }
+
+        @Override
+        public void contentsChanged(ListDataEvent e) {
+            events++;
+            for (int i = e.getIndex0(); i <= e.getIndex1(); i++) shown.set(i, model.getElementAt(i));
+        }
+
+        @Override
+        public void intervalRemoved(ListDataEvent e) {
+            events++;
+            shown.subList(e.getIndex0(), e.getIndex1() + 1).clear();
+        }
+
+        @Override
+        public void intervalAdded(ListDataEvent e) {
+            events++;
+            for (int i = e.getIndex0(); i <= e.getIndex1(); i++) shown.add(i, model.getElementAt(i));
+        }
+    }
+
+    @Test
+    void narrowingTheSearchRemovesOnlyTheRowsThatGo() {
+        MenuListModel model = new MenuListModel();
+        model.setItems(MENU);
+        Mirror mirror = new Mirror(model);
+        mirror.shown.addAll(MENU);
+
+        List<ListDataEvent> seen = new ArrayList<>();
+        model.addListDataListener(new ListDataListener() {
+            @Override public void intervalAdded(ListDataEvent e) { seen.add(e); }
+            @Override public void intervalRemoved(ListDataEvent e) { seen.add(e); }
+            @Override public void contentsChanged(ListDataEvent e) { seen.add(e); }
+        });
+
+        model.setItems(MENU.subList(0, 5));
+
+        assertEquals(1, seen.size());
+        assertEquals(ListDataEvent.INTERVAL_REMOVED, seen.get(0).getType());
+        assertEquals(5, seen.get(0).getIndex0());
+        assertEquals(11, seen.get(0).getIndex1());
+        assertEquals(MENU.subList(0, 5), mirror.shown);
+    }
+
+    @Test
+    void sameItemsFireNothing() {
+        MenuListModel model = new MenuListModel();
+        model.setItems(MENU);
+        Mirror mirror = new Mirror(model);
+
+        model.setItems(new ArrayList<>(MENU));
+
+        assertEquals(0, mirror.events);
+    }
+
+    @Test
+    void randomUpdatesLeaveTheListShowingTheNewItems() {
+        MenuListModel model = new MenuListModel();
+        Mirror mirror = new Mirror(model);
+        Random random = new Random(21);
+
+        for (int round = 0; round < 500; round++) {
+            // A random subsequence of the menu, as a search result would be
+            List<MenuItem> next = new ArrayList<>();
+            for (MenuItem m : MENU) if (random.nextInt(3) > 0) next.add(m);
+
+            int before = mirror.events;
+            model.setItems(next);
+
+            assertEquals(next, mirror.shown);
+            assertTrue(mirror.events - before <= 2, "at most one change and one add/remove");
+        }
+    }
+
+    @Test
+    void findsRowsById() {
+        MenuListModel model = new MenuListModel();
+        model.setItems(MENU.subList(3, 8));
+
+        assertEquals(2, model.indexOfId(5));
+        assertEquals(-1, model.indexOfId(0));
+        assertEquals(-1, model.indexOfId(null));
+    }
+}
@@ -0,0 +1,116 @@
+package od.util;
+
+import od.model.ItemOptions;
+import od.model.ItemOptions.Filling;
+import od.model.ItemOptions.Icing;
+import od.model.ItemOptions.Size;
+import od.model.MenuItem;
+import od.model.Money;
+import od.model.Order;
+import od.model.OrderItem;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReceiptRendererTest {
+
+    private static final MenuItem GLAZED = new MenuItem(1, "Glazed", "Donuts", Money.ofCents(199), true);
+    private static final MenuItem BOSTON = new MenuItem(2, "Boston Cream", "Donuts", Money.ofCents(249), true);
+
+    private static Order order() {
+        Order o = new Order(null, "20250116-154220-007-0003", LocalDateTime.of(2025, 1, 16, 15, 42, 20));
+        o.addItem(new OrderItem(null, null, GLAZED, 2, Money.ofCents(199), ItemOptions.NONE));
+        o.addItem(new OrderItem(null, null, BOSTON, 1, Money.ofCents(299),
+                ItemOptions.of(Size.LARGE, Icing.CHOCOLATE, Filling.CUSTARD)));
+        return o;
+    }
+
+    @Test
+    void standardTextReceipt() {
+        assertEquals("""
+                =========== OAK DONUTS RECEIPT ===========
+                Transaction ID: 20250116-154220-007-0003
+                Date: 2025-01-16 15:42
+
+                Items:
+                 - Glazed x 2 @ $1.99 = $3.98
+                 - Boston Cream x 1 @ $2.99 = $2.99
+                     Size: Large, Icing: Chocolate, Filling: Custard
+
+                Subtotal: $6.97
+                Tax (6%): $0.42
+                TOTAL: $7.39
+                ==========================================
+                """, Receipt.generate(order()));
+    }
+
+    @Test
+    void taxIsRoundedHalfUpToTheCent() {
+        Order o = new Order(null, "20250116-154221-007-0000", LocalDateTime.of(2025, 1, 16, 15, 42, 21));
+        o.addItem(new OrderItem(null, null, GLAZED, 1, Money.ofCents(175), ItemOptions.NONE)); // 6% = 10.5 cents
+
+        assertEquals("""
+                =========== OAK DONUTS RECEIPT ===========
+                Transaction ID: 20250116-154221-007-0000
+                Date: 2025-01-16 15:42
+
+                Items:
+                 - Glazed x 1 @ $1.75 = $1.75
+
+                Subtotal: $1.75
+                Tax (6%): $0.11
+                TOTAL: $1.86
+                ==========================================
+                """, Receipt.generate(o));
+    }
+
+    @Test
+    void escPosWrapsTheTextInPrinterCommands() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ReceiptRenderer.standard().render(order(), ReceiptFormat.ESC_POS, out);
+        String bytes = out.toString(StandardCharsets.ISO_8859_1);
+
+        assertTrue(bytes.startsWith("\u001B@\u001BE\u0001=========== OAK DONUTS RECEIPT ===========\u001BE\u0000\n"));
+        assertTrue(bytes.contains("\u001BE\u0001TOTAL: $7.39\u001BE\u0000\n"));
+        assertTrue(bytes.endsWith("==========================================\n\u001Bd\u0004\u001DV\u0001"));
+    }
+
+    @Test
+    void htmlEscapesTextAndMarksBold() throws Exception {
+        Order o = new Order(null, "20250116-154222-007-0000", LocalDateTime.of(2025, 1, 16, 15, 42, 22));
+        MenuItem jam = new MenuItem(3, "Jam & <Cream>", "Donuts", Money.ofCents(250), true);
+        o.addItem(new OrderItem(null, null, jam, 1, Money.ofCents(250), ItemOptions.NONE));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ReceiptRenderer.standard().render(o, ReceiptFormat.HTML, out);
+        String html = out.toString(StandardCharsets.UTF_8);
+
+        assertTrue(html.startsWith("<pre class=\"receipt\"><b>=========== OAK DONUTS RECEIPT ===========</b>\n"));
+        assertTrue(html.contains(" - Jam &amp; &lt;Cream&gt; x 1 @ $2.50 = $2.50\n"));
+        assertTrue(html.endsWith("==========================================\n</pre>\n"));
+    }
+
+    @Test
+    void streamBufferAndBatchOutputMatch() throws Exception {
+        ReceiptRenderer r = ReceiptRenderer.standard();
+        ByteArrayOutputStream one = new ByteArrayOutputStream();
+        int n = r.render(order(), ReceiptFormat.ESC_POS, one);
+
+        ByteBuffer buf = ByteBuffer.allocate(4096);
+        assertEquals(n, r.render(order(), ReceiptFormat.ESC_POS, buf));
+        assertArrayEquals(one.toByteArray(), Arrays.copyOf(buf.array(), buf.position()));
+
+        ByteArrayOutputStream all = new ByteArrayOutputStream();
+        assertEquals(3L * n, r.renderAll(List.of(order(), order(), order()), ReceiptFormat.ESC_POS, all));
+        byte[] expected = new byte[3 * n];
+        for (int i = 0; i < 3; i++) System.arraycopy(one.toByteArray(), 0, expected, i * n, n);
+        assertArrayEquals(expected, all.toByteArray());
+    }
+}
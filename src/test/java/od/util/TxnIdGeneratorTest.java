@@ -0,0 +1,114 @@
+package od.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TxnIdGeneratorTest {
+
+    private static final ZoneId LONDON = ZoneId.of("Europe/London");
+
+    private static long millis(LocalDateTime local) {
+        return local.atZone(LONDON).toInstant().toEpochMilli();
+    }
+
+    @Test
+    void encodesLocalDateTimeNodeAndSequence() {
+        TxnIdGenerator g = new TxnIdGenerator(7, LONDON);
+
+        // Winter (GMT) and summer (BST, one hour ahead of UTC)
+        assertEquals("20250116-154220-007-0000", g.next(millis(LocalDateTime.of(2025, 1, 16, 15, 42, 20))));
+        assertEquals("20250716-154220-007-0000", g.next(millis(LocalDateTime.of(2025, 7, 16, 15, 42, 20))));
+        // Leap day, last second of the day
+        assertEquals("20280229-235959-007-0000", g.next(millis(LocalDateTime.of(2028, 2, 29, 23, 59, 59, 999_000_000))));
+    }
+
+    @Test
+    void sameSecondCountsUpAndRollsIntoTheNextSecondWhenFull() {
+        TxnIdGenerator g = new TxnIdGenerator(1, LONDON);
+        long now = millis(LocalDateTime.of(2025, 3, 1, 12, 0, 0));
+
+        assertEquals("20250301-120000-001-0000", g.next(now));
+        assertEquals("20250301-120000-001-0001", g.next(now + 500));
+        String last = null;
+        for (int i = 2; i <= 10_000; i++) last = g.next(now);
+        assertEquals("20250301-120001-001-0000", last);
+    }
+
+    @Test
+    void clockGoingBackwardsNeverRepeatsOrGoesBackwards() {
+        TxnIdGenerator g = new TxnIdGenerator(1, LONDON);
+        long now = millis(LocalDateTime.of(2025, 3, 1, 12, 0, 5));
+
+        String before = g.next(now);
+        String after = g.next(now - 3_000);
+        assertTrue(after.compareTo(before) > 0, after + " should sort after " + before);
+        assertEquals("20250301-120005-001-0001", after);
+    }
+
+    @Test
+    void concurrentIdsAreUniqueAndIncreasingPerThread() throws Exception {
+        TxnIdGenerator g = new TxnIdGenerator(42);
+        Set<String> all = ConcurrentHashMap.newKeySet();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> done = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                done.add(pool.submit(() -> {
+                    String prev = "";
+                    for (int i = 0; i < 5_000; i++) {
+                        String id = g.next();
+                        assertTrue(id.compareTo(prev) > 0);
+                        assertTrue(all.add(id), "repeated " + id);
+                        prev = id;
+                    }
+                }));
+            }
+            for (Future<?> f : done) f.get();
+        } finally {
+            pool.shutdown();
+        }
+        assertEquals(40_000, all.size());
+    }
+
+    @Test
+    void restartedGeneratorContinuesAfterTheNewestStoredId() {
+        long now = millis(LocalDateTime.of(2025, 3, 1, 12, 0, 0));
+        TxnIdGenerator before = new TxnIdGenerator(3, LONDON);
+        String last = null;
+        for (int i = 0; i < 10_005; i++) last = before.next(now); // counted ahead into 12:00:01
+        assertEquals("20250301-120001-003-0004", last);
+
+        // A new generator (restart) at 12:00:00 again
+        TxnIdGenerator after = new TxnIdGenerator(3, LONDON);
+        after.advancePast(last);
+        assertEquals("20250301-120001-003-0005", after.next(now));
+
+        // Once the clock is past it, a new second starts at 0000 as usual
+        assertEquals("20250301-120002-003-0000", after.next(now + 2_000));
+    }
+
+    @Test
+    void advancePastIgnoresOtherNodesAndOtherFormats() {
+        long now = millis(LocalDateTime.of(2025, 3, 1, 12, 0, 0));
+        TxnIdGenerator g = new TxnIdGenerator(3, LONDON);
+
+        g.advancePast("20250301-120000-004-0099"); // another register
+        g.advancePast("20250301-120000-1234");     // old random-suffix format
+        g.advancePast("20251301-120000-003-0001"); // month 13
+        g.advancePast("2025030X-120000-003-0001");
+        g.advancePast(null);
+
+        assertEquals("20250301-120000-003-0000", g.next(now));
+    }
+}